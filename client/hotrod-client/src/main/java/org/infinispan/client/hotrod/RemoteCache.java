@@ -22,12 +22,16 @@
  */
 package org.infinispan.client.hotrod;
 
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.infinispan.api.BasicCache;
+import org.infinispan.client.hotrod.event.ClientCacheListener;
+import org.infinispan.client.hotrod.event.ClientListenerOptions;
 import org.infinispan.util.concurrent.NotifyingFuture;
 
 /**
@@ -46,9 +50,14 @@
  * supplied key. In case of RemoteCache, this returns null.
  * <p/>
  * <b>Synthetic operations</b>: aggregate operations are being implemented based on other Hot Rod operations. E.g. all
- * the {@link java.util.Map#putAll(java.util.Map)} is implemented through multiple individual puts. This means that the
- * these operations are not atomic and that they are costly, e.g. as the number of network round-trips is not one, but
- * the size of the added map. All these synthetic operations are documented as such.
+ * the {@link java.util.Map#putAll(java.util.Map)} is implemented through multiple individual puts when using a protocol
+ * version older than 1.2. This means that the these operations are not atomic and that they are costly, e.g. as the
+ * number of network round-trips is not one, but the size of the added map. All these synthetic operations are
+ * documented as such.
+ * <p/>
+ * <b>Multi-key operations</b>: from version 1.2 of the protocol, {@link #getAll(java.util.Set)},
+ * {@link #putAll(java.util.Map)} and {@link #removeAll(java.util.Set)} group the keys by the server owning them and send
+ * a single request to each of those servers, in parallel. They are not atomic across servers.
  * <p/>
  * <b>changing default behavior through {@link org.infinispan.client.hotrod.Flag}s</b>: it is possible to change the
  * default cache behaviour by using flags on an per invocation basis. E.g.
@@ -268,9 +277,10 @@
    NotifyingFuture<Boolean> replaceAsync(K key, V oldValue, V newValue, long lifespan, TimeUnit lifespanUnit, long maxIdle, TimeUnit maxIdleUnit);
 
    /**
-    * Synthetic operation. The client iterates over the set of keys and calls put for each one of them. This results in
-    * operation not being atomic (if a failure happens after few puts it is not rolled back) and costly (for each key in
-    * the parameter map a remote call is performed).
+    * Multi-key operation. With protocol version 1.2 or newer, the entries are sent in a single request to each server
+    * owning some of them. With older versions, this is a synthetic operation: the client iterates over the set of keys
+    * and calls put for each one of them. In both cases the operation is not atomic (if a failure happens after few puts
+    * it is not rolled back).
     */
    @Override
    void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit unit);
@@ -349,4 +359,67 @@
     * guarantee that "size" elements are returned( e.g. if the number of elements in the back-end server is smaller that "size")
     */
    Map<K, V> getBulk(int size);
+
+   /**
+    * Multi-key get. With protocol version 1.2 or newer, the keys are read with a single request to each server owning
+    * some of them. With older versions, this is a synthetic operation that calls get for each one of the keys.
+    *
+    * @return the entries found for the given keys. Keys that do not exist are not present in the returned Map, which
+    *         is unmodifiable.
+    */
+   Map<K, V> getAll(Set<? extends K> keys);
+
+   /**
+    * Multi-key remove. With protocol version 1.2 or newer, the keys are removed with a single request to each server
+    * owning some of them. With older versions, this is a synthetic operation that calls remove for each one of the
+    * keys. Previous values are not returned, and the operation is not atomic.
+    */
+   void removeAll(Set<? extends K> keys);
+
+   /**
+    * Returns a stream over a value written through {@link #putStream(Object)}, or null if there is no such value. The
+    * value is fetched from the servers in chunks while it is read, so it never has to fit in memory.
+    */
+   InputStream getStream(K key);
+
+   /**
+    * Same as {@link #putStream(Object, long, java.util.concurrent.TimeUnit, long, java.util.concurrent.TimeUnit)}, but
+    * the value never expires.
+    */
+   OutputStream putStream(K key);
+
+   /**
+    * Returns a stream for writing a value which might be too large to be kept in memory. The written bytes are sent to
+    * the servers in chunks of <tt>infinispan.client.hotrod.stream_chunk_size</tt> bytes, and the value replaces the
+    * previous one once the stream is closed. Streamed values are stored apart from the other entries of the cache: they
+    * can only be read with {@link #getStream(Object)} and removed with {@link #removeStream(Object)}.
+    */
+   OutputStream putStream(K key, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit);
+
+   /**
+    * Removes a value written through {@link #putStream(Object)}.
+    *
+    * @return true if there was such a value
+    */
+   boolean removeStream(K key);
+
+   /**
+    * Same as {@link #addClientListener(ClientCacheListener, ClientListenerOptions)}, with the default options: every
+    * event, including values.
+    */
+   void addClientListener(ClientCacheListener<K, V> listener);
+
+   /**
+    * Registers a listener for the modifications of the entries of this cache, made by any client or in the servers.
+    * The events are filtered in the servers according to the given options, and pushed to this client through a
+    * dedicated connection to each server. If a connection fails, the client reconnects and the server sends the events
+    * missed in the meantime, as long as it still has them; otherwise the listener is told that events were lost. The
+    * listener is registered in the servers before this method returns. Only available from version 1.2 of the
+    * protocol.
+    *
+    * @throws UnsupportedOperationException with older protocol versions
+    */
+   void addClientListener(ClientCacheListener<K, V> listener, ClientListenerOptions options);
+
+   void removeClientListener(ClientCacheListener<K, V> listener);
 }
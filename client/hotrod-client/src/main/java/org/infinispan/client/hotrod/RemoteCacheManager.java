@@ -39,6 +39,8 @@
 import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.impl.ConfigurationProperties;
 import org.infinispan.client.hotrod.impl.RemoteCacheImpl;
+import org.infinispan.client.hotrod.impl.event.ClientListeners;
+import org.infinispan.client.hotrod.impl.near.NearCache;
 import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
 import org.infinispan.client.hotrod.impl.operations.PingOperation.PingResult;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
@@ -52,6 +54,7 @@
 import org.infinispan.util.FileLookupFactory;
 import org.infinispan.util.SysPropertyActions;
 import org.infinispan.util.Util;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
 
 /**
  * Factory for {@link org.infinispan.client.hotrod.RemoteCache}s. <p/> <p> <b>Lifecycle:</b> </p> In order to be able to
@@ -76,14 +79,15 @@
  * Below is the list of supported configuration elements:
  * <ul>
  * <li><tt>infinispan.client.hotrod.request_balancing_strategy</tt>, default = org.infinispan.client.hotrod.impl.transport.tcp.RoundRobinBalancingStrategy.  For replicated (vs distributed) Hot Rod server clusters, the client balances requests to the
- * servers according to this strategy.</li>
+ * servers according to this strategy. With org.infinispan.client.hotrod.impl.transport.tcp.LatencyWeightedBalancingStrategy the requests go
+ * to the server with the lowest expected response time, and for distributed clusters each keyed request goes to the fastest of the key's owners.</li>
  * <li><tt>infinispan.client.hotrod.server_list</tt>, default = 127.0.0.1:11222.  This is the initial list of Hot Rod servers to connect to, specified in the following format: host1:port1;host2:port2...
  * At least one host:port must be specified.</li>
  * <li><tt>infinispan.client.hotrod.force_return_values</tt>, default = false.  Whether or not to implicitly {@link org.infinispan.client.hotrod.Flag#FORCE_RETURN_VALUE} for all calls.</li>
  * <li><tt>infinispan.client.hotrod.tcp_no_delay</tt>, default = true.  Affects TCP NODELAY on the TCP stack.</li>
  * <li><tt>infinispan.client.hotrod.ping_on_startup</tt>, default = true.  If true, a ping request is sent to a back end server in order to fetch cluster's topology.</li>
- * <li><tt>infinispan.client.hotrod.transport_factory</tt>, default = org.infinispan.client.hotrod.impl.transport.tcp.TcpTransportFactory - controls which transport to use.  Currently only the TcpTransport is supported.</li>
- * <li><tt>infinispan.client.hotrod.marshaller</tt>, default = org.infinispan.marshall.jboss.GenericJBossMarshaller.  Allows you to specify a custom {@link org.infinispan.marshall.Marshaller} implementation to serialize and deserialize user objects. For portable serialization payloads, you should configure the marshaller to be {@link org.infinispan.client.hotrod.marshall.ApacheAvroMarshaller}</li>
+ * <li><tt>infinispan.client.hotrod.transport_factory</tt>, default = org.infinispan.client.hotrod.impl.transport.tcp.TcpTransportFactory - controls which transport to use.  Use org.infinispan.client.hotrod.impl.transport.tcp.MultiplexedTransportFactory to pipeline the requests over a few connections per server, instead of using a pooled connection per request in flight. With this transport, the responses of the async operations are read without holding a thread per request.</li>
+ * <li><tt>infinispan.client.hotrod.marshaller</tt>, default = org.infinispan.marshall.jboss.GenericJBossMarshaller.  Allows you to specify a custom {@link org.infinispan.marshall.Marshaller} implementation to serialize and deserialize user objects. For portable serialization payloads, you should configure the marshaller to be {@link org.infinispan.client.hotrod.marshall.ApacheAvroMarshaller}, or {@link org.infinispan.client.hotrod.marshall.CompactMarshaller} for a more compact and faster encoding which also supports application types</li>
  * <li><tt>infinispan.client.hotrod.async_executor_factory</tt>, default = org.infinispan.client.hotrod.impl.async.DefaultAsyncExecutorFactory.  Allows you to specify a custom asynchroous executor for async calls.</li>
  * <li><tt>infinispan.client.hotrod.default_executor_factory.pool_size</tt>, default = 10.  If the default executor is used, this configures the number of threads to initialize the executor with.</li>
  * <li><tt>infinispan.client.hotrod.default_executor_factory.queue_size</tt>, default = 100000.  If the default executor is used, this configures the queue size to initialize the executor with.</li>
@@ -91,8 +95,12 @@
  * <li><tt>infinispan.client.hotrod.key_size_estimate</tt>, default = 64.  This hint allows sizing of byte buffers when serializing and deserializing keys, to minimize array resizing.</li>
  * <li><tt>infinispan.client.hotrod.value_size_estimate</tt>, default = 512.  This hint allows sizing of byte buffers when serializing and deserializing values, to minimize array resizing.</li>
  * <li><tt>infinispan.client.hotrod.socket_timeout</tt>, default = 60000 (60 seconds).  This property defines the maximum socket read timeout before giving up waiting for bytes from the server.</li>
- * <li><tt>infinispan.client.hotrod.protocol_version</tt>, default = 1.1 .This property defines the protocol version that this client should use. Other valid values include 1.0.</li>
+ * <li><tt>infinispan.client.hotrod.protocol_version</tt>, default = 1.1 .This property defines the protocol version that this client should use. Other valid values include 1.0 and 1.2, which adds the multi-key getAll, putAll and removeAll operations, the near cache and the client listeners, and requires servers that support it.</li>
  * <li><tt>infinispan.client.hotrod.connect_timeout</tt>, default = 60000 (60 seconds).  This property defines the maximum socket connect timeout before giving up connecting to the server.</li>
+ * <li><tt>infinispan.client.hotrod.connections_per_server</tt>, default = 2.  The number of connections opened to each server by the MultiplexedTransportFactory. It is ignored by the TcpTransportFactory, whose connections are configured by the pooling properties below.</li>
+ * <li><tt>infinispan.client.hotrod.near_cache.max_entries</tt>, default = 0 (disabled).  The maximum number of entries each remote cache keeps in its client side near cache. Entries read through get and getVersioned are kept until they are invalidated by the servers, which push an event whenever they are modified. Requires protocol version 1.2.</li>
+ * <li><tt>infinispan.client.hotrod.near_cache.eviction</tt>, default = LRU.  The eviction strategy of the near cache, either LRU or LIRS.</li>
+ * <li><tt>infinispan.client.hotrod.stream_chunk_size</tt>, default = 524288 (512 KB).  The size of the chunks in which the values written through RemoteCache.putStream are sent to, and stored by, the servers. It bounds the memory used on both sides for streaming a value.</li>
  * </ul>
  * <br/>
  * <i>The following properties are related to connection pooling</i>:
@@ -487,6 +495,11 @@ public void start() {
    @Override
    public void stop() {
       if (isStarted()) {
+         synchronized (cacheName2RemoteCache) {
+            for (RemoteCacheHolder rcc : cacheName2RemoteCache.values()) {
+               rcc.remoteCache.stop();
+            }
+         }
          transportFactory.destroy();
          asyncExecutorService.shutdownNow();
       }
@@ -547,7 +560,21 @@ private void startRemoteCache(RemoteCacheHolder remoteCacheHolder) {
       RemoteCacheImpl<?, ?> remoteCache = remoteCacheHolder.remoteCache;
       OperationsFactory operationsFactory = new OperationsFactory(
             transportFactory, remoteCache.getName(), topologyId, remoteCacheHolder.forceReturnValue, codec);
-      remoteCache.init(marshaller, asyncExecutorService, operationsFactory, config.getKeySizeEstimate(), config.getValueSizeEstimate());
+      NearCache nearCache = null;
+      if (config.getNearCacheMaxEntries() > 0) {
+         if (operationsFactory.isNearCacheSupported()) {
+            Eviction eviction = Eviction.valueOf(config.getNearCacheEviction().toUpperCase());
+            nearCache = new NearCache(config.getNearCacheMaxEntries(), eviction, operationsFactory, transportFactory, topologyId);
+         } else {
+            log.nearCacheNotSupported(config.getProtocolVersion());
+         }
+      }
+      ClientListeners clientListeners = null;
+      if (operationsFactory.isClientListenerSupported()) {
+         clientListeners = new ClientListeners(marshaller, operationsFactory, transportFactory);
+      }
+      remoteCache.init(marshaller, asyncExecutorService, operationsFactory, config.getKeySizeEstimate(),
+                       config.getValueSizeEstimate(), nearCache, config.getStreamChunkSize(), clientListeners);
    }
 
    private void setMarshaller(Marshaller marshaller) {
@@ -0,0 +1,81 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.event;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * Modification of an entry of a remote cache.
+ *
+ * @since 5.2
+ */
+@Immutable
+public class ClientCacheEntryEvent<K, V> {
+
+   public enum Type {
+      /**
+       * The entry was created or its value replaced
+       */
+      MODIFIED,
+      REMOVED
+   }
+
+   private final Type type;
+   private final K key;
+   private final V value;
+   private final long version;
+
+   public ClientCacheEntryEvent(Type type, K key, V value, long version) {
+      this.type = type;
+      this.key = key;
+      this.value = value;
+      this.version = version;
+   }
+
+   public Type getType() {
+      return type;
+   }
+
+   public K getKey() {
+      return key;
+   }
+
+   /**
+    * @return the new value, or null if the entry was removed or the listener was registered without values
+    */
+   public V getValue() {
+      return value;
+   }
+
+   /**
+    * @return the version of the new value, or 0 if there is no value
+    */
+   public long getVersion() {
+      return version;
+   }
+
+   @Override
+   public String toString() {
+      return "ClientCacheEntryEvent{type=" + type + ", key=" + key + ", version=" + version + "}";
+   }
+}
@@ -0,0 +1,45 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.event;
+
+/**
+ * Receives the modifications of the entries of a remote cache, as registered with {@link
+ * org.infinispan.client.hotrod.RemoteCache#addClientListener(ClientCacheListener, ClientListenerOptions)}.
+ * <p/>
+ * Events are delivered from background threads, one at a time. Events for the same key are delivered in the order
+ * they happened, but there is no ordering guarantee between keys owned by different servers. Implementations should
+ * return quickly, since the server keeps a bounded number of pending events per listener and drops the oldest ones
+ * when the client does not keep up.
+ *
+ * @since 5.2
+ */
+public interface ClientCacheListener<K, V> {
+
+   void onEvent(ClientCacheEntryEvent<K, V> event);
+
+   /**
+    * Called when some events might have been missed, either because the client did not keep up with them or because
+    * a server could not be reached for too long. Listeners keeping state derived from the events should rebuild it.
+    */
+   void onEventsLost();
+}
@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.event;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Selects the events sent by the servers to a client listener. Filtering takes place in the servers, so that events
+ * the listener is not interested in never reach the client.
+ *
+ * @since 5.2
+ */
+@NotThreadSafe
+public class ClientListenerOptions {
+
+   private static final byte[] NO_PREFIX = new byte[0];
+
+   private boolean includeValues = true;
+   private byte[] keyPrefix = NO_PREFIX;
+   private String filterClass;
+
+   /**
+    * Whether events carry the new value of the entries. Defaults to true.
+    */
+   public ClientListenerOptions includeValues(boolean includeValues) {
+      this.includeValues = includeValues;
+      return this;
+   }
+
+   /**
+    * Only sends the events of the keys whose marshalled form starts with the given bytes. The prefix is matched against
+    * the keys as written by the marshaller in use, so it is mostly useful with keys marshalled as raw bytes.
+    */
+   public ClientListenerOptions keyPrefix(byte[] keyPrefix) {
+      this.keyPrefix = keyPrefix == null ? NO_PREFIX : keyPrefix;
+      return this;
+   }
+
+   /**
+    * Only sends the events accepted by an instance of the given class, which must implement
+    * <tt>org.infinispan.server.hotrod.ClientEventFilter</tt> and be available in the servers' classpath.
+    */
+   public ClientListenerOptions filterClass(String filterClass) {
+      this.filterClass = filterClass;
+      return this;
+   }
+
+   public boolean isIncludeValues() {
+      return includeValues;
+   }
+
+   public byte[] getKeyPrefix() {
+      return keyPrefix;
+   }
+
+   public String getFilterClass() {
+      return filterClass;
+   }
+}
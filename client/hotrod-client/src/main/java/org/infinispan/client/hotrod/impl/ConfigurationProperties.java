@@ -57,6 +57,10 @@ public class ConfigurationProperties {
    public static final String SO_TIMEOUT = "infinispan.client.hotrod.socket_timeout";
    public static final String CONNECT_TIMEOUT = "infinispan.client.hotrod.connect_timeout";
    public static final String PROTOCOL_VERSION = "infinispan.client.hotrod.protocol_version";
+   public static final String CONNECTIONS_PER_SERVER = "infinispan.client.hotrod.connections_per_server";
+   public static final String NEAR_CACHE_MAX_ENTRIES = "infinispan.client.hotrod.near_cache.max_entries";
+   public static final String NEAR_CACHE_EVICTION = "infinispan.client.hotrod.near_cache.eviction";
+   public static final String STREAM_CHUNK_SIZE = "infinispan.client.hotrod.stream_chunk_size";
 
    // defaults
 
@@ -65,6 +69,11 @@ public class ConfigurationProperties {
    private static final int DEFAULT_HOTROD_PORT = 11222;
    private static final int DEFAULT_SO_TIMEOUT = 60000;
    private static final int DEFAULT_CONNECT_TIMEOUT = 60000;
+   private static final int DEFAULT_CONNECTIONS_PER_SERVER = 2;
+   private static final int DEFAULT_NEAR_CACHE_MAX_ENTRIES = 0;
+   private static final String DEFAULT_NEAR_CACHE_EVICTION = "LRU";
+   private static final int DEFAULT_STREAM_CHUNK_SIZE = 512 * 1024;
+   public static final String PROTOCOL_VERSION_12 = "1.2";
    public static final String PROTOCOL_VERSION_11 = "1.1";
    public static final String PROTOCOL_VERSION_10 = "1.0";
    private static final String DEFAULT_PROTOCOL_VERSION = PROTOCOL_VERSION_11;
@@ -161,4 +170,20 @@ public int getConnectTimeout() {
       return props.getIntProperty(CONNECT_TIMEOUT, DEFAULT_CONNECT_TIMEOUT);
    }
 
+   public int getConnectionsPerServer() {
+      return props.getIntProperty(CONNECTIONS_PER_SERVER, DEFAULT_CONNECTIONS_PER_SERVER);
+   }
+
+   public int getNearCacheMaxEntries() {
+      return props.getIntProperty(NEAR_CACHE_MAX_ENTRIES, DEFAULT_NEAR_CACHE_MAX_ENTRIES);
+   }
+
+   public String getNearCacheEviction() {
+      return props.getProperty(NEAR_CACHE_EVICTION, DEFAULT_NEAR_CACHE_EVICTION);
+   }
+
+   public int getStreamChunkSize() {
+      return props.getIntProperty(STREAM_CHUNK_SIZE, DEFAULT_STREAM_CHUNK_SIZE);
+   }
+
 }
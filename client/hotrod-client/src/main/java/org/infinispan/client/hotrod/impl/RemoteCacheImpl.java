@@ -25,12 +25,19 @@
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 
 import org.infinispan.client.hotrod.Flag;
@@ -39,9 +46,16 @@
 import org.infinispan.client.hotrod.ServerStatistics;
 import org.infinispan.client.hotrod.Version;
 import org.infinispan.client.hotrod.VersionedValue;
+import org.infinispan.client.hotrod.event.ClientCacheListener;
+import org.infinispan.client.hotrod.event.ClientListenerOptions;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
 import org.infinispan.client.hotrod.exceptions.RemoteCacheManagerNotStartedException;
+import org.infinispan.client.hotrod.exceptions.RemoteNodeSuspecException;
 import org.infinispan.client.hotrod.exceptions.TransportException;
 import org.infinispan.client.hotrod.impl.async.NotifyingFutureImpl;
+import org.infinispan.client.hotrod.impl.event.ClientListeners;
+import org.infinispan.client.hotrod.impl.near.NearCache;
+import org.infinispan.client.hotrod.impl.operations.AbstractKeyOperation;
 import org.infinispan.client.hotrod.impl.operations.BulkGetOperation;
 import org.infinispan.client.hotrod.impl.operations.ClearOperation;
 import org.infinispan.client.hotrod.impl.operations.ContainsKeyOperation;
@@ -55,7 +69,9 @@
 import org.infinispan.client.hotrod.impl.operations.RemoveOperation;
 import org.infinispan.client.hotrod.impl.operations.ReplaceIfUnmodifiedOperation;
 import org.infinispan.client.hotrod.impl.operations.ReplaceOperation;
+import org.infinispan.client.hotrod.impl.operations.RetryOnFailureOperation;
 import org.infinispan.client.hotrod.impl.operations.StatsOperation;
+import org.infinispan.client.hotrod.impl.stream.StreamedValues;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.logging.Log;
 import org.infinispan.client.hotrod.logging.LogFactory;
@@ -77,7 +93,9 @@
    private OperationsFactory operationsFactory;
    private int estimateKeySize;
    private int estimateValueSize;
-
+   private NearCache nearCache;
+   private StreamedValues streamedValues;
+   private ClientListeners clientListeners;
 
    public RemoteCacheImpl(RemoteCacheManager rcm, String name) {
       if (log.isTraceEnabled()) {
@@ -87,12 +105,15 @@ public RemoteCacheImpl(RemoteCacheManager rcm, String name) {
       this.remoteCacheManager = rcm;
    }
 
-   public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory, int estimateKeySize, int estimateValueSize) {
+   public void init(Marshaller marshaller, ExecutorService executorService, OperationsFactory operationsFactory, int estimateKeySize, int estimateValueSize, NearCache nearCache, int streamChunkSize, ClientListeners clientListeners) {
       this.marshaller = marshaller;
       this.executorService = executorService;
       this.operationsFactory = operationsFactory;
       this.estimateKeySize = estimateKeySize;
       this.estimateValueSize = estimateValueSize;
+      this.nearCache = nearCache;
+      this.streamedValues = new StreamedValues(operationsFactory, streamChunkSize);
+      this.clientListeners = clientListeners;
    }
 
    @Override
@@ -103,55 +124,57 @@ public RemoteCacheManager getRemoteCacheManager() {
    @Override
    public boolean removeWithVersion(K key, long version) {
       assertRemoteCacheManagerIsStarted();
-      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(obj2bytes(key, true), version);
+      byte[] keyBytes = obj2bytes(key, true);
+      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(keyBytes, version);
       VersionedOperationResponse response = (VersionedOperationResponse) op.execute();
+      invalidateNearCache(keyBytes);
       return response.getCode().isUpdated();
    }
 
    @Override
    public NotifyingFuture<Boolean> removeWithVersionAsync(final K key, final long version) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<Boolean> result = new NotifyingFutureImpl<Boolean>();
-      Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
+      byte[] keyBytes = obj2bytes(key, true);
+      RemoveIfUnmodifiedOperation op = operationsFactory.newRemoveIfUnmodifiedOperation(keyBytes, version);
+      return new VersionedResponse(new Callable<Boolean>() {
          @Override
          public Boolean call() throws Exception {
-            boolean removed = removeWithVersion(key, version);
-            result.notifyFutureCompletion();
-            return removed;
+            return removeWithVersion(key, version);
          }
-      });
-      result.setExecuting(future);
-      return result;
+      }, keyBytes).execute(op);
    }
 
    @Override
    public boolean replaceWithVersion(K key, V newValue, long version, int lifespanSeconds, int maxIdleTimeSeconds) {
       assertRemoteCacheManagerIsStarted();
-      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(obj2bytes(key, true), obj2bytes(newValue, false), lifespanSeconds, maxIdleTimeSeconds, version);
+      byte[] keyBytes = obj2bytes(key, true);
+      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(keyBytes, obj2bytes(newValue, false), lifespanSeconds, maxIdleTimeSeconds, version);
       VersionedOperationResponse response = (VersionedOperationResponse) op.execute();
+      invalidateNearCache(keyBytes);
       return response.getCode().isUpdated();
    }
 
    @Override
    public NotifyingFuture<Boolean> replaceWithVersionAsync(final K key, final V newValue, final long version, final int lifespanSeconds, final int maxIdleSeconds) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<Boolean> result = new NotifyingFutureImpl<Boolean>();
-      Future<Boolean> future = executorService.submit(new Callable<Boolean>() {
+      byte[] keyBytes = obj2bytes(key, true);
+      ReplaceIfUnmodifiedOperation op = operationsFactory.newReplaceIfUnmodifiedOperation(keyBytes, obj2bytes(newValue, false), lifespanSeconds, maxIdleSeconds, version);
+      return new VersionedResponse(new Callable<Boolean>() {
          @Override
          public Boolean call() throws Exception {
-            boolean removed = replaceWithVersion(key, newValue, version, lifespanSeconds, maxIdleSeconds);
-            result.notifyFutureCompletion();
-            return removed;
+            return replaceWithVersion(key, newValue, version, lifespanSeconds, maxIdleSeconds);
          }
-      });
-      result.setExecuting(future);
-      return result;
+      }, keyBytes).execute(op);
    }
 
    @Override
    public VersionedValue<V> getVersioned(K key) {
       assertRemoteCacheManagerIsStarted();
-      GetWithVersionOperation op = operationsFactory.newGetWithVersionOperation(obj2bytes(key, true));
+      byte[] keyBytes = obj2bytes(key, true);
+      if (nearCache != null) {
+         return binary2VersionedValue(getThroughNearCache(keyBytes));
+      }
+      GetWithVersionOperation op = operationsFactory.newGetWithVersionOperation(keyBytes);
       BinaryVersionedValue value = (BinaryVersionedValue) op.execute();
       return binary2VersionedValue(value);
    }
@@ -159,8 +182,27 @@ public VersionedValue<V> getVersioned(K key) {
    @Override
    public void putAll(Map<? extends K, ? extends V> map, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
       assertRemoteCacheManagerIsStarted();
+      if (map.isEmpty()) {
+         return;
+      }
+      if (!operationsFactory.isMultiKeyOperationSupported()) {
+         for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+         }
+         return;
+      }
+      Map<byte[], byte[]> entries = new HashMap<byte[], byte[]>(map.size() * 4 / 3 + 1);
       for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
-         put(entry.getKey(), entry.getValue(), lifespan, lifespanUnit, maxIdleTime, maxIdleTimeUnit);
+         entries.put(obj2bytes(entry.getKey(), true), obj2bytes(entry.getValue(), false));
+      }
+      if (log.isTraceEnabled()) {
+         log.tracef("About to put %d entries, lifespanSecs:%d, maxIdleSecs:%d", entries.size(),
+               toSeconds(lifespan, lifespanUnit), toSeconds(maxIdleTime, maxIdleTimeUnit));
+      }
+      executeInParallel(operationsFactory.newPutAllOperations(entries,
+            toSeconds(lifespan, lifespanUnit), toSeconds(maxIdleTime, maxIdleTimeUnit)));
+      for (byte[] keyBytes : entries.keySet()) {
+         invalidateNearCache(keyBytes);
       }
    }
 
@@ -216,8 +258,10 @@ public V put(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxIdleT
       if (log.isTraceEnabled()) {
          log.tracef("About to add (K,V): (%s, %s) lifespanSecs:%d, maxIdleSecs:%d", key, value, lifespanSecs, maxIdleSecs);
       }
-      PutOperation op = operationsFactory.newPutKeyValueOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] keyBytes = obj2bytes(key, true);
+      PutOperation op = operationsFactory.newPutKeyValueOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
       byte[] result = (byte[]) op.execute();
+      invalidateNearCache(keyBytes);
       return (V) bytes2obj(result);
    }
 
@@ -228,8 +272,10 @@ public V putIfAbsent(K key, V value, long lifespan, TimeUnit lifespanUnit, long
       assertRemoteCacheManagerIsStarted();
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
-      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] keyBytes = obj2bytes(key, true);
+      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
       byte[] bytes = (byte[]) op.execute();
+      invalidateNearCache(keyBytes);
       return (V) bytes2obj(bytes);
    }
 
@@ -239,25 +285,24 @@ public V replace(K key, V value, long lifespan, TimeUnit lifespanUnit, long maxI
       assertRemoteCacheManagerIsStarted();
       int lifespanSecs = toSeconds(lifespan, lifespanUnit);
       int maxIdleSecs = toSeconds(maxIdleTime, maxIdleTimeUnit);
-      ReplaceOperation op = operationsFactory.newReplaceOperation(obj2bytes(key, true), obj2bytes(value, false), lifespanSecs, maxIdleSecs);
+      byte[] keyBytes = obj2bytes(key, true);
+      ReplaceOperation op = operationsFactory.newReplaceOperation(keyBytes, obj2bytes(value, false), lifespanSecs, maxIdleSecs);
       byte[] bytes = (byte[]) op.execute();
+      invalidateNearCache(keyBytes);
       return (V) bytes2obj(bytes);
    }
 
    @Override
    public NotifyingFuture<V> putAsync(final K key, final V value, final long lifespan, final TimeUnit lifespanUnit, final long maxIdle, final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
-      Future<V> future = executorService.submit(new Callable<V>() {
+      byte[] keyBytes = obj2bytes(key, true);
+      PutOperation op = operationsFactory.newPutKeyValueOperation(keyBytes, obj2bytes(value, false), toSeconds(lifespan, lifespanUnit), toSeconds(maxIdle, maxIdleUnit));
+      return new ValueResponse(new Callable<V>() {
          @Override
          public V call() throws Exception {
-            V prevValue = put(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
-            result.notifyFutureCompletion();
-            return prevValue;
+            return put(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
          }
-      });
-      result.setExecuting(future);
-      return result;
+      }, keyBytes).execute(op);
    }
 
    @Override
@@ -279,49 +324,40 @@ public Void call() throws Exception {
    @Override
    public NotifyingFuture<V> putIfAbsentAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
-      Future<V> future = executorService.submit(new Callable<V>() {
+      byte[] keyBytes = obj2bytes(key, true);
+      PutIfAbsentOperation op = operationsFactory.newPutIfAbsentOperation(keyBytes, obj2bytes(value, false), toSeconds(lifespan, lifespanUnit), toSeconds(maxIdle, maxIdleUnit));
+      return new ValueResponse(new Callable<V>() {
          @Override
          public V call() throws Exception {
-            V prevValue = putIfAbsent(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
-            result.notifyFutureCompletion();
-            return prevValue;
+            return putIfAbsent(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
          }
-      });
-      result.setExecuting(future);
-      return result;
+      }, keyBytes).execute(op);
    }
 
    @Override
    public NotifyingFuture<V> removeAsync(final Object key) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
-      Future<V> future = executorService.submit(new Callable<V>() {
+      byte[] keyBytes = obj2bytes(key, true);
+      RemoveOperation op = operationsFactory.newRemoveOperation(keyBytes);
+      return new ValueResponse(new Callable<V>() {
          @Override
          public V call() throws Exception {
-            V toReturn = remove(key);
-            result.notifyFutureCompletion();
-            return toReturn;
+            return remove(key);
          }
-      });
-      result.setExecuting(future);
-      return result;
+      }, keyBytes).execute(op);
    }
 
    @Override
    public NotifyingFuture<V> replaceAsync(final K key,final V value,final long lifespan,final TimeUnit lifespanUnit,final long maxIdle,final TimeUnit maxIdleUnit) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
-      Future<V> future = executorService.submit(new Callable<V>() {
+      byte[] keyBytes = obj2bytes(key, true);
+      ReplaceOperation op = operationsFactory.newReplaceOperation(keyBytes, obj2bytes(value, false), toSeconds(lifespan, lifespanUnit), toSeconds(maxIdle, maxIdleUnit));
+      return new ValueResponse(new Callable<V>() {
          @Override
          public V call() throws Exception {
-            V v = replace(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
-            result.notifyFutureCompletion();
-            return v;
+            return replace(key, value, lifespan, lifespanUnit, maxIdle, maxIdleUnit);
          }
-      });
-      result.setExecuting(future);
-      return result;
+      }, keyBytes).execute(op);
    }
 
    @Override
@@ -336,8 +372,14 @@ public boolean containsKey(Object key) {
    public V get(Object key) {
       assertRemoteCacheManagerIsStarted();
       byte[] keyBytes = obj2bytes(key, true);
-      GetOperation gco = operationsFactory.newGetKeyOperation(keyBytes);
-      byte[] bytes = (byte[]) gco.execute();
+      byte[] bytes;
+      if (nearCache != null) {
+         BinaryVersionedValue value = getThroughNearCache(keyBytes);
+         bytes = value == null ? null : value.getValue();
+      } else {
+         GetOperation gco = operationsFactory.newGetKeyOperation(keyBytes);
+         bytes = (byte[]) gco.execute();
+      }
       V result = (V) bytes2obj(bytes);
       if (log.isTraceEnabled()) {
          log.tracef("For key(%s) returning %s", key, result);
@@ -369,8 +411,10 @@ public Map<K, V> getBulk(int size) {
    @SuppressWarnings("unchecked")
    public V remove(Object key) {
       assertRemoteCacheManagerIsStarted();
-      RemoveOperation removeOperation = operationsFactory.newRemoveOperation(obj2bytes(key, true));
+      byte[] keyBytes = obj2bytes(key, true);
+      RemoveOperation removeOperation = operationsFactory.newRemoveOperation(keyBytes);
       byte[] existingValue = (byte[]) removeOperation.execute();
+      invalidateNearCache(keyBytes);
       return (V) bytes2obj(existingValue);
    }
 
@@ -379,6 +423,9 @@ public void clear() {
       assertRemoteCacheManagerIsStarted();
       ClearOperation op = operationsFactory.newClearOperation() ;
       op.execute();
+      if (nearCache != null) {
+         nearCache.clear();
+      }
    }
 
    @Override
@@ -390,8 +437,11 @@ public void start() {
 
    @Override
    public void stop() {
-      if (log.isDebugEnabled()) {
-         log.debugf("Stop called, nothing to do here(%s)", getName());
+      if (nearCache != null) {
+         nearCache.stop();
+      }
+      if (clientListeners != null) {
+         clientListeners.stop();
       }
    }
 
@@ -414,17 +464,167 @@ public RemoteCache<K, V> withFlags(Flag... flags) {
    @Override
    public NotifyingFuture<V> getAsync(final K key) {
       assertRemoteCacheManagerIsStarted();
-      final NotifyingFutureImpl<V> result = new NotifyingFutureImpl<V>();
-      Future<V> future = executorService.submit(new Callable<V>() {
+      GetOperation op = operationsFactory.newGetKeyOperation(obj2bytes(key, true));
+      return new ValueResponse(new Callable<V>() {
          @Override
          public V call() throws Exception {
-            V toReturn = get(key);
-            result.notifyFutureCompletion();
-            return toReturn;
+            return get(key);
          }
-      });
-      result.setExecuting(future);
-      return result;
+      }).execute(op);
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public Map<K, V> getAll(Set<? extends K> keys) {
+      assertRemoteCacheManagerIsStarted();
+      Map<K, V> toReturn = new HashMap<K, V>();
+      if (keys.isEmpty()) {
+         return Collections.unmodifiableMap(toReturn);
+      }
+      if (!operationsFactory.isMultiKeyOperationSupported()) {
+         for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+               toReturn.put(key, value);
+            }
+         }
+         return Collections.unmodifiableMap(toReturn);
+      }
+      List<byte[]> keyBytes = new ArrayList<byte[]>(keys.size());
+      for (K key : keys) {
+         keyBytes.add(obj2bytes(key, true));
+      }
+      for (Map<byte[], byte[]> entries : executeInParallel(operationsFactory.newGetAllOperations(keyBytes))) {
+         for (Map.Entry<byte[], byte[]> entry : entries.entrySet()) {
+            toReturn.put((K) bytes2obj(entry.getKey()), (V) bytes2obj(entry.getValue()));
+         }
+      }
+      return Collections.unmodifiableMap(toReturn);
+   }
+
+   @Override
+   public void removeAll(Set<? extends K> keys) {
+      assertRemoteCacheManagerIsStarted();
+      if (keys.isEmpty()) {
+         return;
+      }
+      if (!operationsFactory.isMultiKeyOperationSupported()) {
+         for (K key : keys) {
+            remove(key);
+         }
+         return;
+      }
+      List<byte[]> keyBytes = new ArrayList<byte[]>(keys.size());
+      for (K key : keys) {
+         keyBytes.add(obj2bytes(key, true));
+      }
+      executeInParallel(operationsFactory.newRemoveAllOperations(keyBytes));
+      for (byte[] k : keyBytes) {
+         invalidateNearCache(k);
+      }
+   }
+
+   @Override
+   public InputStream getStream(K key) {
+      assertRemoteCacheManagerIsStarted();
+      return streamedValues.getStream(obj2bytes(key, true));
+   }
+
+   @Override
+   public OutputStream putStream(K key) {
+      return putStream(key, 0, TimeUnit.SECONDS, 0, TimeUnit.SECONDS);
+   }
+
+   @Override
+   public OutputStream putStream(K key, long lifespan, TimeUnit lifespanUnit, long maxIdleTime, TimeUnit maxIdleTimeUnit) {
+      assertRemoteCacheManagerIsStarted();
+      return streamedValues.putStream(obj2bytes(key, true), toSeconds(lifespan, lifespanUnit), toSeconds(maxIdleTime, maxIdleTimeUnit));
+   }
+
+   @Override
+   public boolean removeStream(K key) {
+      assertRemoteCacheManagerIsStarted();
+      return streamedValues.removeStream(obj2bytes(key, true));
+   }
+
+   @Override
+   public void addClientListener(ClientCacheListener<K, V> listener) {
+      addClientListener(listener, new ClientListenerOptions());
+   }
+
+   @Override
+   public void addClientListener(ClientCacheListener<K, V> listener, ClientListenerOptions options) {
+      assertRemoteCacheManagerIsStarted();
+      if (clientListeners == null) {
+         throw new UnsupportedOperationException("Client listeners require version 1.2 of the Hot Rod protocol");
+      }
+      clientListeners.add(listener, options);
+   }
+
+   @Override
+   public void removeClientListener(ClientCacheListener<K, V> listener) {
+      if (clientListeners != null) {
+         clientListeners.remove(listener);
+      }
+   }
+
+   /**
+    * Executes the operations, one per server, in parallel. The first one is executed by the calling thread and the
+    * rest in the async executor.
+    */
+   private <T> List<T> executeInParallel(List<? extends RetryOnFailureOperation<T>> ops) {
+      List<Future<T>> futures = new ArrayList<Future<T>>(ops.size() - 1);
+      for (final RetryOnFailureOperation<T> op : ops.subList(1, ops.size())) {
+         futures.add(executorService.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+               return op.execute();
+            }
+         }));
+      }
+      List<T> results = new ArrayList<T>(ops.size());
+      results.add(ops.get(0).execute());
+      for (Future<T> future : futures) {
+         try {
+            results.add(future.get());
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HotRodClientException(e);
+         } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+               throw (RuntimeException) e.getCause();
+            }
+            throw new HotRodClientException(e.getCause());
+         }
+      }
+      return results;
+   }
+
+   /**
+    * Reads the entry from the near cache, or from the server if not cached. The operation is created before looking up
+    * the near cache so that the flags set for this invocation are consumed either way.
+    */
+   private BinaryVersionedValue getThroughNearCache(byte[] keyBytes) {
+      GetWithVersionOperation op = operationsFactory.newGetWithVersionOperation(keyBytes);
+      BinaryVersionedValue value = nearCache.get(keyBytes);
+      if (value == null) {
+         long readStamp = nearCache.readStamp();
+         value = (BinaryVersionedValue) op.execute();
+         if (value != null) {
+            nearCache.put(keyBytes, value, readStamp);
+         }
+      }
+      return value;
+   }
+
+   /**
+    * Invalidates locally the entries written by this client, so they are not read from the near cache before the
+    * invalidation event pushed by the server arrives.
+    */
+   private void invalidateNearCache(byte[] keyBytes) {
+      if (nearCache != null) {
+         nearCache.invalidate(keyBytes);
+      }
    }
 
    public PingOperation.PingResult ping(Transport transport) {
@@ -473,6 +673,105 @@ private void assertRemoteCacheManagerIsStarted() {
       }
    }
 
+   /**
+    * Completes a {@link NotifyingFuture} with the response of an operation executed with
+    * {@link AbstractKeyOperation#executeAsync(AbstractKeyOperation.ResponseListener)}, so no thread is held while
+    * waiting for the response. If the transport does not support it, or the request fails, the synchronous call is
+    * executed in the async executor instead, which retries it as usual. The future is completed in the async executor
+    * too, so that its listeners never run in the connection's reader thread.
+    */
+   private abstract class PipelinedResponse<T, R> extends FutureTask<R> implements AbstractKeyOperation.ResponseListener<T> {
+
+      private final NotifyingFutureImpl<R> result = new NotifyingFutureImpl<R>();
+      private final byte[] modifiedKey;
+
+      PipelinedResponse(Callable<R> syncCall, byte[] modifiedKey) {
+         super(syncCall);
+         this.modifiedKey = modifiedKey;
+         result.setExecuting(this);
+      }
+
+      NotifyingFuture<R> execute(AbstractKeyOperation<T> op) {
+         if (!op.executeAsync(this)) {
+            executorService.execute(this);
+         }
+         return result;
+      }
+
+      protected abstract R convert(T response);
+
+      @Override
+      public void onResponse(final T response) {
+         executorService.execute(new Runnable() {
+            @Override
+            public void run() {
+               try {
+                  set(convert(response));
+               } catch (Throwable t) {
+                  setException(t);
+               }
+            }
+         });
+      }
+
+      @Override
+      public void onFailure(final HotRodClientException e) {
+         if (e instanceof TransportException || e instanceof RemoteNodeSuspecException) {
+            if (log.isTraceEnabled()) {
+               log.tracef(e, "Pipelined request failed, retrying it in the async executor");
+            }
+            executorService.execute(this);
+         } else {
+            executorService.execute(new Runnable() {
+               @Override
+               public void run() {
+                  setException(e);
+               }
+            });
+         }
+      }
+
+      @Override
+      protected void done() {
+         if (modifiedKey != null) {
+            invalidateNearCache(modifiedKey);
+         }
+         //the cancellation is notified by NotifyingFutureImpl.cancel
+         if (!isCancelled()) {
+            result.notifyFutureCompletion();
+         }
+      }
+   }
+
+   private class ValueResponse extends PipelinedResponse<byte[], V> {
+
+      ValueResponse(Callable<V> syncCall) {
+         this(syncCall, null);
+      }
+
+      ValueResponse(Callable<V> syncCall, byte[] modifiedKey) {
+         super(syncCall, modifiedKey);
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      protected V convert(byte[] response) {
+         return (V) bytes2obj(response);
+      }
+   }
+
+   private class VersionedResponse extends PipelinedResponse<VersionedOperationResponse, Boolean> {
+
+      VersionedResponse(Callable<Boolean> syncCall, byte[] modifiedKey) {
+         super(syncCall, modifiedKey);
+      }
+
+      @Override
+      protected Boolean convert(VersionedOperationResponse response) {
+         return response.getCode().isUpdated();
+      }
+   }
+
    @Override
    protected void set(K key, V value) {
       // no need to optimize the put operation: all invocations are already non-return by default,
@@ -38,6 +38,12 @@ public interface ConsistentHash {
 
    SocketAddress getServer(byte[] key);
 
+   /**
+    * Returns all the servers owning the given key, in the order in which they follow the key's position on the
+    * hash wheel.
+    */
+   Set<SocketAddress> getServers(byte[] key);
+
    int getNormalizedHash(Object key);
 
 }
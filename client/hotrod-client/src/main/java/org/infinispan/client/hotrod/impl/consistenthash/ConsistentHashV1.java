@@ -24,6 +24,7 @@
 
 import java.net.SocketAddress;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
@@ -74,11 +75,7 @@ public void init(Map<SocketAddress, Set<Integer>> servers2Hash, int numKeyOwners
 
    @Override
    public SocketAddress getServer(byte[] key) {
-      int keyHashCode = getNormalizedHash(key);
-      if (keyHashCode == Integer.MIN_VALUE) keyHashCode += 1;
-      int hash = Math.abs(keyHashCode);
-
-      SortedMap<Integer, SocketAddress> candidates = positions.tailMap(hash % hashSpace);
+      SortedMap<Integer, SocketAddress> candidates = positions.tailMap(getPosition(key));
       if (log.isTraceEnabled()) {
          log.tracef("Found possible candidates: %s", candidates);
       }
@@ -99,6 +96,31 @@ public SocketAddress getServer(byte[] key) {
       }
    }
 
+   @Override
+   public Set<SocketAddress> getServers(byte[] key) {
+      int maxOwners = Math.min(numKeyOwners, positions.size());
+      Set<SocketAddress> owners = new LinkedHashSet<SocketAddress>(maxOwners * 2);
+      // a server can appear several times on the wheel (virtual nodes), so walk it until enough distinct owners are found
+      collectOwners(positions.tailMap(getPosition(key)), owners, maxOwners);
+      collectOwners(positions, owners, maxOwners);
+      if (log.isTraceEnabled()) {
+         log.tracef("Owners are: %s", owners);
+      }
+      return owners;
+   }
+
+   private void collectOwners(SortedMap<Integer, SocketAddress> map, Set<SocketAddress> owners, int maxOwners) {
+      for (Iterator<SocketAddress> it = map.values().iterator(); it.hasNext() && owners.size() < maxOwners; ) {
+         owners.add(it.next());
+      }
+   }
+
+   private int getPosition(byte[] key) {
+      int keyHashCode = getNormalizedHash(key);
+      if (keyHashCode == Integer.MIN_VALUE) keyHashCode += 1;
+      return Math.abs(keyHashCode) % hashSpace;
+   }
+
    private int getIndex() {
       return rnd.nextInt(Math.min(numKeyOwners, positions.size()));
    }
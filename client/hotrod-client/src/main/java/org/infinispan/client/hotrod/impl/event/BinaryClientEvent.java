@@ -0,0 +1,71 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.event;
+
+import net.jcip.annotations.Immutable;
+
+/**
+ * Cache entry event as read from the server, before unmarshalling.
+ *
+ * @since 5.2
+ */
+@Immutable
+public class BinaryClientEvent {
+
+   public static final byte MODIFIED = 1;
+   public static final byte REMOVED = 2;
+
+   private final byte type;
+   private final long sequence;
+   private final byte[] key;
+   private final byte[] value;
+   private final long version;
+
+   public BinaryClientEvent(byte type, long sequence, byte[] key, byte[] value, long version) {
+      this.type = type;
+      this.sequence = sequence;
+      this.key = key;
+      this.value = value;
+      this.version = version;
+   }
+
+   public byte getType() {
+      return type;
+   }
+
+   public long getSequence() {
+      return sequence;
+   }
+
+   public byte[] getKey() {
+      return key;
+   }
+
+   public byte[] getValue() {
+      return value;
+   }
+
+   public long getVersion() {
+      return version;
+   }
+}
@@ -0,0 +1,154 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.event;
+
+import java.net.SocketAddress;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.event.ClientCacheEntryEvent;
+import org.infinispan.client.hotrod.event.ClientCacheListener;
+import org.infinispan.client.hotrod.event.ClientListenerOptions;
+import org.infinispan.client.hotrod.impl.operations.AddClientListenerOperation;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.TcpTransport;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.marshall.Marshaller;
+
+/**
+ * A client listener registered in every server of the current topology, each one sending the events of the keys it
+ * owns to an {@link EventReader}. All the servers know the listener by the same random id, which is what allows the
+ * readers to reattach to it after a reconnection.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+class ClientListenerRegistration<K, V> {
+
+   private static final Log log = LogFactory.getLog(ClientListenerRegistration.class, Log.class);
+
+   private final ClientCacheListener<K, V> listener;
+   private final ClientListenerOptions options;
+   private final byte[] listenerId;
+   private final Marshaller marshaller;
+   private final OperationsFactory operationsFactory;
+   private final TransportFactory transportFactory;
+
+   @GuardedBy("this")
+   private final Map<SocketAddress, EventReader> readers = new HashMap<SocketAddress, EventReader>();
+   @GuardedBy("this")
+   private boolean stopped;
+
+   // Serializes the calls to the listener
+   private final Object deliveryLock = new Object();
+
+   ClientListenerRegistration(ClientCacheListener<K, V> listener, ClientListenerOptions options, byte[] listenerId,
+                              Marshaller marshaller, OperationsFactory operationsFactory,
+                              TransportFactory transportFactory) {
+      this.listener = listener;
+      this.options = options;
+      this.listenerId = listenerId;
+      this.marshaller = marshaller;
+      this.operationsFactory = operationsFactory;
+      this.transportFactory = transportFactory;
+   }
+
+   /**
+    * Starts reading events from the servers that joined the topology, and stops reading from the ones that left it.
+    */
+   synchronized void sync() {
+      if (stopped) {
+         return;
+      }
+      Collection<SocketAddress> servers = transportFactory.getServers();
+      for (Iterator<Map.Entry<SocketAddress, EventReader>> it = readers.entrySet().iterator(); it.hasNext(); ) {
+         Map.Entry<SocketAddress, EventReader> entry = it.next();
+         if (!servers.contains(entry.getKey())) {
+            entry.getValue().stop();
+            it.remove();
+         }
+      }
+      for (SocketAddress server : servers) {
+         if (!readers.containsKey(server)) {
+            EventReader reader = new EventReader(server, this);
+            readers.put(server, reader);
+            reader.start();
+         }
+      }
+   }
+
+   synchronized void stop() {
+      stopped = true;
+      for (EventReader reader : readers.values()) {
+         reader.stop();
+      }
+      readers.clear();
+   }
+
+   AddClientListenerOperation newAddClientListenerOperation(TcpTransport transport, long lastReceived) {
+      return operationsFactory.newAddClientListenerOperation(transport, listenerId, lastReceived,
+            options.isIncludeValues(), options.getKeyPrefix(), options.getFilterClass());
+   }
+
+   TransportFactory getTransportFactory() {
+      return transportFactory;
+   }
+
+   @SuppressWarnings("unchecked")
+   void deliver(BinaryClientEvent event) {
+      synchronized (deliveryLock) {
+         try {
+            K key = (K) marshaller.objectFromByteBuffer(event.getKey());
+            V value = event.getValue() == null ? null : (V) marshaller.objectFromByteBuffer(event.getValue());
+            ClientCacheEntryEvent.Type type = event.getType() == BinaryClientEvent.REMOVED ?
+                  ClientCacheEntryEvent.Type.REMOVED : ClientCacheEntryEvent.Type.MODIFIED;
+            listener.onEvent(new ClientCacheEntryEvent<K, V>(type, key, value, event.getVersion()));
+         } catch (Exception e) {
+            // Neither the reader nor the other events should be affected
+            log.clientListenerCallbackFailed(listener, e);
+         }
+      }
+   }
+
+   void eventsLost() {
+      synchronized (deliveryLock) {
+         try {
+            listener.onEventsLost();
+         } catch (RuntimeException e) {
+            log.clientListenerCallbackFailed(listener, e);
+         }
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "ClientListenerRegistration{listener=" + listener + "}";
+   }
+}
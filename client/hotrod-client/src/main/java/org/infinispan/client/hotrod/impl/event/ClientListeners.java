@@ -0,0 +1,119 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.event;
+
+import java.util.Random;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.event.ClientCacheListener;
+import org.infinispan.client.hotrod.event.ClientListenerOptions;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.marshall.Marshaller;
+
+/**
+ * The client listeners of a remote cache. The servers each listener reads events from are kept in line with the
+ * topology by a background timer, which runs while there is some listener.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+public class ClientListeners {
+
+   // Interval between checks of the topology
+   private static final long SYNC_INTERVAL_MILLIS = 1000;
+
+   private static final int LISTENER_ID_LENGTH = 16;
+
+   private final ConcurrentMap<ClientCacheListener<?, ?>, ClientListenerRegistration<?, ?>> registrations =
+         new ConcurrentHashMap<ClientCacheListener<?, ?>, ClientListenerRegistration<?, ?>>();
+   private final Random random = new Random();
+   private final Marshaller marshaller;
+   private final OperationsFactory operationsFactory;
+   private final TransportFactory transportFactory;
+
+   @GuardedBy("this")
+   private Timer timer;
+
+   public ClientListeners(Marshaller marshaller, OperationsFactory operationsFactory,
+                          TransportFactory transportFactory) {
+      this.marshaller = marshaller;
+      this.operationsFactory = operationsFactory;
+      this.transportFactory = transportFactory;
+   }
+
+   public synchronized <K, V> void add(ClientCacheListener<K, V> listener, ClientListenerOptions options) {
+      if (registrations.containsKey(listener)) {
+         return;
+      }
+      byte[] listenerId = new byte[LISTENER_ID_LENGTH];
+      random.nextBytes(listenerId);
+      ClientListenerRegistration<K, V> registration = new ClientListenerRegistration<K, V>(
+            listener, options, listenerId, marshaller, operationsFactory, transportFactory);
+      registrations.put(listener, registration);
+      registration.sync();
+      if (timer == null) {
+         timer = new Timer("HotRodClientListenerSync", true);
+         timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+               for (ClientListenerRegistration<?, ?> r : registrations.values()) {
+                  r.sync();
+               }
+            }
+         }, SYNC_INTERVAL_MILLIS, SYNC_INTERVAL_MILLIS);
+      }
+   }
+
+   public synchronized void remove(ClientCacheListener<?, ?> listener) {
+      ClientListenerRegistration<?, ?> registration = registrations.remove(listener);
+      if (registration != null) {
+         registration.stop();
+      }
+      if (registrations.isEmpty()) {
+         stopTimer();
+      }
+   }
+
+   public synchronized void stop() {
+      for (ClientListenerRegistration<?, ?> registration : registrations.values()) {
+         registration.stop();
+      }
+      registrations.clear();
+      stopTimer();
+   }
+
+   @GuardedBy("this")
+   private void stopTimer() {
+      if (timer != null) {
+         timer.cancel();
+         timer = null;
+      }
+   }
+}
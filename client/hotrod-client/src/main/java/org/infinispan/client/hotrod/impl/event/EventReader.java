@@ -0,0 +1,156 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.event;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+import org.infinispan.client.hotrod.impl.operations.AddClientListenerOperation;
+import org.infinispan.client.hotrod.impl.transport.tcp.TcpTransport;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+/**
+ * Reads the events a server pushes to a client listener through a dedicated connection. If the connection fails, it
+ * reconnects to the same listener in the server, passing the sequence number of the last event received, so that the
+ * server sends the events missed in the meantime, if it still has them.
+ *
+ * @since 5.2
+ */
+class EventReader implements Runnable {
+
+   private static final Log log = LogFactory.getLog(EventReader.class, Log.class);
+
+   // Time to wait before reconnecting after a failure
+   private static final long RECONNECT_INTERVAL_MILLIS = 1000;
+
+   private final SocketAddress server;
+   private final ClientListenerRegistration<?, ?> registration;
+
+   private volatile TcpTransport transport;
+   private volatile AddClientListenerOperation operation;
+   private volatile boolean stopped;
+   // Only accessed by the reader thread once started
+   private long lastSequence;
+
+   EventReader(SocketAddress server, ClientListenerRegistration<?, ?> registration) {
+      this.server = server;
+      this.registration = registration;
+   }
+
+   /**
+    * Registers the listener in the server before returning, so that no later modification is missed, and starts the
+    * reader thread. If the server can't be reached, the reader thread keeps trying.
+    */
+   void start() {
+      try {
+         attach();
+      } catch (RuntimeException e) {
+         log.clientListenerFailed(server, e);
+         detach();
+         // The server's events are missed until the reader thread registers the listener
+         registration.eventsLost();
+      }
+      Thread reader = new Thread(this, "HotRodClientListener-" + server);
+      reader.setDaemon(true);
+      reader.start();
+   }
+
+   @Override
+   public void run() {
+      while (!stopped) {
+         try {
+            if (operation == null) {
+               attach();
+            }
+            readEvents();
+         } catch (RuntimeException e) {
+            if (!stopped) {
+               log.clientListenerFailed(server, e);
+               detach();
+               pause();
+            }
+         }
+      }
+      detach();
+   }
+
+   private void attach() {
+      transport = new TcpTransport((InetSocketAddress) server, registration.getTransportFactory());
+      AddClientListenerOperation op = registration.newAddClientListenerOperation(transport, lastSequence);
+      boolean resumed = op.execute();
+      if (!resumed && lastSequence > 0) {
+         registration.eventsLost();
+      }
+      lastSequence = op.getLastSequence();
+      if (log.isTraceEnabled()) {
+         log.tracef("Client listener attached to %s after sequence %d, resumed=%b", server, lastSequence, resumed);
+      }
+      // Events can take any time to arrive
+      transport.disableSoTimeout();
+      operation = op;
+   }
+
+   private void detach() {
+      operation = null;
+      TcpTransport current = transport;
+      if (current != null) {
+         current.destroy();
+      }
+   }
+
+   private void readEvents() {
+      while (!stopped) {
+         for (BinaryClientEvent event : operation.readEvents()) {
+            // The server drops the oldest events of clients that don't keep up
+            if (event.getSequence() != lastSequence + 1) {
+               registration.eventsLost();
+            }
+            lastSequence = event.getSequence();
+            registration.deliver(event);
+         }
+      }
+   }
+
+   private void pause() {
+      try {
+         Thread.sleep(RECONNECT_INTERVAL_MILLIS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+         stopped = true;
+      }
+   }
+
+   void stop() {
+      stopped = true;
+      TcpTransport current = transport;
+      if (current != null) {
+         current.destroy();
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "EventReader{server=" + server + ", stopped=" + stopped + "}";
+   }
+}
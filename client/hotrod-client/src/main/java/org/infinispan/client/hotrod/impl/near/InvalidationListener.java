@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.near;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+import org.infinispan.client.hotrod.impl.operations.AddNearCacheListenerOperation;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.TcpTransport;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+/**
+ * Registers a near cache listener in a server through a dedicated connection, and applies the invalidation events
+ * pushed by the server to the {@link NearCache} from a reader thread.
+ *
+ * @since 5.2
+ */
+class InvalidationListener implements Runnable {
+
+   private static final Log log = LogFactory.getLog(InvalidationListener.class, Log.class);
+
+   private final SocketAddress server;
+   private final NearCache nearCache;
+   private final OperationsFactory operationsFactory;
+   private final TransportFactory transportFactory;
+
+   private volatile TcpTransport transport;
+   private volatile AddNearCacheListenerOperation operation;
+   private volatile boolean stopped;
+
+   InvalidationListener(SocketAddress server, NearCache nearCache, OperationsFactory operationsFactory,
+                        TransportFactory transportFactory) {
+      this.server = server;
+      this.nearCache = nearCache;
+      this.operationsFactory = operationsFactory;
+      this.transportFactory = transportFactory;
+   }
+
+   void start() {
+      transport = new TcpTransport((InetSocketAddress) server, transportFactory);
+      try {
+         operation = operationsFactory.newAddNearCacheListenerOperation(transport);
+         operation.execute();
+         // Events can take any time to arrive
+         transport.disableSoTimeout();
+      } catch (RuntimeException e) {
+         transport.destroy();
+         throw e;
+      }
+      Thread reader = new Thread(this, "HotRodNearCacheListener-" + server);
+      reader.setDaemon(true);
+      reader.start();
+   }
+
+   @Override
+   public void run() {
+      try {
+         while (!stopped) {
+            byte[] key = operation.readInvalidationEvent();
+            if (log.isTraceEnabled()) {
+               log.tracef("Received invalidation event from %s", server);
+            }
+            nearCache.invalidate(key);
+         }
+      } catch (RuntimeException e) {
+         if (!stopped) {
+            nearCache.listenerFailed(this, e);
+         }
+      } finally {
+         transport.destroy();
+      }
+   }
+
+   void stop() {
+      stopped = true;
+      transport.destroy();
+   }
+
+   SocketAddress getServer() {
+      return server;
+   }
+
+   @Override
+   public String toString() {
+      return "InvalidationListener{server=" + server + ", stopped=" + stopped + "}";
+   }
+}
@@ -0,0 +1,202 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.near;
+
+import java.net.SocketAddress;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jcip.annotations.GuardedBy;
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.BinaryVersionedValue;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.util.ByteArrayKey;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap;
+import org.infinispan.util.concurrent.BoundedConcurrentHashMap.Eviction;
+
+/**
+ * Bounded client side cache of the entries read from a remote cache. It is kept consistent through the invalidation
+ * events pushed by every server in the cluster to an {@link InvalidationListener}.
+ * <p/>
+ * Entries are only served while a listener is registered in every server of the current topology. Whenever the
+ * topology changes or a listener fails, the near cache is cleared, since invalidations might have been missed, and the
+ * listeners are registered again.
+ * <p/>
+ * An entry read from the server is only stored if no invalidation was received while reading it, so that a value
+ * overwritten during the read is never cached. This check is not per key, so it errs on the side of caching less.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+public class NearCache {
+
+   private static final Log log = LogFactory.getLog(NearCache.class, Log.class);
+
+   // Minimum time between attempts to register the listeners again after a failure
+   private static final long RESYNC_INTERVAL_MILLIS = 1000;
+
+   private static final int CONCURRENCY_LEVEL = 16;
+
+   private final ConcurrentMap<ByteArrayKey, BinaryVersionedValue> entries;
+   private final AtomicLong invalidations = new AtomicLong();
+   private final OperationsFactory operationsFactory;
+   private final TransportFactory transportFactory;
+   private final AtomicInteger topologyId;
+
+   @GuardedBy("this")
+   private final Map<SocketAddress, InvalidationListener> listeners = new HashMap<SocketAddress, InvalidationListener>();
+   @GuardedBy("this")
+   private long lastSyncAttempt;
+
+   private volatile boolean synced;
+   private volatile int syncedTopologyId;
+   private volatile boolean stopped;
+
+   public NearCache(int maxEntries, Eviction eviction, OperationsFactory operationsFactory,
+                    TransportFactory transportFactory, AtomicInteger topologyId) {
+      this.entries = new BoundedConcurrentHashMap<ByteArrayKey, BinaryVersionedValue>(
+            maxEntries, CONCURRENCY_LEVEL, eviction);
+      this.operationsFactory = operationsFactory;
+      this.transportFactory = transportFactory;
+      this.topologyId = topologyId;
+   }
+
+   /**
+    * @return the cached entry, or null if not cached or if the near cache is not in sync with the cluster
+    */
+   public BinaryVersionedValue get(byte[] key) {
+      if (!isInSync()) {
+         return null;
+      }
+      return entries.get(new ByteArrayKey(key));
+   }
+
+   /**
+    * To be called before reading an entry from the server, and passed to {@link #put(byte[], BinaryVersionedValue,
+    * long)} afterwards.
+    */
+   public long readStamp() {
+      return invalidations.get();
+   }
+
+   public void put(byte[] key, BinaryVersionedValue value, long readStamp) {
+      if (!synced) {
+         return;
+      }
+      ByteArrayKey k = new ByteArrayKey(key);
+      entries.put(k, value);
+      // An invalidation received since the read started could have been for this same key
+      if (invalidations.get() != readStamp) {
+         entries.remove(k, value);
+      }
+   }
+
+   public void invalidate(byte[] key) {
+      invalidations.incrementAndGet();
+      entries.remove(new ByteArrayKey(key));
+   }
+
+   public void clear() {
+      invalidations.incrementAndGet();
+      entries.clear();
+   }
+
+   public synchronized void stop() {
+      stopped = true;
+      synced = false;
+      for (InvalidationListener listener : listeners.values()) {
+         listener.stop();
+      }
+      listeners.clear();
+      clear();
+   }
+
+   synchronized void listenerFailed(InvalidationListener listener, Throwable cause) {
+      if (stopped || listeners.get(listener.getServer()) != listener) {
+         return;
+      }
+      log.nearCacheListenerFailed(listener.getServer(), cause);
+      listeners.remove(listener.getServer());
+      synced = false;
+      clear();
+   }
+
+   private boolean isInSync() {
+      if (synced && topologyId.get() == syncedTopologyId) {
+         return true;
+      }
+      sync();
+      return synced;
+   }
+
+   private synchronized void sync() {
+      int currentTopologyId = topologyId.get();
+      if (stopped || (synced && currentTopologyId == syncedTopologyId)) {
+         return;
+      }
+      long now = System.currentTimeMillis();
+      if (!synced && currentTopologyId == syncedTopologyId && now - lastSyncAttempt < RESYNC_INTERVAL_MILLIS) {
+         return;
+      }
+      lastSyncAttempt = now;
+      synced = false;
+      syncedTopologyId = currentTopologyId;
+      // Invalidations might have been missed while out of sync
+      clear();
+
+      Collection<SocketAddress> servers = transportFactory.getServers();
+      for (Iterator<Map.Entry<SocketAddress, InvalidationListener>> it = listeners.entrySet().iterator(); it.hasNext(); ) {
+         Map.Entry<SocketAddress, InvalidationListener> entry = it.next();
+         if (!servers.contains(entry.getKey())) {
+            entry.getValue().stop();
+            it.remove();
+         }
+      }
+      for (SocketAddress server : servers) {
+         if (!listeners.containsKey(server)) {
+            InvalidationListener listener = new InvalidationListener(server, this, operationsFactory, transportFactory);
+            try {
+               listener.start();
+            } catch (HotRodClientException e) {
+               log.nearCacheListenerFailed(server, e);
+               return;
+            }
+            listeners.put(server, listener);
+         }
+      }
+      if (log.isTraceEnabled()) {
+         log.tracef("Near cache listeners registered in %s, topology id is %d", servers, currentTopologyId);
+      }
+      synced = true;
+   }
+}
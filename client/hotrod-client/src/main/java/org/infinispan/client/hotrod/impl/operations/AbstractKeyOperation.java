@@ -27,11 +27,14 @@
 import net.jcip.annotations.Immutable;
 
 import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.exceptions.TransportException;
 import org.infinispan.client.hotrod.impl.VersionedOperationResponse;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
 import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.impl.transport.tcp.MultiplexedTransport;
 import org.infinispan.util.Util;
 import org.infinispan.util.logging.BasicLogFactory;
 import org.jboss.logging.BasicLogger;
@@ -64,14 +67,80 @@ protected Transport getTransport(int retryCount) {
       }
    }
 
-   protected short sendKeyOperation(byte[] key, Transport transport, byte opCode, byte opRespCode) {
-      // 1) write [header][key length][key]
-      HeaderParams params = writeHeader(transport, opCode);
-      transport.writeArray(key);
+   @Override
+   protected final T executeOperation(Transport transport) {
+      HeaderParams params = writeRequest(transport);
       transport.flush();
+      return readResponse(transport, params);
+   }
+
+   /**
+    * Sends the request without waiting for the response, if the transport factory pipelines the requests. The response
+    * is read by the connection's reader thread, which notifies the listener. Failed requests are not retried: the
+    * listener is notified instead.
+    *
+    * @return false if the transport factory does not support it, and the operation must be executed with
+    *         {@link #execute()}
+    */
+   public boolean executeAsync(final ResponseListener<T> listener) {
+      if (!transportFactory.supportsAsyncResponses()) {
+         return false;
+      }
+      final MultiplexedTransport transport;
+      try {
+         transport = (MultiplexedTransport) getTransport(0);
+      } catch (TransportException e) {
+         listener.onFailure(e);
+         return true;
+      }
+      try {
+         final HeaderParams params = writeRequest(transport);
+         transport.flush(new MultiplexedTransport.ResponseListener() {
+            @Override
+            public void responseAvailable(MultiplexedTransport transport) {
+               T response;
+               try {
+                  response = readResponse(transport, params);
+               } catch (HotRodClientException e) {
+                  listener.onFailure(e);
+                  return;
+               } catch (RuntimeException e) {
+                  listener.onFailure(new HotRodClientException(e));
+                  return;
+               } finally {
+                  releaseTransport(transport);
+               }
+               listener.onResponse(response);
+            }
+
+            @Override
+            public void responseFailed(TransportException cause) {
+               releaseTransport(transport);
+               listener.onFailure(cause);
+            }
+         });
+      } catch (TransportException e) {
+         releaseTransport(transport);
+         listener.onFailure(e);
+      }
+      return true;
+   }
+
+   /**
+    * Writes the request, without flushing it.
+    */
+   protected abstract HeaderParams writeRequest(Transport transport);
+
+   /**
+    * Reads the response to the request written by {@link #writeRequest(Transport)}.
+    */
+   protected abstract T readResponse(Transport transport, HeaderParams params);
 
-      // 2) now read the header
-      return readHeaderAndValidate(transport, params);
+   //[header][key length][key]
+   protected HeaderParams writeKeyRequest(Transport transport, byte opCode) {
+      HeaderParams params = writeHeader(transport, opCode);
+      transport.writeArray(key);
+      return params;
    }
 
    protected byte[] returnPossiblePrevValue(Transport transport) {
@@ -93,6 +162,16 @@ private boolean hasForceReturn(Flag[] flags) {
       return false;
    }
 
+   /**
+    * Notified with the result of an operation executed with {@link AbstractKeyOperation#executeAsync(ResponseListener)}.
+    */
+   public interface ResponseListener<T> {
+
+      void onResponse(T response);
+
+      void onFailure(HotRodClientException e);
+   }
+
    protected VersionedOperationResponse returnVersionedOperationResponse(Transport transport, HeaderParams params) {
       //3) ...
       short respStatus = readHeaderAndValidate(transport, params);
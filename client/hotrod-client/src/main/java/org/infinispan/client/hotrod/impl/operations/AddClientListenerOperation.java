@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.infinispan.client.hotrod.impl.event.BinaryClientEvent;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+
+/**
+ * Registers a client listener in the server at the other end of the given transport, or reattaches to it if the
+ * server still has it. Once registered, the server only writes batches of events to this transport, which are read
+ * with {@link #readEvents()}.
+ *
+ * @since 5.2
+ */
+@NotThreadSafe
+public class AddClientListenerOperation extends HotRodOperation {
+
+   private final Transport transport;
+   private final byte[] listenerId;
+   private final long lastReceived;
+   private final boolean includeValues;
+   private final byte[] keyPrefix;
+   private final String filterClass;
+   private long lastSequence;
+
+   public AddClientListenerOperation(Codec codec, AtomicInteger topologyId, Transport transport, byte[] cacheName,
+                                     byte[] listenerId, long lastReceived, boolean includeValues, byte[] keyPrefix,
+                                     String filterClass) {
+      super(codec, null, cacheName, topologyId);
+      this.transport = transport;
+      this.listenerId = listenerId;
+      this.lastReceived = lastReceived;
+      this.includeValues = includeValues;
+      this.keyPrefix = keyPrefix;
+      this.filterClass = filterClass;
+   }
+
+   /**
+    * @return true if the server still had all the events after the last received one, which are sent next
+    */
+   @Override
+   public Boolean execute() {
+      HeaderParams params = writeHeader(transport, ADD_CLIENT_LISTENER_REQUEST);
+      transport.writeArray(listenerId);
+      transport.writeVLong(lastReceived);
+      transport.writeByte((short) (includeValues ? 1 : 0));
+      transport.writeArray(keyPrefix);
+      transport.writeString(filterClass == null ? "" : filterClass);
+      transport.flush();
+      readHeaderAndValidate(transport, params);
+      boolean resumed = transport.readByte() == 1;
+      lastSequence = transport.readVLong();
+      return resumed;
+   }
+
+   /**
+    * @return the sequence number after which the server sends events, available once executed
+    */
+   public long getLastSequence() {
+      return lastSequence;
+   }
+
+   /**
+    * Blocks until the next batch of events is received.
+    */
+   public List<BinaryClientEvent> readEvents() {
+      HeaderParams params = new HeaderParams().opRespCode(CLIENT_EVENTS).topologyId(topologyId);
+      readHeaderAndValidate(transport, params);
+      int size = transport.readVInt();
+      List<BinaryClientEvent> events = new ArrayList<BinaryClientEvent>(size);
+      for (int i = 0; i < size; i++) {
+         byte type = (byte) transport.readByte();
+         long sequence = transport.readVLong();
+         byte[] key = transport.readArray();
+         byte[] value = null;
+         long version = 0;
+         if (transport.readByte() == 1) {
+            value = transport.readArray();
+            version = transport.readVLong();
+         }
+         events.add(new BinaryClientEvent(type, sequence, key, value, version));
+      }
+      return events;
+   }
+}
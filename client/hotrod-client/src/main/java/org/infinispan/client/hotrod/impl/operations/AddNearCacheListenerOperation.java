@@ -0,0 +1,67 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+
+/**
+ * Registers a near cache listener in the server at the other end of the given transport. Once registered, the server
+ * only writes invalidation events to this transport, which are read with {@link #readInvalidationEvent()}.
+ *
+ * @since 5.2
+ */
+@Immutable
+public class AddNearCacheListenerOperation extends HotRodOperation {
+
+   private final Transport transport;
+
+   public AddNearCacheListenerOperation(Codec codec, AtomicInteger topologyId, Transport transport, byte[] cacheName) {
+      super(codec, null, cacheName, topologyId);
+      this.transport = transport;
+   }
+
+   @Override
+   public Void execute() {
+      HeaderParams params = writeHeader(transport, ADD_NEAR_CACHE_LISTENER_REQUEST);
+      transport.flush();
+      readHeaderAndValidate(transport, params);
+      return null;
+   }
+
+   /**
+    * Blocks until the next invalidation event is received.
+    *
+    * @return the key invalidated by the event
+    */
+   public byte[] readInvalidationEvent() {
+      HeaderParams params = new HeaderParams().opRespCode(INVALIDATION_EVENT).topologyId(topologyId);
+      readHeaderAndValidate(transport, params);
+      return transport.readArray();
+   }
+}
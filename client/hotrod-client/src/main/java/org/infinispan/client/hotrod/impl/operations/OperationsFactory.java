@@ -27,10 +27,17 @@
 import org.infinispan.api.BasicCacheContainer;
 import org.infinispan.client.hotrod.Flag;
 import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.Codec12;
 import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
 import org.infinispan.client.hotrod.impl.transport.Transport;
 import org.infinispan.client.hotrod.impl.transport.TransportFactory;
 
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -134,6 +141,98 @@ public BulkGetOperation newBulkGetOperation(int size) {
             codec, transportFactory, cacheNameBytes, topologyId, flags(), size);
    }
 
+   /**
+    * Multi-key operations are only available from version 1.2 of the protocol.
+    */
+   public boolean isMultiKeyOperationSupported() {
+      return codec instanceof Codec12;
+   }
+
+   /**
+    * Near cache invalidation events are only available from version 1.2 of the protocol.
+    */
+   public boolean isNearCacheSupported() {
+      return codec instanceof Codec12;
+   }
+
+   public AddNearCacheListenerOperation newAddNearCacheListenerOperation(Transport transport) {
+      return new AddNearCacheListenerOperation(codec, topologyId, transport, cacheNameBytes);
+   }
+
+   /**
+    * Client listeners are only available from version 1.2 of the protocol.
+    */
+   public boolean isClientListenerSupported() {
+      return codec instanceof Codec12;
+   }
+
+   public AddClientListenerOperation newAddClientListenerOperation(Transport transport, byte[] listenerId,
+                                                                   long lastReceived, boolean includeValues,
+                                                                   byte[] keyPrefix, String filterClass) {
+      return new AddClientListenerOperation(codec, topologyId, transport, cacheNameBytes, listenerId, lastReceived,
+                                            includeValues, keyPrefix, filterClass);
+   }
+
+   /**
+    * Creates one operation per server owning some of the given keys.
+    */
+   public List<GetAllOperation> newGetAllOperations(Collection<byte[]> keys) {
+      Flag[] flags = multiKeyFlags();
+      List<GetAllOperation> ops = new ArrayList<GetAllOperation>();
+      for (List<byte[]> group : groupByServer(keys)) {
+         ops.add(new GetAllOperation(
+               codec, transportFactory, cacheNameBytes, topologyId, flags, group));
+      }
+      return ops;
+   }
+
+   /**
+    * Creates one operation per server owning some of the given entries.
+    */
+   public List<PutAllOperation> newPutAllOperations(Map<byte[], byte[]> entries,
+            int lifespanSecs, int maxIdleSecs) {
+      Flag[] flags = multiKeyFlags();
+      List<PutAllOperation> ops = new ArrayList<PutAllOperation>();
+      for (List<byte[]> group : groupByServer(entries.keySet())) {
+         Map<byte[], byte[]> groupEntries = new HashMap<byte[], byte[]>(group.size() * 4 / 3 + 1);
+         for (byte[] key : group) {
+            groupEntries.put(key, entries.get(key));
+         }
+         ops.add(new PutAllOperation(
+               codec, transportFactory, cacheNameBytes, topologyId, flags,
+               groupEntries, lifespanSecs, maxIdleSecs));
+      }
+      return ops;
+   }
+
+   /**
+    * Creates one operation per server owning some of the given keys.
+    */
+   public List<RemoveAllOperation> newRemoveAllOperations(Collection<byte[]> keys) {
+      Flag[] flags = multiKeyFlags();
+      List<RemoveAllOperation> ops = new ArrayList<RemoveAllOperation>();
+      for (List<byte[]> group : groupByServer(keys)) {
+         ops.add(new RemoveAllOperation(
+               codec, transportFactory, cacheNameBytes, topologyId, flags, group));
+      }
+      return ops;
+   }
+
+   private Collection<List<byte[]>> groupByServer(Collection<byte[]> keys) {
+      // If the client is not hash aware, all the keys are grouped under the null server
+      Map<SocketAddress, List<byte[]>> groups = new HashMap<SocketAddress, List<byte[]>>();
+      for (byte[] key : keys) {
+         SocketAddress server = transportFactory.getServer(key);
+         List<byte[]> group = groups.get(server);
+         if (group == null) {
+            group = new ArrayList<byte[]>();
+            groups.put(server, group);
+         }
+         group.add(key);
+      }
+      return groups.values();
+   }
+
    public PingOperation newPingOperation(Transport transport) {
       return new PingOperation(codec, topologyId, transport, cacheNameBytes);
    }
@@ -147,6 +246,22 @@ private Flag[] flags() {
       return flags;
    }
 
+   private Flag[] multiKeyFlags() {
+      Flag[] flags = this.flagsMap.get();
+      this.flagsMap.remove();
+      if (flags == null) {
+         return null;
+      }
+      // Multi-key operations never return previous values, so FORCE_RETURN_VALUE does not apply
+      List<Flag> applicable = new ArrayList<Flag>(flags.length);
+      for (Flag flag : flags) {
+         if (flag != Flag.FORCE_RETURN_VALUE) {
+            applicable.add(flag);
+         }
+      }
+      return applicable.isEmpty() ? null : applicable.toArray(new Flag[applicable.size()]);
+   }
+
    public void setFlags(Flag[] flags) {
       this.flagsMap.set(flags);
    }
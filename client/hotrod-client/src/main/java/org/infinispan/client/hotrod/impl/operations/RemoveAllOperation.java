@@ -0,0 +1,64 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.operations;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.Immutable;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.protocol.HeaderParams;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+
+/**
+ * Implements the "removeAll" operation, which removes a group of keys in a single request. Previous values are never
+ * returned.
+ *
+ * @since 5.2
+ */
+@Immutable
+public class RemoveAllOperation extends AbstractMultiKeyOperation<Void> {
+
+   private final Collection<byte[]> keys;
+
+   public RemoveAllOperation(Codec codec, TransportFactory transportFactory, byte[] cacheName,
+                             AtomicInteger topologyId, Flag[] flags, Collection<byte[]> keys) {
+      super(codec, transportFactory, cacheName, topologyId, flags, keys.iterator().next());
+      this.keys = keys;
+   }
+
+   @Override
+   protected Void executeOperation(Transport transport) {
+      HeaderParams params = writeHeader(transport, REMOVE_ALL_REQUEST);
+      transport.writeVInt(keys.size());
+      for (byte[] key : keys) {
+         transport.writeArray(key);
+      }
+      transport.flush();
+      readHeaderAndValidate(transport, params);
+      return null;
+   }
+}
@@ -46,6 +46,14 @@ public HeaderParams opCode(short opCode) {
       return this;
    }
 
+   /**
+    * Sets the expected operation code of a message that is not the response to a request, e.g. a server pushed event.
+    */
+   public HeaderParams opRespCode(short opRespCode) {
+      this.opRespCode = opRespCode;
+      return this;
+   }
+
    public HeaderParams cacheName(byte[] cacheName) {
       this.cacheName = cacheName;
       return this;
@@ -104,6 +112,16 @@ private short toOpRespCode(short opCode) {
             return HotRodConstants.PING_RESPONSE;
          case HotRodConstants.BULK_GET_REQUEST:
             return HotRodConstants.BULK_GET_RESPONSE;
+         case HotRodConstants.GET_ALL_REQUEST:
+            return HotRodConstants.GET_ALL_RESPONSE;
+         case HotRodConstants.PUT_ALL_REQUEST:
+            return HotRodConstants.PUT_ALL_RESPONSE;
+         case HotRodConstants.REMOVE_ALL_REQUEST:
+            return HotRodConstants.REMOVE_ALL_RESPONSE;
+         case HotRodConstants.ADD_NEAR_CACHE_LISTENER_REQUEST:
+            return HotRodConstants.ADD_NEAR_CACHE_LISTENER_RESPONSE;
+         case HotRodConstants.ADD_CLIENT_LISTENER_REQUEST:
+            return HotRodConstants.ADD_CLIENT_LISTENER_RESPONSE;
          default:
             throw new IllegalStateException("Unknown operation code: " + opCode);
       }
@@ -37,6 +37,7 @@ public interface HotRodConstants {
 
    static final byte VERSION_10 = 10;
    static final byte VERSION_11 = 11;
+   static final byte VERSION_12 = 12;
 
    //requests
    static final byte PUT_REQUEST = 0x01;
@@ -52,6 +53,11 @@ public interface HotRodConstants {
    static final byte STATS_REQUEST = 0x15;
    static final byte PING_REQUEST = 0x17;
    static final byte BULK_GET_REQUEST = 0x19;
+   static final byte GET_ALL_REQUEST = 0x1B;
+   static final byte PUT_ALL_REQUEST = 0x1D;
+   static final byte REMOVE_ALL_REQUEST = 0x1F;
+   static final byte ADD_NEAR_CACHE_LISTENER_REQUEST = 0x21;
+   static final byte ADD_CLIENT_LISTENER_REQUEST = 0x23;
 
 
    //responses
@@ -68,8 +74,17 @@ public interface HotRodConstants {
    static final byte STATS_RESPONSE = 0x16;
    static final byte PING_RESPONSE = 0x18;
    static final byte BULK_GET_RESPONSE = 0x1A;
+   static final byte GET_ALL_RESPONSE = 0x1C;
+   static final byte PUT_ALL_RESPONSE = 0x1E;
+   static final byte REMOVE_ALL_RESPONSE = 0x20;
+   static final byte ADD_NEAR_CACHE_LISTENER_RESPONSE = 0x22;
+   static final byte ADD_CLIENT_LISTENER_RESPONSE = 0x24;
    static final byte ERROR_RESPONSE = 0x50;
 
+   //server pushed events
+   static final byte INVALIDATION_EVENT = 0x60;
+   static final byte CLIENT_EVENTS = 0x61;
+
    //response status
    static final byte NO_ERROR_STATUS = 0x00;
    static final int INVALID_MAGIC_OR_MESSAGE_ID_STATUS = 0x81;
@@ -0,0 +1,137 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.stream;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+
+/**
+ * Reads a value stored by {@link StreamedValueOutputStream}, fetching its chunks from the server as they are needed.
+ * Only the current chunk is kept in memory, and skipped chunks are not fetched at all.
+ *
+ * @see StreamedValues
+ * @since 5.2
+ */
+@NotThreadSafe
+public class StreamedValueInputStream extends InputStream {
+
+   private final StreamedValues streamedValues;
+   private final byte[] key;
+   private final StreamedValues.Header header;
+   private byte[] chunk;
+   private int chunkIndex = -1;
+   private long position;
+   private boolean closed;
+
+   StreamedValueInputStream(StreamedValues streamedValues, byte[] key, StreamedValues.Header header) {
+      this.streamedValues = streamedValues;
+      this.key = key;
+      this.header = header;
+   }
+
+   @Override
+   public int read() throws IOException {
+      if (!hasRemaining()) {
+         return -1;
+      }
+      int b = chunk[offsetInChunk()] & 0xFF;
+      position++;
+      return b;
+   }
+
+   @Override
+   public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+         return 0;
+      }
+      if (!hasRemaining()) {
+         return -1;
+      }
+      int offset = offsetInChunk();
+      int toCopy = Math.min(len, chunk.length - offset);
+      System.arraycopy(chunk, offset, b, off, toCopy);
+      position += toCopy;
+      return toCopy;
+   }
+
+   @Override
+   public long skip(long n) throws IOException {
+      ensureOpen();
+      long skipped = Math.max(0, Math.min(n, header.length - position));
+      position += skipped;
+      return skipped;
+   }
+
+   @Override
+   public int available() throws IOException {
+      ensureOpen();
+      return chunk != null && chunkIndex == currentChunkIndex() ? chunk.length - offsetInChunk() : 0;
+   }
+
+   @Override
+   public void close() {
+      closed = true;
+      chunk = null;
+   }
+
+   /**
+    * Makes sure the chunk holding the current position is loaded, unless the end of the value was reached.
+    */
+   private boolean hasRemaining() throws IOException {
+      ensureOpen();
+      if (position >= header.length) {
+         return false;
+      }
+      int index = currentChunkIndex();
+      if (index != chunkIndex) {
+         try {
+            chunk = streamedValues.readChunk(key, header.version, index);
+         } catch (HotRodClientException e) {
+            throw new IOException("Failed reading streamed value", e);
+         }
+         if (chunk == null || chunk.length <= offsetInChunk()) {
+            throw new IOException("Streamed value was replaced or removed while being read");
+         }
+         chunkIndex = index;
+      }
+      return true;
+   }
+
+   private int currentChunkIndex() {
+      return (int) (position / header.chunkSize);
+   }
+
+   private int offsetInChunk() {
+      return (int) (position % header.chunkSize);
+   }
+
+   private void ensureOpen() throws IOException {
+      if (closed) {
+         throw new IOException("Stream closed");
+      }
+   }
+}
@@ -0,0 +1,139 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.stream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import net.jcip.annotations.NotThreadSafe;
+
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+
+/**
+ * Sends the written bytes to the server a chunk at a time. The value becomes visible when the stream is closed; if
+ * writing a chunk fails, the chunks already sent are removed and the value previously stored under the key, if any,
+ * is left untouched.
+ *
+ * @see StreamedValues
+ * @since 5.2
+ */
+@NotThreadSafe
+public class StreamedValueOutputStream extends OutputStream {
+
+   private final StreamedValues streamedValues;
+   private final byte[] key;
+   private final long version;
+   private final byte[] buffer;
+   private final int lifespanSecs;
+   private final int maxIdleSecs;
+   private int count;
+   private int chunks;
+   private long length;
+   private boolean closed;
+
+   StreamedValueOutputStream(StreamedValues streamedValues, byte[] key, long version, int chunkSize,
+                             int lifespanSecs, int maxIdleSecs) {
+      this.streamedValues = streamedValues;
+      this.key = key;
+      this.version = version;
+      this.buffer = new byte[chunkSize];
+      this.lifespanSecs = lifespanSecs;
+      this.maxIdleSecs = maxIdleSecs;
+   }
+
+   @Override
+   public void write(int b) throws IOException {
+      ensureOpen();
+      buffer[count++] = (byte) b;
+      length++;
+      if (count == buffer.length) {
+         writeChunk();
+      }
+   }
+
+   @Override
+   public void write(byte[] b, int off, int len) throws IOException {
+      ensureOpen();
+      while (len > 0) {
+         int toCopy = Math.min(len, buffer.length - count);
+         System.arraycopy(b, off, buffer, count, toCopy);
+         count += toCopy;
+         length += toCopy;
+         off += toCopy;
+         len -= toCopy;
+         if (count == buffer.length) {
+            writeChunk();
+         }
+      }
+   }
+
+   @Override
+   public void close() throws IOException {
+      if (closed) {
+         return;
+      }
+      if (count > 0) {
+         writeChunk();
+      }
+      closed = true;
+      StreamedValues.Header replaced;
+      try {
+         replaced = streamedValues.writeHeader(key, new StreamedValues.Header(version, length, buffer.length),
+                                               lifespanSecs, maxIdleSecs);
+      } catch (HotRodClientException e) {
+         throw failed(e);
+      }
+      // the new value is visible already, so failing to clean up the old one must not fail the write
+      if (replaced != null) {
+         streamedValues.removeChunks(key, replaced.version, replaced.chunkCount());
+      }
+   }
+
+   private void writeChunk() throws IOException {
+      // the operation has written the chunk to the transport by the time it returns, so the buffer can be reused
+      byte[] chunk = count == buffer.length ? buffer : Arrays.copyOf(buffer, count);
+      try {
+         streamedValues.writeChunk(key, version, chunks, chunk, lifespanSecs, maxIdleSecs);
+      } catch (HotRodClientException e) {
+         closed = true;
+         throw failed(e);
+      }
+      chunks++;
+      count = 0;
+   }
+
+   /**
+    * Removes the chunks written so far, which are unreachable as the header of this value was not written.
+    */
+   private IOException failed(HotRodClientException e) {
+      streamedValues.removeChunks(key, version, chunks);
+      return new IOException("Failed writing streamed value", e);
+   }
+
+   private void ensureOpen() throws IOException {
+      if (closed) {
+         throw new IOException("Stream closed");
+      }
+   }
+}
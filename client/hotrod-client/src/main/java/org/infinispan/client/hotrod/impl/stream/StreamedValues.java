@@ -0,0 +1,176 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.stream;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.Flag;
+import org.infinispan.client.hotrod.exceptions.HotRodClientException;
+import org.infinispan.client.hotrod.impl.operations.OperationsFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+/**
+ * Stores values too large to be handled in one piece as a sequence of chunks, each one being a regular cache entry,
+ * so that neither the client nor the server ever holds more than a chunk of the value in memory.
+ * <p/>
+ * A value is described by a header entry, holding the value's length, the size of its chunks and a random version.
+ * The chunks are stored under keys derived from the value's key, the version and the chunk index, which spreads them
+ * across the cluster. The header is written after all the chunks, so a value only becomes visible once it is complete,
+ * and the chunks of the value it replaces are removed afterwards. A reader still going through those chunks gets an
+ * {@link java.io.IOException}.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+public class StreamedValues {
+
+   private static final Log log = LogFactory.getLog(StreamedValues.class, Log.class);
+
+   private static final byte[] HEADER_PREFIX = "__hotrodStreamHeader__".getBytes();
+   private static final byte[] CHUNK_PREFIX = "__hotrodStreamChunk__".getBytes();
+   private static final int HEADER_SIZE = 20;
+
+   private static final Flag[] NO_FLAGS = new Flag[0];
+   private static final Flag[] FORCE_RETURN_VALUE = {Flag.FORCE_RETURN_VALUE};
+
+   private final OperationsFactory operationsFactory;
+   private final int chunkSize;
+   private final Random versionGenerator = new Random();
+
+   public StreamedValues(OperationsFactory operationsFactory, int chunkSize) {
+      this.operationsFactory = operationsFactory;
+      this.chunkSize = chunkSize;
+   }
+
+   /**
+    * Returns a stream over the value stored under the given key, or null if there isn't any.
+    */
+   public InputStream getStream(byte[] key) {
+      Header header = readHeader(key);
+      return header == null ? null : new StreamedValueInputStream(this, key, header);
+   }
+
+   public OutputStream putStream(byte[] key, int lifespanSecs, int maxIdleSecs) {
+      return new StreamedValueOutputStream(this, key, versionGenerator.nextLong(), chunkSize, lifespanSecs, maxIdleSecs);
+   }
+
+   public boolean removeStream(byte[] key) {
+      operationsFactory.setFlags(FORCE_RETURN_VALUE);
+      Header header = Header.fromBytes((byte[]) operationsFactory.newRemoveOperation(headerKey(key)).execute());
+      if (header == null) {
+         return false;
+      }
+      removeChunks(key, header.version, header.chunkCount());
+      return true;
+   }
+
+   byte[] readChunk(byte[] key, long version, int index) {
+      operationsFactory.setFlags(NO_FLAGS);
+      return (byte[]) operationsFactory.newGetKeyOperation(chunkKey(key, version, index)).execute();
+   }
+
+   void writeChunk(byte[] key, long version, int index, byte[] chunk, int lifespanSecs, int maxIdleSecs) {
+      operationsFactory.setFlags(NO_FLAGS);
+      operationsFactory.newPutKeyValueOperation(chunkKey(key, version, index), chunk, lifespanSecs, maxIdleSecs).execute();
+   }
+
+   /**
+    * Makes the value with the given header visible.
+    *
+    * @return the header of the value it replaced, whose chunks are still to be removed, or null
+    */
+   Header writeHeader(byte[] key, Header header, int lifespanSecs, int maxIdleSecs) {
+      operationsFactory.setFlags(FORCE_RETURN_VALUE);
+      byte[] previous = (byte[]) operationsFactory.newPutKeyValueOperation(headerKey(key), header.toBytes(),
+                                                                            lifespanSecs, maxIdleSecs).execute();
+      return Header.fromBytes(previous);
+   }
+
+   /**
+    * Removes the chunks of a value that is not reachable anymore. The chunks that cannot be removed are left behind,
+    * as they can't be read without the value's header.
+    */
+   void removeChunks(byte[] key, long version, int chunkCount) {
+      int removed = 0;
+      for (int i = 0; i < chunkCount; i++) {
+         operationsFactory.setFlags(NO_FLAGS);
+         try {
+            operationsFactory.newRemoveOperation(chunkKey(key, version, i)).execute();
+            removed++;
+         } catch (HotRodClientException e) {
+            log.couldNotRemoveStreamChunk(i, version, e);
+         }
+      }
+      if (log.isTraceEnabled()) {
+         log.tracef("Removed %d of %d chunks of version %d", removed, chunkCount, version);
+      }
+   }
+
+   private Header readHeader(byte[] key) {
+      operationsFactory.setFlags(NO_FLAGS);
+      return Header.fromBytes((byte[]) operationsFactory.newGetKeyOperation(headerKey(key)).execute());
+   }
+
+   private static byte[] headerKey(byte[] key) {
+      return ByteBuffer.allocate(HEADER_PREFIX.length + key.length).put(HEADER_PREFIX).put(key).array();
+   }
+
+   private static byte[] chunkKey(byte[] key, long version, int index) {
+      return ByteBuffer.allocate(CHUNK_PREFIX.length + 12 + key.length)
+            .put(CHUNK_PREFIX).putLong(version).putInt(index).put(key).array();
+   }
+
+   static class Header {
+      final long version;
+      final long length;
+      final int chunkSize;
+
+      Header(long version, long length, int chunkSize) {
+         this.version = version;
+         this.length = length;
+         this.chunkSize = chunkSize;
+      }
+
+      int chunkCount() {
+         return (int) ((length + chunkSize - 1) / chunkSize);
+      }
+
+      byte[] toBytes() {
+         return ByteBuffer.allocate(HEADER_SIZE).putLong(version).putLong(length).putInt(chunkSize).array();
+      }
+
+      static Header fromBytes(byte[] bytes) {
+         if (bytes == null) {
+            return null;
+         }
+         ByteBuffer buffer = ByteBuffer.wrap(bytes);
+         return new Header(buffer.getLong(), buffer.getLong(), buffer.getInt());
+      }
+   }
+}
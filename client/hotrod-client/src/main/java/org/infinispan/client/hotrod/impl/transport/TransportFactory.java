@@ -56,6 +56,14 @@ public interface TransportFactory {
 
    Transport getTransport(byte[] key);
 
+   /**
+    * Returns the server owning the given key according to the consistent hash, or null if the client is not aware of
+    * the hash distribution of the cluster.
+    */
+   SocketAddress getServer(byte[] key);
+
+   Collection<SocketAddress> getServers();
+
    boolean isTcpNoDelay();
 
    int getTransportCount();
@@ -64,4 +72,10 @@ public interface TransportFactory {
 
    int getConnectTimeout();
 
+   /**
+    * Whether the transports are {@link org.infinispan.client.hotrod.impl.transport.tcp.MultiplexedTransport}s, whose
+    * responses can be read by the connection's reader thread instead of the thread that sent the request.
+    */
+   boolean supportsAsyncResponses();
+
 }
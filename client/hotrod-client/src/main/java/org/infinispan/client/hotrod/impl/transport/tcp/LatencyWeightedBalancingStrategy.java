@@ -0,0 +1,184 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+/**
+ * Sends each request to the server with the lowest expected latency. For every server an exponentially weighted
+ * moving average of the response time is kept, together with the number of requests currently outstanding on it; the
+ * server minimizing <tt>averageResponseTime * (outstandingRequests + 1)</tt> is picked, which also favours the
+ * servers that are close to the client (e.g. in the same rack or site). Servers that have not been
+ * used for a while see their average decay, so that a server which was slow at some point gets probed again. Ties
+ * are broken in a round-robin fashion.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+public class LatencyWeightedBalancingStrategy implements LoadAwareBalancingStrategy {
+
+   private static final Log log = LogFactory.getLog(LatencyWeightedBalancingStrategy.class);
+
+   /**
+    * Weight of the latest response time in the moving average.
+    */
+   private static final double ALPHA = 0.25;
+
+   /**
+    * Time after which the average response time of an idle server halves.
+    */
+   private static final long HALF_LIFE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+   /**
+    * Added to every average, so that servers with no (or very old) samples don't attract all the requests until
+    * their first response comes back.
+    */
+   private static final long MIN_RESPONSE_TIME_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+   /**
+    * Response time accounted for a failed request.
+    */
+   private static final long FAILURE_PENALTY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+   private final ConcurrentMap<SocketAddress, ServerStats> stats = new ConcurrentHashMap<SocketAddress, ServerStats>();
+
+   private final AtomicInteger index = new AtomicInteger();
+
+   private volatile SocketAddress[] servers;
+
+   @Override
+   public void setServers(Collection<SocketAddress> servers) {
+      this.servers = servers.toArray(new SocketAddress[servers.size()]);
+      stats.keySet().retainAll(new HashSet<SocketAddress>(servers));
+      if (log.isTraceEnabled()) {
+         log.tracef("New server list is: %s", Arrays.toString(this.servers));
+      }
+   }
+
+   @Override
+   public SocketAddress nextServer() {
+      return pick(servers);
+   }
+
+   @Override
+   public SocketAddress nextServer(Collection<SocketAddress> candidates) {
+      return pick(candidates.toArray(new SocketAddress[candidates.size()]));
+   }
+
+   @Override
+   public void requestStarted(SocketAddress server) {
+      getStats(server).outstanding.incrementAndGet();
+   }
+
+   @Override
+   public void requestCompleted(SocketAddress server, long responseTimeNanos) {
+      ServerStats serverStats = getStats(server);
+      serverStats.outstanding.decrementAndGet();
+      serverStats.record(responseTimeNanos, System.nanoTime());
+   }
+
+   @Override
+   public void requestFailed(SocketAddress server) {
+      requestCompleted(server, FAILURE_PENALTY_NANOS);
+   }
+
+   /**
+    * Returns the current average response time of the given server, in nanoseconds.
+    */
+   public long getResponseTime(SocketAddress server) {
+      return (long) getStats(server).responseTime(System.nanoTime());
+   }
+
+   public int getOutstandingRequests(SocketAddress server) {
+      return Math.max(0, getStats(server).outstanding.get());
+   }
+
+   private SocketAddress pick(SocketAddress[] candidates) {
+      long now = System.nanoTime();
+      int start = (index.getAndIncrement() & Integer.MAX_VALUE) % candidates.length;
+      SocketAddress best = null;
+      double bestScore = Double.MAX_VALUE;
+      for (int i = 0; i < candidates.length; i++) {
+         SocketAddress candidate = candidates[(start + i) % candidates.length];
+         double score = getStats(candidate).score(now);
+         if (best == null || score < bestScore) {
+            best = candidate;
+            bestScore = score;
+         }
+      }
+      if (log.isTraceEnabled()) {
+         log.tracef("Returning server: %s", best);
+      }
+      return best;
+   }
+
+   private ServerStats getStats(SocketAddress server) {
+      ServerStats serverStats = stats.get(server);
+      if (serverStats == null) {
+         serverStats = new ServerStats();
+         ServerStats existing = stats.putIfAbsent(server, serverStats);
+         if (existing != null)
+            serverStats = existing;
+      }
+      return serverStats;
+   }
+
+   private static final class ServerStats {
+
+      final AtomicInteger outstanding = new AtomicInteger();
+
+      // guarded by this
+      private double average;
+      private long lastUpdate;
+
+      synchronized void record(long responseTimeNanos, long now) {
+         average = lastUpdate == 0 ? responseTimeNanos : ALPHA * responseTimeNanos + (1 - ALPHA) * responseTime(now);
+         lastUpdate = now;
+      }
+
+      synchronized double responseTime(long now) {
+         // a server with requests in flight keeps its average, otherwise a hanging server would attract more traffic
+         if (lastUpdate == 0 || outstanding.get() > 0) {
+            return average;
+         }
+         return average * Math.pow(0.5, (double) (now - lastUpdate) / HALF_LIFE_NANOS);
+      }
+
+      double score(long now) {
+         // the counter may briefly go below zero if the stats were reset while requests were in flight
+         return (responseTime(now) + MIN_RESPONSE_TIME_NANOS) * (Math.max(0, outstanding.get()) + 1);
+      }
+   }
+}
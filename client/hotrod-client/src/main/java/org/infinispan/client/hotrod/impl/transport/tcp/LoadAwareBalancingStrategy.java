@@ -0,0 +1,51 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.net.SocketAddress;
+import java.util.Collection;
+
+/**
+ * A {@link RequestBalancingStrategy} which is told about the outcome of every request, so that it can take the load
+ * and the responsiveness of the servers into account. It is also used for picking one of the owners of a key when
+ * the cluster is distributed.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+public interface LoadAwareBalancingStrategy extends RequestBalancingStrategy {
+
+   /**
+    * Picks one of the given candidate servers, e.g. one of the owners of a key.
+    */
+   SocketAddress nextServer(Collection<SocketAddress> candidates);
+
+   void requestStarted(SocketAddress server);
+
+   void requestCompleted(SocketAddress server, long responseTimeNanos);
+
+   void requestFailed(SocketAddress server);
+
+}
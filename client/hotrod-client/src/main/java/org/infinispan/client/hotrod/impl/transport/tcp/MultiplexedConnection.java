@@ -0,0 +1,268 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.protocol.HotRodConstants;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.util.Util;
+
+/**
+ * A connection to a Hot Rod server shared by many concurrent requests. Requests are written as soon as they are
+ * flushed, without waiting for the responses of the previous requests. A single reader thread per connection reads the
+ * response headers and hands the rest of each response to the {@link MultiplexedTransport} that sent the request with
+ * the same message id.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+public class MultiplexedConnection {
+
+   //needed for debugging
+   private static final AtomicLong ID_COUNTER = new AtomicLong(0);
+
+   private static final Log log = LogFactory.getLog(MultiplexedConnection.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private final Socket socket;
+   private final InputStream socketInputStream;
+   private final BufferedOutputStream socketOutputStream;
+   private final InetSocketAddress serverAddress;
+   private final long id = ID_COUNTER.incrementAndGet();
+   private final ConcurrentMap<Long, MultiplexedTransport> pendingResponses = new ConcurrentHashMap<Long, MultiplexedTransport>();
+   private final Thread readerThread;
+
+   private volatile boolean invalid;
+
+   public MultiplexedConnection(InetSocketAddress serverAddress, MultiplexedTransportFactory transportFactory) {
+      this.serverAddress = serverAddress;
+      try {
+         //a plain socket, as the streams of a socket channel block the writers while the reader thread is reading
+         socket = new Socket();
+         socket.connect(serverAddress, transportFactory.getConnectTimeout());
+         socket.setTcpNoDelay(transportFactory.isTcpNoDelay());
+         socket.setSoTimeout(transportFactory.getSoTimeout());
+         socketInputStream = new BufferedInputStream(socket.getInputStream(), socket.getReceiveBufferSize());
+         socketOutputStream = new BufferedOutputStream(socket.getOutputStream(), socket.getSendBufferSize());
+      } catch (IOException e) {
+         String message = String.format("Could not connect to server: %s", serverAddress);
+         log.couldNotConnectToServer(serverAddress, e);
+         throw new TransportException(message, e);
+      }
+      readerThread = new Thread(new ResponseReader(), "HotRodClientReader-" + serverAddress + "-" + id);
+      readerThread.setDaemon(true);
+      readerThread.start();
+   }
+
+   /**
+    * Writes the request to the socket and registers the transport waiting for the response. The write is done while
+    * holding the connection's output stream, so concurrent requests are never interleaved.
+    */
+   void send(MultiplexedTransport transport, long messageId, byte[] request) {
+      if (invalid) {
+         throw new TransportException(String.format("Connection to server %s is closed", serverAddress));
+      }
+      pendingResponses.put(messageId, transport);
+      try {
+         synchronized (socketOutputStream) {
+            socketOutputStream.write(request);
+            socketOutputStream.flush();
+         }
+         if (trace) {
+            log.tracef("Wrote request %d (%d bytes) to %s", messageId, request.length, this);
+         }
+      } catch (IOException e) {
+         pendingResponses.remove(messageId);
+         invalidate(e);
+         throw new TransportException("Problems writing data to stream", e);
+      }
+      //the reader thread might have failed the pending requests before this one was registered
+      if (invalid && pendingResponses.remove(messageId) != null) {
+         throw new TransportException(String.format("Connection to server %s is closed", serverAddress));
+      }
+   }
+
+   /**
+    * Closes the connection and fails all the requests still waiting for a response.
+    */
+   void invalidate(Throwable cause) {
+      if (invalid) {
+         return;
+      }
+      invalid = true;
+      List<MultiplexedTransport> pending = new ArrayList<MultiplexedTransport>(pendingResponses.values());
+      pendingResponses.clear();
+      if (!pending.isEmpty()) {
+         log.multiplexedConnectionFailed(serverAddress, pending.size(), cause);
+      }
+      close();
+      TransportException exception = cause instanceof TransportException ?
+            (TransportException) cause : new TransportException(cause);
+      for (MultiplexedTransport transport : pending) {
+         transport.responseFailed(exception);
+      }
+   }
+
+   public void destroy() {
+      invalidate(new TransportException(String.format("Connection to server %s was closed", serverAddress)));
+   }
+
+   private void close() {
+      try {
+         socket.close();
+         if (trace) {
+            log.tracef("Successfully closed socket: %s", socket);
+         }
+      } catch (IOException e) {
+         log.debugf(e, "Issues closing socket for %s", this);
+         Util.close(socketInputStream, socketOutputStream);
+         Util.close(socket);
+      }
+   }
+
+   public boolean isValid() {
+      return !invalid && !socket.isClosed();
+   }
+
+   public InetSocketAddress getServerAddress() {
+      return serverAddress;
+   }
+
+   public int getPendingResponses() {
+      return pendingResponses.size();
+   }
+
+   @Override
+   public String toString() {
+      return "MultiplexedConnection{" +
+            "socket=" + socket +
+            ", serverAddress=" + serverAddress +
+            ", id=" + id +
+            '}';
+   }
+
+   /**
+    * Reads the magic number and the message id of each response, and hands the response to the transport waiting
+    * for it. The bytes already read are replayed, so the operations parse the response header as usual. The next
+    * response is only read after the transport has consumed the current one.
+    */
+   private class ResponseReader implements Runnable {
+
+      @Override
+      public void run() {
+         while (!invalid) {
+            try {
+               int magic;
+               try {
+                  magic = socketInputStream.read();
+               } catch (SocketTimeoutException e) {
+                  //no response arrived in the meantime. The requests waiting for a response time out on their own
+                  if (trace) {
+                     log.tracef("No response received from %s in the last %d ms", serverAddress, soTimeout());
+                  }
+                  continue;
+               }
+               if (magic == -1) {
+                  throw new EOFException("End of stream reached!");
+               }
+               ByteArrayOutputStream header = new ByteArrayOutputStream(10);
+               header.write(magic);
+               if (magic != HotRodConstants.RESPONSE_MAGIC) {
+                  throw new TransportException(String.format("Invalid magic number. Expected %#x and received %#x",
+                                                             HotRodConstants.RESPONSE_MAGIC, magic));
+               }
+               long messageId = readMessageId(header);
+               MultiplexedTransport transport = pendingResponses.remove(messageId);
+               if (transport == null) {
+                  //a message id 0 means the server failed before reading the request's id, so it cannot be matched
+                  log.unknownResponseMessageId(messageId, serverAddress);
+                  throw new TransportException(String.format("Received response for unknown message id %d", messageId));
+               }
+               if (trace) {
+                  log.tracef("Received response for message id %d from %s", messageId, serverAddress);
+               }
+               InputStream response = new SequenceInputStream(new ByteArrayInputStream(header.toByteArray()),
+                                                              socketInputStream);
+               transport.responseReceived(response);
+               if (!transport.awaitResponseConsumed()) {
+                  //the rest of the response cannot be skipped, so the connection cannot be used anymore
+                  throw new TransportException(String.format("Response for message id %d from %s was not consumed in %d ms",
+                                                             messageId, serverAddress, soTimeout()));
+               }
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               invalidate(e);
+            } catch (Throwable t) {
+               invalidate(t);
+            }
+         }
+      }
+
+      private long readMessageId(ByteArrayOutputStream header) throws IOException {
+         int b = readAndRecord(header);
+         long messageId = b & 0x7F;
+         for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            b = readAndRecord(header);
+            messageId |= (b & 0x7FL) << shift;
+         }
+         return messageId;
+      }
+
+      private int readAndRecord(ByteArrayOutputStream header) throws IOException {
+         int b = socketInputStream.read();
+         if (b == -1) {
+            throw new EOFException("End of stream reached!");
+         }
+         header.write(b);
+         return b;
+      }
+
+      private int soTimeout() {
+         try {
+            return socket.getSoTimeout();
+         } catch (IOException e) {
+            return -1;
+         }
+      }
+   }
+}
@@ -0,0 +1,325 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import static org.infinispan.io.UnsignedNumeric.readUnsignedInt;
+import static org.infinispan.io.UnsignedNumeric.readUnsignedLong;
+import static org.infinispan.io.UnsignedNumeric.writeUnsignedInt;
+import static org.infinispan.io.UnsignedNumeric.writeUnsignedLong;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.transport.AbstractTransport;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+
+/**
+ * Transport used for a single request over a {@link MultiplexedConnection}. The request is buffered until
+ * {@link #flush()} is invoked, and then written to the shared connection. The response is read either by the thread
+ * that sent the request, which blocks in the first read until the response arrives, or by the connection's reader
+ * thread, if a {@link ResponseListener} was passed to {@link #flush(ResponseListener)}.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+public class MultiplexedTransport extends AbstractTransport {
+
+   private static final Log log = LogFactory.getLog(MultiplexedTransport.class, Log.class);
+   private static final boolean trace = log.isTraceEnabled();
+
+   private final MultiplexedConnection connection;
+   private final int soTimeout;
+   private final ByteArrayOutputStream request = new ByteArrayOutputStream(128);
+   private final CountDownLatch responseConsumed = new CountDownLatch(1);
+   private final long creationTime = System.nanoTime();
+
+   //guarded by this
+   private InputStream response;
+   private TransportException failure;
+   private ResponseListener listener;
+
+   public MultiplexedTransport(MultiplexedConnection connection, MultiplexedTransportFactory transportFactory) {
+      super(transportFactory);
+      this.connection = connection;
+      this.soTimeout = transportFactory.getSoTimeout();
+   }
+
+   /**
+    * Notified by the connection's reader thread when the response to a request sent with
+    * {@link MultiplexedTransport#flush(ResponseListener)} is available.
+    */
+   public interface ResponseListener {
+
+      /**
+       * Invoked in the connection's reader thread. It must read the whole response from the transport before
+       * returning, and it should not block, as no other response is read from the connection in the meantime.
+       */
+      void responseAvailable(MultiplexedTransport transport);
+
+      /**
+       * Invoked if the connection fails before the response is received.
+       */
+      void responseFailed(TransportException cause);
+   }
+
+   @Override
+   public void writeVInt(int vInt) {
+      try {
+         writeUnsignedInt(request, vInt);
+      } catch (IOException e) {
+         throw new TransportException(e);
+      }
+   }
+
+   @Override
+   public void writeVLong(long l) {
+      try {
+         writeUnsignedLong(request, l);
+      } catch (IOException e) {
+         throw new TransportException(e);
+      }
+   }
+
+   @Override
+   protected void writeBytes(byte[] toAppend) {
+      request.write(toAppend, 0, toAppend.length);
+   }
+
+   @Override
+   public void writeByte(short toWrite) {
+      request.write(toWrite);
+   }
+
+   /**
+    * Sends the request. The response is read by the invoking thread.
+    */
+   @Override
+   public void flush() {
+      send();
+   }
+
+   /**
+    * Sends the request. The response is read by the connection's reader thread, which invokes the listener.
+    */
+   public void flush(ResponseListener listener) {
+      synchronized (this) {
+         this.listener = listener;
+      }
+      send();
+   }
+
+   private void send() {
+      byte[] bytes = request.toByteArray();
+      request.reset();
+      connection.send(this, readMessageId(bytes), bytes);
+   }
+
+   /**
+    * the message id is the variable length long written after the magic number
+    */
+   private static long readMessageId(byte[] request) {
+      long messageId = 0;
+      int shift = 0;
+      for (int i = 1; i < request.length; i++, shift += 7) {
+         byte b = request[i];
+         messageId |= (b & 0x7FL) << shift;
+         if ((b & 0x80) == 0) {
+            break;
+         }
+      }
+      return messageId;
+   }
+
+   void responseReceived(InputStream response) {
+      ResponseListener l;
+      synchronized (this) {
+         this.response = response;
+         l = listener;
+         notifyAll();
+      }
+      if (l != null) {
+         try {
+            l.responseAvailable(this);
+         } finally {
+            responseConsumed.countDown();
+         }
+      }
+   }
+
+   void responseFailed(TransportException cause) {
+      ResponseListener l;
+      synchronized (this) {
+         failure = cause;
+         l = listener;
+         notifyAll();
+      }
+      responseConsumed.countDown();
+      if (l != null) {
+         l.responseFailed(cause);
+      }
+   }
+
+   /**
+    * Waits until the response is consumed, for at most the socket timeout.
+    *
+    * @return false if the response was not consumed in time
+    */
+   boolean awaitResponseConsumed() throws InterruptedException {
+      if (soTimeout > 0) {
+         return responseConsumed.await(soTimeout, TimeUnit.MILLISECONDS);
+      }
+      responseConsumed.await();
+      return true;
+   }
+
+   private InputStream responseStream() {
+      boolean timedOut = false;
+      synchronized (this) {
+         if (response == null && failure == null) {
+            try {
+               long remaining = soTimeout > 0 ? TimeUnit.MILLISECONDS.toNanos(soTimeout) : Long.MAX_VALUE;
+               long deadline = System.nanoTime() + remaining;
+               while (response == null && failure == null && remaining > 0) {
+                  TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                  remaining = deadline - System.nanoTime();
+               }
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               throw new TransportException(e);
+            }
+            timedOut = response == null && failure == null;
+         }
+         if (failure != null) {
+            throw new TransportException(failure.getMessage(), failure);
+         }
+      }
+      if (timedOut) {
+         //the response may still arrive, so the connection cannot be used anymore
+         TransportException e = new TransportException(String.format(
+               "No response received from %s after %d ms", connection.getServerAddress(), soTimeout));
+         connection.invalidate(e);
+         throw e;
+      }
+      return response;
+   }
+
+   private TransportException readFailed(IOException e) {
+      connection.invalidate(e);
+      return new TransportException(e);
+   }
+
+   @Override
+   public long readVLong() {
+      try {
+         return readUnsignedLong(responseStream());
+      } catch (IOException e) {
+         throw readFailed(e);
+      }
+   }
+
+   @Override
+   public int readVInt() {
+      try {
+         return readUnsignedInt(responseStream());
+      } catch (IOException e) {
+         throw readFailed(e);
+      }
+   }
+
+   @Override
+   public short readByte() {
+      int resultInt;
+      try {
+         resultInt = responseStream().read();
+      } catch (IOException e) {
+         throw readFailed(e);
+      }
+      if (resultInt == -1) {
+         throw new TransportException("End of stream reached!");
+      }
+      return (short) resultInt;
+   }
+
+   @Override
+   public byte[] readByteArray(final int size) {
+      byte[] result = new byte[size];
+      InputStream in = responseStream();
+      int offset = 0;
+      while (offset < size) {
+         int read;
+         try {
+            read = in.read(result, offset, size - offset);
+         } catch (IOException e) {
+            throw readFailed(e);
+         }
+         if (read == -1) {
+            throw new TransportException("End of stream reached!");
+         }
+         offset += read;
+      }
+      if (trace) {
+         log.tracef("Successfully read array with size: %d", size);
+      }
+      return result;
+   }
+
+   /**
+    * Marks the response as consumed, so that the connection's reader thread can read the next response.
+    */
+   @Override
+   public void release() {
+      responseConsumed.countDown();
+   }
+
+   @Override
+   public byte[] dumpStream() {
+      //the stream is shared with the other requests
+      return new byte[0];
+   }
+
+   public MultiplexedConnection getConnection() {
+      return connection;
+   }
+
+   public long getCreationTime() {
+      return creationTime;
+   }
+
+   public boolean isValid() {
+      return connection.isValid();
+   }
+
+   @Override
+   public String toString() {
+      return "MultiplexedTransport{" +
+            "connection=" + connection +
+            '}';
+   }
+}
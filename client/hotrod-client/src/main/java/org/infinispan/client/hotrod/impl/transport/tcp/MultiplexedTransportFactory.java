@@ -0,0 +1,360 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.impl.transport.tcp;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.client.hotrod.exceptions.TransportException;
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHash;
+import org.infinispan.client.hotrod.impl.consistenthash.ConsistentHashFactory;
+import org.infinispan.client.hotrod.impl.operations.PingOperation;
+import org.infinispan.client.hotrod.impl.protocol.Codec;
+import org.infinispan.client.hotrod.impl.transport.Transport;
+import org.infinispan.client.hotrod.impl.transport.TransportFactory;
+import org.infinispan.client.hotrod.logging.Log;
+import org.infinispan.client.hotrod.logging.LogFactory;
+import org.infinispan.util.Util;
+
+/**
+ * Transport factory that pipelines the requests over a small, fixed number of {@link MultiplexedConnection}s per
+ * server, instead of using a connection per request in flight like {@link TcpTransportFactory}. The number of
+ * connections per server is configured with <tt>infinispan.client.hotrod.connections_per_server</tt>.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+public class MultiplexedTransportFactory implements TransportFactory {
+
+   private static final Log log = LogFactory.getLog(MultiplexedTransportFactory.class, Log.class);
+
+   private final Object lock = new Object();
+   private final ConcurrentMap<SocketAddress, MultiplexedConnection[]> connections = new ConcurrentHashMap<SocketAddress, MultiplexedConnection[]>();
+   private final AtomicInteger nextConnection = new AtomicInteger(0);
+   private RequestBalancingStrategy balancer;
+   private Collection<SocketAddress> servers;
+   private ConsistentHash consistentHash;
+   private final ConsistentHashFactory hashFactory = new ConsistentHashFactory();
+   private Codec codec;
+   private AtomicInteger topologyId;
+
+   private volatile boolean tcpNoDelay;
+   private volatile int soTimeout;
+   private volatile int connectTimeout;
+   private volatile int connectionsPerServer;
+
+   @Override
+   public void start(Codec codec, ConfigurationProperties cfg, Collection<SocketAddress> staticConfiguredServers,
+                     AtomicInteger topologyId, ClassLoader classLoader) {
+      synchronized (lock) {
+         hashFactory.init(cfg, classLoader);
+         this.codec = codec;
+         this.topologyId = topologyId;
+         servers = Collections.unmodifiableCollection(new ArrayList<SocketAddress>(staticConfiguredServers));
+         String balancerClass = cfg.getRequestBalancingStrategy();
+         balancer = (RequestBalancingStrategy) Util.getInstance(balancerClass, classLoader);
+         tcpNoDelay = cfg.getTcpNoDelay();
+         soTimeout = cfg.getSoTimeout();
+         connectTimeout = cfg.getConnectTimeout();
+         connectionsPerServer = cfg.getConnectionsPerServer();
+         if (log.isDebugEnabled()) {
+            log.debugf("Statically configured servers: %s", staticConfiguredServers);
+            log.debugf("Load balancer class: %s", balancerClass);
+            log.debugf("Tcp no delay = %b; client socket timeout = %d ms; connect timeout = %d ms; connections per server = %d",
+                       tcpNoDelay, soTimeout, connectTimeout, connectionsPerServer);
+         }
+         balancer.setServers(servers);
+      }
+      if (cfg.getPingOnStartup() && !staticConfiguredServers.isEmpty()) {
+         ping(staticConfiguredServers.iterator().next());
+      }
+   }
+
+   private void ping(SocketAddress server) {
+      log.trace("Executing first ping!");
+      Transport transport = null;
+      try {
+         transport = getTransport(server);
+         new PingOperation(codec, topologyId, transport).execute();
+      } catch (Exception e) {
+         log.tracef("Ignoring ping request failure during ping on startup: %s", e.getMessage());
+      } finally {
+         if (transport != null) {
+            releaseTransport(transport);
+         }
+      }
+   }
+
+   @Override
+   public void destroy() {
+      synchronized (lock) {
+         for (MultiplexedConnection[] serverConnections : connections.values()) {
+            destroy(serverConnections);
+         }
+         connections.clear();
+      }
+   }
+
+   @Override
+   public void updateHashFunction(Map<SocketAddress, Set<Integer>> servers2Hash, int numKeyOwners, short hashFunctionVersion, int hashSpace) {
+      synchronized (lock) {
+         ConsistentHash hash = hashFactory.newConsistentHash(hashFunctionVersion);
+         if (hash == null) {
+            log.noHasHFunctionConfigured(hashFunctionVersion);
+         } else {
+            hash.init(servers2Hash, numKeyOwners, hashSpace);
+         }
+         consistentHash = hash;
+      }
+   }
+
+   @Override
+   public Transport getTransport() {
+      SocketAddress server;
+      synchronized (lock) {
+         server = balancer.nextServer();
+      }
+      return getTransport(server);
+   }
+
+   @Override
+   public SocketAddress getServer(byte[] key) {
+      synchronized (lock) {
+         return consistentHash != null ? consistentHash.getServer(key) : null;
+      }
+   }
+
+   @Override
+   public Transport getTransport(byte[] key) {
+      SocketAddress server;
+      synchronized (lock) {
+         if (consistentHash != null && balancer instanceof LoadAwareBalancingStrategy) {
+            server = ((LoadAwareBalancingStrategy) balancer).nextServer(consistentHash.getServers(key));
+            if (log.isTraceEnabled()) {
+               log.tracef("Using the balancer for picking one of the key owners: %s", server);
+            }
+         } else if (consistentHash != null) {
+            server = consistentHash.getServer(key);
+            if (log.isTraceEnabled()) {
+               log.tracef("Using consistent hash for determining the server: %s", server);
+            }
+         } else {
+            server = balancer.nextServer();
+            if (log.isTraceEnabled()) {
+               log.tracef("Using the balancer for determining the server: %s", server);
+            }
+         }
+      }
+      return getTransport(server);
+   }
+
+   private Transport getTransport(SocketAddress server) {
+      MultiplexedTransport transport = new MultiplexedTransport(getConnection(server), this);
+      LoadAwareBalancingStrategy loadAwareBalancer = getLoadAwareBalancer();
+      if (loadAwareBalancer != null) {
+         loadAwareBalancer.requestStarted(server);
+      }
+      return transport;
+   }
+
+   private LoadAwareBalancingStrategy getLoadAwareBalancer() {
+      synchronized (lock) {
+         return balancer instanceof LoadAwareBalancingStrategy ? (LoadAwareBalancingStrategy) balancer : null;
+      }
+   }
+
+   /**
+    * Picks one of the server's connections in a round robin fashion, replacing it if it was closed.
+    */
+   private MultiplexedConnection getConnection(SocketAddress server) {
+      MultiplexedConnection[] serverConnections = connections.get(server);
+      if (serverConnections == null) {
+         serverConnections = new MultiplexedConnection[connectionsPerServer];
+         MultiplexedConnection[] existing = connections.putIfAbsent(server, serverConnections);
+         if (existing != null) {
+            serverConnections = existing;
+         }
+      }
+      int index = (nextConnection.getAndIncrement() & Integer.MAX_VALUE) % serverConnections.length;
+      synchronized (serverConnections) {
+         MultiplexedConnection connection = serverConnections[index];
+         if (connection == null || !connection.isValid()) {
+            try {
+               connection = new MultiplexedConnection((InetSocketAddress) server, this);
+            } catch (TransportException e) {
+               log.couldNotFetchTransport(e);
+               throw e;
+            }
+            if (log.isTraceEnabled()) {
+               log.tracef("Created multiplexed connection: %s", connection);
+            }
+            serverConnections[index] = connection;
+         }
+         return connection;
+      }
+   }
+
+   @Override
+   public void releaseTransport(Transport transport) {
+      transport.release();
+      LoadAwareBalancingStrategy loadAwareBalancer = getLoadAwareBalancer();
+      if (loadAwareBalancer != null) {
+         MultiplexedTransport multiplexedTransport = (MultiplexedTransport) transport;
+         SocketAddress server = multiplexedTransport.getConnection().getServerAddress();
+         if (multiplexedTransport.isValid()) {
+            loadAwareBalancer.requestCompleted(server, System.nanoTime() - multiplexedTransport.getCreationTime());
+         } else {
+            loadAwareBalancer.requestFailed(server);
+         }
+      }
+   }
+
+   @Override
+   public void updateServers(Collection<SocketAddress> newServers) {
+      synchronized (lock) {
+         Set<SocketAddress> addedServers = new HashSet<SocketAddress>(newServers);
+         addedServers.removeAll(servers);
+         Set<SocketAddress> failedServers = new HashSet<SocketAddress>(servers);
+         failedServers.removeAll(newServers);
+         if (log.isTraceEnabled()) {
+            log.tracef("Current list: %s", servers);
+            log.tracef("New list: %s", newServers);
+            log.tracef("Added servers: %s", addedServers);
+            log.tracef("Removed servers: %s", failedServers);
+         }
+         if (failedServers.isEmpty() && addedServers.isEmpty()) {
+            log.debug("Same list of servers, not changing the connections");
+            return;
+         }
+
+         //the connections to the new servers are created on demand
+         for (SocketAddress server : addedServers) {
+            log.newServerAdded(server);
+         }
+
+         balancer.setServers(newServers);
+
+         for (SocketAddress server : failedServers) {
+            log.removingServer(server);
+            MultiplexedConnection[] serverConnections = connections.remove(server);
+            if (serverConnections != null) {
+               destroy(serverConnections);
+            }
+         }
+
+         servers = Collections.unmodifiableList(new ArrayList<SocketAddress>(newServers));
+      }
+   }
+
+   private void destroy(MultiplexedConnection[] serverConnections) {
+      synchronized (serverConnections) {
+         for (MultiplexedConnection connection : serverConnections) {
+            if (connection != null) {
+               connection.destroy();
+            }
+         }
+      }
+   }
+
+   @Override
+   public Collection<SocketAddress> getServers() {
+      synchronized (lock) {
+         return servers;
+      }
+   }
+
+   /**
+    * Note that the returned <code>ConsistentHash</code> may not be thread-safe.
+    */
+   public ConsistentHash getConsistentHash() {
+      synchronized (lock) {
+         return consistentHash;
+      }
+   }
+
+   @Override
+   public ConsistentHashFactory getConsistentHashFactory() {
+      return hashFactory;
+   }
+
+   @Override
+   public boolean isTcpNoDelay() {
+      return tcpNoDelay;
+   }
+
+   @Override
+   public int getTransportCount() {
+      if (Thread.currentThread().isInterrupted()) {
+         return -1;
+      }
+      synchronized (lock) {
+         return connectionsPerServer * servers.size();
+      }
+   }
+
+   @Override
+   public int getSoTimeout() {
+      return soTimeout;
+   }
+
+   @Override
+   public int getConnectTimeout() {
+      return connectTimeout;
+   }
+
+   @Override
+   public boolean supportsAsyncResponses() {
+      return true;
+   }
+
+   /**
+    * @return the number of requests waiting for a response from the given server
+    */
+   public int getPendingResponses(SocketAddress server) {
+      MultiplexedConnection[] serverConnections = connections.get(server);
+      if (serverConnections == null) {
+         return 0;
+      }
+      int pending = 0;
+      synchronized (serverConnections) {
+         for (MultiplexedConnection connection : serverConnections) {
+            if (connection != null) {
+               pending += connection.getPendingResponses();
+            }
+         }
+      }
+      return pending;
+   }
+}
@@ -34,6 +34,7 @@
 import java.io.InputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketException;
 import java.nio.channels.SocketChannel;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -70,6 +71,9 @@ public class TcpTransport extends AbstractTransport {
 
    private volatile boolean invalid;
 
+   // when this transport was handed out by the pool, used for measuring the servers' response times
+   private volatile long borrowTime;
+
    public TcpTransport(InetSocketAddress serverAddress, TransportFactory transportFactory) {
       super(transportFactory);
       this.serverAddress = serverAddress;
@@ -236,6 +240,14 @@ public InetSocketAddress getServerAddress() {
       return serverAddress;
    }
 
+   public long getBorrowTime() {
+      return borrowTime;
+   }
+
+   public void setBorrowTime(long borrowTime) {
+      this.borrowTime = borrowTime;
+   }
+
    @Override
    public String toString() {
       return "TcpTransport{" +
@@ -291,6 +303,17 @@ public void destroy() {
       }
    }
 
+   /**
+    * Lets reads block until data arrives, for connections that wait for messages pushed by the server.
+    */
+   public void disableSoTimeout() {
+      try {
+         socket.setSoTimeout(0);
+      } catch (SocketException e) {
+         throw new TransportException(e);
+      }
+   }
+
    public boolean isValid() {
       return !socket.isClosed() && !invalid;
    }
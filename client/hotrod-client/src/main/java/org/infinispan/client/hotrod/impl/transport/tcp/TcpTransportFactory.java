@@ -143,11 +143,23 @@ public Transport getTransport() {
       return borrowTransportFromPool(server);
    }
 
+   @Override
+   public SocketAddress getServer(byte[] key) {
+      synchronized (lock) {
+         return consistentHash != null ? consistentHash.getServer(key) : null;
+      }
+   }
+
    @Override
    public Transport getTransport(byte[] key) {
       SocketAddress server;
       synchronized (lock) {
-         if (consistentHash != null) {
+         if (consistentHash != null && balancer instanceof LoadAwareBalancingStrategy) {
+            server = ((LoadAwareBalancingStrategy) balancer).nextServer(consistentHash.getServers(key));
+            if (log.isTraceEnabled()) {
+               log.tracef("Using the balancer for picking one of the key owners: %s", server);
+            }
+         } else if (consistentHash != null) {
             server = consistentHash.getServer(key);
             if (log.isTraceEnabled()) {
                log.tracef("Using consistent hash for determining the server: " + server);
@@ -167,6 +179,14 @@ public void releaseTransport(Transport transport) {
       // The invalidateObject()/returnObject() calls could take a long time, so we hold the lock only until we get the connection pool reference
       KeyedObjectPool pool = getConnectionPool();
       TcpTransport tcpTransport = (TcpTransport) transport;
+      LoadAwareBalancingStrategy loadAwareBalancer = getLoadAwareBalancer();
+      if (loadAwareBalancer != null) {
+         if (tcpTransport.isValid()) {
+            loadAwareBalancer.requestCompleted(tcpTransport.getServerAddress(), System.nanoTime() - tcpTransport.getBorrowTime());
+         } else {
+            loadAwareBalancer.requestFailed(tcpTransport.getServerAddress());
+         }
+      }
       if (!tcpTransport.isValid()) {
          try {
             if (log.isTraceEnabled()) {
@@ -231,6 +251,7 @@ public void updateServers(Collection<SocketAddress> newServers) {
       }
    }
 
+   @Override
    public Collection<SocketAddress> getServers() {
       synchronized (lock) {
          return servers;
@@ -248,7 +269,13 @@ private Transport borrowTransportFromPool(SocketAddress server) {
       // The borrowObject() call could take a long time, so we hold the lock only until we get the connection pool reference
       KeyedObjectPool pool = getConnectionPool();
       try {
-         return (Transport) pool.borrowObject(server);
+         TcpTransport transport = (TcpTransport) pool.borrowObject(server);
+         LoadAwareBalancingStrategy loadAwareBalancer = getLoadAwareBalancer();
+         if (loadAwareBalancer != null) {
+            transport.setBorrowTime(System.nanoTime());
+            loadAwareBalancer.requestStarted(server);
+         }
+         return transport;
       } catch (Exception e) {
          String message = "Could not fetch transport";
          log.couldNotFetchTransport(e);
@@ -301,6 +328,11 @@ public int getConnectTimeout() {
       return connectTimeout;
    }
 
+   @Override
+   public boolean supportsAsyncResponses() {
+      return false;
+   }
+
    /**
     * Note that the returned <code>RequestBalancingStrategy</code> may not be thread-safe.
     */
@@ -310,6 +342,12 @@ public RequestBalancingStrategy getBalancer() {
       }
    }
 
+   private LoadAwareBalancingStrategy getLoadAwareBalancer() {
+      synchronized (lock) {
+         return balancer instanceof LoadAwareBalancingStrategy ? (LoadAwareBalancingStrategy) balancer : null;
+      }
+   }
+
    public GenericKeyedObjectPool getConnectionPool() {
       synchronized (lock) {
          return connectionPool;
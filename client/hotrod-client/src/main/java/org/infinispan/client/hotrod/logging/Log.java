@@ -127,4 +127,32 @@ public interface Log extends BasicLogger {
    @Message(value = "Unable to convert string property [%s] to a boolean! Using default value of %b", id = 4020)
    void unableToConvertStringPropertyToBoolean(String value, boolean defaultValue);
 
+   @LogMessage(level = WARN)
+   @Message(value = "Connection to server %s failed. Failing %d pending requests", id = 4021)
+   void multiplexedConnectionFailed(SocketAddress server, int pendingRequests, @Cause Throwable cause);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Received response for unknown message id %d from server %s", id = 4022)
+   void unknownResponseMessageId(long messageId, SocketAddress server);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Near cache listener connection to server %s failed. The near cache is disabled until the listener is registered again", id = 4023)
+   void nearCacheListenerFailed(SocketAddress server, @Cause Throwable cause);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Near cache is not supported by Hot Rod protocol version %s, so it is disabled", id = 4024)
+   void nearCacheNotSupported(String protocolVersion);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Client listener connection to server %s failed, reconnecting", id = 4025)
+   void clientListenerFailed(SocketAddress server, @Cause Throwable cause);
+
+   @LogMessage(level = ERROR)
+   @Message(value = "Client listener %s failed to process an event", id = 4026)
+   void clientListenerCallbackFailed(Object listener, @Cause Throwable cause);
+
+   @LogMessage(level = WARN)
+   @Message(value = "Could not remove chunk %d of streamed value version %d, it is left orphaned", id = 4027)
+   void couldNotRemoveStreamChunk(int index, long version, @Cause Throwable cause);
+
 }
@@ -0,0 +1,148 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.marshall;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Reads what was written to a {@link CompactOutput}, directly from the marshalled byte array.
+ *
+ * @since 5.2
+ */
+@NotThreadSafe
+public final class CompactInput {
+
+   private final CompactMarshaller marshaller;
+   private final byte[] buf;
+   private final int limit;
+   private int pos;
+
+   CompactInput(CompactMarshaller marshaller, byte[] buf, int offset, int length) {
+      this.marshaller = marshaller;
+      this.buf = buf;
+      this.pos = offset;
+      this.limit = offset + length;
+   }
+
+   public boolean readBoolean() throws IOException {
+      return readByte() != 0;
+   }
+
+   public byte readByte() throws IOException {
+      ensureAvailable(1);
+      return buf[pos++];
+   }
+
+   public int readInt() throws IOException {
+      int i = readUnsignedInt();
+      return (i >>> 1) ^ -(i & 1);
+   }
+
+   public long readLong() throws IOException {
+      long l = readUnsignedLong();
+      return (l >>> 1) ^ -(l & 1);
+   }
+
+   public int readUnsignedInt() throws IOException {
+      int result = 0;
+      for (int shift = 0; shift < 32; shift += 7) {
+         byte b = readByte();
+         result |= (b & 0x7F) << shift;
+         if (b >= 0) {
+            return result;
+         }
+      }
+      throw new IOException("Malformed variable length integer");
+   }
+
+   public long readUnsignedLong() throws IOException {
+      long result = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+         byte b = readByte();
+         result |= (long) (b & 0x7F) << shift;
+         if (b >= 0) {
+            return result;
+         }
+      }
+      throw new IOException("Malformed variable length long");
+   }
+
+   public float readFloat() throws IOException {
+      return Float.intBitsToFloat(readFixedInt());
+   }
+
+   public double readDouble() throws IOException {
+      long low = readFixedInt() & 0xFFFFFFFFL;
+      long high = readFixedInt() & 0xFFFFFFFFL;
+      return Double.longBitsToDouble(low | (high << 32));
+   }
+
+   public String readString() throws IOException {
+      int encodedLength = readUnsignedInt();
+      ensureAvailable(encodedLength);
+      char[] chars = new char[encodedLength];
+      int end = pos + encodedLength;
+      int count = 0;
+      while (pos < end) {
+         int c = buf[pos++] & 0xFF;
+         if (c < 0x80) {
+            chars[count++] = (char) c;
+         } else if ((c & 0xE0) == 0xC0 && pos < end) {
+            chars[count++] = (char) (((c & 0x1F) << 6) | (buf[pos++] & 0x3F));
+         } else if ((c & 0xF0) == 0xE0 && pos + 1 < end) {
+            chars[count++] = (char) (((c & 0x0F) << 12) | ((buf[pos++] & 0x3F) << 6) | (buf[pos++] & 0x3F));
+         } else {
+            throw new UTFDataFormatException("Malformed string at byte " + pos);
+         }
+      }
+      return new String(chars, 0, count);
+   }
+
+   public byte[] readBytes() throws IOException {
+      int length = readUnsignedInt();
+      ensureAvailable(length);
+      byte[] bytes = new byte[length];
+      System.arraycopy(buf, pos, bytes, 0, length);
+      pos += length;
+      return bytes;
+   }
+
+   public Object readObject() throws IOException {
+      return marshaller.readObject(this);
+   }
+
+   private int readFixedInt() throws IOException {
+      ensureAvailable(4);
+      return (buf[pos++] & 0xFF) | (buf[pos++] & 0xFF) << 8 | (buf[pos++] & 0xFF) << 16 | (buf[pos++] & 0xFF) << 24;
+   }
+
+   private void ensureAvailable(int length) throws IOException {
+      if (length < 0 || pos + length > limit) {
+         throw new EOFException();
+      }
+   }
+}
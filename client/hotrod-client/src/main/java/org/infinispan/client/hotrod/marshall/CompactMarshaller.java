@@ -0,0 +1,292 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.marshall;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.jcip.annotations.ThreadSafe;
+
+import org.infinispan.CacheException;
+import org.infinispan.io.ByteBuffer;
+import org.infinispan.marshall.AbstractMarshaller;
+
+/**
+ * A compact, portable binary marshaller. Every object is written as a type tag followed by its fields, numbers being
+ * encoded as variable length integers much like Protocol Buffers do, and no class names or field names are ever
+ * written.
+ * <p/>
+ * Out of the box, it supports null, String, byte[], the primitive wrappers and the {@link List}s, {@link Set}s and
+ * {@link Map}s of supported objects. Application types are supported by registering a {@link CompactExternalizer} for
+ * them, under an identifier which must be the same on every client sharing the data:
+ * <pre>
+ * CompactMarshaller marshaller = new CompactMarshaller();
+ * marshaller.register(1, Person.class, new PersonExternalizer());
+ * RemoteCacheManager remoteCacheManager = new RemoteCacheManager(marshaller, properties);
+ * </pre>
+ * Registered types are matched on their exact class. When the marshaller is configured through the
+ * <tt>infinispan.client.hotrod.marshaller</tt> property instead, subclass it and register the types in the
+ * constructor.
+ * <p/>
+ * Each thread marshals into a buffer that is reused from one call to the next, so that marshalling only allocates the
+ * returned byte array.
+ *
+ * @since 5.2
+ */
+@ThreadSafe
+public class CompactMarshaller extends AbstractMarshaller {
+
+   private static final int NULL = 0;
+   private static final int STRING = 1;
+   private static final int BYTES = 2;
+   private static final int FALSE = 3;
+   private static final int TRUE = 4;
+   private static final int INT = 5;
+   private static final int LONG = 6;
+   private static final int SHORT = 7;
+   private static final int BYTE = 8;
+   private static final int CHAR = 9;
+   private static final int FLOAT = 10;
+   private static final int DOUBLE = 11;
+   private static final int LIST = 12;
+   private static final int SET = 13;
+   private static final int MAP = 14;
+
+   /**
+    * Tags from this one on identify registered types: the tag is the type identifier plus this offset.
+    */
+   private static final int FIRST_REGISTERED_TYPE = 32;
+
+   /**
+    * Buffers grown beyond this size are not kept for reuse, so that an occasional large value doesn't stay in memory.
+    */
+   private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+
+   private final ConcurrentMap<Class<?>, RegisteredType<?>> typesByClass = new ConcurrentHashMap<Class<?>, RegisteredType<?>>();
+   private final ConcurrentMap<Integer, RegisteredType<?>> typesByTag = new ConcurrentHashMap<Integer, RegisteredType<?>>();
+
+   private final ThreadLocal<CompactOutput> pooledOutput = new ThreadLocal<CompactOutput>();
+
+   /**
+    * Registers the externalizer for writing and reading the objects of the given class.
+    *
+    * @param typeId a non negative identifier, unique within this marshaller, which is written along with the objects
+    */
+   public <T> CompactMarshaller register(int typeId, Class<T> type, CompactExternalizer<T> externalizer) {
+      if (typeId < 0) {
+         throw new CacheException("Type identifiers must not be negative: " + typeId);
+      }
+      RegisteredType<T> registeredType = new RegisteredType<T>(typeId + FIRST_REGISTERED_TYPE, externalizer);
+      RegisteredType<?> existing = typesByTag.putIfAbsent(registeredType.tag, registeredType);
+      if (existing != null) {
+         throw new CacheException("Type identifier " + typeId + " is already registered");
+      }
+      if (typesByClass.putIfAbsent(type, registeredType) != null) {
+         typesByTag.remove(registeredType.tag);
+         throw new CacheException("Type " + type.getName() + " is already registered");
+      }
+      return this;
+   }
+
+   @Override
+   public byte[] objectToByteBuffer(Object obj, int estimatedSize) throws IOException {
+      CompactOutput output = pooledOutput.get();
+      if (output == null) {
+         output = new CompactOutput(this, Math.max(estimatedSize, DEFAULT_BUF_SIZE));
+      } else {
+         // a nested call from an externalizer must not write to the buffer in use
+         pooledOutput.remove();
+      }
+      try {
+         output.reset();
+         writeObject(output, obj);
+         return output.toByteArray();
+      } finally {
+         if (output.capacity() <= MAX_POOLED_BUFFER_SIZE) {
+            pooledOutput.set(output);
+         }
+      }
+   }
+
+   @Override
+   protected ByteBuffer objectToBuffer(Object o, int estimatedSize) throws IOException {
+      byte[] bytes = objectToByteBuffer(o, estimatedSize);
+      return new ByteBuffer(bytes, 0, bytes.length);
+   }
+
+   @Override
+   public Object objectFromByteBuffer(byte[] buf, int offset, int length) throws IOException {
+      return readObject(new CompactInput(this, buf, offset, length));
+   }
+
+   @Override
+   public boolean isMarshallable(Object o) {
+      if (o == null || isBuiltIn(o.getClass()) || typesByClass.containsKey(o.getClass())) {
+         return true;
+      } else if (o instanceof Map) {
+         Map<?, ?> map = (Map<?, ?>) o;
+         return isMarshallable(map.keySet()) && isMarshallable(map.values());
+      } else if (o instanceof List || o instanceof Set) {
+         for (Object element : (Collection<?>) o) {
+            if (!isMarshallable(element)) return false;
+         }
+         return true;
+      }
+      return false;
+   }
+
+   private static boolean isBuiltIn(Class<?> clazz) {
+      return clazz == String.class || clazz == byte[].class || clazz == Boolean.class || clazz == Integer.class
+            || clazz == Long.class || clazz == Short.class || clazz == Byte.class || clazz == Character.class
+            || clazz == Float.class || clazz == Double.class;
+   }
+
+   @SuppressWarnings("unchecked")
+   void writeObject(CompactOutput output, Object o) throws IOException {
+      if (o == null) {
+         output.writeUnsignedInt(NULL);
+         return;
+      }
+      Class<?> clazz = o.getClass();
+      if (clazz == String.class) {
+         output.writeUnsignedInt(STRING);
+         output.writeString((String) o);
+      } else if (clazz == byte[].class) {
+         output.writeUnsignedInt(BYTES);
+         output.writeBytes((byte[]) o);
+      } else if (clazz == Boolean.class) {
+         output.writeUnsignedInt((Boolean) o ? TRUE : FALSE);
+      } else if (clazz == Integer.class) {
+         output.writeUnsignedInt(INT);
+         output.writeInt((Integer) o);
+      } else if (clazz == Long.class) {
+         output.writeUnsignedInt(LONG);
+         output.writeLong((Long) o);
+      } else if (clazz == Short.class) {
+         output.writeUnsignedInt(SHORT);
+         output.writeInt((Short) o);
+      } else if (clazz == Byte.class) {
+         output.writeUnsignedInt(BYTE);
+         output.writeByte((Byte) o);
+      } else if (clazz == Character.class) {
+         output.writeUnsignedInt(CHAR);
+         output.writeUnsignedInt((Character) o);
+      } else if (clazz == Float.class) {
+         output.writeUnsignedInt(FLOAT);
+         output.writeFloat((Float) o);
+      } else if (clazz == Double.class) {
+         output.writeUnsignedInt(DOUBLE);
+         output.writeDouble((Double) o);
+      } else {
+         RegisteredType<Object> type = (RegisteredType<Object>) typesByClass.get(clazz);
+         if (type != null) {
+            output.writeUnsignedInt(type.tag);
+            type.externalizer.writeObject(output, o);
+         } else if (o instanceof List) {
+            output.writeUnsignedInt(LIST);
+            writeElements(output, (List<?>) o);
+         } else if (o instanceof Set) {
+            output.writeUnsignedInt(SET);
+            writeElements(output, (Set<?>) o);
+         } else if (o instanceof Map) {
+            output.writeUnsignedInt(MAP);
+            Map<?, ?> map = (Map<?, ?>) o;
+            output.writeUnsignedInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+               writeObject(output, entry.getKey());
+               writeObject(output, entry.getValue());
+            }
+         } else {
+            throw new CacheException("Unsupported type: " + clazz);
+         }
+      }
+   }
+
+   private void writeElements(CompactOutput output, Collection<?> elements) throws IOException {
+      output.writeUnsignedInt(elements.size());
+      for (Object element : elements) {
+         writeObject(output, element);
+      }
+   }
+
+   Object readObject(CompactInput input) throws IOException {
+      int tag = input.readUnsignedInt();
+      switch (tag) {
+         case NULL: return null;
+         case STRING: return input.readString();
+         case BYTES: return input.readBytes();
+         case FALSE: return Boolean.FALSE;
+         case TRUE: return Boolean.TRUE;
+         case INT: return input.readInt();
+         case LONG: return input.readLong();
+         case SHORT: return (short) input.readInt();
+         case BYTE: return input.readByte();
+         case CHAR: return (char) input.readUnsignedInt();
+         case FLOAT: return input.readFloat();
+         case DOUBLE: return input.readDouble();
+         case LIST: return readElements(input, new ArrayList<Object>());
+         case SET: return readElements(input, new HashSet<Object>());
+         case MAP: {
+            int size = input.readUnsignedInt();
+            Map<Object, Object> map = new HashMap<Object, Object>(size * 4 / 3 + 1);
+            for (int i = 0; i < size; i++) {
+               map.put(readObject(input), readObject(input));
+            }
+            return map;
+         }
+         default: {
+            RegisteredType<?> type = typesByTag.get(tag);
+            if (type == null) {
+               throw new CacheException("Unknown type " + tag);
+            }
+            return type.externalizer.readObject(input);
+         }
+      }
+   }
+
+   private Collection<Object> readElements(CompactInput input, Collection<Object> elements) throws IOException {
+      int size = input.readUnsignedInt();
+      for (int i = 0; i < size; i++) {
+         elements.add(readObject(input));
+      }
+      return elements;
+   }
+
+   private static class RegisteredType<T> {
+      final int tag;
+      final CompactExternalizer<T> externalizer;
+
+      RegisteredType(int tag, CompactExternalizer<T> externalizer) {
+         this.tag = tag;
+         this.externalizer = externalizer;
+      }
+   }
+}
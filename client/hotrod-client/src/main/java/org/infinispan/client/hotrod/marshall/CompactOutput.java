@@ -0,0 +1,165 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.marshall;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import net.jcip.annotations.NotThreadSafe;
+
+/**
+ * Growable buffer the {@link CompactMarshaller} writes to. Signed numbers are written as zig-zag variable length
+ * integers, so that small absolute values take a single byte whatever their sign.
+ *
+ * @since 5.2
+ */
+@NotThreadSafe
+public final class CompactOutput {
+
+   private final CompactMarshaller marshaller;
+   private byte[] buf;
+   private int pos;
+
+   CompactOutput(CompactMarshaller marshaller, int initialSize) {
+      this.marshaller = marshaller;
+      this.buf = new byte[Math.max(initialSize, 16)];
+   }
+
+   public void writeBoolean(boolean b) {
+      writeByte(b ? 1 : 0);
+   }
+
+   public void writeByte(int b) {
+      ensureCapacity(1);
+      buf[pos++] = (byte) b;
+   }
+
+   public void writeInt(int i) {
+      writeUnsignedInt((i << 1) ^ (i >> 31));
+   }
+
+   public void writeLong(long l) {
+      writeUnsignedLong((l << 1) ^ (l >> 63));
+   }
+
+   /**
+    * Cheaper than {@link #writeInt(int)} for values known to be positive, such as lengths or identifiers.
+    */
+   public void writeUnsignedInt(int i) {
+      ensureCapacity(5);
+      while ((i & ~0x7F) != 0) {
+         buf[pos++] = (byte) ((i & 0x7F) | 0x80);
+         i >>>= 7;
+      }
+      buf[pos++] = (byte) i;
+   }
+
+   public void writeUnsignedLong(long l) {
+      ensureCapacity(10);
+      while ((l & ~0x7FL) != 0) {
+         buf[pos++] = (byte) ((l & 0x7F) | 0x80);
+         l >>>= 7;
+      }
+      buf[pos++] = (byte) l;
+   }
+
+   public void writeFloat(float f) {
+      writeFixedInt(Float.floatToIntBits(f));
+   }
+
+   public void writeDouble(double d) {
+      long bits = Double.doubleToLongBits(d);
+      writeFixedInt((int) bits);
+      writeFixedInt((int) (bits >>> 32));
+   }
+
+   /**
+    * Writes the string's length followed by its characters, encoded the same way as {@link
+    * java.io.DataOutput#writeUTF(String)} but without its 64 KB limit.
+    */
+   public void writeString(String s) {
+      int length = s.length();
+      int encodedLength = length;
+      for (int i = 0; i < length; i++) {
+         char c = s.charAt(i);
+         if (c == 0 || c > 0x7F) {
+            encodedLength += c > 0x7FF ? 2 : 1;
+         }
+      }
+      writeUnsignedInt(encodedLength);
+      ensureCapacity(encodedLength);
+      for (int i = 0; i < length; i++) {
+         char c = s.charAt(i);
+         if (c != 0 && c <= 0x7F) {
+            buf[pos++] = (byte) c;
+         } else if (c <= 0x7FF) {
+            buf[pos++] = (byte) (0xC0 | (c >> 6));
+            buf[pos++] = (byte) (0x80 | (c & 0x3F));
+         } else {
+            buf[pos++] = (byte) (0xE0 | (c >> 12));
+            buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buf[pos++] = (byte) (0x80 | (c & 0x3F));
+         }
+      }
+   }
+
+   public void writeBytes(byte[] bytes) {
+      writeUnsignedInt(bytes.length);
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buf, pos, bytes.length);
+      pos += bytes.length;
+   }
+
+   /**
+    * Writes an object of any of the types supported by the marshaller, including null.
+    */
+   public void writeObject(Object o) throws IOException {
+      marshaller.writeObject(this, o);
+   }
+
+   private void writeFixedInt(int i) {
+      ensureCapacity(4);
+      buf[pos++] = (byte) i;
+      buf[pos++] = (byte) (i >> 8);
+      buf[pos++] = (byte) (i >> 16);
+      buf[pos++] = (byte) (i >> 24);
+   }
+
+   private void ensureCapacity(int extra) {
+      if (pos + extra > buf.length) {
+         buf = Arrays.copyOf(buf, Math.max(buf.length << 1, pos + extra));
+      }
+   }
+
+   byte[] toByteArray() {
+      return Arrays.copyOf(buf, pos);
+   }
+
+   int capacity() {
+      return buf.length;
+   }
+
+   void reset() {
+      pos = 0;
+   }
+}
@@ -0,0 +1,171 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.event.ClientCacheEntryEvent;
+import org.infinispan.client.hotrod.event.ClientCacheListener;
+import org.infinispan.client.hotrod.event.ClientListenerOptions;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.jboss.JBossMarshaller;
+import org.infinispan.server.hotrod.ClientEventFilter;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+
+/**
+ * Tests the delivery of cache entry events to client listeners, and their filtering in the server.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "client.hotrod.ClientListenerTest")
+public class ClientListenerTest extends SingleCacheManagerTest {
+
+   private HotRodServer hotrodServer;
+   private RemoteCacheManager rcm;
+   private RemoteCache<String, String> remoteCache;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createLocalCacheManager(false);
+      cache = cm.getCache();
+      hotrodServer = TestHelper.startHotRodServer(cm);
+      Properties props = new Properties();
+      props.put("infinispan.client.hotrod.server_list", "127.0.0.1:" + hotrodServer.getPort());
+      props.put("infinispan.client.hotrod.protocol_version", "1.2");
+      rcm = new RemoteCacheManager(props);
+      remoteCache = rcm.getCache();
+      return cm;
+   }
+
+   @AfterClass
+   @Override
+   protected void destroyAfterClass() {
+      super.destroyAfterClass();
+      rcm.stop();
+      hotrodServer.stop();
+   }
+
+   public void testModifiedAndRemoved() throws Exception {
+      RecordingListener listener = new RecordingListener();
+      remoteCache.addClientListener(listener);
+      try {
+         remoteCache.put("k1", "v1");
+         assertEvent(listener, ClientCacheEntryEvent.Type.MODIFIED, "k1", "v1");
+         remoteCache.put("k1", "v2");
+         assertEvent(listener, ClientCacheEntryEvent.Type.MODIFIED, "k1", "v2");
+         remoteCache.remove("k1");
+         assertEvent(listener, ClientCacheEntryEvent.Type.REMOVED, "k1", null);
+      } finally {
+         remoteCache.removeClientListener(listener);
+      }
+   }
+
+   public void testKeyPrefixAndNoValues() throws Exception {
+      RecordingListener listener = new RecordingListener();
+      byte[] keyPrefix = new JBossMarshaller().objectToByteBuffer("k2");
+      remoteCache.addClientListener(listener, new ClientListenerOptions().includeValues(false).keyPrefix(keyPrefix));
+      try {
+         remoteCache.put("other", "v1");
+         remoteCache.put("k2", "v2");
+         assertEvent(listener, ClientCacheEntryEvent.Type.MODIFIED, "k2", null);
+      } finally {
+         remoteCache.removeClientListener(listener);
+      }
+   }
+
+   public void testFilterClass() throws Exception {
+      RecordingListener listener = new RecordingListener();
+      remoteCache.addClientListener(listener, new ClientListenerOptions().filterClass(NoRemovalsFilter.class.getName()));
+      try {
+         remoteCache.put("k3", "v1");
+         remoteCache.remove("k3");
+         remoteCache.put("k3", "v2");
+         assertEvent(listener, ClientCacheEntryEvent.Type.MODIFIED, "k3", "v1");
+         assertEvent(listener, ClientCacheEntryEvent.Type.MODIFIED, "k3", "v2");
+      } finally {
+         remoteCache.removeClientListener(listener);
+      }
+   }
+
+   public void testFilterClassNotAFilter() {
+      RecordingListener listener = new RecordingListener();
+      // the registration fails in the server, without initializing the class
+      remoteCache.addClientListener(listener, new ClientListenerOptions().filterClass(NotAFilter.class.getName()));
+      try {
+         assert !NotAFilter.initialized;
+      } finally {
+         remoteCache.removeClientListener(listener);
+      }
+   }
+
+   private void assertEvent(RecordingListener listener, ClientCacheEntryEvent.Type type, String key, String value)
+         throws InterruptedException {
+      ClientCacheEntryEvent<String, String> event = listener.events.poll(10, TimeUnit.SECONDS);
+      assertNotNull(event);
+      assertEquals(type, event.getType());
+      assertEquals(key, event.getKey());
+      assertEquals(value, event.getValue());
+      assertEquals(0, listener.lost);
+   }
+
+   public static class NoRemovalsFilter implements ClientEventFilter {
+      @Override
+      public boolean accept(byte[] key, byte[] value) {
+         return value != null;
+      }
+   }
+
+   public static class NotAFilter {
+      static volatile boolean initialized;
+
+      static {
+         initialized = true;
+      }
+   }
+
+   private static class RecordingListener implements ClientCacheListener<String, String> {
+      final BlockingQueue<ClientCacheEntryEvent<String, String>> events =
+            new LinkedBlockingQueue<ClientCacheEntryEvent<String, String>>();
+      volatile int lost;
+
+      @Override
+      public void onEvent(ClientCacheEntryEvent<String, String> event) {
+         events.add(event);
+      }
+
+      @Override
+      public void onEventsLost() {
+         lost++;
+      }
+   }
+}
@@ -29,6 +29,7 @@
 
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -129,6 +130,19 @@ public void numOwners4Test() {
       assert list.contains(v1.getServer(new byte[0]));
    }
 
+   public void ownersTest() {
+      setUp(2);
+      hash.value = 1;
+      assertEquals(new ArrayList<SocketAddress>(v1.getServers(new byte[0])), list(a2, a3));
+
+      hash.value = 3001;
+      assertEquals(new ArrayList<SocketAddress>(v1.getServers(new byte[0])), list(a1, a2));
+
+      setUp(5);
+      hash.value = 2001;
+      assertEquals(new ArrayList<SocketAddress>(v1.getServers(new byte[0])), list(a4, a1, a2, a3));
+   }
+
    private List<InetSocketAddress> list(InetSocketAddress... a) {
       return Arrays.asList(a);
    }
@@ -0,0 +1,110 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.impl.transport.tcp.LatencyWeightedBalancingStrategy;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * @since 5.2
+ */
+@Test (groups = "unit", testName = "client.hotrod.LatencyWeightedBalancingStrategyTest")
+public class LatencyWeightedBalancingStrategyTest {
+
+   SocketAddress addr1 = new InetSocketAddress("localhost",1111);
+   SocketAddress addr2 = new InetSocketAddress("localhost",2222);
+   SocketAddress addr3 = new InetSocketAddress("localhost",3333);
+   private LatencyWeightedBalancingStrategy strategy;
+
+   @BeforeMethod
+   public void setUp() {
+      strategy = new LatencyWeightedBalancingStrategy();
+      strategy.setServers(Arrays.asList(addr1, addr2, addr3));
+   }
+
+   public void testUnknownServersAreUsedInTurn() {
+      Set<SocketAddress> picked = new HashSet<SocketAddress>();
+      for (int i = 0; i < 3; i++) {
+         picked.add(strategy.nextServer());
+      }
+      assertEquals(3, picked.size());
+   }
+
+   public void testFastestServerIsPreferred() {
+      strategy.requestStarted(addr1);
+      strategy.requestCompleted(addr1, 50000000);
+      strategy.requestStarted(addr2);
+      strategy.requestCompleted(addr2, 1000000);
+      strategy.requestStarted(addr3);
+      strategy.requestCompleted(addr3, 20000000);
+      for (int i = 0; i < 10; i++) {
+         assertEquals(addr2, strategy.nextServer());
+      }
+   }
+
+   public void testOutstandingRequestsAreTakenIntoAccount() {
+      for (SocketAddress server : Arrays.asList(addr1, addr2, addr3)) {
+         strategy.requestStarted(server);
+         strategy.requestCompleted(server, 1000000);
+      }
+      strategy.requestStarted(addr1);
+      strategy.requestStarted(addr2);
+      assertEquals(2, strategy.getOutstandingRequests(addr2));
+      assertEquals(addr3, strategy.nextServer());
+   }
+
+   public void testOnlyCandidatesArePicked() {
+      strategy.requestStarted(addr3);
+      strategy.requestCompleted(addr3, 1000);
+      strategy.requestStarted(addr1);
+      strategy.requestCompleted(addr1, 50000000);
+      strategy.requestStarted(addr2);
+      strategy.requestCompleted(addr2, 1000000);
+      List<SocketAddress> owners = Arrays.asList(addr1, addr2);
+      for (int i = 0; i < 10; i++) {
+         assertEquals(addr2, strategy.nextServer(owners));
+      }
+   }
+
+   public void testFailuresArePenalized() {
+      for (SocketAddress server : Arrays.asList(addr1, addr2)) {
+         strategy.requestStarted(server);
+         strategy.requestCompleted(server, 1000000);
+      }
+      strategy.requestStarted(addr1);
+      strategy.requestFailed(addr1);
+      assertEquals(0, strategy.getOutstandingRequests(addr1));
+      assert strategy.getResponseTime(addr1) > strategy.getResponseTime(addr2);
+      assertEquals(addr2, strategy.nextServer(Arrays.asList(addr1, addr2)));
+   }
+}
@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+import org.infinispan.config.Configuration;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Tests the multi-key getAll, putAll and removeAll operations against a distributed cluster, where the keys are owned
+ * by different servers.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "client.hotrod.MultiKeyOperationsTest")
+public class MultiKeyOperationsTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_KEYS = 200;
+
+   private HotRodServer[] hotRodServers;
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCache<String, String> remoteCache;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      Configuration config = getDefaultClusteredConfig(Configuration.CacheMode.DIST_SYNC);
+      config.setNumOwners(1);
+      hotRodServers = new HotRodServer[3];
+      for (int i = 0; i < hotRodServers.length; i++) {
+         addClusterEnabledCacheManager(config);
+      }
+      for (int i = 0; i < hotRodServers.length; i++) {
+         hotRodServers[i] = TestHelper.startHotRodServer(manager(i));
+      }
+      TestingUtil.blockUntilViewsReceived(10000, cache(0), cache(1), cache(2));
+
+      Properties props = new Properties();
+      props.put("infinispan.client.hotrod.server_list", "localhost:" + hotRodServers[0].getPort());
+      setHotRodProtocolVersion(props);
+      remoteCacheManager = new RemoteCacheManager(props);
+      remoteCache = remoteCacheManager.getCache();
+   }
+
+   protected void setHotRodProtocolVersion(Properties props) {
+      props.setProperty("infinispan.client.hotrod.protocol_version", "1.2");
+   }
+
+   @AfterClass(alwaysRun = true)
+   @Override
+   protected void destroy() {
+      try {
+         if (remoteCacheManager != null) remoteCacheManager.stop();
+         for (HotRodServer server : hotRodServers) {
+            if (server != null) server.stop();
+         }
+      } finally {
+         super.destroy();
+      }
+   }
+
+   public void testPutAllGetAllRemoveAll() {
+      Map<String, String> entries = new HashMap<String, String>();
+      for (int i = 0; i < NUM_KEYS; i++) {
+         entries.put("k" + i, "v" + i);
+      }
+      remoteCache.putAll(entries);
+      for (int i = 0; i < NUM_KEYS; i++) {
+         assertEquals("v" + i, remoteCache.get("k" + i));
+      }
+
+      Set<String> keys = new HashSet<String>(entries.keySet());
+      keys.add("missing");
+      Map<String, String> found = remoteCache.getAll(keys);
+      assertEquals(entries, found);
+
+      Set<String> toRemove = new HashSet<String>();
+      for (int i = 0; i < NUM_KEYS; i += 2) {
+         toRemove.add("k" + i);
+      }
+      remoteCache.removeAll(toRemove);
+      for (int i = 0; i < NUM_KEYS; i++) {
+         if (i % 2 == 0)
+            assertNull(remoteCache.get("k" + i));
+         else
+            assertEquals("v" + i, remoteCache.get("k" + i));
+      }
+      assertEquals(NUM_KEYS / 2, remoteCache.getAll(entries.keySet()).size());
+   }
+
+   public void testEmptyKeys() {
+      remoteCache.putAll(new HashMap<String, String>());
+      assertEquals(0, remoteCache.getAll(new HashSet<String>()).size());
+      remoteCache.removeAll(new HashSet<String>());
+   }
+}
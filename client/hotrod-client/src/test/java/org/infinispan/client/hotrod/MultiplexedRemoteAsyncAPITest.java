@@ -0,0 +1,69 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+import org.infinispan.client.hotrod.impl.ConfigurationProperties;
+import org.infinispan.client.hotrod.impl.transport.tcp.MultiplexedTransportFactory;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Future;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+/**
+ * Runs the async API tests over the {@link MultiplexedTransportFactory}, which pipelines the requests over a single
+ * connection.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "client.hotrod.MultiplexedRemoteAsyncAPITest")
+public class MultiplexedRemoteAsyncAPITest extends RemoteAsyncAPITest {
+
+   @Override
+   protected void configureRemoteCacheManager(Properties props) {
+      props.put(ConfigurationProperties.TRANSPORT_FACTORY, MultiplexedTransportFactory.class.getName());
+      props.put(ConfigurationProperties.CONNECTIONS_PER_SERVER, "1");
+   }
+
+   public void testManyPipelinedRequests() throws Exception {
+      List<Future<String>> puts = new ArrayList<Future<String>>();
+      for (int i = 0; i < 100; i++) {
+         puts.add(c.putAsync("pipelined" + i, "v" + i));
+      }
+      for (Future<String> f : puts) {
+         assertNull(f.get());
+      }
+
+      List<Future<String>> gets = new ArrayList<Future<String>>();
+      for (int i = 0; i < 100; i++) {
+         gets.add(c.getAsync("pipelined" + i));
+      }
+      for (int i = 0; i < 100; i++) {
+         assertEquals(gets.get(i).get(), "v" + i);
+      }
+   }
+}
@@ -0,0 +1,124 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.marshall.Marshaller;
+import org.infinispan.marshall.jboss.JBossMarshaller;
+import org.infinispan.server.core.CacheValue;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.infinispan.util.ByteArrayKey;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Tests that the entries kept in the near cache are invalidated when modified by other clients or in the server.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "client.hotrod.NearCacheTest")
+public class NearCacheTest extends SingleCacheManagerTest {
+
+   private HotRodServer hotrodServer;
+   private RemoteCacheManager nearRcm;
+   private RemoteCacheManager remoteRcm;
+   private RemoteCache<String, String> nearCache;
+   private RemoteCache<String, String> remoteCache;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createLocalCacheManager(false);
+      cache = cm.getCache();
+      hotrodServer = TestHelper.startHotRodServer(cm);
+      Properties props = new Properties();
+      props.put("infinispan.client.hotrod.server_list", "127.0.0.1:" + hotrodServer.getPort());
+      props.put("infinispan.client.hotrod.near_cache.max_entries", "100");
+      props.put("infinispan.client.hotrod.protocol_version", "1.2");
+      nearRcm = new RemoteCacheManager(props);
+      nearCache = nearRcm.getCache();
+      remoteRcm = new RemoteCacheManager("127.0.0.1", hotrodServer.getPort());
+      remoteCache = remoteRcm.getCache();
+      return cm;
+   }
+
+   @AfterClass
+   @Override
+   protected void destroyAfterClass() {
+      super.destroyAfterClass();
+      nearRcm.stop();
+      remoteRcm.stop();
+      hotrodServer.stop();
+   }
+
+   public void testOwnWritesAreVisible() {
+      nearCache.put("k1", "v1");
+      assertEquals("v1", nearCache.get("k1"));
+      nearCache.put("k1", "v2");
+      assertEquals("v2", nearCache.get("k1"));
+      assertEquals("v2", nearCache.getVersioned("k1").getValue());
+      nearCache.remove("k1");
+      assertNull(nearCache.get("k1"));
+   }
+
+   public void testInvalidatedByOtherClient() {
+      remoteCache.put("k2", "v1");
+      assertEquals("v1", nearCache.get("k2"));
+      remoteCache.put("k2", "v2");
+      assertEventuallyEquals("k2", "v2");
+      remoteCache.remove("k2");
+      assertEventuallyEquals("k2", null);
+   }
+
+   public void testInvalidatedByServerWrite() throws Exception {
+      nearCache.put("k3", "v1");
+      assertEquals("v1", nearCache.get("k3"));
+      Marshaller marshaller = new JBossMarshaller();
+      cache.put(new ByteArrayKey(marshaller.objectToByteBuffer("k3", 64)),
+            new CacheValue(marshaller.objectToByteBuffer("v2", 64), 1));
+      assertEventuallyEquals("k3", "v2");
+   }
+
+   public void testClear() {
+      nearCache.put("k4", "v1");
+      assertEquals("v1", nearCache.get("k4"));
+      nearCache.clear();
+      assertNull(nearCache.get("k4"));
+   }
+
+   private void assertEventuallyEquals(final String key, final String value) {
+      eventually(new Condition() {
+         @Override
+         public boolean isSatisfied() throws Exception {
+            String current = nearCache.get(key);
+            return value == null ? current == null : value.equals(current);
+         }
+      });
+   }
+}
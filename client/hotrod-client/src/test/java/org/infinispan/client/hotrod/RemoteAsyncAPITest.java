@@ -44,7 +44,7 @@
 public class RemoteAsyncAPITest extends SingleCacheManagerTest {
    private HotRodServer hotrodServer;
    private RemoteCacheManager rcm;
-   private RemoteCache<String, String> c;
+   protected RemoteCache<String, String> c;
 
    @Override
    protected EmbeddedCacheManager createCacheManager() throws Exception {
@@ -55,11 +55,15 @@ protected EmbeddedCacheManager createCacheManager() throws Exception {
       props.put("infinispan.client.hotrod.server_list", "127.0.0.1:" + hotrodServer.getPort());
       props.put("infinispan.client.hotrod.force_return_values","true");
       props.put("testOnBorrow", "false");
+      configureRemoteCacheManager(props);
       rcm = new RemoteCacheManager(props);
       c = rcm.getCache(true);
       return cm;
    }
 
+   protected void configureRemoteCacheManager(Properties props) {
+   }
+
    @AfterClass
    @Override
    protected void destroyAfterClass() {
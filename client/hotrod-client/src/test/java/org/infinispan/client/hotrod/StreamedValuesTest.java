@@ -0,0 +1,176 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod;
+
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.server.hotrod.HotRodServer;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+/**
+ * Tests writing and reading values through {@link RemoteCache#putStream(Object)} and
+ * {@link RemoteCache#getStream(Object)}, using a small chunk size.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "client.hotrod.StreamedValuesTest")
+public class StreamedValuesTest extends SingleCacheManagerTest {
+
+   private static final int CHUNK_SIZE = 100;
+
+   private HotRodServer hotrodServer;
+   private RemoteCacheManager remoteCacheManager;
+   private RemoteCache<String, String> remoteCache;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createLocalCacheManager(false);
+      cache = cm.getCache();
+      hotrodServer = TestHelper.startHotRodServer(cm);
+      Properties props = new Properties();
+      props.put("infinispan.client.hotrod.server_list", "127.0.0.1:" + hotrodServer.getPort());
+      props.put("infinispan.client.hotrod.stream_chunk_size", String.valueOf(CHUNK_SIZE));
+      remoteCacheManager = new RemoteCacheManager(props);
+      remoteCache = remoteCacheManager.getCache();
+      return cm;
+   }
+
+   @AfterClass
+   @Override
+   protected void destroyAfterClass() {
+      super.destroyAfterClass();
+      remoteCacheManager.stop();
+      hotrodServer.stop();
+   }
+
+   public void testWriteAndRead() throws IOException {
+      byte[] value = value(1050);
+      write("k1", value);
+      assertTrue(Arrays.equals(value, read("k1")));
+      // 11 chunks plus the header
+      assertEquals(12, cache.size());
+   }
+
+   public void testEmptyValue() throws IOException {
+      write("k2", new byte[0]);
+      assertEquals(0, read("k2").length);
+   }
+
+   public void testMissingValue() {
+      assertNull(remoteCache.getStream("k3"));
+      assertFalse(remoteCache.removeStream("k3"));
+   }
+
+   public void testOverwriteRemovesOldChunks() throws IOException {
+      cache.clear();
+      write("k4", value(1000));
+      byte[] value = value(150);
+      write("k4", value);
+      assertTrue(Arrays.equals(value, read("k4")));
+      assertEquals(3, cache.size());
+   }
+
+   public void testRemove() throws IOException {
+      cache.clear();
+      write("k5", value(500));
+      assertTrue(remoteCache.removeStream("k5"));
+      assertNull(remoteCache.getStream("k5"));
+      assertEquals(0, cache.size());
+   }
+
+   public void testValueIsNotVisibleBeforeClose() throws IOException {
+      OutputStream out = remoteCache.putStream("k6");
+      out.write(value(300));
+      assertNull(remoteCache.getStream("k6"));
+      out.close();
+      assertEquals(300, read("k6").length);
+   }
+
+   public void testReaderFailsIfValueIsReplaced() throws IOException {
+      write("k7", value(300));
+      InputStream in = remoteCache.getStream("k7");
+      assertEquals(0, in.read());
+      write("k7", value(300));
+      in.skip(CHUNK_SIZE);
+      try {
+         in.read();
+         assert false : "Should have failed, the chunks read were removed";
+      } catch (IOException e) {
+         // expected
+      }
+   }
+
+   public void testSkip() throws IOException {
+      byte[] value = value(450);
+      write("k8", value);
+      InputStream in = remoteCache.getStream("k8");
+      assertEquals(420, in.skip(420));
+      assertEquals(value[420] & 0xFF, in.read());
+      assertEquals(29, in.skip(100));
+      assertEquals(-1, in.read());
+      in.close();
+   }
+
+   private void write(String key, byte[] value) throws IOException {
+      OutputStream out = remoteCache.putStream(key);
+      // not aligned on the chunk size on purpose
+      for (int i = 0; i < value.length; i += 33) {
+         out.write(value, i, Math.min(33, value.length - i));
+      }
+      out.close();
+   }
+
+   private byte[] read(String key) throws IOException {
+      InputStream in = remoteCache.getStream(key);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[64];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+         out.write(buffer, 0, read);
+      }
+      in.close();
+      return out.toByteArray();
+   }
+
+   private byte[] value(int length) {
+      byte[] value = new byte[length];
+      for (int i = 0; i < length; i++) {
+         value[i] = (byte) i;
+      }
+      return value;
+   }
+}
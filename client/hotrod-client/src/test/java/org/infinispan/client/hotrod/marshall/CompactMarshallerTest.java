@@ -0,0 +1,174 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.marshall;
+
+import org.infinispan.CacheException;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "client.hotrod.CompactMarshallerTest")
+public class CompactMarshallerTest {
+
+   private final CompactMarshaller marshaller = new CompactMarshaller().register(1, Person.class, new PersonExternalizer());
+
+   public void testBasicTypes() {
+      assertEquality("Galder");
+      assertEquality("\u00e9t\u00e9 \u6771\u4eac \u0000 \ud83d\ude00");
+      assertEquality(Boolean.TRUE);
+      assertEquality(Boolean.FALSE);
+      assertEquality(Integer.MIN_VALUE);
+      assertEquality(-1);
+      assertEquality(Long.MAX_VALUE);
+      assertEquality(Long.MIN_VALUE);
+      assertEquality((short) -12345);
+      assertEquality((byte) -7);
+      assertEquality('\u6771');
+      assertEquality(123.4f);
+      assertEquality(5.678e9);
+      assert marshallUnmarshall(null) == null;
+      byte[] bytes = {1, 2, 3, -128};
+      assert Arrays.equals(bytes, (byte[]) marshallUnmarshall(bytes));
+   }
+
+   public void testSmallNumbersAreCompact() throws Exception {
+      assertEquals(2, marshaller.objectToByteBuffer(-1).length);
+      assertEquals(2, marshaller.objectToByteBuffer(63L).length);
+      assertEquals(1, marshaller.objectToByteBuffer(true).length);
+   }
+
+   public void testCollections() {
+      List<Object> list = new ArrayList<Object>();
+      list.add("one");
+      list.add(2);
+      list.add(null);
+      list.add(new Person("Mircea", 30, null));
+      assertEquality(list);
+
+      Set<String> words = new HashSet<String>();
+      words.add("cat");
+      words.add("txakur");
+      assertEquality(words);
+
+      Map<Long, List<Object>> map = new HashMap<Long, List<Object>>();
+      map.put(9223372036854775807L, list);
+      map.put(-3L, new ArrayList<Object>());
+      assertEquality(map);
+   }
+
+   public void testRegisteredType() {
+      Person person = new Person("Manik", 33, new Person("Galder", 31, null));
+      assertEquality(person);
+   }
+
+   public void testLargeValueIsNotPooled() {
+      char[] chars = new char[100000];
+      Arrays.fill(chars, 'x');
+      assertEquality(new String(chars));
+      assertEquality("small");
+   }
+
+   @Test(expectedExceptions = CacheException.class)
+   public void testUnregisteredType() throws Exception {
+      marshaller.objectToByteBuffer(new Unregistered());
+   }
+
+   @Test(expectedExceptions = CacheException.class)
+   public void testDuplicateTypeId() {
+      marshaller.register(1, Unregistered.class, null);
+   }
+
+   public void testIsMarshallable() {
+      assert marshaller.isMarshallable(Arrays.asList("a", new Person("b", 1, null)));
+      assert !marshaller.isMarshallable(Arrays.asList("a", new Unregistered()));
+      assert !marshaller.isMarshallable(new Unregistered());
+   }
+
+   private Object marshallUnmarshall(Object o) {
+      try {
+         byte[] buffer = marshaller.objectToByteBuffer(o);
+         return marshaller.objectFromByteBuffer(buffer);
+      } catch(Exception e) {
+         throw new RuntimeException("Error marshalling or unmarshalling", e);
+      }
+   }
+
+   private void assertEquality(Object x) {
+      assertEquals(x, marshallUnmarshall(x));
+   }
+
+   static class Person implements Serializable {
+      final String name;
+      final int age;
+      final Person friend;
+
+      Person(String name, int age, Person friend) {
+         this.name = name;
+         this.age = age;
+         this.friend = friend;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (!(o instanceof Person)) return false;
+         Person other = (Person) o;
+         return name.equals(other.name) && age == other.age
+               && (friend == null ? other.friend == null : friend.equals(other.friend));
+      }
+
+      @Override
+      public int hashCode() {
+         return name.hashCode() * 31 + age;
+      }
+   }
+
+   static class PersonExternalizer implements CompactExternalizer<Person> {
+      @Override
+      public void writeObject(CompactOutput output, Person person) throws IOException {
+         output.writeString(person.name);
+         output.writeInt(person.age);
+         output.writeObject(person.friend);
+      }
+
+      @Override
+      public Person readObject(CompactInput input) throws IOException {
+         return new Person(input.readString(), input.readInt(), (Person) input.readObject());
+      }
+   }
+
+   static class Unregistered {
+   }
+}
@@ -0,0 +1,83 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.client.hotrod.marshall;
+
+import org.infinispan.marshall.Marshaller;
+import org.infinispan.marshall.jboss.GenericJBossMarshaller;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares the size of the payloads and the time it takes to marshall and unmarshall them with the marshallers
+ * available to Hot Rod clients.
+ *
+ * @since 5.2
+ */
+@Test(groups = "profiling", enabled = false, testName = "client.hotrod.MarshallerProfileTest")
+public class MarshallerProfileTest {
+
+   private static final int WARMUP = 100000;
+   private static final int ITERATIONS = 1000000;
+
+   public void testMapOfBasicTypes() throws Exception {
+      Map<String, Object> map = new HashMap<String, Object>();
+      map.put("name", "Galder");
+      map.put("age", 31);
+      map.put("id", 72057594037927936L);
+      map.put("score", 1.234e2);
+      map.put("active", true);
+      profile("map", map, new GenericJBossMarshaller());
+      profile("map", map, new ApacheAvroMarshaller());
+      profile("map", map, new CompactMarshaller());
+   }
+
+   public void testDomainObject() throws Exception {
+      CompactMarshallerTest.Person person = new CompactMarshallerTest.Person(
+            "Manik", 33, new CompactMarshallerTest.Person("Galder", 31, null));
+      profile("person", person, new GenericJBossMarshaller());
+      profile("person", person, new CompactMarshaller().register(1, CompactMarshallerTest.Person.class,
+                                                                  new CompactMarshallerTest.PersonExternalizer()));
+   }
+
+   private void profile(String payload, Object o, Marshaller marshaller) throws Exception {
+      int size = marshaller.objectToByteBuffer(o).length;
+      for (int i = 0; i < WARMUP; i++) {
+         marshaller.objectFromByteBuffer(marshaller.objectToByteBuffer(o));
+      }
+      long start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+         marshaller.objectToByteBuffer(o);
+      }
+      long marshall = (System.nanoTime() - start) / ITERATIONS;
+      byte[] bytes = marshaller.objectToByteBuffer(o);
+      start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+         marshaller.objectFromByteBuffer(bytes);
+      }
+      long unmarshall = (System.nanoTime() - start) / ITERATIONS;
+      System.out.printf("%s with %s: %d bytes, marshall %d ns/op, unmarshall %d ns/op%n",
+                        payload, marshaller.getClass().getSimpleName(), size, marshall, unmarshall);
+   }
+}
@@ -66,6 +66,7 @@
 import org.infinispan.marshall.MarshalledValue;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
+import org.infinispan.remoting.RemoteCommandExecutors;
 import org.infinispan.remoting.responses.ResponseGenerator;
 import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.statetransfer.StateTransferManager;
@@ -139,6 +140,8 @@
    private StateTransferManager stateTransferManager;
    // as above for ResponseGenerator
    private ResponseGenerator responseGenerator;
+   // as above for RemoteCommandExecutors
+   private RemoteCommandExecutors remoteCommandExecutors;
    private LockManager lockManager;
    private DistributionManager distributionManager;
    private ExecutorService asyncExecutor;
@@ -167,7 +170,7 @@ public void injectDependencies(EvictionManager evictionManager,
                                   EmbeddedCacheManager cacheManager, StateTransferManager stateTransferManager,
                                   @ComponentName(ASYNC_TRANSPORT_EXECUTOR) ExecutorService asyncExecutor,
                                   TransactionTable txTable, RecoveryManager recoveryManager, TransactionCoordinator txCoordinator,
-                                  LockManager lockManager) {
+                                  LockManager lockManager, RemoteCommandExecutors remoteCommandExecutors) {
       this.commandsFactory = commandsFactory;
       this.invoker = interceptorChain;
       this.config = configuration;
@@ -189,6 +192,7 @@ public void injectDependencies(EvictionManager evictionManager,
       this.recoveryManager = recoveryManager;
       this.txCoordinator = txCoordinator;
       this.lockManager = lockManager;
+      this.remoteCommandExecutors = remoteCommandExecutors;
    }
 
    private void assertKeyNotNull(Object key) {
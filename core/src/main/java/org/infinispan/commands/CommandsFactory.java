@@ -30,6 +30,8 @@
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.MapReduceCommand;
+import org.infinispan.commands.read.MapReduceShuffleCommand;
+import org.infinispan.commands.read.ReduceCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
@@ -347,6 +349,38 @@ StateTransferControlCommand buildStateTransferCommand(StateTransferControlComman
     */
    MapReduceCommand buildMapReduceCommand(Mapper m, Reducer r, Address sender, Collection keys);
 
+   /**
+    * Builds a MapReduceCommand whose intermediate keys are shuffled to the nodes reducing them rather than
+    * returned.
+    *
+    * @param m Mapper for MapReduceTask
+    * @param r Reducer for MapReduceTask, used to reduce the intermediate keys locally before shuffling them
+    * @param sender sender's Address
+    * @param keys keys used in MapReduceTask
+    * @param taskId id of the MapReduceTask
+    * @return a MapReduceCommand
+    */
+   MapReduceCommand buildMapReduceCommand(Mapper m, Reducer r, Address sender, Collection keys, String taskId);
+
+   /**
+    * Builds a MapReduceShuffleCommand carrying intermediate keys to the node reducing them.
+    *
+    * @param taskId id of the MapReduceTask
+    * @param partialResult intermediate keys and values
+    * @return a MapReduceShuffleCommand
+    */
+   MapReduceShuffleCommand buildMapReduceShuffleCommand(String taskId, Map<Object, Object> partialResult);
+
+   /**
+    * Builds a ReduceCommand running the distributed reduce phase of a MapReduce task.
+    *
+    * @param taskId id of the MapReduceTask
+    * @param r Reducer for MapReduceTask, or null to discard the intermediate keys
+    * @param resultCacheName cache to store the reduced values in, or null to return them
+    * @return a ReduceCommand
+    */
+   ReduceCommand buildReduceCommand(String taskId, Reducer r, String resultCacheName);
+
    /**
     * @see GetInDoubtTxInfoCommand
     */
@@ -32,6 +32,8 @@
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.KeySetCommand;
 import org.infinispan.commands.read.MapReduceCommand;
+import org.infinispan.commands.read.MapReduceShuffleCommand;
+import org.infinispan.commands.read.ReduceCommand;
 import org.infinispan.commands.read.SizeCommand;
 import org.infinispan.commands.read.ValuesCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
@@ -52,11 +54,13 @@
 import org.infinispan.config.Configuration;
 import org.infinispan.container.DataContainer;
 import org.infinispan.container.InternalEntryFactory;
+import org.infinispan.container.LocalEntryScanner;
 import org.infinispan.container.entries.InternalCacheEntry;
 import org.infinispan.container.versioning.EntryVersion;
 import org.infinispan.context.Flag;
 import org.infinispan.context.InvocationContextContainer;
 import org.infinispan.dataplacement.DataPlacementManager;
+import org.infinispan.distexec.mapreduce.IntermediateResultStore;
 import org.infinispan.distexec.mapreduce.Mapper;
 import org.infinispan.distexec.mapreduce.Reducer;
 import org.infinispan.distribution.DistributionManager;
@@ -65,6 +69,7 @@
 import org.infinispan.factories.annotations.Inject;
 import org.infinispan.factories.annotations.Start;
 import org.infinispan.interceptors.InterceptorChain;
+import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.notifications.cachelistener.CacheNotifier;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.statetransfer.LockInfo;
@@ -85,6 +90,7 @@
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 
 /**
  * @author Mircea.Markus@jboss.com
@@ -121,6 +127,10 @@ public class CommandsFactoryImpl implements CommandsFactory {
    private DataPlacementManager dataPlacementManager;
 
    private Map<Byte, ModuleCommandInitializer> moduleCommandInitializers;
+   private ExecutorService mapReduceExecutor;
+   private StreamingMarshaller marshaller;
+   private IntermediateResultStore intermediateResults;
+   private LocalEntryScanner localEntryScanner;
 
    @Inject
    public void setupDependencies(DataContainer container, CacheNotifier notifier, Cache<Object, Object> cache,
@@ -146,6 +156,17 @@ public void setupDependencies(DataContainer container, CacheNotifier notifier, C
       this.dataPlacementManager = dataPlacementManager;
    }
 
+   @Inject
+   public void injectMapReduceDependencies(@ComponentName(KnownComponentNames.MAP_REDUCE_EXECUTOR) ExecutorService mapReduceExecutor,
+                                           @ComponentName(KnownComponentNames.CACHE_MARSHALLER) StreamingMarshaller marshaller,
+                                           IntermediateResultStore intermediateResults,
+                                           LocalEntryScanner localEntryScanner) {
+      this.mapReduceExecutor = mapReduceExecutor;
+      this.marshaller = marshaller;
+      this.intermediateResults = intermediateResults;
+      this.localEntryScanner = localEntryScanner;
+   }
+
    @Start(priority = 1)
    // needs to happen early on
    public void start() {
@@ -394,7 +415,18 @@ public void initializeReplicableCommand(ReplicableCommand c, boolean isRemote) {
             break;
          case MapReduceCommand.COMMAND_ID:
             MapReduceCommand mrc = (MapReduceCommand)c;
-            mrc.init(this, interceptorChain, icc, distributionManager,cache.getAdvancedCache().getRpcManager().getAddress());
+            mrc.init(this, interceptorChain, icc, distributionManager,cache.getAdvancedCache().getRpcManager().getAddress(),
+                     localEntryScanner);
+            mrc.initParallelMap(mapReduceExecutor, marshaller);
+            mrc.initShuffle(cache.getAdvancedCache().getRpcManager(), intermediateResults);
+            break;
+         case MapReduceShuffleCommand.COMMAND_ID:
+            MapReduceShuffleCommand msc = (MapReduceShuffleCommand) c;
+            msc.init(intermediateResults);
+            break;
+         case ReduceCommand.COMMAND_ID:
+            ReduceCommand reduceCommand = (ReduceCommand) c;
+            reduceCommand.init(intermediateResults, cache.getCacheManager());
             break;
          case DistributedExecuteCommand.COMMAND_ID:
             DistributedExecuteCommand dec = (DistributedExecuteCommand)c;
@@ -485,6 +517,21 @@ public MapReduceCommand buildMapReduceCommand(Mapper m, Reducer r, Address sende
       return new MapReduceCommand(m, r, cacheName, keys);
    }
 
+   @Override
+   public MapReduceCommand buildMapReduceCommand(Mapper m, Reducer r, Address sender, Collection keys, String taskId) {
+      return new MapReduceCommand(m, r, cacheName, keys, taskId);
+   }
+
+   @Override
+   public MapReduceShuffleCommand buildMapReduceShuffleCommand(String taskId, Map<Object, Object> partialResult) {
+      return new MapReduceShuffleCommand(cacheName, taskId, partialResult);
+   }
+
+   @Override
+   public ReduceCommand buildReduceCommand(String taskId, Reducer r, String resultCacheName) {
+      return new ReduceCommand(cacheName, taskId, r, resultCacheName);
+   }
+
    @Override
    public GetInDoubtTxInfoCommand buildGetInDoubtTxInfoCommand() {
       return new GetInDoubtTxInfoCommand(cacheName);
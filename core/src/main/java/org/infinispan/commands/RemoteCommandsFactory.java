@@ -31,6 +31,8 @@
 import org.infinispan.commands.read.DistributedExecuteCommand;
 import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.read.MapReduceCommand;
+import org.infinispan.commands.read.MapReduceShuffleCommand;
+import org.infinispan.commands.read.ReduceCommand;
 import org.infinispan.commands.remote.CacheRpcCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.DataPlacementCommand;
@@ -211,6 +213,12 @@ public CacheRpcCommand fromStream(byte id, Object[] parameters, byte type, Strin
             case MapReduceCommand.COMMAND_ID:
                command = new MapReduceCommand(cacheName);
                break;
+            case MapReduceShuffleCommand.COMMAND_ID:
+               command = new MapReduceShuffleCommand(cacheName);
+               break;
+            case ReduceCommand.COMMAND_ID:
+               command = new ReduceCommand(cacheName);
+               break;
             case GetInDoubtTxInfoCommand.COMMAND_ID:
                command = new GetInDoubtTxInfoCommand(cacheName);
                break;
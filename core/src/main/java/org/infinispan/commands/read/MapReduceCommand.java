@@ -22,34 +22,54 @@
  */
 package org.infinispan.commands.read;
 
+import org.infinispan.CacheException;
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.remote.BaseRpcCommand;
+import org.infinispan.container.LocalEntryScanner;
 import org.infinispan.context.InvocationContext;
 import org.infinispan.context.InvocationContextContainer;
 import org.infinispan.distexec.mapreduce.Collector;
+import org.infinispan.distexec.mapreduce.Combiner;
+import org.infinispan.distexec.mapreduce.IntermediateResultStore;
 import org.infinispan.distexec.mapreduce.Mapper;
 import org.infinispan.distexec.mapreduce.Reducer;
 import org.infinispan.distribution.DistributionManager;
+import org.infinispan.distribution.ch.ConsistentHash;
+import org.infinispan.context.Flag;
 import org.infinispan.interceptors.InterceptorChain;
+import org.infinispan.marshall.Marshaller;
+import org.infinispan.remoting.rpc.RpcManager;
 import org.infinispan.remoting.transport.Address;
-import org.infinispan.util.concurrent.ConcurrentMapFactory;
+import org.infinispan.util.Util;
+import org.infinispan.util.concurrent.NotifyingFutureImpl;
+import org.infinispan.util.concurrent.NotifyingNotifiableFuture;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * MapReduceCommand is used to migrate {@link Mapper} and {@link Reducer} to remote JVM where they
  * will get invoked.
+ * <p>
+ * When the command has a task id, the reduce phase is distributed: rather than being returned, the
+ * intermediate keys are shuffled to their primary owners with {@link MapReduceShuffleCommand}s and
+ * later reduced there by a {@link ReduceCommand}.
  * 
  * @author Vladimir Blagojevic
  * @since 5.0
@@ -57,15 +77,30 @@
 public class MapReduceCommand extends BaseRpcCommand {
    public static final int COMMAND_ID = 20;
    private static final Log log = LogFactory.getLog(MapReduceCommand.class);
+
+   /**
+    * Smallest number of input keys worth mapping in a separate thread, and number of keys a map task takes at once
+    */
+   private static final int MIN_KEYS_PER_MAP_TASK = 256;
+
    protected Set<Object> keys;
    private Mapper  mapper;
    private Reducer  reducer;
+   private String taskId;
+   private Combiner combiner;
+   private int maxCollectedValues;
+   private Set<Address> reducers;
    
    private InterceptorChain invoker;
    private CommandsFactory commandsFactory;
    protected InvocationContextContainer icc;
    protected DistributionManager dm;
    protected Address localAddress;
+   private LocalEntryScanner scanner;
+   private ExecutorService mapExecutor;
+   private Marshaller marshaller;
+   private RpcManager rpcManager;
+   private IntermediateResultStore intermediateResults;
 
    private MapReduceCommand() {
       super(null); // For command id uniqueness test
@@ -97,65 +132,254 @@ public MapReduceCommand(Mapper m, Reducer r, String cacheName, Collection<Object
       this.mapper = m;
       this.reducer = r;
    }
+
+   public MapReduceCommand(Mapper m, Reducer r, String cacheName, Collection<Object> inputKeys, String taskId) {
+      this(m, r, cacheName, inputKeys);
+      this.taskId = taskId;
+   }
    
+   /**
+    * Folds the values emitted by the {@link Mapper} as they are collected
+    * 
+    * @param combiner
+    *           the Combiner, or <code>null</code> to collect all emitted values
+    */
+   public void setCombiner(Combiner combiner) {
+      this.combiner = combiner;
+   }
+
+   /**
+    * Bounds the number of emitted values each map task keeps in memory when no {@link Combiner} is set. Once it is
+    * reached, the collected values are sorted and spilled to a temporary file, and all files are merged in the
+    * reduce phase.
+    * 
+    * @param maxCollectedValues
+    *           number of values kept in memory, or 0 for no bound
+    */
+   public void setMaxCollectedValues(int maxCollectedValues) {
+      this.maxCollectedValues = maxCollectedValues;
+   }
+
+   /**
+    * Sets the nodes reducing the intermediate keys when the reduce phase is distributed: the members of the consistent
+    * hash of the input cache when the task started.  Shuffling fails if the consistent hash of this node has other
+    * members or is being rehashed, as the nodes could then send the same intermediate key to different reducers.
+    * 
+    * @param reducers
+    *           members of the consistent hash the intermediate keys are shuffled with
+    */
+   public void setReducers(Set<Address> reducers) {
+      this.reducers = reducers;
+   }
+
    public void init(CommandsFactory factory, InterceptorChain invoker,
-            InvocationContextContainer icc, DistributionManager dm, Address localAddress) {
+            InvocationContextContainer icc, DistributionManager dm, Address localAddress, LocalEntryScanner scanner) {
       this.commandsFactory = factory;
       this.invoker = invoker;
       this.icc = icc;
       this.dm = dm;      
       this.localAddress = localAddress;
+      this.scanner = scanner;
    }
 
    /**
-    * Performs invocation of mapping phase and local reduce phase before returning result to master node
+    * Enables mapping the input keys in parallel, each thread with its own copy of the {@link Mapper} and
+    * {@link Reducer}.
+    * 
+    * @param mapExecutor
+    *           executor running all but one of the map tasks, the calling thread runs the other
+    * @param marshaller
+    *           marshaller used to copy the Mapper and Reducer, and to spill collected values to disk
+    */
+   public void initParallelMap(ExecutorService mapExecutor, Marshaller marshaller) {
+      this.mapExecutor = mapExecutor;
+      this.marshaller = marshaller;
+   }
+
+   /**
+    * Provides the components needed to shuffle the intermediate keys when the reduce phase is distributed.
+    * 
+    * @param rpcManager
+    *           used to send the intermediate keys to the nodes reducing them
+    * @param intermediateResults
+    *           receives the intermediate keys reduced by this node
+    */
+   public void initShuffle(RpcManager rpcManager, IntermediateResultStore intermediateResults) {
+      this.rpcManager = rpcManager;
+      this.intermediateResults = intermediateResults;
+   }
+
+   /**
+    * Performs invocation of mapping phase and local reduce phase before returning result to master node. Large
+    * key sets are mapped and reduced by parallel map tasks taking the keys in batches, whose results are reduced
+    * again.
+    * <p>
+    * Without input keys, the entries this node is the primary owner of are scanned directly from the data container
+    * rather than through the interceptor chain, and handed to the map tasks as they are scanned, so that they are
+    * never all in memory at once. Input keys are read from the data container too, unless they are not in memory.
     * 
     * @param context
     *           invocation context
-    * @return Map of intermediate key value pairs
+    * @return Map of intermediate key value pairs, or the number of intermediate keys shuffled if the
+    *         reduce phase is distributed
     */
    @Override
    public Object perform(InvocationContext context) throws Throwable {
       InvocationContext ctx = getInvocationContext(context);
-      // find targets keys and invoked Mapper on them
-      boolean noInputKeys = keys == null || keys.isEmpty();
-      if (noInputKeys) {         
-         KeySetCommand keySetCommand = commandsFactory.buildKeySetCommand();
-         Set<Object> nodeLocalKeys = (Set<Object>) invoker.invoke(ctx, keySetCommand);
-         List<Object> selectedKeys = new ArrayList<Object>();
-         for (Object key : nodeLocalKeys) {
-            Address primaryLocation = dm.getPrimaryLocation(key);
-            log.tracef("For key %s at %s owner is %s", key, localAddress, primaryLocation);
-            if (primaryLocation != null && primaryLocation.equals(localAddress)) {
-               selectedKeys.add(key);
+      // find target entries and invoke Mapper on them
+      boolean scan = keys == null || keys.isEmpty();
+      InputBatches input;
+      int mapTasks;
+      if (scan) {
+         input = new InputBatches(scanner.scan(true, false));
+         // the number of entries is unknown, the map tasks started for a few entries end once they are taken
+         mapTasks = mapTaskCount(Integer.MAX_VALUE);
+         log.tracef("For %s at %s invoking mapper on local entries", this, localAddress);
+      } else {
+         input = new InputBatches(keys.iterator());
+         mapTasks = mapTaskCount(keys.size());
+         log.tracef("For %s at %s invoking mapper on keys %s", this, localAddress, keys);
+      }
+      Map<Object, Object> reducedMap;
+      if (mapTasks > 1) {
+         reducedMap = mapInParallel(ctx, input, scan, mapTasks);
+      } else {
+         reducedMap = mapAndReduce(ctx, ctx.getFlags(), mapper, reducer, combiner, input, scan);
+      }
+      log.tracef("%s executed at %s was reduced to %s", this, localAddress, reducedMap);
+      if (taskId != null) {
+         shuffle(reducedMap);
+         return reducedMap.size();
+      }
+      return reducedMap;
+   }
+
+   private void shuffle(Map<Object, Object> reducedMap) throws Throwable {
+      ConsistentHash ch = dm.getConsistentHash();
+      if (dm.isRehashInProgress() || !ch.getCaches().equals(reducers))
+         throw new CacheException("Topology changed during " + this + ", its intermediate keys can not be shuffled to "
+                  + reducers + " from " + localAddress);
+      Map<Address, Map<Object, Object>> partitions = new HashMap<Address, Map<Object, Object>>();
+      for (Entry<Object, Object> e : reducedMap.entrySet()) {
+         Address owner = ch.primaryLocation(e.getKey());
+         if (owner == null)
+            owner = localAddress;
+         Map<Object, Object> partition = partitions.get(owner);
+         if (partition == null) {
+            partition = new HashMap<Object, Object>();
+            partitions.put(owner, partition);
+         }
+         partition.put(e.getKey(), e.getValue());
+      }
+      Map<Object, Object> localPartition = partitions.remove(localAddress);
+      List<NotifyingNotifiableFuture<Object>> futures = new ArrayList<NotifyingNotifiableFuture<Object>>(partitions.size());
+      for (Entry<Address, Map<Object, Object>> e : partitions.entrySet()) {
+         log.tracef("%s at %s shuffling %d intermediate keys to %s", this, localAddress, e.getValue().size(), e.getKey());
+         MapReduceShuffleCommand shuffle = commandsFactory.buildMapReduceShuffleCommand(taskId, e.getValue());
+         NotifyingNotifiableFuture<Object> future = new NotifyingFutureImpl(null);
+         rpcManager.invokeRemotelyInFuture(Collections.singleton(e.getKey()), shuffle, future);
+         futures.add(future);
+      }
+      if (localPartition != null)
+         intermediateResults.add(taskId, localPartition);
+      try {
+         for (NotifyingNotifiableFuture<Object> future : futures) {
+            future.get();
+         }
+      } catch (ExecutionException e) {
+         throw e.getCause();
+      }
+   }
+
+   private int mapTaskCount(int keyCount) {
+      if (mapExecutor == null || marshaller == null)
+         return 1;
+      return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), keyCount / MIN_KEYS_PER_MAP_TASK));
+   }
+
+   private Map<Object, Object> mapInParallel(InvocationContext ctx, final InputBatches input, final boolean scanned,
+            int mapTasks) throws Throwable {
+      final Set<Flag> flags = ctx.getFlags();
+      List<Future<Map<Object, Object>>> futures = new ArrayList<Future<Map<Object, Object>>>(mapTasks - 1);
+      for (int i = 1; i < mapTasks; i++) {
+         final Mapper sliceMapper = Util.cloneWithMarshaller(marshaller, mapper);
+         final Reducer sliceReducer = Util.cloneWithMarshaller(marshaller, reducer);
+         final Combiner sliceCombiner = combiner == null ? null : Util.cloneWithMarshaller(marshaller, combiner);
+         futures.add(mapExecutor.submit(new Callable<Map<Object, Object>>() {
+            @Override
+            public Map<Object, Object> call() throws Exception {
+               InvocationContext sliceCtx = icc.createRemoteInvocationContext(localAddress);
+               try {
+                  return mapAndReduce(sliceCtx, flags, sliceMapper, sliceReducer, sliceCombiner, input, scanned);
+               } finally {
+                  icc.clearThreadLocal();
+               }
+            }
+         }));
+      }
+      try {
+         Map<Object, Object> reducedMap = mapAndReduce(ctx, flags, mapper, reducer, combiner, input, scanned);
+         for (Future<Map<Object, Object>> future : futures) {
+            mergeReduced(reducedMap, future.get());
+         }
+         log.tracef("%s at %s mapped %d keys in %d tasks", this, localAddress, input.taken(), mapTasks);
+         return reducedMap;
+      } catch (ExecutionException e) {
+         throw e.getCause();
+      } finally {
+         // after a failure, the other map tasks take no more input
+         input.close();
+         for (Future<Map<Object, Object>> future : futures) {
+            future.cancel(true);
+         }
+      }
+   }
+
+   private Map<Object, Object> mapAndReduce(InvocationContext ctx, Set<Flag> flags, Mapper mapper, Reducer reducer,
+            Combiner combiner, InputBatches input, boolean scanned) throws Exception {
+      ReducingCollector collector;
+      if (combiner != null) {
+         collector = new CombiningCollector(combiner);
+      } else if (maxCollectedValues > 0 && marshaller != null) {
+         collector = new SpillingCollector(marshaller, maxCollectedValues);
+      } else {
+         collector = new DefaultCollector();
+      }
+      try {
+         for (List<Object> batch = input.next(); batch != null; batch = input.next()) {
+            for (Object o : batch) {
+               if (scanned) {
+                  Entry<Object, Object> entry = (Entry<Object, Object>) o;
+                  mapper.map(entry.getKey(), entry.getValue(), collector);
+               } else {
+                  mapper.map(o, readValue(ctx, flags, o), collector);
+               }
             }
          }
-         if (keys == null)
-            keys = new HashSet<Object>();
-
-         keys.addAll(selectedKeys);
-      }
-      log.tracef("For %s at %s invoking mapper on keys %s", this, localAddress, keys);
-      DefaultCollector<Object,Object> collector = new DefaultCollector<Object, Object>();
-      for (Object key : keys) {
-         GetKeyValueCommand command = commandsFactory.buildGetKeyValueCommand(key, ctx.getFlags());
-         command.setReturnCacheEntry(false);
-         Object value = invoker.invoke(ctx, command);
-         mapper.map(key, value,collector);
-      }
-      Map<Object, List<Object>> collectedValues = collector.collectedValues();
-      Map<Object,Object> reducedMap = new HashMap<Object, Object>();
-      for (Entry<Object, List<Object>> e : collectedValues.entrySet()) {
-         List<Object> list = e.getValue();
-         if(list.size()>1){
-            Object reduced = reducer.reduce(e.getKey(),list.iterator());
-            reducedMap.put(e.getKey(), reduced);
+         return collector.reduce(reducer);
+      } finally {
+         collector.dispose();
+      }
+   }
+
+   private Object readValue(InvocationContext ctx, Set<Flag> flags, Object key) {
+      Entry<Object, Object> entry = scanner.get(key);
+      if (entry != null)
+         return entry.getValue();
+      GetKeyValueCommand command = commandsFactory.buildGetKeyValueCommand(key, flags);
+      command.setReturnCacheEntry(false);
+      return invoker.invoke(ctx, command);
+   }
+
+   private void mergeReduced(Map<Object, Object> reducedMap, Map<Object, Object> sliceReducedMap) {
+      for (Entry<Object, Object> e : sliceReducedMap.entrySet()) {
+         Object key = e.getKey();
+         if (reducedMap.containsKey(key)) {
+            reducedMap.put(key, reducer.reduce(key, Arrays.asList(reducedMap.get(key), e.getValue()).iterator()));
          } else {
-            reducedMap.put(e.getKey(),list.get(0));
+            reducedMap.put(key, e.getValue());
          }
-      }                 
-      log.tracef("%s executed at %s was reduced to %s", this, localAddress, reducedMap);
-      return reducedMap;
+      }
    }
 
    @Override
@@ -165,7 +389,7 @@ public byte getCommandId() {
 
    @Override
    public Object[] getParameters() {
-      return new Object[] {keys, mapper, reducer};
+      return new Object[] {keys, mapper, reducer, taskId, combiner, maxCollectedValues, reducers};
    }
 
    @Override
@@ -176,6 +400,10 @@ public void setParameters(int commandId, Object[] args) {
       keys = (Set<Object>) args[i++];
       mapper = (Mapper)args[i++];
       reducer = (Reducer) args[i++];
+      taskId = (String) args[i++];
+      combiner = (Combiner) args[i++];
+      maxCollectedValues = (Integer) args[i++];
+      reducers = (Set<Address>) args[i++];
    }
 
    @Override
@@ -211,31 +439,122 @@ public int hashCode() {
    
    @Override
    public String toString() {
-      return "MapReduceCommand(keys=" + keys+")";
+      return "MapReduceCommand(keys=" + keys + ", taskId=" + taskId + ")";
    }
    
    private InvocationContext getInvocationContext(InvocationContext ctx) {
       return  ctx == null ? icc.createRemoteInvocationContext(localAddress):ctx;      
    }
    
+   /**
+    * Hands out the input keys or scanned entries to the map tasks in batches, as they are read
+    */
+   private static final class InputBatches {
+      private final Iterator<?> input;
+      private int taken;
+      private boolean closed;
+
+      InputBatches(Iterator<?> input) {
+         this.input = input;
+      }
+
+      /**
+       * @return the next batch of at most {@link #MIN_KEYS_PER_MAP_TASK} keys or entries, or null if all were taken
+       */
+      synchronized List<Object> next() {
+         if (closed || !input.hasNext())
+            return null;
+         List<Object> batch = new ArrayList<Object>(MIN_KEYS_PER_MAP_TASK);
+         while (input.hasNext() && batch.size() < MIN_KEYS_PER_MAP_TASK) {
+            batch.add(input.next());
+         }
+         taken += batch.size();
+         return batch;
+      }
+
+      synchronized int taken() {
+         return taken;
+      }
+
+      synchronized void close() {
+         closed = true;
+      }
+   }
+
+   /**
+    * Collects the values emitted by the {@link Mapper} of one map task and reduces them once the task mapped all
+    * its keys.
+    */
+   abstract static class ReducingCollector implements Collector<Object, Object> {
+
+      abstract Map<Object, Object> reduce(Reducer reducer) throws Exception;
+
+      void dispose() {
+      }
+
+      static void reduceInto(Map<Object, Object> reducedMap, Map<Object, List<Object>> collectedValues, Reducer reducer) {
+         for (Entry<Object, List<Object>> e : collectedValues.entrySet()) {
+            List<Object> list = e.getValue();
+            if (list.size() > 1) {
+               Object reduced = reducer.reduce(e.getKey(), list.iterator());
+               reducedMap.put(e.getKey(), reduced);
+            } else {
+               reducedMap.put(e.getKey(), list.get(0));
+            }
+         }
+      }
+   }
+
    /**
     * @author Sanne Grinovero <sanne@hibernate.org> (C) 2011 Red Hat Inc.
     */
-   private static class DefaultCollector<KOut, VOut> implements Collector<KOut, VOut> {
+   static class DefaultCollector extends ReducingCollector {
 
-      private final Map<KOut, List<VOut>> store = ConcurrentMapFactory.makeConcurrentMap();
+      // Each map task has its own collector
+      protected final Map<Object, List<Object>> store = new HashMap<Object, List<Object>>();
 
       @Override
-      public void emit(KOut key, VOut value) {
-         List<VOut> list = store.get(key);
+      public void emit(Object key, Object value) {
+         List<Object> list = store.get(key);
          if (list == null) {
-            list = new LinkedList<VOut>();
+            list = new LinkedList<Object>();
             store.put(key, list);
          }
          list.add(value);
       }
 
-      public Map<KOut, List<VOut>> collectedValues() {
+      @Override
+      Map<Object, Object> reduce(Reducer reducer) throws Exception {
+         Map<Object, Object> reducedMap = new HashMap<Object, Object>();
+         reduceInto(reducedMap, store, reducer);
+         return reducedMap;
+      }
+   }
+
+   /**
+    * Keeps a single value per intermediate key, folding each emitted value into it.
+    */
+   private static class CombiningCollector extends ReducingCollector {
+
+      private final Map<Object, Object> store = new HashMap<Object, Object>();
+      private final Combiner combiner;
+
+      CombiningCollector(Combiner combiner) {
+         this.combiner = combiner;
+      }
+
+      @Override
+      public void emit(Object key, Object value) {
+         if (store.containsKey(key)) {
+            store.put(key, combiner.combine(key, store.get(key), value));
+         } else {
+            store.put(key, value);
+         }
+      }
+
+      @Override
+      Map<Object, Object> reduce(Reducer reducer) {
+         // the combined values already are the values the reducer would produce
          return store;
       }
    }
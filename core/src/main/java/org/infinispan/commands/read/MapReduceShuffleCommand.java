@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.commands.read;
+
+import org.infinispan.commands.remote.BaseRpcCommand;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.distexec.mapreduce.IntermediateResultStore;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.Map;
+
+/**
+ * MapReduceShuffleCommand carries the intermediate keys a node mapped to the node that will reduce them.
+ * 
+ * @see IntermediateResultStore
+ * @since 5.2
+ */
+public class MapReduceShuffleCommand extends BaseRpcCommand {
+   public static final int COMMAND_ID = 29;
+   private static final Log log = LogFactory.getLog(MapReduceShuffleCommand.class);
+
+   private String taskId;
+   private Map<Object, Object> partialResult;
+
+   private IntermediateResultStore intermediateResults;
+
+   private MapReduceShuffleCommand() {
+      super(null); // For command id uniqueness test
+   }
+
+   public MapReduceShuffleCommand(String cacheName) {
+      super(cacheName);
+   }
+
+   public MapReduceShuffleCommand(String cacheName, String taskId, Map<Object, Object> partialResult) {
+      super(cacheName);
+      this.taskId = taskId;
+      this.partialResult = partialResult;
+   }
+
+   public void init(IntermediateResultStore intermediateResults) {
+      this.intermediateResults = intermediateResults;
+   }
+
+   @Override
+   public Object perform(InvocationContext ctx) throws Throwable {
+      log.tracef("Received %d intermediate keys of task %s from %s", partialResult.size(), taskId, getOrigin());
+      intermediateResults.add(taskId, partialResult);
+      return null;
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   public Object[] getParameters() {
+      return new Object[] {taskId, partialResult};
+   }
+
+   @Override
+   @SuppressWarnings("unchecked")
+   public void setParameters(int commandId, Object[] args) {
+      if (commandId != COMMAND_ID)
+         throw new IllegalStateException("Invalid method id");
+      int i = 0;
+      taskId = (String) args[i++];
+      partialResult = (Map<Object, Object>) args[i++];
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return false;
+   }
+
+   @Override
+   public String toString() {
+      return "MapReduceShuffleCommand(taskId=" + taskId + ", keys=" + (partialResult == null ? 0 : partialResult.size()) + ")";
+   }
+}
@@ -0,0 +1,154 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.commands.read;
+
+import org.infinispan.CacheException;
+import org.infinispan.commands.remote.BaseRpcCommand;
+import org.infinispan.context.InvocationContext;
+import org.infinispan.distexec.mapreduce.IntermediateResultStore;
+import org.infinispan.distexec.mapreduce.Reducer;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * ReduceCommand runs the reduce phase of a MapReduceTask on the intermediate keys shuffled to a node by
+ * {@link MapReduceShuffleCommand}s.  The reduced values are either returned to the master node or stored in a
+ * result cache.
+ * 
+ * @since 5.2
+ */
+public class ReduceCommand extends BaseRpcCommand {
+   public static final int COMMAND_ID = 30;
+   private static final Log log = LogFactory.getLog(ReduceCommand.class);
+
+   private String taskId;
+   private Reducer reducer;
+   private String resultCacheName;
+   private boolean discard;
+
+   private IntermediateResultStore intermediateResults;
+   private EmbeddedCacheManager cacheManager;
+
+   private ReduceCommand() {
+      super(null); // For command id uniqueness test
+   }
+
+   public ReduceCommand(String cacheName) {
+      super(cacheName);
+   }
+
+   /**
+    * @param cacheName
+    *           input cache of the task
+    * @param taskId
+    *           id of the MapReduceTask
+    * @param reducer
+    *           the Reducer, or <code>null</code> to discard the intermediate keys of a failed task
+    * @param resultCacheName
+    *           cache to store the reduced values in, or <code>null</code> to return them
+    */
+   public ReduceCommand(String cacheName, String taskId, Reducer reducer, String resultCacheName) {
+      super(cacheName);
+      this.taskId = taskId;
+      this.reducer = reducer;
+      this.resultCacheName = resultCacheName;
+      this.discard = reducer == null;
+   }
+
+   public void init(IntermediateResultStore intermediateResults, EmbeddedCacheManager cacheManager) {
+      this.intermediateResults = intermediateResults;
+      this.cacheManager = cacheManager;
+   }
+
+   /**
+    * Reduces the intermediate keys this node received for the task. The result cache is not started here, as this
+    * runs in a transport thread and starting a clustered cache could block.
+    * 
+    * @return the reduced values, or an empty map if they were stored in the result cache
+    * @throws CacheException if the result cache is not running on this node
+    */
+   @Override
+   public Object perform(InvocationContext ctx) throws Throwable {
+      if (!discard && resultCacheName != null && !cacheManager.isRunning(resultCacheName))
+         throw new CacheException("Result cache " + resultCacheName + " of task " + taskId + " is not running on "
+                  + cacheManager.getAddress());
+      Map<Object, List<Object>> collected = intermediateResults.remove(taskId);
+      if (discard || collected == null) {
+         log.tracef("Nothing to reduce for task %s", taskId);
+         return Collections.emptyMap();
+      }
+      Map<Object, Object> reducedMap = new HashMap<Object, Object>(collected.size());
+      for (Entry<Object, List<Object>> e : collected.entrySet()) {
+         List<Object> list = e.getValue();
+         if (list.size() > 1) {
+            reducedMap.put(e.getKey(), reducer.reduce(e.getKey(), list.iterator()));
+         } else {
+            reducedMap.put(e.getKey(), list.get(0));
+         }
+      }
+      log.tracef("Reduced %d keys of task %s", reducedMap.size(), taskId);
+      if (resultCacheName == null)
+         return reducedMap;
+
+      cacheManager.getCache(resultCacheName).putAll(reducedMap);
+      return Collections.emptyMap();
+   }
+
+   @Override
+   public byte getCommandId() {
+      return COMMAND_ID;
+   }
+
+   @Override
+   public Object[] getParameters() {
+      return new Object[] {taskId, reducer, resultCacheName, discard};
+   }
+
+   @Override
+   public void setParameters(int commandId, Object[] args) {
+      if (commandId != COMMAND_ID)
+         throw new IllegalStateException("Invalid method id");
+      int i = 0;
+      taskId = (String) args[i++];
+      reducer = (Reducer) args[i++];
+      resultCacheName = (String) args[i++];
+      discard = (Boolean) args[i++];
+   }
+
+   @Override
+   public boolean isReturnValueExpected() {
+      return true;
+   }
+
+   @Override
+   public String toString() {
+      return "ReduceCommand(taskId=" + taskId + ", resultCacheName=" + resultCacheName + ", discard=" + discard + ")";
+   }
+}
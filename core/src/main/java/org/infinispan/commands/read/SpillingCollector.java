@@ -0,0 +1,282 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.commands.read;
+
+import org.infinispan.CacheException;
+import org.infinispan.distexec.mapreduce.Reducer;
+import org.infinispan.marshall.Marshaller;
+import org.infinispan.util.Util;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+
+/**
+ * Collector keeping a bounded number of emitted values in memory. When the bound is reached, the collected values
+ * are sorted by the hash code of their key and written to a temporary file, a run.  The reduce phase merges all the
+ * runs, so that only the values of the keys sharing a hash code are in memory at the same time.  At most
+ * {@link #MAX_MERGED_RUNS} runs are open at once, more runs are first merged into bigger runs in several passes.
+ *
+ * @since 5.2
+ */
+class SpillingCollector extends MapReduceCommand.DefaultCollector {
+
+   private static final Log log = LogFactory.getLog(SpillingCollector.class);
+
+   private static final Comparator<Entry<Object, List<Object>>> HASH_ORDER = new Comparator<Entry<Object, List<Object>>>() {
+      @Override
+      public int compare(Entry<Object, List<Object>> e1, Entry<Object, List<Object>> e2) {
+         return compareHashes(e1.getKey().hashCode(), e2.getKey().hashCode());
+      }
+   };
+
+   static final int MAX_MERGED_RUNS = 64;
+
+   private final Marshaller marshaller;
+   private final int maxCollectedValues;
+   private final List<File> runs = new ArrayList<File>();
+   private int collectedValues;
+
+   SpillingCollector(Marshaller marshaller, int maxCollectedValues) {
+      this.marshaller = marshaller;
+      this.maxCollectedValues = maxCollectedValues;
+   }
+
+   @Override
+   public void emit(Object key, Object value) {
+      super.emit(key, value);
+      if (++collectedValues >= maxCollectedValues) {
+         try {
+            spill();
+         } catch (Exception e) {
+            throw new CacheException("Could not spill collected values to disk", e);
+         }
+      }
+   }
+
+   private void spill() throws Exception {
+      List<Entry<Object, List<Object>>> entries = new ArrayList<Entry<Object, List<Object>>>(store.entrySet());
+      Collections.sort(entries, HASH_ORDER);
+      File run = createRun();
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)));
+      try {
+         for (Entry<Object, List<Object>> e : entries) {
+            writeEntry(out, e.getKey(), e.getValue());
+         }
+         out.writeBoolean(false);
+      } finally {
+         out.close();
+      }
+      log.tracef("Spilled %d values of %d keys to %s", collectedValues, entries.size(), run);
+      store.clear();
+      collectedValues = 0;
+   }
+
+   @Override
+   Map<Object, Object> reduce(Reducer reducer) throws Exception {
+      if (runs.isEmpty())
+         return super.reduce(reducer);
+      if (!store.isEmpty())
+         spill();
+      while (runs.size() > MAX_MERGED_RUNS) {
+         mergeRuns();
+      }
+
+      Merge merge = new Merge(runs);
+      try {
+         Map<Object, Object> reducedMap = new HashMap<Object, Object>();
+         while (merge.next()) {
+            reduceInto(reducedMap, merge.sameHash, reducer);
+         }
+         return reducedMap;
+      } finally {
+         merge.close();
+      }
+   }
+
+   /**
+    * Replaces the {@link #MAX_MERGED_RUNS} oldest runs with a single run holding all their keys
+    */
+   private void mergeRuns() throws Exception {
+      List<File> merged = new ArrayList<File>(runs.subList(0, MAX_MERGED_RUNS));
+      File run = createRun();
+      Merge merge = new Merge(merged);
+      try {
+         DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(run)));
+         try {
+            while (merge.next()) {
+               for (Entry<Object, List<Object>> e : merge.sameHash.entrySet()) {
+                  writeEntry(out, e.getKey(), e.getValue());
+               }
+            }
+            out.writeBoolean(false);
+         } finally {
+            out.close();
+         }
+      } finally {
+         merge.close();
+      }
+      log.tracef("Merged %d runs to %s", merged.size(), run);
+      runs.subList(0, MAX_MERGED_RUNS).clear();
+      for (File file : merged) {
+         if (!file.delete())
+            log.debugf("Could not delete %s", file);
+      }
+   }
+
+   private File createRun() throws IOException {
+      File run = File.createTempFile("infinispan-mapreduce-", ".run");
+      runs.add(run);
+      return run;
+   }
+
+   @Override
+   void dispose() {
+      for (File run : runs) {
+         if (!run.delete())
+            log.debugf("Could not delete %s", run);
+      }
+      runs.clear();
+   }
+
+   private void writeEntry(DataOutputStream out, Object key, List<Object> values) throws Exception {
+      out.writeBoolean(true);
+      out.writeInt(key.hashCode());
+      writeBytes(out, marshaller.objectToByteBuffer(key));
+      writeBytes(out, marshaller.objectToByteBuffer(new ArrayList<Object>(values)));
+   }
+
+   private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+      out.writeInt(bytes.length);
+      out.write(bytes);
+   }
+
+   private static int compareHashes(int h1, int h2) {
+      return h1 < h2 ? -1 : (h1 == h2 ? 0 : 1);
+   }
+
+   /**
+    * Merges runs, reading the keys sharing the same hash code from all of them at once
+    */
+   private class Merge {
+      final List<Run> opened;
+      final PriorityQueue<Run> queue;
+      final Map<Object, List<Object>> sameHash = new HashMap<Object, List<Object>>();
+
+      Merge(List<File> files) throws Exception {
+         opened = new ArrayList<Run>(files.size());
+         queue = new PriorityQueue<Run>(files.size());
+         try {
+            for (File file : files) {
+               Run run = new Run(file);
+               opened.add(run);
+               if (run.next())
+                  queue.add(run);
+            }
+         } catch (Exception e) {
+            close();
+            throw e;
+         }
+      }
+
+      /**
+       * Reads the values of the keys with the next hash code into {@link #sameHash}
+       *
+       * @return false if all the keys were read
+       */
+      boolean next() throws Exception {
+         sameHash.clear();
+         if (queue.isEmpty())
+            return false;
+         int hash = queue.peek().hash;
+         while (!queue.isEmpty() && queue.peek().hash == hash) {
+            Run run = queue.poll();
+            List<Object> values = sameHash.get(run.key);
+            if (values == null) {
+               sameHash.put(run.key, run.values);
+            } else {
+               values.addAll(run.values);
+            }
+            if (run.next())
+               queue.add(run);
+         }
+         return true;
+      }
+
+      void close() {
+         for (Run run : opened) {
+            Util.close(run.in);
+         }
+      }
+   }
+
+   /**
+    * Reads the keys of a run in order
+    */
+   private class Run implements Comparable<Run> {
+      final DataInputStream in;
+      int hash;
+      Object key;
+      List<Object> values;
+
+      Run(File file) throws IOException {
+         in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      }
+
+      @SuppressWarnings("unchecked")
+      boolean next() throws Exception {
+         if (!in.readBoolean())
+            return false;
+         hash = in.readInt();
+         key = marshaller.objectFromByteBuffer(readBytes());
+         values = (List<Object>) marshaller.objectFromByteBuffer(readBytes());
+         return true;
+      }
+
+      private byte[] readBytes() throws IOException {
+         byte[] bytes = new byte[in.readInt()];
+         in.readFully(bytes);
+         return bytes;
+      }
+
+      @Override
+      public int compareTo(Run other) {
+         return compareHashes(hash, other.hash);
+      }
+   }
+}
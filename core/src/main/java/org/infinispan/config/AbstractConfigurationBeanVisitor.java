@@ -238,6 +238,11 @@ public void visitDataPlacementType(Configuration.DataPlacementType dataPlacement
       defaultVisit(dataPlacementType);
    }
 
+   @Override
+   public void visitRemoteCommandsType(Configuration.RemoteCommandsType remoteCommandsType) {
+      defaultVisit(remoteCommandsType);
+   }
+
    public void defaultVisit(AbstractConfigurationBean c) {
    }
 }
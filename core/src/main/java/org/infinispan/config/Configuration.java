@@ -171,6 +171,9 @@ public class Configuration extends AbstractNamedCacheConfigurationBean {
    @XmlElement
    DataPlacementType dataPlacement = new DataPlacementType().setConfiguration(this);
 
+   @XmlElement
+   RemoteCommandsType remoteCommands = new RemoteCommandsType().setConfiguration(this);
+
    private org.infinispan.configuration.cache.Configuration newConfig;
 
    public Configuration(org.infinispan.configuration.cache.Configuration config) {
@@ -1543,6 +1546,16 @@ public int getMaxNumberOfKeyToRequest() {
       return dataPlacement.maxNumberOfKeysToRequest;
    }
 
+   /**
+    * Properties of the executors of the commands received from remote nodes, overriding the global
+    * <tt>remoteCommandsExecutor</tt> ones for this cache.
+    *
+    * @see org.infinispan.remoting.RemoteCommandExecutors
+    */
+   public TypedProperties getRemoteCommandsProperties() {
+      return remoteCommands.properties;
+   }
+
    // ------------------------------------------------------------------------------------------------------------
    //   HELPERS
    // ------------------------------------------------------------------------------------------------------------
@@ -1570,6 +1583,7 @@ public void accept(ConfigurationBeanVisitor v) {
       indexing.accept(v);
       versioning.accept(v);
       dataPlacement.accept(v);
+      remoteCommands.accept(v);
    }
 
    /**
@@ -1715,6 +1729,10 @@ public Configuration clone() {
             dolly.dataPlacement = (DataPlacementType) dataPlacement.clone();
             dolly.dataPlacement.setConfiguration(dolly);
          }
+         if (remoteCommands != null) {
+            dolly.remoteCommands = (RemoteCommandsType) remoteCommands.clone();
+            dolly.remoteCommands.setConfiguration(dolly);
+         }
          if (newConfig != null)
             dolly.newConfig = newConfig;
          dolly.fluentConfig = new FluentConfiguration(dolly);
@@ -1804,6 +1822,15 @@ public TransactionProtocol getTransactionProtocol() {
       return transaction.transactionProtocol;
    }
 
+   /**
+    * If true, the total order protocol validates a prepare as soon as the conflicting transactions delivered before it
+    * are validated, instead of waiting for them to be committed
+    * @return true if the speculative validation is enabled
+    */
+   public boolean isTotalOrderSpeculativeValidation() {
+      return transaction.speculativeValidation;
+   }
+
    public boolean isHashActivated() {
       return clustering.hash.activated;
    }
@@ -1882,6 +1909,10 @@ public void setL1InvalidationCleanupTaskFrequency(long frequencyMillis) {
       @XmlAttribute
       protected TransactionProtocol transactionProtocol = TransactionProtocol.TWO_PHASE_COMMIT;
 
+      //Validates total order transactions against the conflicting transactions validated but not yet committed
+      @XmlAttribute
+      protected Boolean speculativeValidation = false;
+
       public TransactionType(String transactionManagerLookupClass) {
          this.transactionManagerLookupClass = transactionManagerLookupClass;
       }
@@ -2006,6 +2037,20 @@ public void setTransactionProtocol(TransactionProtocol transactionProtocol) {
          this.transactionProtocol = transactionProtocol;
       }
 
+      /**
+       * Please refer to {@link org.infinispan.config.Configuration#isTotalOrderSpeculativeValidation()}.
+       */
+      @Override
+      public TransactionType speculativeValidation(boolean speculativeValidation) {
+         setSpeculativeValidation(speculativeValidation);
+         return this;
+      }
+
+      public void setSpeculativeValidation(Boolean speculativeValidation) {
+         testImmutability("speculativeValidation");
+         this.speculativeValidation = speculativeValidation;
+      }
+
       @XmlAttribute
       public Boolean isUseSynchronization() {
          return useSynchronization;
@@ -2193,6 +2238,10 @@ public boolean equals(Object o) {
                that.transactionProtocol != null) {
             return false;
          }
+         if (speculativeValidation != null ? !speculativeValidation.equals(that.speculativeValidation) :
+               that.speculativeValidation != null) {
+            return false;
+         }
 
          return true;
       }
@@ -4939,6 +4988,54 @@ public int hashCode() {
       }
    }
 
+   @XmlAccessorType(XmlAccessType.PROPERTY)
+   @ConfigurationDoc(name = "remoteCommands", desc = "Overrides, for this cache, the properties of the global " +
+         "remoteCommandsExecutor, which executes the commands received from remote nodes")
+   @Deprecated public static class RemoteCommandsType extends AbstractFluentConfigurationBean implements RemoteCommandsConfig {
+
+      @XmlElement(name = "properties")
+      protected TypedProperties properties = new TypedProperties();
+
+      @Override
+      public RemoteCommandsConfig withProperties(Properties properties) {
+         testImmutability("properties");
+         this.properties = new TypedProperties(properties);
+         return this;
+      }
+
+      @Override
+      public RemoteCommandsConfig addProperty(String key, String value) {
+         testImmutability("properties");
+         properties.put(key, value);
+         return this;
+      }
+
+      @Override
+      protected RemoteCommandsType setConfiguration(Configuration config) {
+         super.setConfiguration(config);
+         return this;
+      }
+
+      public void accept(ConfigurationBeanVisitor v) {
+         v.visitRemoteCommandsType(this);
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) return true;
+         if (o == null || getClass() != o.getClass()) return false;
+
+         RemoteCommandsType that = (RemoteCommandsType) o;
+
+         return properties != null ? properties.equals(that.properties) : that.properties == null;
+      }
+
+      @Override
+      public int hashCode() {
+         return properties != null ? properties.hashCode() : 0;
+      }
+   }
+
 
    /**
     * Cache replication mode.
@@ -121,4 +121,6 @@ public interface ConfigurationBeanVisitor {
    void visitVersioningConfigurationBean(VersioningConfigurationBean config);
 
    void visitDataPlacementType(DataPlacementType dataPlacementType);
+
+   void visitRemoteCommandsType(Configuration.RemoteCommandsType remoteCommandsType);
 }
@@ -302,4 +302,11 @@ public void visitDataPlacementType(DataPlacementType dataPlacementType) {
          delegate.visitDataPlacementType(dataPlacementType);
       }
    }
+
+   @Override
+   public void visitRemoteCommandsType(Configuration.RemoteCommandsType remoteCommandsType) {
+      for (ConfigurationBeanVisitor delegate : delegates) {
+         delegate.visitRemoteCommandsType(remoteCommandsType);
+      }
+   }
 }
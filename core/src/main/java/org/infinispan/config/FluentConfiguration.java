@@ -285,6 +285,11 @@ public FluentConfiguration(Configuration config) {
       Configuration.TransactionType use1PcForAutoCommitTransactions(boolean b);
 
       TransactionConfig transactionProtocol(TransactionProtocol transactionProtocol);
+
+      /**
+       * @see org.infinispan.config.Configuration#isTotalOrderSpeculativeValidation()
+       */
+      TransactionConfig speculativeValidation(boolean speculativeValidation);
    }
 
    /**
@@ -838,6 +843,12 @@ public static interface DataPlacementConfig extends FluentTypes {
       DataPlacementConfig addProperty(String key, String value);
       DataPlacementConfig maxNumberOfKeysToRequest(int maxNumberOfKeysToRequest);
    }
+
+   @Deprecated
+   public static interface RemoteCommandsConfig extends FluentTypes {
+      RemoteCommandsConfig withProperties(Properties properties);
+      RemoteCommandsConfig addProperty(String key, String value);
+   }
 }
 
 @Deprecated
@@ -899,6 +910,8 @@ interface FluentTypes {
 
    FluentConfiguration.DataPlacementConfig dataPlacement();
 
+   FluentConfiguration.RemoteCommandsConfig remoteCommands();
+
    Configuration build();
 }
 
@@ -1052,6 +1065,10 @@ public FluentConfiguration.TransactionConfig transactionProtocol(TransactionProt
       return transaction().transactionProtocol(transactionProtocol);
    }
 
+   public FluentConfiguration.TransactionConfig speculativeValidation(boolean speculativeValidation) {
+      return transaction().speculativeValidation(speculativeValidation);
+   }
+
    @Override
    public Configuration build() {
       return config;
@@ -1066,6 +1083,11 @@ protected AbstractFluentConfigurationBean setConfiguration(Configuration config)
    public FluentConfiguration.DataPlacementConfig dataPlacement() {
       return config.dataPlacement;
    }
+
+   @Override
+   public FluentConfiguration.RemoteCommandsConfig remoteCommands() {
+      return config.remoteCommands;
+   }
 }
 
 
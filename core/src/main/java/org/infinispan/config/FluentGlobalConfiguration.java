@@ -394,4 +394,12 @@ public GlobalConfiguration build() {
    public FluentGlobalConfiguration.ExecutorFactoryConfig<ExecutorFactory> totalOrderExecutor() {
       return globalConfig.totalOrderExecutor;
    }
+
+   public FluentGlobalConfiguration.ExecutorFactoryConfig<ExecutorFactory> remoteCommandsExecutor() {
+      return globalConfig.remoteCommandsExecutor;
+   }
+
+   public FluentGlobalConfiguration.ExecutorFactoryConfig<ExecutorFactory> mapReduceExecutor() {
+      return globalConfig.mapReduceExecutor;
+   }
 }
\ No newline at end of file
@@ -141,6 +141,13 @@ public class GlobalConfiguration extends AbstractConfigurationBean {
    ExecutorFactoryType totalOrderExecutor = (ExecutorFactoryType) new ExecutorFactoryType().setGlobalConfiguration(this)
          .factory(DefaultDynamicExecutorFactory.class);
 
+   @XmlElement
+   ExecutorFactoryType remoteCommandsExecutor = (ExecutorFactoryType) new ExecutorFactoryType().setGlobalConfiguration(this)
+         .factory(DefaultDynamicExecutorFactory.class);
+
+   @XmlElement
+   ExecutorFactoryType mapReduceExecutor = new ExecutorFactoryType().setGlobalConfiguration(this);
+
    /**
     * Create a new GlobalConfiguration, using the Thread Context ClassLoader to load any
     * classes or resources required by this configuration. The TCCL will also be used as
@@ -415,6 +422,24 @@ public String getTotalOrderExecutorFactoryClass() {
       return totalOrderExecutor.factory;
    }
 
+   @Deprecated
+   public void setRemoteCommandsExecutorFactoryClass(String remoteCommandsExecutorFactoryClass) {
+      remoteCommandsExecutor.setFactory(remoteCommandsExecutorFactoryClass);
+   }
+
+   public String getRemoteCommandsExecutorFactoryClass() {
+      return remoteCommandsExecutor.factory;
+   }
+
+   @Deprecated
+   public void setMapReduceExecutorFactoryClass(String mapReduceExecutorFactoryClass) {
+      mapReduceExecutor.setFactory(mapReduceExecutorFactoryClass);
+   }
+
+   public String getMapReduceExecutorFactoryClass() {
+      return mapReduceExecutor.factory;
+   }
+
    public String getMarshallerClass() {
       return serialization.marshallerClass;
    }
@@ -686,6 +711,34 @@ public void setTotalOrderExecutorProperties(String totalOrderExecutorPropertiesS
       totalOrderExecutor.setProperties(toTypedProperties(totalOrderExecutorPropertiesString));
    }
 
+   public Properties getRemoteCommandsExecutorProperties() {
+      return remoteCommandsExecutor.properties;
+   }
+
+   @Deprecated
+   public void setRemoteCommandsExecutorProperties(Properties remoteCommandsExecutorProperties) {
+      remoteCommandsExecutor.setProperties(toTypedProperties(remoteCommandsExecutorProperties));
+   }
+
+   @Deprecated
+   public void setRemoteCommandsExecutorProperties(String remoteCommandsExecutorPropertiesString) {
+      remoteCommandsExecutor.setProperties(toTypedProperties(remoteCommandsExecutorPropertiesString));
+   }
+
+   public Properties getMapReduceExecutorProperties() {
+      return mapReduceExecutor.properties;
+   }
+
+   @Deprecated
+   public void setMapReduceExecutorProperties(Properties mapReduceExecutorProperties) {
+      mapReduceExecutor.setProperties(toTypedProperties(mapReduceExecutorProperties));
+   }
+
+   @Deprecated
+   public void setMapReduceExecutorProperties(String mapReduceExecutorPropertiesString) {
+      mapReduceExecutor.setProperties(toTypedProperties(mapReduceExecutorPropertiesString));
+   }
+
    public short getMarshallVersion() {
       return serialization.versionShort;
    }
@@ -753,6 +806,8 @@ public void accept(ConfigurationBeanVisitor v) {
       shutdown.accept(v);
       transport.accept(v);
       totalOrderExecutor.accept(v);
+      remoteCommandsExecutor.accept(v);
+      mapReduceExecutor.accept(v);
       v.visitGlobalConfiguration(this);
    }
 
@@ -796,6 +851,18 @@ public boolean equals(Object o) {
       if (totalOrderExecutor.properties != null ? !totalOrderExecutor.properties.equals(that.totalOrderExecutor.properties) : that.totalOrderExecutor.properties != null) {
          return false;
       }
+      if (remoteCommandsExecutor.factory != null ? !remoteCommandsExecutor.factory.equals(that.remoteCommandsExecutor.factory) : that.remoteCommandsExecutor.factory != null) {
+         return false;
+      }
+      if (remoteCommandsExecutor.properties != null ? !remoteCommandsExecutor.properties.equals(that.remoteCommandsExecutor.properties) : that.remoteCommandsExecutor.properties != null) {
+         return false;
+      }
+      if (mapReduceExecutor.factory != null ? !mapReduceExecutor.factory.equals(that.mapReduceExecutor.factory) : that.mapReduceExecutor.factory != null) {
+         return false;
+      }
+      if (mapReduceExecutor.properties != null ? !mapReduceExecutor.properties.equals(that.mapReduceExecutor.properties) : that.mapReduceExecutor.properties != null) {
+         return false;
+      }
 
       return !(transport.distributedSyncTimeout != null && !transport.distributedSyncTimeout.equals(that.transport.distributedSyncTimeout));
 
@@ -820,6 +887,10 @@ public int hashCode() {
       result = (int) (31 * result + transport.distributedSyncTimeout);
       result = 31 * result + (totalOrderExecutor.factory != null ? totalOrderExecutor.factory.hashCode() : 0);
       result = 31 * result + (totalOrderExecutor.properties != null ? totalOrderExecutor.properties.hashCode() : 0);
+      result = 31 * result + (remoteCommandsExecutor.factory != null ? remoteCommandsExecutor.factory.hashCode() : 0);
+      result = 31 * result + (remoteCommandsExecutor.properties != null ? remoteCommandsExecutor.properties.hashCode() : 0);
+      result = 31 * result + (mapReduceExecutor.factory != null ? mapReduceExecutor.factory.hashCode() : 0);
+      result = 31 * result + (mapReduceExecutor.properties != null ? mapReduceExecutor.properties.hashCode() : 0);
       return result;
    }
 
@@ -863,6 +934,14 @@ public GlobalConfiguration clone() {
             dolly.totalOrderExecutor = totalOrderExecutor.clone();
             dolly.totalOrderExecutor.setGlobalConfiguration(dolly);
          }
+         if (remoteCommandsExecutor != null) {
+            dolly.remoteCommandsExecutor = remoteCommandsExecutor.clone();
+            dolly.remoteCommandsExecutor.setGlobalConfiguration(dolly);
+         }
+         if (mapReduceExecutor != null) {
+            dolly.mapReduceExecutor = mapReduceExecutor.clone();
+            dolly.mapReduceExecutor.setGlobalConfiguration(dolly);
+         }
          dolly.fluentGlobalConfig = new FluentGlobalConfiguration(dolly);
          return dolly;
       } catch (CloneNotSupportedException e) {
@@ -998,7 +1077,11 @@ public FactoryClassWithPropertiesType clone() throws CloneNotSupportedException
            @ConfigurationDoc(name = "asyncTransportExecutor",
                    desc = "Configuration for the executor service used for asynchronous work on the Transport, including asynchronous marshalling and Cache 'async operations' such as Cache.putAsync()."),
            @ConfigurationDoc(name = "totalOrderExecutor",
-                   desc = "Configuration for the executor service used to validate multiple non-conflicting concurrent transactions")})
+                   desc = "Configuration for the executor service used to validate multiple non-conflicting concurrent transactions"),
+           @ConfigurationDoc(name = "remoteCommandsExecutor",
+                   desc = "Configuration for the executor services used to execute the commands received from remote nodes, one for each priority class listed in the 'isolatedPriorities' property"),
+           @ConfigurationDoc(name = "mapReduceExecutor",
+                   desc = "Configuration for the executor service used to run the map phase of MapReduce tasks in parallel. Defaults to one thread per available processor")})
    @Deprecated public static class ExecutorFactoryType extends FactoryClassWithPropertiesType implements ExecutorFactoryConfig<ExecutorFactory> {
 
       private static final long serialVersionUID = 6895901500645539386L;
@@ -63,6 +63,7 @@ public class OverrideConfigurationVisitor extends AbstractConfigurationBeanVisit
    private DataContainerType dataContainerType;
    private VersioningConfigurationBean versioningType;
    private DataPlacementType dataPlacementType;
+   private Configuration.RemoteCommandsType remoteCommandsType;
 
    public void override(OverrideConfigurationVisitor override) {
 
@@ -99,6 +100,7 @@ public void override(OverrideConfigurationVisitor override) {
       overrideFields(dataContainerType, override.dataContainerType);
       overrideFields(versioningType, override.versioningType);
       overrideFields(dataPlacementType, override.dataPlacementType);
+      overrideFields(remoteCommandsType, override.remoteCommandsType);
    }
 
    private void overrideFields(AbstractConfigurationBean bean, AbstractConfigurationBean overrides) {
@@ -227,4 +229,9 @@ public void visitVersioningConfigurationBean(VersioningConfigurationBean config)
    public void visitDataPlacementType(DataPlacementType dataPlacementType) {
       this.dataPlacementType = dataPlacementType;
    }
+
+   @Override
+   public void visitRemoteCommandsType(Configuration.RemoteCommandsType remoteCommandsType) {
+      this.remoteCommandsType = remoteCommandsType;
+   }
 }
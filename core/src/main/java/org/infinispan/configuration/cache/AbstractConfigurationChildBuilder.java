@@ -106,6 +106,11 @@ public DataPlacementConfigurationBuilder dataPlacement() {
       return builder.dataPlacement();
    }
 
+   @Override
+   public RemoteCommandsConfigurationBuilder remoteCommands() {
+      return builder.remoteCommands();
+   }
+
    protected ConfigurationBuilder getBuilder() {
       return builder;
    }
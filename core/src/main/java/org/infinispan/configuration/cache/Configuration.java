@@ -37,6 +37,7 @@ public class Configuration {
    private final VersioningConfiguration versioningConfiguration;
    private final UnsafeConfiguration unsafeConfiguration;
    private final DataPlacementConfiguration dataPlacementConfiguration;
+   private final RemoteCommandsConfiguration remoteCommandsConfiguration;
 
    Configuration(ClusteringConfiguration clusteringConfiguration,
          CustomInterceptorsConfiguration customInterceptorsConfiguration,
@@ -47,7 +48,8 @@ public class Configuration {
          LoadersConfiguration loadersConfiguration,
          LockingConfiguration lockingConfiguration, StoreAsBinaryConfiguration storeAsBinaryConfiguration,
          TransactionConfiguration transactionConfiguration, UnsafeConfiguration unsafeConfiguration,
-         VersioningConfiguration versioningConfiguration, ClassLoader cl, DataPlacementConfiguration dataPlacementConfiguration) {
+         VersioningConfiguration versioningConfiguration, ClassLoader cl, DataPlacementConfiguration dataPlacementConfiguration,
+         RemoteCommandsConfiguration remoteCommandsConfiguration) {
       this.clusteringConfiguration = clusteringConfiguration;
       this.customInterceptorsConfiguration = customInterceptorsConfiguration;
       this.dataContainerConfiguration = dataContainerConfiguration;
@@ -65,6 +67,7 @@ public class Configuration {
       this.versioningConfiguration = versioningConfiguration;
       this.classLoader = cl;
       this.dataPlacementConfiguration = dataPlacementConfiguration;
+      this.remoteCommandsConfiguration = remoteCommandsConfiguration;
    }
 
    /**
@@ -140,6 +143,10 @@ public DataPlacementConfiguration dataPlacement() {
       return dataPlacementConfiguration;
    }
 
+   public RemoteCommandsConfiguration remoteCommands() {
+      return remoteCommandsConfiguration;
+   }
+
    @Override
    public String toString() {
       return "Configuration{" +
@@ -160,6 +167,7 @@ public String toString() {
             ", versioning=" + versioningConfiguration +
             ", unsafe=" + unsafeConfiguration +
             ", dataPlacement=" + dataPlacementConfiguration +
+            ", remoteCommands=" + remoteCommandsConfiguration +
             '}';
    }
 
@@ -205,6 +213,8 @@ public boolean equals(Object o) {
       if (dataPlacementConfiguration != null ? !dataPlacementConfiguration.equals(that.dataPlacementConfiguration) :
             that.dataContainerConfiguration != null)
          return false;
+      if (remoteCommandsConfiguration != null ? !remoteCommandsConfiguration.equals(that.remoteCommandsConfiguration) : that.remoteCommandsConfiguration != null)
+         return false;
 
       return true;
    }
@@ -228,6 +238,7 @@ public int hashCode() {
       result = 31 * result + (versioningConfiguration != null ? versioningConfiguration.hashCode() : 0);
       result = 31 * result + (unsafeConfiguration != null ? unsafeConfiguration.hashCode() : 0);
       result = 31 * result + (dataPlacementConfiguration != null ? dataPlacementConfiguration.hashCode() : 0);
+      result = 31 * result + (remoteCommandsConfiguration != null ? remoteCommandsConfiguration.hashCode() : 0);
       return result;
    }
 
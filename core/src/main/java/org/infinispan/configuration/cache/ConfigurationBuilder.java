@@ -39,6 +39,7 @@ public class ConfigurationBuilder implements ConfigurationChildBuilder {
    private final VersioningConfigurationBuilder versioning;
    private final UnsafeConfigurationBuilder unsafe;
    private final DataPlacementConfigurationBuilder dataPlacement;
+   private final RemoteCommandsConfigurationBuilder remoteCommands;
    
    public ConfigurationBuilder() {
       this.clustering = new ClusteringConfigurationBuilder(this);
@@ -57,6 +58,7 @@ public ConfigurationBuilder() {
       this.versioning = new VersioningConfigurationBuilder(this);
       this.unsafe = new UnsafeConfigurationBuilder(this);
       this.dataPlacement = new DataPlacementConfigurationBuilder(this);
+      this.remoteCommands = new RemoteCommandsConfigurationBuilder(this);
    }
 
    public ConfigurationBuilder classLoader(ClassLoader cl) {
@@ -148,12 +150,17 @@ public DataPlacementConfigurationBuilder dataPlacement() {
       return dataPlacement;
    }
 
+   @Override
+   public RemoteCommandsConfigurationBuilder remoteCommands() {
+      return remoteCommands;
+   }
+
    @SuppressWarnings("unchecked")
    public void validate() {
       for (AbstractConfigurationChildBuilder<?> validatable:
             asList(clustering, dataContainer, deadlockDetection, eviction, expiration, indexing,
                    invocationBatching, jmxStatistics, loaders, locking, storeAsBinary, transaction,
-                   versioning, unsafe, dataPlacement)) {
+                   versioning, unsafe, dataPlacement, remoteCommands)) {
          validatable.validate();
       }
 
@@ -173,7 +180,8 @@ public Configuration build(boolean validate) {
                dataContainer.create(), deadlockDetection.create(), eviction.create(),
                expiration.create(), indexing.create(), invocationBatching.create(),
                jmxStatistics.create(), loaders.create(), locking.create(), storeAsBinary.create(),
-               transaction.create(), unsafe.create(), versioning.create(), classLoader, dataPlacement.create());// TODO
+               transaction.create(), unsafe.create(), versioning.create(), classLoader, dataPlacement.create(),
+               remoteCommands.create());// TODO
    }
 
    public ConfigurationBuilder read(Configuration template) {
@@ -194,6 +202,7 @@ public ConfigurationBuilder read(Configuration template) {
       this.unsafe.read(template.unsafe());
       this.versioning.read(template.versioning());
       this.dataPlacement.read(template.dataPlacement());
+      this.remoteCommands.read(template.remoteCommands());
       
       return this;
    }
@@ -218,6 +227,7 @@ public String toString() {
             ", versioning=" + versioning +
             ", unsafe=" + unsafe +
             ", dataPlacement=" + dataPlacement +
+            ", remoteCommands=" + remoteCommands +
             '}';
    }
 
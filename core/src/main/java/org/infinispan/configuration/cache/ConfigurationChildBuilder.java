@@ -51,6 +51,8 @@ public interface ConfigurationChildBuilder {
    UnsafeConfigurationBuilder unsafe();
    
    DataPlacementConfigurationBuilder dataPlacement();
+
+   RemoteCommandsConfigurationBuilder remoteCommands();
    
    Configuration build();
 }
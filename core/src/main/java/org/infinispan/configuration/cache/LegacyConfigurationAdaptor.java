@@ -268,7 +268,8 @@ public static org.infinispan.config.Configuration adapt(org.infinispan.configura
             .useEagerLocking(config.transaction().useEagerLocking())
             .useSynchronization(config.transaction().useSynchronization())
             .use1PcForAutoCommitTransactions(config.transaction().use1PcForAutoCommitTransactions())
-            .transactionProtocol(config.transaction().transactionProtocol());
+            .transactionProtocol(config.transaction().transactionProtocol())
+            .speculativeValidation(config.transaction().speculativeValidation());
 
       if (config.transaction().recovery().enabled()) {
          legacy.transaction().recovery().recoveryInfoCacheName(config.transaction().recovery().recoveryInfoCacheName());
@@ -290,6 +291,8 @@ public static org.infinispan.config.Configuration adapt(org.infinispan.configura
                .maxNumberOfKeysToRequest(config.dataPlacement().maxNumberOfKeysToRequest());
       }
 
+      legacy.remoteCommands().withProperties(config.remoteCommands().properties());
+
       return legacy.build();
    }
 
@@ -507,7 +510,8 @@ else if (!interceptor.getPositionAsString().equals(Position.OTHER_THAN_FIRST_OR_
             .transactionSynchronizationRegistryLookup(legacy.getTransactionSynchronizationRegistryLookup())
             .useEagerLocking(legacy.isUseEagerLocking())
             .useSynchronization(legacy.isUseSynchronizationForTransactions())
-            .transactionProtocol(legacy.getTransactionProtocol());
+            .transactionProtocol(legacy.getTransactionProtocol())
+            .speculativeValidation(legacy.isTotalOrderSpeculativeValidation());
 
       builder.transaction().recovery().enabled(legacy.isTransactionRecoveryEnabled());
 
@@ -521,6 +525,8 @@ else if (!interceptor.getPositionAsString().equals(Position.OTHER_THAN_FIRST_OR_
             .withProperties(legacy.getDataPlacementProperties())
             .maxNumberOfKeysToRequest(legacy.getMaxNumberOfKeyToRequest());
 
+      builder.remoteCommands().withProperties(legacy.getRemoteCommandsProperties());
+
       return builder.build();
    }
 }
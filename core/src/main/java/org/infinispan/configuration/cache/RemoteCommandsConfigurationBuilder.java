@@ -0,0 +1,77 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.configuration.cache;
+
+import org.infinispan.util.TypedProperties;
+
+import java.util.Properties;
+
+/**
+ * Overrides, for this cache, the properties of the global <tt>remoteCommandsExecutor</tt>, e.g. to give the long
+ * running commands of this cache their own pool with <tt>isolatedPriorities=low</tt>.
+ *
+ * @see org.infinispan.remoting.RemoteCommandExecutors
+ * @since 5.2
+ */
+public class RemoteCommandsConfigurationBuilder extends AbstractConfigurationChildBuilder<RemoteCommandsConfiguration> {
+
+   private Properties properties = new Properties();
+
+   protected RemoteCommandsConfigurationBuilder(ConfigurationBuilder builder) {
+      super(builder);
+   }
+
+   public RemoteCommandsConfigurationBuilder withProperties(Properties properties) {
+      this.properties = properties;
+      return this;
+   }
+
+   public RemoteCommandsConfigurationBuilder addProperty(String key, String value) {
+      properties.put(key, value);
+      return this;
+   }
+
+   @Override
+   void validate() {
+      // Nothing to validate
+   }
+
+   @Override
+   RemoteCommandsConfiguration create() {
+      return new RemoteCommandsConfiguration(TypedProperties.toTypedProperties(properties));
+   }
+
+   @Override
+   public RemoteCommandsConfigurationBuilder read(RemoteCommandsConfiguration template) {
+      this.properties = new Properties();
+      this.properties.putAll(template.properties());
+      return this;
+   }
+
+   @Override
+   public String toString() {
+      return "RemoteCommandsConfigurationBuilder{" +
+            "properties=" + properties +
+            '}';
+   }
+}
@@ -47,12 +47,13 @@ public class TransactionConfiguration {
    private final RecoveryConfiguration recovery;
    private final boolean use1PcForAutoCommitTransactions;
    private final TransactionProtocol transactionProtocol; //2PC or Total order protocol
+   private final boolean speculativeValidation;
 
    TransactionConfiguration(boolean autoCommit, long cacheStopTimeout, boolean eagerLockingSingleNode, LockingMode lockingMode,
          boolean syncCommitPhase, boolean syncRollbackPhase, TransactionManagerLookup transactionManagerLookup,
          TransactionSynchronizationRegistryLookup transactionSynchronizationRegistryLookup, TransactionMode transactionMode,
          boolean useEagerLocking, boolean useSynchronization, boolean use1PcForAutoCommitTransactions,
-         RecoveryConfiguration recovery, TransactionProtocol transactionProtocol) {
+         RecoveryConfiguration recovery, TransactionProtocol transactionProtocol, boolean speculativeValidation) {
       this.autoCommit = autoCommit;
       this.cacheStopTimeout = cacheStopTimeout;
       this.eagerLockingSingleNode = eagerLockingSingleNode;
@@ -67,6 +68,7 @@ public class TransactionConfiguration {
       this.recovery = recovery;
       this.use1PcForAutoCommitTransactions = use1PcForAutoCommitTransactions;
       this.transactionProtocol = transactionProtocol;
+      this.speculativeValidation = speculativeValidation;
    }
 
    /**
@@ -257,6 +259,8 @@ public String toString() {
             ", useSynchronization=" + useSynchronization +
             ", recovery=" + recovery +
             ", use1PcForAutoCommitTransactions=" + use1PcForAutoCommitTransactions +
+            ", transactionProtocol=" + transactionProtocol +
+            ", speculativeValidation=" + speculativeValidation +
             '}';
    }
 
@@ -287,6 +291,7 @@ public boolean equals(Object o) {
       if (transactionProtocol != that.transactionProtocol) {
          return false;
       }
+      if (speculativeValidation != that.speculativeValidation) return false;
 
       return true;
    }
@@ -307,6 +312,7 @@ public int hashCode() {
       result = 31 * result + (recovery != null ? recovery.hashCode() : 0);
       result = 31 * result + (use1PcForAutoCommitTransactions ? 1 : 0);
       result = 31 * result + (transactionProtocol != null ? transactionProtocol.hashCode() : 0);
+      result = 31 * result + (speculativeValidation ? 1 : 0);
       return result;
    }
 
@@ -316,4 +322,12 @@ public int hashCode() {
    public TransactionProtocol transactionProtocol() {
       return transactionProtocol;
    }
+
+   /**
+    * If true, the total order protocol validates a transaction as soon as the conflicting transactions delivered before
+    * it are validated, instead of waiting until they are committed. Only used in replicated mode.
+    */
+   public boolean speculativeValidation() {
+      return speculativeValidation;
+   }
 }
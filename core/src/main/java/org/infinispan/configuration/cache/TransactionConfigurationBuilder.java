@@ -56,6 +56,7 @@ public class TransactionConfigurationBuilder extends AbstractConfigurationChildB
    private final RecoveryConfigurationBuilder recovery;
    private boolean use1PcForAutoCommitTransactions = false;
    private TransactionProtocol transactionProtocol = TransactionProtocol.TWO_PHASE_COMMIT;
+   private boolean speculativeValidation = false;
 
    TransactionConfigurationBuilder(ConfigurationBuilder builder) {
       super(builder);
@@ -312,7 +313,8 @@ else if (transactionMode == null)
          transactionMode = TransactionMode.NON_TRANSACTIONAL;
       return new TransactionConfiguration(autoCommit, cacheStopTimeout, eagerLockingSingleNode, lockingMode, syncCommitPhase,
             syncRollbackPhase, transactionManagerLookup, transactionSynchronizationRegistryLookup, transactionMode,
-            useEagerLocking, useSynchronization, use1PcForAutoCommitTransactions, recovery.create(), transactionProtocol);
+            useEagerLocking, useSynchronization, use1PcForAutoCommitTransactions, recovery.create(), transactionProtocol,
+            speculativeValidation);
    }
 
    @Override
@@ -331,6 +333,7 @@ public TransactionConfigurationBuilder read(TransactionConfiguration template) {
       this.use1PcForAutoCommitTransactions = template.use1PcForAutoCommitTransactions();
       this.recovery.read(template.recovery());
       this.transactionProtocol = template.transactionProtocol();
+      this.speculativeValidation = template.speculativeValidation();
 
       return this;
    }
@@ -351,6 +354,8 @@ public String toString() {
             ", useSynchronization=" + useSynchronization +
             ", recovery=" + recovery +
             ", use1PcForAutoCommitTransactions=" + use1PcForAutoCommitTransactions +
+            ", transactionProtocol=" + transactionProtocol +
+            ", speculativeValidation=" + speculativeValidation +
             '}';
    }
 
@@ -358,4 +363,13 @@ public TransactionConfigurationBuilder transactionProtocol(TransactionProtocol t
       this.transactionProtocol = transactionProtocol;
       return this;
    }
+
+   /**
+    * With the total order protocol, validates a transaction as soon as the conflicting transactions delivered before
+    * it are validated, instead of waiting until they are committed. Only used in replicated mode.
+    */
+   public TransactionConfigurationBuilder speculativeValidation(boolean speculativeValidation) {
+      this.speculativeValidation = speculativeValidation;
+      return this;
+   }
 }
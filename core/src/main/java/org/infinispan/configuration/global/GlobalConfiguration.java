@@ -56,6 +56,8 @@ public class GlobalConfiguration {
    private final SerializationConfiguration serialization;
    private final ShutdownConfiguration shutdown;
    private final ExecutorFactoryConfiguration totalOrderExecutor;
+   private final ExecutorFactoryConfiguration remoteCommandsExecutor;
+   private final ExecutorFactoryConfiguration mapReduceExecutor;
    
    private final ClassLoader cl;
    
@@ -63,7 +65,8 @@ public class GlobalConfiguration {
          ExecutorFactoryConfiguration asyncTransportExecutor, ScheduledExecutorFactoryConfiguration evictionScheduledExecutor,
          ScheduledExecutorFactoryConfiguration replicationQueueScheduledExecutor, GlobalJmxStatisticsConfiguration globalJmxStatistics,
          TransportConfiguration transport, SerializationConfiguration serialization, ShutdownConfiguration shutdown, ClassLoader cl,
-                       ExecutorFactoryConfiguration totalOrderExecutor) {
+                       ExecutorFactoryConfiguration totalOrderExecutor, ExecutorFactoryConfiguration remoteCommandsExecutor,
+                       ExecutorFactoryConfiguration mapReduceExecutor) {
       this.asyncListenerExecutor = asyncListenerExecutor;
       this.asyncTransportExecutor = asyncTransportExecutor;
       this.evictionScheduledExecutor = evictionScheduledExecutor;
@@ -74,6 +77,8 @@ public class GlobalConfiguration {
       this.shutdown = shutdown;
       this.cl = cl;
       this.totalOrderExecutor = totalOrderExecutor;
+      this.remoteCommandsExecutor = remoteCommandsExecutor;
+      this.mapReduceExecutor = mapReduceExecutor;
    }
    
    public ExecutorFactoryConfiguration asyncListenerExecutor() {
@@ -130,12 +135,22 @@ public String toString() {
             ", shutdown=" + shutdown +
             ", cl=" + cl +
             ", totalOrderExecutor=" + totalOrderExecutor +
+            ", remoteCommandsExecutor=" + remoteCommandsExecutor +
+            ", mapReduceExecutor=" + mapReduceExecutor +
             '}';
    }
 
    public ExecutorFactoryConfiguration totalOrderExecutor() {
       return totalOrderExecutor;
    }
+
+   public ExecutorFactoryConfiguration remoteCommandsExecutor() {
+      return remoteCommandsExecutor;
+   }
+
+   public ExecutorFactoryConfiguration mapReduceExecutor() {
+      return mapReduceExecutor;
+   }
 }
 
 
@@ -40,6 +40,8 @@ public class GlobalConfigurationBuilder implements GlobalConfigurationChildBuild
    private final ScheduledExecutorFactoryConfigurationBuilder replicationQueueScheduledExecutor;
    private final ShutdownConfigurationBuilder shutdown;
    private final ExecutorFactoryConfigurationBuilder totalOrderExecutor;
+   private final ExecutorFactoryConfigurationBuilder remoteCommandsExecutor;
+   private final ExecutorFactoryConfigurationBuilder mapReduceExecutor;
    
    public GlobalConfigurationBuilder() {
       this.cl = Thread.currentThread().getContextClassLoader();
@@ -53,6 +55,8 @@ public GlobalConfigurationBuilder() {
       this.shutdown = new ShutdownConfigurationBuilder(this);
       //set a new executor by default, that allows to set the core number of threads and the keep alive time
       this.totalOrderExecutor = new ExecutorFactoryConfigurationBuilder(this).factory(new DefaultDynamicExecutorFactory());
+      this.remoteCommandsExecutor = new ExecutorFactoryConfigurationBuilder(this).factory(new DefaultDynamicExecutorFactory());
+      this.mapReduceExecutor = new ExecutorFactoryConfigurationBuilder(this);
    }
    
    /**
@@ -139,6 +143,14 @@ public ExecutorFactoryConfigurationBuilder totalOrderExecutor() {
       return totalOrderExecutor;
    }
 
+   public ExecutorFactoryConfigurationBuilder remoteCommandsExecutor() {
+      return remoteCommandsExecutor;
+   }
+
+   public ExecutorFactoryConfigurationBuilder mapReduceExecutor() {
+      return mapReduceExecutor;
+   }
+
     @SuppressWarnings("unchecked")
     public void validate() {
         for (AbstractGlobalConfigurationBuilder<?> validatable :
@@ -161,7 +173,9 @@ public GlobalConfiguration build() {
             serialization.create(), 
             shutdown.create(),
             cl,
-            totalOrderExecutor.create()
+            totalOrderExecutor.create(),
+            remoteCommandsExecutor.create(),
+            mapReduceExecutor.create()
             );
    }
    
@@ -177,6 +191,8 @@ public GlobalConfigurationBuilder read(GlobalConfiguration template) {
       shutdown.read(template.shutdown());
       transport.read(template.transport());
       totalOrderExecutor.read(template.totalOrderExecutor());
+      remoteCommandsExecutor.read(template.remoteCommandsExecutor());
+      mapReduceExecutor.read(template.mapReduceExecutor());
       
       return this;
    }
@@ -205,6 +221,8 @@ public String toString() {
             ", replicationQueueScheduledExecutor=" + replicationQueueScheduledExecutor +
             ", shutdown=" + shutdown +
             ", totalOrderExecutor=" + totalOrderExecutor +
+            ", remoteCommandsExecutor=" + remoteCommandsExecutor +
+            ", mapReduceExecutor=" + mapReduceExecutor +
             '}';
    }
 
@@ -233,7 +251,13 @@ public boolean equals(Object o) {
       if (transport != null ? !transport.equals(that.transport) : that.transport != null)
          return false;
 
-      return !(totalOrderExecutor != null ? !totalOrderExecutor.equals(that.totalOrderExecutor) : that.totalOrderExecutor != null);
+      if (totalOrderExecutor != null ? !totalOrderExecutor.equals(that.totalOrderExecutor) : that.totalOrderExecutor != null)
+         return false;
+
+      if (remoteCommandsExecutor != null ? !remoteCommandsExecutor.equals(that.remoteCommandsExecutor) : that.remoteCommandsExecutor != null)
+         return false;
+
+      return !(mapReduceExecutor != null ? !mapReduceExecutor.equals(that.mapReduceExecutor) : that.mapReduceExecutor != null);
    }
 
    @Override
@@ -248,6 +272,8 @@ public int hashCode() {
       result = 31 * result + (replicationQueueScheduledExecutor != null ? replicationQueueScheduledExecutor.hashCode() : 0);
       result = 31 * result + (shutdown != null ? shutdown.hashCode() : 0);
       result = 31 * result + (totalOrderExecutor != null ? totalOrderExecutor.hashCode() : 0);
+      result = 31 * result + (remoteCommandsExecutor != null ? remoteCommandsExecutor.hashCode() : 0);
+      result = 31 * result + (mapReduceExecutor != null ? mapReduceExecutor.hashCode() : 0);
       return result;
    }
 
@@ -100,6 +100,14 @@ public static org.infinispan.config.GlobalConfiguration adapt(GlobalConfiguratio
             .factory(config.totalOrderExecutor().factory().getClass())
             .withProperties(config.totalOrderExecutor().properties());
 
+      legacy.remoteCommandsExecutor()
+            .factory(config.remoteCommandsExecutor().factory().getClass())
+            .withProperties(config.remoteCommandsExecutor().properties());
+
+      legacy.mapReduceExecutor()
+            .factory(config.mapReduceExecutor().factory().getClass())
+            .withProperties(config.mapReduceExecutor().properties());
+
       return legacy.build();
    }
    
@@ -167,6 +175,14 @@ public static org.infinispan.configuration.global.GlobalConfiguration adapt(org.
             .factory(Util.<ExecutorFactory>getInstance(legacy.getTotalOrderExecutorFactoryClass(), legacy.getClassLoader()))
             .withProperties(legacy.getTotalOrderExecutorProperties());
 
+      builder.remoteCommandsExecutor()
+            .factory(Util.<ExecutorFactory>getInstance(legacy.getRemoteCommandsExecutorFactoryClass(), legacy.getClassLoader()))
+            .withProperties(legacy.getRemoteCommandsExecutorProperties());
+
+      builder.mapReduceExecutor()
+            .factory(Util.<ExecutorFactory>getInstance(legacy.getMapReduceExecutorFactoryClass(), legacy.getClassLoader()))
+            .withProperties(legacy.getMapReduceExecutorProperties());
+
       return builder.build();
    }
 
@@ -131,6 +131,7 @@ public enum Attribute {
    USE_1PC_FOR_AUTOCOMMIT_TX("use1PcForAutoCommitTransactions"),
    VERSIONING_SCHEME("versioningScheme"),
    TRANSACTION_PROTOCOL("transactionProtocol"),
+   SPECULATIVE_VALIDATION("speculativeValidation"),
    OBJECT_LOOKUP_FACTORY("objectLookupFactory"),
    COOL_DOWN_TIME("coolDownTime"),
    MAX_KEYS_TO_REQUEST("maxNumberOfKeysToRequest")
@@ -80,6 +80,9 @@ public enum Element {
    UNSAFE("unsafe"),
    VERSIONING("versioning"),
    TOTAL_ORDER_EXECUTOR("totalOrderExecutor"),
+   REMOTE_COMMANDS("remoteCommands"),
+   REMOTE_COMMANDS_EXECUTOR("remoteCommandsExecutor"),
+   MAP_REDUCE_EXECUTOR("mapReduceExecutor"),
    DATA_PLACEMENT("dataPlacement")
    ;
 
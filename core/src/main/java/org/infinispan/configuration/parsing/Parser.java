@@ -314,6 +314,23 @@ private void parseCache(XMLStreamReader reader, ConfigurationBuilder builder) th
             case DATA_PLACEMENT:
                parseDataPlacement(reader, builder);
                break;
+            case REMOTE_COMMANDS:
+               parseRemoteCommands(reader, builder);
+               break;
+            default:
+               throw ParseUtils.unexpectedElement(reader);
+         }
+      }
+   }
+
+   private void parseRemoteCommands(XMLStreamReader reader, ConfigurationBuilder builder) throws XMLStreamException {
+      ParseUtils.requireNoAttributes(reader);
+      while (reader.hasNext() && (reader.nextTag() != XMLStreamConstants.END_ELEMENT)) {
+         Element element = Element.forName(reader.getLocalName());
+         switch (element) {
+            case PROPERTIES:
+               builder.remoteCommands().withProperties(parseProperties(reader));
+               break;
             default:
                throw ParseUtils.unexpectedElement(reader);
          }
@@ -441,6 +458,9 @@ private void parseTransaction(XMLStreamReader reader, ConfigurationBuilder build
             case TRANSACTION_PROTOCOL:
                builder.transaction().transactionProtocol(TransactionProtocol.valueOf(value));
                break;
+            case SPECULATIVE_VALIDATION:
+               builder.transaction().speculativeValidation(Boolean.parseBoolean(value));
+               break;
             default:
                throw ParseUtils.unexpectedAttribute(reader, i);
          }
@@ -1343,6 +1363,12 @@ private void parseGlobal(XMLStreamReader reader, GlobalConfigurationBuilder buil
             case TOTAL_ORDER_EXECUTOR:
                parseTotalOrderExecutor(reader, builder);
                break;
+            case REMOTE_COMMANDS_EXECUTOR:
+               parseRemoteCommandsExecutor(reader, builder);
+               break;
+            case MAP_REDUCE_EXECUTOR:
+               parseMapReduceExecutor(reader, builder);
+               break;
             default: {
                throw ParseUtils.unexpectedElement(reader);
             }
@@ -1696,6 +1722,68 @@ private void parseTotalOrderExecutor(XMLStreamReader reader, GlobalConfiguration
       }
    }
 
+   private void parseRemoteCommandsExecutor(XMLStreamReader reader, GlobalConfigurationBuilder builder)
+         throws XMLStreamException {
+      for (int i = 0; i < reader.getAttributeCount(); i++) {
+         ParseUtils.requireNoNamespaceAttribute(reader, i);
+         String value = replaceSystemProperties(reader.getAttributeValue(i));
+         Attribute attribute = Attribute.forName(reader.getAttributeLocalName(i));
+         switch (attribute) {
+            case FACTORY: {
+               builder.remoteCommandsExecutor().factory(Util.<ExecutorFactory> getInstance(value, cl));
+               break;
+            }
+            default: {
+               throw ParseUtils.unexpectedAttribute(reader, i);
+            }
+         }
+      }
+
+      while (reader.hasNext() && (reader.nextTag() != XMLStreamConstants.END_ELEMENT)) {
+         Element element = Element.forName(reader.getLocalName());
+         switch (element) {
+            case PROPERTIES: {
+               builder.remoteCommandsExecutor().withProperties(parseProperties(reader));
+               break;
+            }
+            default: {
+               throw ParseUtils.unexpectedElement(reader);
+            }
+         }
+      }
+   }
+
+   private void parseMapReduceExecutor(XMLStreamReader reader, GlobalConfigurationBuilder builder)
+         throws XMLStreamException {
+      for (int i = 0; i < reader.getAttributeCount(); i++) {
+         ParseUtils.requireNoNamespaceAttribute(reader, i);
+         String value = replaceSystemProperties(reader.getAttributeValue(i));
+         Attribute attribute = Attribute.forName(reader.getAttributeLocalName(i));
+         switch (attribute) {
+            case FACTORY: {
+               builder.mapReduceExecutor().factory(Util.<ExecutorFactory> getInstance(value, cl));
+               break;
+            }
+            default: {
+               throw ParseUtils.unexpectedAttribute(reader, i);
+            }
+         }
+      }
+
+      while (reader.hasNext() && (reader.nextTag() != XMLStreamConstants.END_ELEMENT)) {
+         Element element = Element.forName(reader.getLocalName());
+         switch (element) {
+            case PROPERTIES: {
+               builder.mapReduceExecutor().withProperties(parseProperties(reader));
+               break;
+            }
+            default: {
+               throw ParseUtils.unexpectedElement(reader);
+            }
+         }
+      }
+   }
+
    private void parseAsyncListenerExectuor(XMLStreamReader reader, GlobalConfigurationBuilder builder)
          throws XMLStreamException {
 
@@ -0,0 +1,190 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import org.infinispan.CacheException;
+import org.infinispan.config.Configuration;
+import org.infinispan.container.entries.InternalCacheEntry;
+import org.infinispan.distribution.DistributionManager;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.scopes.Scope;
+import org.infinispan.factories.scopes.Scopes;
+import org.infinispan.loaders.CacheLoader;
+import org.infinispan.loaders.CacheLoaderException;
+import org.infinispan.loaders.CacheLoaderManager;
+import org.infinispan.marshall.MarshalledValue;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.remoting.transport.Transport;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Reads the entries stored on this node directly from the {@link DataContainer} and, optionally, from the cache
+ * store, without going through the interceptor chain.  Distributed tasks use it to read their local input without
+ * paying for an invocation context and an interceptor traversal per entry.
+ * <p/>
+ * Reads see the last committed value of each entry: they neither acquire locks nor see the uncommitted changes of
+ * running transactions.  Scans are weakly consistent, like the iterator of the data container: entries written
+ * during a scan may or may not be returned.  Keys and values stored as binary are returned deserialized.
+ *
+ * @since 5.2
+ */
+@Scope(Scopes.NAMED_CACHE)
+public class LocalEntryScanner {
+
+   private DataContainer dataContainer;
+   private CacheLoaderManager cacheLoaderManager;
+   private DistributionManager distributionManager;
+   private Transport transport;
+   private boolean storeAsBinary;
+
+   @Inject
+   public void init(DataContainer dataContainer, CacheLoaderManager cacheLoaderManager,
+                    DistributionManager distributionManager, Transport transport, Configuration configuration) {
+      this.dataContainer = dataContainer;
+      this.cacheLoaderManager = cacheLoaderManager;
+      this.distributionManager = distributionManager;
+      this.transport = transport;
+      this.storeAsBinary = configuration.isStoreAsBinary();
+   }
+
+   /**
+    * Iterates over the entries stored on this node.
+    *
+    * @param primaryOwnedOnly
+    *           in distributed caches, only return the entries this node is the primary owner of, skipping backups and
+    *           L1 entries
+    * @param includeCacheStore
+    *           also return the entries of the cache store that are not in memory
+    * @return an iterator over the entries, which does not support removal
+    */
+   public Iterator<Map.Entry<Object, Object>> scan(boolean primaryOwnedOnly, boolean includeCacheStore) {
+      Address localAddress = primaryOwnedOnly && distributionManager != null && transport != null
+            ? transport.getAddress() : null;
+      CacheLoader loader = includeCacheStore && cacheLoaderManager != null && cacheLoaderManager.isEnabled()
+            ? cacheLoaderManager.getCacheLoader() : null;
+      return new ScanIterator(localAddress, loader);
+   }
+
+   /**
+    * Reads an entry from memory.
+    *
+    * @param key
+    *           the key of the entry
+    * @return the entry, or <code>null</code> if it is not in memory, has expired, or if keys are stored as binary
+    */
+   public Map.Entry<Object, Object> get(Object key) {
+      if (storeAsBinary)
+         return null;
+      InternalCacheEntry entry = dataContainer.get(key);
+      return entry == null ? null : entry(entry);
+   }
+
+   private Map.Entry<Object, Object> entry(InternalCacheEntry entry) {
+      if (!storeAsBinary)
+         return entry;
+      return new SimpleImmutableEntry<Object, Object>(unwrap(entry.getKey()), unwrap(entry.getValue()));
+   }
+
+   private static Object unwrap(Object o) {
+      return o instanceof MarshalledValue ? ((MarshalledValue) o).get() : o;
+   }
+
+   private class ScanIterator implements Iterator<Map.Entry<Object, Object>> {
+      private final Address localAddress;
+      private final CacheLoader loader;
+      private final long now = System.currentTimeMillis();
+      private Iterator<InternalCacheEntry> entries = dataContainer.iterator();
+      private boolean inMemory = true;
+      private Iterator<Set<InternalCacheEntry>> storedBatches;
+      private InternalCacheEntry next;
+
+      ScanIterator(Address localAddress, CacheLoader loader) {
+         this.localAddress = localAddress;
+         this.loader = loader;
+      }
+
+      @Override
+      public boolean hasNext() {
+         while (next == null) {
+            if (entries.hasNext()) {
+               InternalCacheEntry candidate = entries.next();
+               if (accept(candidate))
+                  next = candidate;
+            } else if (!nextStoredBatch()) {
+               return false;
+            }
+         }
+         return true;
+      }
+
+      @Override
+      public Map.Entry<Object, Object> next() {
+         if (!hasNext())
+            throw new NoSuchElementException();
+         InternalCacheEntry entry = next;
+         next = null;
+         return entry(entry);
+      }
+
+      @Override
+      public void remove() {
+         throw new UnsupportedOperationException();
+      }
+
+      private boolean accept(InternalCacheEntry entry) {
+         if (entry.canExpire() && entry.isExpired(now))
+            return false;
+         // the in-memory value of the entry was, or will be, returned by the scan of the data container
+         if (!inMemory && dataContainer.containsKey(entry.getKey()))
+            return false;
+         return localAddress == null || localAddress.equals(distributionManager.getPrimaryLocation(unwrap(entry.getKey())));
+      }
+
+      private boolean nextStoredBatch() {
+         if (loader == null)
+            return false;
+         try {
+            if (inMemory) {
+               inMemory = false;
+               if (loader.supportsLoadIterator()) {
+                  storedBatches = loader.loadAllIterator();
+               } else {
+                  storedBatches = Collections.singleton(loader.loadAll()).iterator();
+               }
+            }
+            if (storedBatches == null || !storedBatches.hasNext())
+               return false;
+            entries = storedBatches.next().iterator();
+            return true;
+         } catch (CacheLoaderException e) {
+            throw new CacheException("Could not read the entries of the cache store", e);
+         }
+      }
+   }
+}
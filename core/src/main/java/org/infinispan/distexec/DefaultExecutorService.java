@@ -105,6 +105,7 @@ public class DefaultExecutorService extends AbstractExecutorService implements D
    protected final CommandsFactory factory;
    protected final Marshaller marshaller;
    protected final ExecutorService localExecutorService;
+   private volatile int maxKeysPerTask;
 
    /**
     * Creates a new DefaultExecutorService given a master cache node for local task execution. All
@@ -148,6 +149,22 @@ else if (localExecutorService.isShutdown())
       this.localExecutorService = localExecutorService;
    }
 
+   /**
+    * Splits the tasks submitted everywhere with input keys into units of at most the given number of keys, executed
+    * one at a time by the owners of their keys. Nodes that finish their own units early steal the units queued on
+    * busier nodes whose keys they own a replica of, so that a slow node does not hold back the whole task.
+    * <p>
+    * {@link #submitEverywhere(Callable, Object...)} then returns one future per unit rather than one per node.
+    * 
+    * @param maxKeysPerTask
+    *           maximum number of input keys per unit, or 0 to submit a single task to each primary owner
+    */
+   public void setMaxKeysPerTask(int maxKeysPerTask) {
+      if (maxKeysPerTask < 0)
+         throw new IllegalArgumentException("maxKeysPerTask can not be negative");
+      this.maxKeysPerTask = maxKeysPerTask;
+   }
+
    @Override
    public <T> NotifyingFuture<T> submit(Runnable task, T result) {
       return (NotifyingFuture<T>) super.submit(task, result);
@@ -365,7 +382,9 @@ public <T> List<Future<T>> submitEverywhere(Callable<T> task) {
    @Override
    public <T, K> List<Future<T>> submitEverywhere(Callable<T> task, K... input) {
       if (task == null) throw new NullPointerException();
-      if(inputKeysSpecified(input)) {
+      if (inputKeysSpecified(input) && maxKeysPerTask > 0) {
+         return new KeyedTaskScheduler<T, K>(this, task, input, maxKeysPerTask).start();
+      } else if(inputKeysSpecified(input)) {
          List<Future<T>> futures = new ArrayList<Future<T>>(input.length * 2);
          Address me = rpc.getAddress();
          Map<Address, List<K>> nodesKeysMap = mapKeysToNodes(input);
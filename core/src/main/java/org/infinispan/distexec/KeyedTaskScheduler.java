@@ -0,0 +1,305 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distexec;
+
+import org.infinispan.commands.read.DistributedExecuteCommand;
+import org.infinispan.distribution.DistributionManager;
+import org.infinispan.factories.KnownComponentNames;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.remoting.responses.SuccessfulResponse;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.util.concurrent.FutureListener;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs a keyed task of a {@link DefaultExecutorService} as many small units, each executing the task on at most
+ * <tt>maxKeysPerTask</tt> keys that share the same owners.
+ * <p/>
+ * Each unit is queued on the primary owner of its keys, and each owner executes the units of its queue one after the
+ * other, so that a node gets more work only once it finished its previous unit.  A node whose queue is empty steals
+ * a unit from the busiest node, i.e. the one with the most queued units, among the units whose keys it owns a
+ * replica of, which keeps all the reads of a unit local.
+ *
+ * @since 5.2
+ */
+class KeyedTaskScheduler<T, K> {
+
+   private static final Log log = LogFactory.getLog(KeyedTaskScheduler.class);
+
+   private final DefaultExecutorService executorService;
+   private final Callable<T> task;
+   private final Address self;
+   private final Map<Address, LinkedList<Unit>> queues = new LinkedHashMap<Address, LinkedList<Unit>>();
+   private final List<Future<T>> futures = new ArrayList<Future<T>>();
+
+   KeyedTaskScheduler(DefaultExecutorService executorService, Callable<T> task, K[] input, int maxKeysPerTask) {
+      this.executorService = executorService;
+      this.task = task;
+      this.self = executorService.rpc.getAddress();
+      createUnits(input, maxKeysPerTask);
+   }
+
+   private void createUnits(K[] input, int maxKeysPerTask) {
+      DistributionManager dm = executorService.cache.getDistributionManager();
+      Map<List<Address>, List<K>> keysByOwners = new LinkedHashMap<List<Address>, List<K>>();
+      for (K key : input) {
+         // in REPL mode all members own all keys
+         List<Address> owners = dm == null ? executorService.rpc.getTransport().getMembers() : dm.locate(key);
+         List<K> keys = keysByOwners.get(owners);
+         if (keys == null) {
+            keys = new ArrayList<K>();
+            keysByOwners.put(owners, keys);
+         }
+         keys.add(key);
+      }
+      int unitCount = 0;
+      for (Entry<List<Address>, List<K>> e : keysByOwners.entrySet()) {
+         List<Address> owners = e.getKey();
+         List<K> keys = e.getValue();
+         for (int from = 0; from < keys.size(); from += maxKeysPerTask) {
+            List<K> unitKeys = new ArrayList<K>(keys.subList(from, Math.min(keys.size(), from + maxKeysPerTask)));
+            // spread the units of replicated keys, whose owners all come in the same order
+            Address queueOwner = dm == null ? owners.get(unitCount % owners.size()) : owners.get(0);
+            Unit unit = new Unit(unitKeys, owners);
+            queue(queueOwner).add(unit);
+            futures.add(unit.future);
+            unitCount++;
+         }
+         for (Address owner : owners) {
+            queue(owner);
+         }
+      }
+      log.tracef("Split %d keys in %d units queued on %s", input.length, unitCount, queues.keySet());
+   }
+
+   private LinkedList<Unit> queue(Address owner) {
+      LinkedList<Unit> queue = queues.get(owner);
+      if (queue == null) {
+         queue = new LinkedList<Unit>();
+         queues.put(owner, queue);
+      }
+      return queue;
+   }
+
+   /**
+    * Starts executing the units on all their owners
+    *
+    * @return one future per unit
+    */
+   List<Future<T>> start() {
+      ExecutorService transportExecutor = executorService.cache.getComponentRegistry().getComponent(
+            ExecutorService.class, KnownComponentNames.ASYNC_TRANSPORT_EXECUTOR);
+      // the local executor may run the local units in this thread, so start the remote nodes first
+      for (Address node : queues.keySet()) {
+         if (!node.equals(self))
+            transportExecutor.submit(new NodeDriver(node, transportExecutor));
+      }
+      if (queues.containsKey(self))
+         executorService.localExecutorService.submit(new NodeDriver(self, null));
+      return Collections.unmodifiableList(futures);
+   }
+
+   private synchronized Unit nextUnit(Address node) {
+      LinkedList<Unit> own = queues.get(node);
+      while (!own.isEmpty()) {
+         Unit unit = own.removeFirst();
+         if (!unit.future.isDone())
+            return unit;
+      }
+      // steal from the busiest node holding a unit whose keys this node owns
+      Map<Address, Integer> busiestFirst = new HashMap<Address, Integer>();
+      List<Address> victims = new ArrayList<Address>();
+      for (Entry<Address, LinkedList<Unit>> e : queues.entrySet()) {
+         if (!e.getKey().equals(node) && !e.getValue().isEmpty()) {
+            busiestFirst.put(e.getKey(), e.getValue().size());
+            victims.add(e.getKey());
+         }
+      }
+      Collections.sort(victims, new QueueSizeComparator(busiestFirst));
+      for (Address victim : victims) {
+         // the units at the end of the queue are the ones the victim would run last
+         for (Iterator<Unit> it = queues.get(victim).descendingIterator(); it.hasNext();) {
+            Unit unit = it.next();
+            if (unit.owners.contains(node)) {
+               it.remove();
+               if (unit.future.isDone())
+                  continue;
+               log.tracef("%s steals unit of %d keys from %s", node, unit.keys.size(), victim);
+               return unit;
+            }
+         }
+      }
+      return null;
+   }
+
+   @SuppressWarnings("unchecked")
+   private void execute(Unit unit, Address node) {
+      try {
+         if (node.equals(self)) {
+            DistributedExecuteCommand<T> c = executorService.factory.buildDistributedExecuteCommand(
+                  executorService.clone(task), self, unit.keys);
+            c.init(executorService.cache);
+            unit.future.complete((T) c.perform(null));
+         } else {
+            DistributedExecuteCommand<T> c = executorService.factory.buildDistributedExecuteCommand(
+                  task, self, unit.keys);
+            Map<Address, Response> responses = executorService.rpc.invokeRemotely(
+                  Collections.singleton(node), c, true, false, false);
+            Response response = responses.get(node);
+            if (response instanceof SuccessfulResponse) {
+               unit.future.complete((T) ((SuccessfulResponse) response).getResponseValue());
+            } else {
+               unit.future.fail(new IllegalStateException("Invalid response " + response));
+            }
+         }
+      } catch (Throwable t) {
+         unit.future.fail(t);
+      }
+   }
+
+   /**
+    * Executes the units of one node, and the ones it steals, one at a time.  With an executor, each unit runs in a
+    * separate task of that executor, so that a thread is only held for the duration of a single unit.
+    */
+   private class NodeDriver implements Runnable {
+      private final Address node;
+      private final ExecutorService executor;
+      private final long start = System.nanoTime();
+      private int executed;
+
+      NodeDriver(Address node, ExecutorService executor) {
+         this.node = node;
+         this.executor = executor;
+      }
+
+      @Override
+      public void run() {
+         Unit unit;
+         while ((unit = nextUnit(node)) != null) {
+            execute(unit, node);
+            executed++;
+            if (executor != null) {
+               try {
+                  executor.submit(this);
+                  return;
+               } catch (RejectedExecutionException e) {
+                  log.tracef(e, "Executing the next unit of %s in the current thread", node);
+               }
+            }
+         }
+         log.tracef("%s executed %d units in %d ms", node, executed, (System.nanoTime() - start) / 1000000);
+      }
+   }
+
+   private class Unit {
+      final List<K> keys;
+      final List<Address> owners;
+      final UnitFuture<T> future = new UnitFuture<T>();
+
+      Unit(List<K> keys, List<Address> owners) {
+         this.keys = keys;
+         this.owners = owners;
+      }
+   }
+
+   private static class QueueSizeComparator implements Comparator<Address> {
+      private final Map<Address, Integer> sizes;
+
+      QueueSizeComparator(Map<Address, Integer> sizes) {
+         this.sizes = sizes;
+      }
+
+      @Override
+      public int compare(Address a1, Address a2) {
+         return sizes.get(a2) - sizes.get(a1);
+      }
+   }
+
+   /**
+    * Completed by the scheduler rather than by running it
+    */
+   private static class UnitFuture<V> extends FutureTask<V> implements NotifyingFuture<V> {
+      private final List<FutureListener<V>> listeners = new LinkedList<FutureListener<V>>();
+      private boolean notified;
+
+      UnitFuture() {
+         super(new Callable<V>() {
+            @Override
+            public V call() {
+               throw new IllegalStateException("Unit futures are completed by the scheduler");
+            }
+         });
+      }
+
+      void complete(V value) {
+         set(value);
+      }
+
+      void fail(Throwable t) {
+         setException(t);
+      }
+
+      @Override
+      protected void done() {
+         List<FutureListener<V>> toNotify;
+         synchronized (listeners) {
+            notified = true;
+            toNotify = new ArrayList<FutureListener<V>>(listeners);
+            listeners.clear();
+         }
+         for (FutureListener<V> l : toNotify) {
+            l.futureDone(this);
+         }
+      }
+
+      @Override
+      public NotifyingFuture<V> attachListener(FutureListener<V> listener) {
+         synchronized (listeners) {
+            if (!notified) {
+               listeners.add(listener);
+               return this;
+            }
+         }
+         listener.futureDone(this);
+         return this;
+      }
+   }
+}
@@ -0,0 +1,55 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distexec.mapreduce;
+
+import java.io.Serializable;
+
+/**
+ * Folds the intermediate values emitted by a {@link Mapper} as soon as they are collected, so that the map phase of
+ * a MapReduceTask keeps a single value per intermediate key rather than every emitted value. Infinispan distributed
+ * execution environment uses one instance of Combiner per map task.
+ * <p>
+ * A Combiner can only be used when the {@link Reducer} of the task is associative and commutative: the value
+ * reduced from a key's combined values must be the value the Reducer would have produced from all its values, e.g.
+ * sums, counts or maximums.
+ * 
+ * @see MapReduceTask#combinedWith(Combiner)
+ * 
+ * @since 5.2
+ */
+public interface Combiner<KOut, VOut> extends Serializable {
+
+   /**
+    * Folds a newly emitted value into the value combined so far for the same intermediate key.
+    * 
+    * @param key
+    *           intermediate key
+    * @param combined
+    *           value combined from the values previously emitted for the key
+    * @param emitted
+    *           newly emitted value
+    * @return the combined value
+    */
+   VOut combine(KOut key, VOut combined, VOut emitted);
+
+}
@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distexec.mapreduce;
+
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+/**
+ * Holds the intermediate key/value pairs shuffled to this node by the map phase of the {@link MapReduceTask}s that
+ * distribute their reduce phase, until the reduce phase takes them.  Each node receives the intermediate keys it is
+ * the primary owner of, according to the consistent hash of the task's input cache.
+ *
+ * @since 5.2
+ */
+public class IntermediateResultStore {
+
+   private static final Log log = LogFactory.getLog(IntermediateResultStore.class);
+
+   /**
+    * Number of removed task ids remembered to drop the values shuffled to a task after its removal
+    */
+   private static final int MAX_REMOVED_TASKS = 1024;
+
+   // all guarded by this
+   private final Map<String, Map<Object, List<Object>>> tasks = new HashMap<String, Map<Object, List<Object>>>();
+   private final Set<String> removedTasks = Collections.newSetFromMap(new LinkedHashMap<String, Boolean>() {
+      private static final long serialVersionUID = -4310227624981385398L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+         return size() > MAX_REMOVED_TASKS;
+      }
+   });
+
+   /**
+    * Adds the values of a map phase partial result to the values already collected for the same intermediate keys.
+    * The values are dropped if the task was already removed, e.g. after its failure.
+    *
+    * @param taskId
+    *           id of the MapReduceTask
+    * @param partialResult
+    *           intermediate keys and their values reduced by one mapping node
+    */
+   public synchronized void add(String taskId, Map<Object, Object> partialResult) {
+      if (removedTasks.contains(taskId)) {
+         log.tracef("Dropped %d intermediate keys of removed task %s", partialResult.size(), taskId);
+         return;
+      }
+      Map<Object, List<Object>> collected = tasks.get(taskId);
+      if (collected == null) {
+         collected = new HashMap<Object, List<Object>>();
+         tasks.put(taskId, collected);
+      }
+      for (Entry<Object, Object> e : partialResult.entrySet()) {
+         List<Object> values = collected.get(e.getKey());
+         if (values == null) {
+            values = new LinkedList<Object>();
+            collected.put(e.getKey(), values);
+         }
+         values.add(e.getValue());
+      }
+      log.tracef("Collected %d intermediate keys for task %s", partialResult.size(), taskId);
+   }
+
+   /**
+    * Removes all the values collected for a task
+    *
+    * @param taskId
+    *           id of the MapReduceTask
+    * @return the values collected for each intermediate key, or <code>null</code> if nothing was collected
+    */
+   public synchronized Map<Object, List<Object>> remove(String taskId) {
+      removedTasks.add(taskId);
+      return tasks.remove(taskId);
+   }
+
+   @Stop
+   public synchronized void stop() {
+      tasks.clear();
+      removedTasks.clear();
+   }
+}
@@ -27,6 +27,8 @@
 import org.infinispan.CacheException;
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.read.MapReduceCommand;
+import org.infinispan.commands.read.ReduceCommand;
+import org.infinispan.container.LocalEntryScanner;
 import org.infinispan.context.InvocationContextContainer;
 import org.infinispan.distribution.DistributionManager;
 import org.infinispan.factories.ComponentRegistry;
@@ -51,17 +53,22 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import static org.infinispan.factories.KnownComponentNames.CACHE_MARSHALLER;
+import static org.infinispan.factories.KnownComponentNames.MAP_REDUCE_EXECUTOR;
 
 /**
  * MapReduceTask is a distributed task allowing a large scale computation to be transparently
@@ -137,6 +144,9 @@
 
    private Mapper<KIn, VIn, KOut, VOut> mapper;
    private Reducer<KOut, VOut> reducer;
+   private boolean distributeReducePhase;
+   private Combiner<KOut, VOut> combiner;
+   private int maxCollectedValues;
 
    private final Collection<KIn> keys;
    private final AdvancedCache<KIn, VIn> cache;
@@ -209,6 +219,60 @@ public MapReduceTask<KIn, VIn, KOut, VOut> reducedWith(Reducer<KOut, VOut> reduc
       return this;
    }
 
+   /**
+    * Specifies Combiner to use for this MapReduceTask. Values emitted by the {@link Mapper} are
+    * folded into a single value per intermediate key as soon as they are emitted, and the values
+    * combined on each node are then reduced by the {@link Reducer}.
+    * <p>
+    * Note that {@link Combiner} should not be specified as inner class, for the same reasons as the
+    * Mapper and Reducer.
+    * 
+    * @param combiner
+    * @return this task
+    */
+   public MapReduceTask<KIn, VIn, KOut, VOut> combinedWith(Combiner<KOut, VOut> combiner) {
+      if (combiner == null)
+         throw new IllegalArgumentException("A valid reference of Combiner is needed");
+      this.combiner = combiner;
+      return this;
+   }
+
+   /**
+    * Bounds the number of values emitted by the {@link Mapper} that each map task keeps in memory.
+    * Beyond it, the collected values are spilled to temporary files on the node running the map
+    * task, and merged back one intermediate key at a time by the reduce phase. It has no effect
+    * when a {@link Combiner} is specified, as only one value per intermediate key is then kept.
+    * 
+    * @param maxCollectedValues
+    *           number of values kept in memory by each map task, or 0 for no bound
+    * @return this task
+    */
+   public MapReduceTask<KIn, VIn, KOut, VOut> maxCollectedValues(int maxCollectedValues) {
+      if (maxCollectedValues < 0)
+         throw new IllegalArgumentException("maxCollectedValues can not be negative");
+      this.maxCollectedValues = maxCollectedValues;
+      return this;
+   }
+
+   /**
+    * Distributes the reduce phase of this task across Infinispan cluster nodes. Rather than being
+    * sent to the master node and reduced there, intermediate keys are shuffled to their primary
+    * owners, according to the consistent hash of the input cache, and each node reduces the keys it
+    * received in parallel with the others.
+    * <p>
+    * Use it for tasks with large intermediate key spaces, which would otherwise have to be held and
+    * reduced by the master node alone. Combined with {@link #execute(String)} the reduced values are
+    * never sent to the master node at all.
+    * 
+    * @param distributeReducePhase
+    *           whether to reduce on all nodes rather than on the master node only
+    * @return this task
+    */
+   public MapReduceTask<KIn, VIn, KOut, VOut> distributeReducePhase(boolean distributeReducePhase) {
+      this.distributeReducePhase = distributeReducePhase;
+      return this;
+   }
+
    /**
     * Executes this task across Infinispan cluster nodes.
     * 
@@ -216,12 +280,113 @@ public MapReduceTask<KIn, VIn, KOut, VOut> reducedWith(Reducer<KOut, VOut> reduc
     */
    @SuppressWarnings("unchecked")
    public Map<KOut, VOut> execute() throws CacheException {
-      if (mapper == null)
-         throw new NullPointerException("A valid reference of Mapper is not set " + mapper);
-      
-      if (reducer == null)
-         throw new NullPointerException("A valid reference of Reducer is not set " + reducer);
-            
+      ensureMapperAndReducer();
+      if (distributeReducePhase)
+         return executeWithDistributedReduce(null);
+
+      Map<Address, Response> results = executeMapPhase(null);
+
+      // we have results from all nodes now, group intermediate keys for final reduction
+      Map<KOut, List<VOut>> reduceMap = new HashMap<KOut, List<VOut>>();
+      for (Entry<Address, Response> e : results.entrySet()) {
+         groupKeys(reduceMap, (Map<KOut, VOut>) responseValue(e.getKey(), e.getValue()));
+      }
+
+      // final reduce
+      Map<KOut, VOut> result = new HashMap<KOut, VOut>();
+      for (Entry<KOut, List<VOut>> entry : reduceMap.entrySet()) {
+         VOut reduced = reducer.reduce(entry.getKey(), (entry.getValue()).iterator());
+         result.put(entry.getKey(), reduced);
+      }
+      return result;
+   }
+
+   /**
+    * Executes this task across Infinispan cluster nodes, distributing its reduce phase as described
+    * in {@link #distributeReducePhase(boolean)}, and stores the reduced values in the specified cache
+    * rather than returning them. Each node writes the values it reduced.
+    * <p>
+    * The results cache must already be running on all nodes, the task fails otherwise.
+    * 
+    * @param resultsCacheName
+    *           name of the cache to store the output keys and their reduced values in
+    */
+   public void execute(String resultsCacheName) throws CacheException {
+      if (resultsCacheName == null)
+         throw new IllegalArgumentException("A valid results cache name is needed");
+      ensureMapperAndReducer();
+      if (!cache.getCacheManager().isRunning(resultsCacheName))
+         throw new IllegalStateException("Results cache " + resultsCacheName + " is not running");
+      executeWithDistributedReduce(resultsCacheName);
+   }
+
+   @SuppressWarnings("unchecked")
+   protected Map<KOut, VOut> executeWithDistributedReduce(String resultsCacheName) {
+      ComponentRegistry registry = cache.getComponentRegistry();
+      RpcManager rpc = cache.getRpcManager();
+      CommandsFactory factory = registry.getComponent(CommandsFactory.class);
+      String taskId = UUID.randomUUID().toString();
+      boolean reduced = false;
+      try {
+         executeMapPhase(taskId);
+
+         // reduce locally while the remote nodes reduce their own intermediate keys
+         ReduceCommand cmd = factory.buildReduceCommand(taskId, reducer, resultsCacheName);
+         MapReduceFuture future = new MapReduceFuture();
+         try {
+            log.debugf("Invoking %s across entire cluster ", cmd);
+            rpc.invokeRemotelyInFuture(null, cmd, future);
+         } catch (Exception e) {
+            throw new CacheException("Could not invoke reduce phase of MapReduce task on remote nodes ", e);
+         }
+         Map<Address, Response> results = new HashMap<Address, Response>();
+         ReduceCommand selfCmd = factory.buildReduceCommand(taskId, clone(reducer), resultsCacheName);
+         factory.initializeReplicableCommand(selfCmd, false);
+         try {
+            results.put(rpc.getAddress(), SuccessfulResponse.create(selfCmd.perform(null)));
+         } catch (Throwable e) {
+            throw new CacheException("Could not invoke reduce phase of MapReduce task locally ", e);
+         }
+         try {
+            results.putAll((Map<Address, Response>) future.get());
+            log.debugf("Invoked %s across entire cluster", cmd);
+         } catch (Exception e) {
+            throw new CacheException("Could not retrieve reduce phase result of MapReduce task from remote nodes", e);
+         }
+         reduced = true;
+
+         // each intermediate key was reduced by a single node, the shuffle fails if the topology changed
+         Map<KOut, VOut> result = new HashMap<KOut, VOut>();
+         for (Entry<Address, Response> e : results.entrySet()) {
+            result.putAll((Map<KOut, VOut>) responseValue(e.getKey(), e.getValue()));
+         }
+         return result;
+      } finally {
+         if (!reduced)
+            discardIntermediateResults(taskId);
+      }
+   }
+
+   private void discardIntermediateResults(String taskId) {
+      ComponentRegistry registry = cache.getComponentRegistry();
+      CommandsFactory factory = registry.getComponent(CommandsFactory.class);
+      registry.getComponent(IntermediateResultStore.class).remove(taskId);
+      try {
+         cache.getRpcManager().invokeRemotely(null, factory.buildReduceCommand(taskId, null, null), false);
+      } catch (Throwable e) {
+         log.debugf(e, "Could not discard intermediate results of failed MapReduce task %s", taskId);
+      }
+   }
+
+   /**
+    * Runs the map phase on all nodes holding input keys, including this one.
+    * 
+    * @param taskId
+    *           the id of the task whose intermediate keys are shuffled, or null to return them
+    * @return the response of each node
+    */
+   @SuppressWarnings("unchecked")
+   private Map<Address, Response> executeMapPhase(String taskId) {
       ComponentRegistry registry = cache.getComponentRegistry();
       RpcManager rpc = cache.getRpcManager();
       InvocationContextContainer icc = cache.getInvocationContextContainer();
@@ -229,11 +394,13 @@ public Map<KOut, VOut> execute() throws CacheException {
       InterceptorChain invoker = registry.getComponent(InterceptorChain.class);
       CommandsFactory factory = registry.getComponent(CommandsFactory.class);
       
+      // all nodes shuffle with the same consistent hash, or fail, so that each intermediate key has a single reducer
+      Set<Address> reducers = taskId == null ? null : new HashSet<Address>(dm.getConsistentHash().getCaches());
       MapReduceCommand cmd = null;
       MapReduceCommand selfCmd = null;
       Map<Address, Response> results = new HashMap<Address, Response>();
       if (inputTaskKeysEmpty()) {
-         cmd = factory.buildMapReduceCommand(mapper, reducer, rpc.getAddress(), keys);
+         cmd = buildMapReduceCommand(factory, mapper, reducer, keys, taskId, reducers);
          selfCmd = cmd;
          try {
             log.debugf("Invoking %s across entire cluster ", cmd);
@@ -251,9 +418,9 @@ public Map<KOut, VOut> execute() throws CacheException {
             Address address = e.getKey();
             List<KIn> keys = e.getValue();
             if (address.equals(rpc.getAddress())) {
-               selfCmd = factory.buildMapReduceCommand(clone(mapper), clone(reducer), rpc.getAddress(), keys);
+               selfCmd = buildMapReduceCommand(factory, clone(mapper), clone(reducer), keys, taskId, reducers);
             } else {
-               cmd = factory.buildMapReduceCommand(mapper, reducer, rpc.getAddress(), keys);
+               cmd = buildMapReduceCommand(factory, mapper, reducer, keys, taskId, reducers);
                try {
                   log.debugf("Invoking %s on %s", cmd, address);
                   MapReduceFuture future = new MapReduceFuture();
@@ -276,46 +443,39 @@ public Map<KOut, VOut> execute() throws CacheException {
             }            
          }
       }
-      boolean selfInvoke = selfCmd != null;
-      Object localCommandResult = null;
-      if (selfInvoke) {
-         log.debugf("Invoking %s locally", cmd);
-         selfCmd.init(factory, invoker, icc, dm, rpc.getAddress());
+      if (selfCmd != null) {
+         log.debugf("Invoking %s locally", selfCmd);
+         selfCmd.init(factory, invoker, icc, dm, rpc.getAddress(), registry.getComponent(LocalEntryScanner.class));
+         selfCmd.initParallelMap(registry.getComponent(ExecutorService.class, MAP_REDUCE_EXECUTOR), marshaller);
+         selfCmd.initShuffle(rpc, registry.getComponent(IntermediateResultStore.class));
          try {
-            localCommandResult = selfCmd.perform(null);
-            log.debugf("Invoked %s locally", cmd);
+            results.put(rpc.getAddress(), SuccessfulResponse.create(selfCmd.perform(null)));
+            log.debugf("Invoked %s locally", selfCmd);
          } catch (Throwable e1) {
             throw new CacheException("Could not invoke MapReduce task locally ", e1);
          }
       }
+      return results;
+   }
 
-      // we have results from all nodes now, group intermediate keys for final reduction
-      Map<KOut, List<VOut>> reduceMap = new HashMap<KOut, List<VOut>>();
-      for (Entry<Address, Response> e : results.entrySet()) {
-         Response rsp = e.getValue();
-         if (rsp.isSuccessful() && rsp.isValid()) {            
-            Map<KOut, VOut> reducedResponse = (Map<KOut, VOut>) ((SuccessfulResponse) rsp).getResponseValue();
-            groupKeys(reduceMap, reducedResponse);
-         } else if (rsp instanceof ExceptionResponse) {
-            throw new CacheException("MapReduce task on remote node " + e.getKey()
-                     + " threw Exception", ((ExceptionResponse) rsp).getException());
-         } else {
-            throw new CacheException("MapReduce task on remote node " + e.getKey() + " failed ");
-         }
-      }
-
-      if (selfInvoke) {
-         groupKeys(reduceMap, (Map<KOut, VOut>) localCommandResult);
-      }
+   private MapReduceCommand buildMapReduceCommand(CommandsFactory factory, Mapper<KIn, VIn, KOut, VOut> mapper,
+            Reducer<KOut, VOut> reducer, Collection<KIn> keys, String taskId, Set<Address> reducers) {
+      MapReduceCommand cmd = factory.buildMapReduceCommand(mapper, reducer, cache.getRpcManager().getAddress(), keys, taskId);
+      cmd.setReducers(reducers);
+      cmd.setCombiner(combiner);
+      cmd.setMaxCollectedValues(maxCollectedValues);
+      return cmd;
+   }
 
-      // final reduce
-      //TODO parallelize into Executor
-      Map<KOut, VOut> result = new HashMap<KOut, VOut>();
-      for (Entry<KOut, List<VOut>> entry : reduceMap.entrySet()) {
-         VOut reduced = reducer.reduce(entry.getKey(), (entry.getValue()).iterator());
-         result.put(entry.getKey(), reduced);
+   private Object responseValue(Address address, Response rsp) {
+      if (rsp.isSuccessful() && rsp.isValid()) {
+         return ((SuccessfulResponse) rsp).getResponseValue();
+      } else if (rsp instanceof ExceptionResponse) {
+         throw new CacheException("MapReduce task on remote node " + address
+                  + " threw Exception", ((ExceptionResponse) rsp).getException());
+      } else {
+         throw new CacheException("MapReduce task on remote node " + address + " failed ");
       }
-      return result;
    }
 
    /**
@@ -440,6 +600,14 @@ private void ensureProperCacheState(AdvancedCache<KIn, VIn> cache) throws NullPo
       }
    }
 
+   private void ensureMapperAndReducer() {
+      if (mapper == null)
+         throw new NullPointerException("A valid reference of Mapper is not set " + mapper);
+
+      if (reducer == null)
+         throw new NullPointerException("A valid reference of Reducer is not set " + reducer);
+   }
+
    private boolean inputTaskKeysEmpty() {
       return keys == null || keys.isEmpty();
    }
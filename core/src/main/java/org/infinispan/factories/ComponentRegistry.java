@@ -35,6 +35,7 @@
 import org.infinispan.lifecycle.ModuleLifecycle;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.infinispan.notifications.cachemanagerlistener.CacheManagerNotifier;
+import org.infinispan.remoting.RemoteCommandExecutors;
 import org.infinispan.remoting.responses.ResponseGenerator;
 import org.infinispan.statetransfer.StateTransferManager;
 import org.infinispan.util.logging.Log;
@@ -63,6 +64,7 @@ public final class ComponentRegistry extends AbstractComponentRegistry {
    private StateTransferManager stateTransferManager;
    private ResponseGenerator responseGenerator;
    private CommandsFactory commandsFactory;
+   private RemoteCommandExecutors remoteCommandExecutors;
 
    @Inject
    public void setCacheManagerNotifier(CacheManagerNotifier cacheManagerNotifier) {
@@ -239,6 +241,13 @@ public CommandsFactory getCommandsFactory() {
       return commandsFactory;
    }
 
+   /**
+    * Caching shortcut for #getComponent(RemoteCommandExecutors.class);
+    */
+   public RemoteCommandExecutors getRemoteCommandExecutors() {
+      return remoteCommandExecutors;
+   }
+
    /**
     * Invoked last after all services are wired
     */
@@ -247,6 +256,7 @@ public void prepareWiringCache() {
       stateTransferManager = getComponent(StateTransferManager.class);
       responseGenerator = getComponent(ResponseGenerator.class);
       commandsFactory = getLocalComponent(CommandsFactory.class);
+      remoteCommandExecutors = getComponent(RemoteCommandExecutors.class);
    }
 
 }
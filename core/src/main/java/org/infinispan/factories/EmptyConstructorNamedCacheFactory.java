@@ -27,9 +27,11 @@
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.CommandsFactoryImpl;
 import org.infinispan.config.ConfigurationException;
+import org.infinispan.container.LocalEntryScanner;
 import org.infinispan.context.InvocationContextContainer;
 import org.infinispan.context.NonTransactionalInvocationContextContainer;
 import org.infinispan.context.TransactionalInvocationContextContainer;
+import org.infinispan.distexec.mapreduce.IntermediateResultStore;
 import org.infinispan.eviction.EvictionManager;
 import org.infinispan.eviction.EvictionManagerImpl;
 import org.infinispan.eviction.PassivationManager;
@@ -43,6 +45,7 @@
 import org.infinispan.statetransfer.StateTransferLock;
 import org.infinispan.statetransfer.StateTransferLockImpl;
 import org.infinispan.statetransfer.totalorder.TotalOrderStateTransferLockImpl;
+import org.infinispan.remoting.RemoteCommandExecutors;
 import org.infinispan.transaction.totalorder.DistParallelTotalOrderManager;
 import org.infinispan.transaction.totalorder.ParallelTotalOrderManager;
 import org.infinispan.transaction.totalorder.SequentialTotalOrderManager;
@@ -70,7 +73,9 @@
                               CacheLoaderManager.class, InvocationContextContainer.class, PassivationManager.class,
                               BatchContainer.class, EvictionManager.class,
                               TransactionCoordinator.class, RecoveryAdminOperations.class, StateTransferLock.class,
-                              ClusteringDependentLogic.class, LockContainer.class, TotalOrderManager.class, DataPlacementManager.class})
+                              ClusteringDependentLogic.class, LockContainer.class, TotalOrderManager.class, DataPlacementManager.class,
+                              RemoteCommandExecutors.class, IntermediateResultStore.class,
+                              LocalEntryScanner.class})
 public class EmptyConstructorNamedCacheFactory extends AbstractNamedCacheComponentFactory implements AutoInstantiableFactory {
 
    @Override
@@ -134,6 +139,12 @@ public <T> T construct(Class<T> componentType) {
                : (T) new SequentialTotalOrderManager();
       } else if (componentType.equals(DataPlacementManager.class)){
     	return (T) new DataPlacementManager(); 
+      } else if (componentType.equals(RemoteCommandExecutors.class)) {
+         return (T) new RemoteCommandExecutors();
+      } else if (componentType.equals(IntermediateResultStore.class)) {
+         return (T) new IntermediateResultStore();
+      } else if (componentType.equals(LocalEntryScanner.class)) {
+         return (T) new LocalEntryScanner();
       }
 
       throw new ConfigurationException("Don't know how to create a " + componentType.getName());
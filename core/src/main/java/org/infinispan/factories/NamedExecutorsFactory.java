@@ -54,6 +54,7 @@ public class NamedExecutorsFactory extends NamedComponentFactory implements Auto
    private ScheduledExecutorService evictionExecutor;
    private ScheduledExecutorService asyncReplicationExecutor;
    private ExecutorService totalOrderExecutor;
+   private ExecutorService mapReduceExecutor;
 
    @Override
    @SuppressWarnings("unchecked")
@@ -106,6 +107,15 @@ public <T> T construct(Class<T> componentType, String componentName) {
                }
             }
             return (T) totalOrderExecutor;
+         } else if (componentName.equals(MAP_REDUCE_EXECUTOR)) {
+            synchronized (this) {
+               if (mapReduceExecutor == null) {
+                  mapReduceExecutor = buildAndConfigureExecutorService(
+                        globalConfiguration.getMapReduceExecutorFactoryClass(),
+                        globalConfiguration.getMapReduceExecutorProperties(), componentName);
+               }
+            }
+            return (T) mapReduceExecutor;
          } else {
             throw new ConfigurationException("Unknown named executor " + componentName);
          }
@@ -123,6 +133,7 @@ public void stop() {
       if (asyncReplicationExecutor != null) asyncReplicationExecutor.shutdownNow();
       if (evictionExecutor != null) evictionExecutor.shutdownNow();
       if (totalOrderExecutor != null) totalOrderExecutor.shutdownNow();
+      if (mapReduceExecutor != null) mapReduceExecutor.shutdownNow();
    }
 
    private ExecutorService buildAndConfigureExecutorService(String factoryName, Properties p, String componentName) throws Exception {
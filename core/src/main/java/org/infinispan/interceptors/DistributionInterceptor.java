@@ -245,6 +245,8 @@ private Object realRemoteGet(InvocationContext ctx, Object key, boolean storeInL
             }
          } else {
             if (trace) log.tracef("Not caching remotely retrieved entry for key %s in L1", key);
+            // keep the entry (and the version it carries) for the rest of the transaction anyway
+            if (ctx.isInTxScope() && ctx.lookupEntry(key) == null) ctx.putLookedUpEntry(key, ice);
          }
          return ice.getValue();
       }
@@ -442,10 +444,23 @@ private void remoteGetBeforeWrite(InvocationContext ctx, boolean isConditionalCo
       //   a) unsafeUnreliableReturnValues is false
       //   b) unsafeUnreliableReturnValues is true, we are in a TX and the command is conditional
       if (isNeedReliableReturnValues(ctx) || (isConditionalCommand && ctx.isInTxScope())) {
-         for (Object k : keygen.getKeys()) remoteGetAndStoreInL1(ctx, k, true);
+         for (Object k : keygen.getKeys()) {
+            if (!isFetchedInTransaction(ctx, k)) remoteGetAndStoreInL1(ctx, k, true);
+         }
       }
    }
 
+   /**
+    * An optimistic transaction that has already read or written a key has its value and the version seen by the
+    * remote get in the context, and that is what the write (and the write skew check on prepare) has to use anyway.
+    * Pessimistic transactions still go remote, as the remote get is what acquires the remote lock.
+    */
+   private boolean isFetchedInTransaction(InvocationContext ctx, Object key) {
+      if (!ctx.isInTxScope() || isPessimisticCache) return false;
+      CacheEntry entry = ctx.lookupEntry(key);
+      return entry != null && !entry.isNull() && !entry.isLockPlaceholder() && entry.getValue() != null;
+   }
+
    private boolean isNeedReliableReturnValues(InvocationContext ctx) {
       return !ctx.hasFlag(Flag.SKIP_REMOTE_LOOKUP) && needReliableReturnValues;
    }
@@ -25,6 +25,7 @@
 import org.infinispan.CacheException;
 import org.infinispan.commands.ReplicableCommand;
 import org.infinispan.factories.GlobalComponentRegistry;
+import org.infinispan.io.ByteBuffer;
 import org.infinispan.io.ExposedByteArrayOutputStream;
 import org.infinispan.io.UnsignedNumeric;
 import org.infinispan.marshall.jboss.ExtendedRiverUnmarshaller;
@@ -34,7 +35,10 @@
 
 import java.io.IOException;
 import java.io.ObjectInput;
+import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.Arrays;
 import java.util.Set;
@@ -61,6 +65,13 @@
  * third-party libraries to be able to marshall/unmarshall them using standard
  * JVM serialization rules.  The Infinispan marshalling layer will always
  * chose the most performant one, aka the externalizer method.
+ * <p />
+ *
+ * When received as part of a remote command, the serialized form may be a
+ * view on the received message buffer (see {@link OutOfBandPayloads}) rather
+ * than a dedicated byte array.  Such views are only copied if
+ * {@link #getRaw()} is called, or if they are much smaller than the buffer
+ * they would otherwise keep alive.
  *
  * @author Manik Surtani (<a href="mailto:manik@jboss.org">manik@jboss.org</a>)
  * @author Mircea.Markus@jboss.com
@@ -70,8 +81,19 @@
  * @since 4.0
  */
 public class MarshalledValue implements Serializable {
+   // a view is only kept if it spans at least this fraction of its buffer, otherwise it is copied
+   private static final int MAX_VIEW_WASTE_RATIO = 4;
+   private static final ObjectStreamField[] serialPersistentFields = {
+         new ObjectStreamField("instance", Object.class),
+         new ObjectStreamField("raw", byte[].class),
+         new ObjectStreamField("serialisedSize", int.class),
+         new ObjectStreamField("cachedHashCode", int.class)
+   };
+
    volatile protected Object instance;
-   volatile protected byte[] raw;
+   // the serialized form, possibly a window of a larger (received) buffer; buffer, offset and length are
+   // always published together as a single immutable reference
+   volatile protected transient ByteBuffer raw;
    volatile protected int serialisedSize = 128; //size of serialized representation: initial value is a guess
    volatile private int cachedHashCode = 0;
    // by default equals() will test on the instance rather than the byte array if conversion is required.
@@ -87,27 +109,59 @@ public MarshalledValue(Object instance, boolean equalityPreferenceForInstance, S
       this.marshaller = marshaller;
    }
 
-   private MarshalledValue(byte[] raw, int cachedHashCode, StreamingMarshaller marshaller) {
+   private MarshalledValue(ByteBuffer raw, int cachedHashCode, StreamingMarshaller marshaller) {
       init(raw, cachedHashCode);
       this.marshaller = marshaller;
    }
 
-   private void init(byte[] raw, int cachedHashCode) {
-      // for unmarshalling
+   private void init(ByteBuffer raw, int cachedHashCode) {
+      // for unmarshalling: don't let a small value pin a much larger received buffer
+      if ((long) raw.getLength() * MAX_VIEW_WASTE_RATIO < raw.getBuf().length) {
+         raw = raw.copy();
+      }
       this.raw = raw;
-      this.serialisedSize = raw.length;
+      this.serialisedSize = raw.getLength();
       this.cachedHashCode = cachedHashCode;
    }
 
    public synchronized byte[] serialize() {
-      return serialize0();
+      return exactRaw(serialize0());
+   }
+
+   private static boolean isExact(ByteBuffer rawValue) {
+      return rawValue.getOffset() == 0 && rawValue.getLength() == rawValue.getBuf().length;
+   }
+
+   /**
+    * Should only be called from a synchronized method.  If the serialized form is a view on a larger buffer, it is
+    * copied so that the larger buffer can be released.
+    */
+   private byte[] exactRaw(ByteBuffer rawValue) {
+      if (!isExact(rawValue)) {
+         rawValue = rawValue.copy();
+         raw = rawValue;
+      }
+      return rawValue.getBuf();
+   }
+
+   /**
+    * Returns the serialized form without copying it, serializing the instance if needed.
+    */
+   private ByteBuffer rawWindow() {
+      ByteBuffer rawValue = raw;
+      if (rawValue == null) {
+         synchronized (this) {
+            rawValue = serialize0();
+         }
+      }
+      return rawValue;
    }
 
    /**
     * Should only be called from a synchronized method
     */
-   private byte[] serialize0() {
-      byte[] rawValue = raw;
+   private ByteBuffer serialize0() {
+      ByteBuffer rawValue = raw;
       if (rawValue == null) {
          try {
             // Do NOT set instance to null over here, since it may be used elsewhere (e.g., in a cache listener).
@@ -123,12 +177,13 @@ private byte[] serialize0() {
             final int length = baos.size();
             if (buf.length == length) {
                // in this case we can avoid duplicating the buffer
-               rawValue = buf;
+               rawValue = new ByteBuffer(buf, 0, length);
             }
             else {
                serialisedSize = length;
-               rawValue = new byte[length];
-               System.arraycopy(buf, 0, rawValue, 0, length);
+               byte[] bytes = new byte[length];
+               System.arraycopy(buf, 0, bytes, 0, length);
+               rawValue = new ByteBuffer(bytes, 0, length);
             }
             raw = rawValue;
          } catch (Exception e) {
@@ -150,7 +205,8 @@ private Object deserialize0() {
       if (instanceValue == null) {
          try {
             // StreamingMarshaller underneath deals with making sure the right classloader is set.
-            instanceValue = marshaller.objectFromByteBuffer(raw);
+            ByteBuffer rawValue = raw;
+            instanceValue = marshaller.objectFromByteBuffer(rawValue.getBuf(), rawValue.getOffset(), rawValue.getLength());
             instance = instanceValue;
             return instanceValue;
          }
@@ -178,7 +234,7 @@ public synchronized void compact(boolean preferSerializedRepresentation, boolean
       // reset the equalityPreference
       equalityPreferenceForInstance = true;
       Object thisInstance = this.instance;
-      byte[] thisRaw = this.raw;
+      ByteBuffer thisRaw = this.raw;
       if (force) {
          if (preferSerializedRepresentation && thisRaw == null) {
             // Accessing a synchronized method from an already synchronized
@@ -207,11 +263,11 @@ else if (!preferSerializedRepresentation && thisInstance == null){
    }
 
    public byte[] getRaw() {
-      byte[] rawValue = raw;
-      if (rawValue == null){
-         rawValue = serialize();
+      ByteBuffer rawValue = raw;
+      if (rawValue == null || !isExact(rawValue)) {
+         return serialize();
       }
-      return rawValue;
+      return rawValue.getBuf();
    }
 
    /**
@@ -240,9 +296,9 @@ public boolean equals(Object o) {
       //test the default equality first so we might skip some work:
       if (preferInstanceEquality && thisInstance != null && thatInstance != null) return thisInstance.equals(thatInstance);
       
-      byte[] thisRaw = this.raw;
-      byte[] thatRaw = that.raw;
-      if (thisRaw != null && thatRaw != null) return Arrays.equals(thisRaw, thatRaw);
+      ByteBuffer thisRaw = this.raw;
+      ByteBuffer thatRaw = that.raw;
+      if (thisRaw != null && thatRaw != null) return rawEquals(thisRaw, thatRaw);
       if (thisInstance != null && thatInstance != null) return thisInstance.equals(thatInstance);
 
       // if conversion of one representation to the other is necessary, then see which we prefer converting.
@@ -256,15 +312,28 @@ public boolean equals(Object o) {
          return thisInstance.equals(thatInstance);
       } else {
          if (thisRaw == null) {
-            thisRaw = this.serialize();
+            thisRaw = this.rawWindow();
          }
          if (thatRaw == null) {
-            thatRaw = that.serialize();
+            thatRaw = that.rawWindow();
          }
-         return Arrays.equals(thisRaw, thatRaw);
+         return rawEquals(thisRaw, thatRaw);
       }
    }
 
+   private static boolean rawEquals(ByteBuffer a, ByteBuffer b) {
+      int length = a.getLength();
+      if (length != b.getLength()) return false;
+      byte[] aBuf = a.getBuf(), bBuf = b.getBuf();
+      if (isExact(a) && isExact(b))
+         return Arrays.equals(aBuf, bBuf);
+      int aOffset = a.getOffset(), bOffset = b.getOffset();
+      for (int i = 0; i < length; i++) {
+         if (aBuf[aOffset + i] != bBuf[bOffset + i]) return false;
+      }
+      return true;
+   }
+
    @Override
    public int hashCode() {
       //make a local copy to avoid multiple read/writes on the volatile field
@@ -283,15 +352,37 @@ public int hashCode() {
 
    @Override
    public String toString() {
+      ByteBuffer rawValue = raw;
       StringBuilder sb = new StringBuilder()
          .append("MarshalledValue{")
          .append("instance=").append(instance != null ? instance.toString() : "<serialized>")
-         .append(", serialized=").append(raw != null ?  Util.printArray(raw, false) : "false")
+         .append(", serialized=").append(rawValue != null ?  Util.printArray(isExact(rawValue) ? rawValue.getBuf() : rawValue.copy().getBuf(), false) : "false")
          .append(", cachedHashCode=").append(cachedHashCode)
          .append("}@").append(Util.hexIdHashCode(this));
       return sb.toString();
    }
 
+   private void writeObject(ObjectOutputStream out) throws IOException {
+      // keep the serialized form of previous versions, where raw was a byte array
+      ByteBuffer rawValue = raw;
+      ObjectOutputStream.PutField fields = out.putFields();
+      fields.put("instance", instance);
+      fields.put("raw", rawValue == null ? null : (isExact(rawValue) ? rawValue.getBuf() : rawValue.copy().getBuf()));
+      fields.put("serialisedSize", serialisedSize);
+      fields.put("cachedHashCode", cachedHashCode);
+      out.writeFields();
+   }
+
+   private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      ObjectInputStream.GetField fields = in.readFields();
+      instance = fields.get("instance", null);
+      byte[] rawValue = (byte[]) fields.get("raw", null);
+      raw = rawValue == null ? null : new ByteBuffer(rawValue, 0, rawValue.length);
+      serialisedSize = fields.get("serialisedSize", 128);
+      cachedHashCode = fields.get("cachedHashCode", 0);
+      equalityPreferenceForInstance = true;
+   }
+
    public MarshalledValue setEqualityPreferenceForInstance(boolean equalityPreferenceForInstance) {
       this.equalityPreferenceForInstance = equalityPreferenceForInstance;
       return this;
@@ -321,17 +412,45 @@ public Externalizer(StreamingMarshaller globalMarshaller) {
 
       @Override
       public void writeObject(ObjectOutput output, MarshalledValue mv) throws IOException {
-         byte[] raw = mv.getRaw();
-         UnsignedNumeric.writeUnsignedInt(output, raw.length);
-         output.write(raw);
-         output.writeInt(mv.hashCode());
+         // nested marshalling (e.g. of the wrapped instance) must keep its payloads inline
+         OutOfBandPayloads payloads = OutOfBandPayloads.suspendWriting();
+         ByteBuffer raw;
+         int hc;
+         try {
+            raw = mv.rawWindow();
+            hc = mv.hashCode();
+         } finally {
+            OutOfBandPayloads.resume(payloads);
+         }
+         // an empty serialized form is impossible, so a zero length introduces an out-of-band payload while
+         // values marshalled outside of remote commands keep the original layout
+         if (payloads != null && raw.getLength() >= OutOfBandPayloads.MIN_PAYLOAD_SIZE) {
+            UnsignedNumeric.writeUnsignedInt(output, 0);
+            UnsignedNumeric.writeUnsignedInt(output, payloads.add(raw));
+            UnsignedNumeric.writeUnsignedInt(output, raw.getLength());
+         } else {
+            UnsignedNumeric.writeUnsignedInt(output, raw.getLength());
+            output.write(raw.getBuf(), raw.getOffset(), raw.getLength());
+         }
+         output.writeInt(hc);
       }
 
       @Override
       public MarshalledValue readObject(ObjectInput input) throws IOException {
          int length = UnsignedNumeric.readUnsignedInt(input);
-         byte[] raw = new byte[length];
-         input.readFully(raw);
+         ByteBuffer raw;
+         if (length == 0) {
+            int offset = UnsignedNumeric.readUnsignedInt(input);
+            length = UnsignedNumeric.readUnsignedInt(input);
+            OutOfBandPayloads payloads = OutOfBandPayloads.currentReader();
+            if (payloads == null)
+               throw new IOException("Marshalled value payload was sent out-of-band, but no received buffer is attached");
+            raw = payloads.slice(offset, length);
+         } else {
+            byte[] bytes = new byte[length];
+            input.readFully(bytes);
+            raw = new ByteBuffer(bytes, 0, length);
+         }
          int hc = input.readInt();
 
          // A better way of sending down context information is needed in the future
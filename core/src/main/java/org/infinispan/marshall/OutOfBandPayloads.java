@@ -0,0 +1,195 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.marshall;
+
+import org.infinispan.io.ByteBuffer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thread local context that allows {@link MarshalledValue.Externalizer} to move the serialized form of large marshalled
+ * values out of the marshalling stream and into the buffer that carries the stream, typically a JGroups message.
+ * <p/>
+ * On the sending side the raw bytes are collected while the enclosing object is being marshalled and appended after
+ * the stream by {@link #frame(ByteBuffer)}.  On the receiving side the unmarshalled {@link MarshalledValue}s reference
+ * their slice of the received buffer directly, so their bytes are neither copied out of the message nor deserialized
+ * until the application actually reads them.
+ * <p/>
+ * The framed layout is <tt>[stream][payload 1]...[payload n][stream length (4 bytes)]</tt>.
+ *
+ * @see org.infinispan.remoting.transport.jgroups.MarshallerAdapter
+ * @since 5.2
+ */
+public final class OutOfBandPayloads {
+
+   /**
+    * Payloads smaller than this are kept inline, since slicing them does not pay off.
+    */
+   static final int MIN_PAYLOAD_SIZE = 128;
+   private static final int TRAILER_SIZE = 4;
+
+   private static final ThreadLocal<OutOfBandPayloads> context = new ThreadLocal<OutOfBandPayloads>();
+
+   private final OutOfBandPayloads previous;
+   private final List<ByteBuffer> payloads;
+   private int payloadsLength;
+   private final byte[] buf;
+   private final int payloadsOffset;
+   private final int payloadsEnd;
+   private final int streamLength;
+
+   private OutOfBandPayloads(OutOfBandPayloads previous) {
+      this.previous = previous;
+      this.payloads = new ArrayList<ByteBuffer>(4);
+      this.buf = null;
+      this.payloadsOffset = 0;
+      this.payloadsEnd = 0;
+      this.streamLength = -1;
+   }
+
+   private OutOfBandPayloads(OutOfBandPayloads previous, byte[] buf, int offset, int streamLength, int payloadsEnd) {
+      this.previous = previous;
+      this.payloads = null;
+      this.buf = buf;
+      this.payloadsOffset = offset + streamLength;
+      this.payloadsEnd = payloadsEnd;
+      this.streamLength = streamLength;
+   }
+
+   /**
+    * Starts collecting the payloads of the marshalled values written by the current thread.
+    */
+   public static OutOfBandPayloads startWriting() {
+      OutOfBandPayloads payloads = new OutOfBandPayloads(context.get());
+      context.set(payloads);
+      return payloads;
+   }
+
+   /**
+    * Attaches a framed buffer to the current thread, so that marshalled values read by it can reference their
+    * payloads.
+    *
+    * @return the context, whose {@link #streamLength()} bounds the stream to unmarshall
+    */
+   public static OutOfBandPayloads startReading(byte[] buf, int offset, int length) throws IOException {
+      if (length < TRAILER_SIZE)
+         throw new IOException("Buffer of " + length + " bytes is too short to contain out-of-band payloads");
+      int end = offset + length - TRAILER_SIZE;
+      int streamLength = ((buf[end] & 0xFF) << 24) | ((buf[end + 1] & 0xFF) << 16) | ((buf[end + 2] & 0xFF) << 8)
+            | (buf[end + 3] & 0xFF);
+      if (streamLength < 0 || streamLength > length - TRAILER_SIZE)
+         throw new IOException("Invalid stream length " + streamLength + " in a buffer of " + length + " bytes");
+      OutOfBandPayloads payloads = new OutOfBandPayloads(context.get(), buf, offset, streamLength, end);
+      context.set(payloads);
+      return payloads;
+   }
+
+   /**
+    * Detaches the given context from the current thread, restoring the enclosing one (if any).
+    */
+   public static void finish(OutOfBandPayloads payloads) {
+      if (payloads.previous == null)
+         context.remove();
+      else
+         context.set(payloads.previous);
+   }
+
+   /**
+    * Returns the context collecting payloads for the current thread, if any, and suspends it so that nested
+    * marshalling (e.g. serializing a marshalled value's instance) keeps its payloads inline.  The returned value must be
+    * handed to {@link #resume(OutOfBandPayloads)}.
+    */
+   static OutOfBandPayloads suspendWriting() {
+      OutOfBandPayloads payloads = context.get();
+      if (payloads == null || payloads.payloads == null) return null;
+      context.remove();
+      return payloads;
+   }
+
+   static void resume(OutOfBandPayloads payloads) {
+      if (payloads != null) context.set(payloads);
+   }
+
+   static OutOfBandPayloads currentReader() {
+      OutOfBandPayloads payloads = context.get();
+      return payloads == null || payloads.buf == null ? null : payloads;
+   }
+
+   /**
+    * Registers a payload to be appended after the stream.
+    *
+    * @return the payload offset, relative to the end of the stream
+    */
+   int add(ByteBuffer payload) {
+      int offset = payloadsLength;
+      payloads.add(payload);
+      payloadsLength += payload.getLength();
+      return offset;
+   }
+
+   /**
+    * Returns the slice of the attached buffer that holds a payload.
+    */
+   ByteBuffer slice(int offset, int length) throws IOException {
+      int start = payloadsOffset + offset;
+      if (offset < 0 || length < 0 || start + length > payloadsEnd)
+         throw new IOException("Out-of-band payload [" + offset + ", " + length + "] is outside of the received buffer");
+      return new ByteBuffer(buf, start, length);
+   }
+
+   /**
+    * @return length of the marshalling stream in the attached buffer
+    */
+   public int streamLength() {
+      return streamLength;
+   }
+
+   /**
+    * Appends the collected payloads and the trailer to the marshalled stream.  If nothing was collected and the
+    * stream's buffer has room for the trailer, no copy is made.
+    */
+   public ByteBuffer frame(ByteBuffer stream) {
+      byte[] framed;
+      int streamLength = stream.getLength();
+      int length = streamLength + payloadsLength + TRAILER_SIZE;
+      if (payloads.isEmpty() && stream.getOffset() == 0 && stream.getBuf().length >= length) {
+         framed = stream.getBuf();
+      } else {
+         framed = new byte[length];
+         System.arraycopy(stream.getBuf(), stream.getOffset(), framed, 0, streamLength);
+         int pos = streamLength;
+         for (ByteBuffer payload : payloads) {
+            System.arraycopy(payload.getBuf(), payload.getOffset(), framed, pos, payload.getLength());
+            pos += payload.getLength();
+         }
+      }
+      int pos = length - TRAILER_SIZE;
+      framed[pos] = (byte) (streamLength >>> 24);
+      framed[pos + 1] = (byte) (streamLength >>> 16);
+      framed[pos + 2] = (byte) (streamLength >>> 8);
+      framed[pos + 3] = (byte) streamLength;
+      return new ByteBuffer(framed, 0, length);
+   }
+}
@@ -24,6 +24,8 @@
 import org.infinispan.commands.control.LockControlCommand;
 import org.infinispan.commands.control.StateTransferControlCommand;
 import org.infinispan.commands.read.MapReduceCommand;
+import org.infinispan.commands.read.MapReduceShuffleCommand;
+import org.infinispan.commands.read.ReduceCommand;
 import org.infinispan.commands.remote.CacheRpcCommand;
 import org.infinispan.commands.remote.ClusteredGetCommand;
 import org.infinispan.commands.remote.DataPlacementCommand;
@@ -88,7 +90,8 @@ public Set<Class<? extends CacheRpcCommand>> getTypeClasses() {
             TxCompletionNotificationCommand.class, GetInDoubtTransactionsCommand.class,
             GetInDoubtTxInfoCommand.class, CompleteTransactionCommand.class,
             CacheViewControlCommand.class, VersionedPrepareCommand.class, VersionedCommitCommand.class,
-            PrepareResponseCommand.class, DataPlacementCommand.class);
+            PrepareResponseCommand.class, DataPlacementCommand.class,
+            MapReduceShuffleCommand.class, ReduceCommand.class);
       // Only interested in cache specific replicable commands
       coreCommands.addAll(gcr.getModuleProperties().moduleCacheRpcCommands());
       return coreCommands;
@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.remoting;
+
+import org.infinispan.remoting.responses.Response;
+
+/**
+ * Lets a remote command be answered by a thread other than the one that received it.
+ * <p/>
+ * While the transport handles a request whose reply may be deferred, it makes a {@link Sender} available to the
+ * receiving thread through {@link #enable(Sender)}.  A component that hands the command over to another thread
+ * returns {@link #INSTANCE} instead of a response, and the other thread later sends the real response through the
+ * {@link Sender}, so that the receiving thread is released right away.
+ *
+ * @since 5.2
+ */
+public final class DeferredResponse implements Response {
+
+   /**
+    * Returned instead of a response when the response is going to be sent by another thread.
+    */
+   public static final DeferredResponse INSTANCE = new DeferredResponse();
+
+   private static final ThreadLocal<Sender> currentSender = new ThreadLocal<Sender>();
+
+   private DeferredResponse() {
+   }
+
+   /**
+    * Sends the reply to a request once it has been computed.
+    */
+   public interface Sender {
+
+      /**
+       * @return true if the request was delivered in order with the other requests of the same sender, in which case
+       *         executing it out of order may break the expectations of the sender
+       */
+      boolean isOrdered();
+
+      /**
+       * @param reply the response, or the exception, to send back to the caller
+       * @param isException true if the reply is an exception
+       */
+      void send(Object reply, boolean isException);
+   }
+
+   /**
+    * Allows the request being handled by the calling thread to be answered later through the given sender.
+    */
+   public static void enable(Sender sender) {
+      currentSender.set(sender);
+   }
+
+   public static void disable() {
+      currentSender.remove();
+   }
+
+   /**
+    * Returns the sender of the request being handled by the calling thread, or null if its reply cannot be deferred.
+    * Once returned, the sender is no longer available to the calling thread.
+    */
+   public static Sender take() {
+      Sender sender = currentSender.get();
+      if (sender != null) currentSender.remove();
+      return sender;
+   }
+
+   @Override
+   public boolean isSuccessful() {
+      return false;
+   }
+
+   @Override
+   public boolean isValid() {
+      return true;
+   }
+
+   @Override
+   public String toString() {
+      return "DeferredResponse";
+   }
+}
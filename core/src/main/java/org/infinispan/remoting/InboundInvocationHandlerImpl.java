@@ -22,6 +22,7 @@
  */
 package org.infinispan.remoting;
 
+import org.infinispan.CacheException;
 import org.infinispan.cacheviews.CacheViewsManager;
 import org.infinispan.commands.CommandsFactory;
 import org.infinispan.commands.control.CacheViewControlCommand;
@@ -45,6 +46,8 @@
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.concurrent.Callable;
+
 /**
  * Sets the cache interceptor chain on an RPCCommand before calling it to perform
  *
@@ -133,7 +136,21 @@ private Response handleInternal(final CacheRpcCommand cmd, final ComponentRegist
    }
 
    private Response handleWithWaitForBlocks(final CacheRpcCommand cmd, final ComponentRegistry cr) throws Throwable {
-      Response resp = handleInternal(cmd, cr);
+      RemoteCommandExecutors executors = cr.getRemoteCommandExecutors();
+      Response resp = executors == null ? handleInternal(cmd, cr) : executors.execute(cmd, new Callable<Response>() {
+         @Override
+         public Response call() throws Exception {
+            try {
+               return handleInternal(cmd, cr);
+            } catch (Exception e) {
+               throw e;
+            } catch (Error e) {
+               throw e;
+            } catch (Throwable t) {
+               throw new CacheException(t);
+            }
+         }
+      });
 
       // A null response is valid and OK ...
       if (trace && resp != null && !resp.isValid()) {
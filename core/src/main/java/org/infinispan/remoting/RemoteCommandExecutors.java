@@ -0,0 +1,383 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.remoting;
+
+import org.infinispan.CacheException;
+import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.config.Configuration;
+import org.infinispan.config.GlobalConfiguration;
+import org.infinispan.executors.ControllableExecutorService;
+import org.infinispan.executors.ExecutorFactory;
+import org.infinispan.executors.LazyInitializingExecutorService;
+import org.infinispan.factories.annotations.Inject;
+import org.infinispan.factories.annotations.Start;
+import org.infinispan.factories.annotations.Stop;
+import org.infinispan.jmx.annotations.MBean;
+import org.infinispan.jmx.annotations.ManagedAttribute;
+import org.infinispan.jmx.annotations.ManagedOperation;
+import org.infinispan.remoting.responses.ExceptionResponse;
+import org.infinispan.remoting.responses.Response;
+import org.infinispan.util.Util;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+import org.rhq.helpers.pluginAnnotations.agent.DisplayType;
+import org.rhq.helpers.pluginAnnotations.agent.Metric;
+import org.rhq.helpers.pluginAnnotations.agent.Operation;
+import org.rhq.helpers.pluginAnnotations.agent.Units;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Executes the commands received from remote nodes for a cache, using a separate thread pool for each isolated
+ * {@link RemoteCommandPriority}.  Commands of a priority class without its own pool, and {@link
+ * RemoteCommandPriority#HIGH} commands, are executed by the receiving thread.
+ * <p/>
+ * When the transport allows it (see {@link DeferredResponse}), the pooled command sends its response from the pool
+ * thread and the receiving thread is released right away, so that {@link RemoteCommandPriority#HIGH} commands find
+ * a free JGroups thread even while long running commands are executing.  {@link RemoteCommandPriority#NORMAL}
+ * commands delivered in order keep the receiving thread until they complete, so that they are still executed in the
+ * order they were sent.
+ * <p/>
+ * The pools are built with the <tt>remoteCommandsExecutor</tt> global configuration, whose properties can be
+ * overridden for a cache with its <tt>remoteCommands</tt> configuration.  The <tt>isolatedPriorities</tt> property
+ * lists the priority classes that get their own pool (by default, none), and any other property can be overridden
+ * for a single class by prefixing it with the class name, e.g. <tt>low.maxThreads=2</tt>.
+ *
+ * @since 5.2
+ */
+@MBean(objectName = "RemoteCommandExecutors", description = "Executes remote commands by priority class")
+public class RemoteCommandExecutors {
+
+   public static final String ISOLATED_PRIORITIES = "isolatedPriorities";
+
+   private static final Log log = LogFactory.getLog(RemoteCommandExecutors.class);
+   private static final long STOP_CHECK_INTERVAL = 1000;
+
+   // never modified once published, so that it can be read while the component is stopping
+   private volatile Map<RemoteCommandPriority, ExecutorService> executors = Collections.emptyMap();
+   private final PriorityStats[] stats = new PriorityStats[RemoteCommandPriority.values().length];
+
+   private GlobalConfiguration globalConfiguration;
+   private Configuration configuration;
+   private volatile boolean stopped;
+
+   public RemoteCommandExecutors() {
+      for (int i = 0; i < stats.length; i++) {
+         stats[i] = new PriorityStats();
+      }
+   }
+
+   @Inject
+   public void inject(GlobalConfiguration globalConfiguration, Configuration configuration) {
+      this.globalConfiguration = globalConfiguration;
+      this.configuration = configuration;
+   }
+
+   @Start
+   public void start() {
+      Properties base = cacheProperties();
+      String isolated = base.getProperty(ISOLATED_PRIORITIES);
+      if (isolated == null || isolated.trim().isEmpty()) return;
+
+      Map<RemoteCommandPriority, ExecutorService> started =
+            new EnumMap<RemoteCommandPriority, ExecutorService>(RemoteCommandPriority.class);
+      ExecutorFactory factory = (ExecutorFactory) Util.getInstance(globalConfiguration.getRemoteCommandsExecutorFactoryClass(),
+                                                                   globalConfiguration.getClassLoader());
+      for (String name : isolated.split(",")) {
+         RemoteCommandPriority priority = RemoteCommandPriority.valueOf(name.trim().toUpperCase());
+         if (priority == RemoteCommandPriority.HIGH) {
+            log.debugf("Ignoring isolated priority %s, its commands are always executed by the receiving thread", priority);
+            continue;
+         }
+         started.put(priority, new LazyInitializingExecutorService(factory, executorProperties(base, priority)));
+      }
+      stopped = false;
+      executors = started;
+      log.debugf("Remote commands of cache %s with priorities %s are executed in their own pools",
+                 configuration.getName(), started.keySet());
+   }
+
+   @Stop(priority = 999)
+   public void stop() {
+      stopped = true;
+      Map<RemoteCommandPriority, ExecutorService> stopping = executors;
+      executors = Collections.emptyMap();
+      for (ExecutorService executor : stopping.values()) {
+         // make sure the callers of the queued commands get a response
+         for (Runnable queued : executor.shutdownNow()) {
+            if (queued instanceof DeferredTask) ((DeferredTask) queued).abort();
+            else if (queued instanceof Future) ((Future<?>) queued).cancel(false);
+         }
+      }
+   }
+
+   /**
+    * The global properties, overridden by the ones of this cache.
+    */
+   private Properties cacheProperties() {
+      Properties props = new Properties();
+      Properties global = globalConfiguration.getRemoteCommandsExecutorProperties();
+      if (global != null) props.putAll(global);
+      Properties local = configuration.getRemoteCommandsProperties();
+      if (local != null) props.putAll(local);
+      return props;
+   }
+
+   private Properties executorProperties(Properties base, RemoteCommandPriority priority) {
+      String prefix = priority.name().toLowerCase() + ".";
+      Properties props = new Properties();
+      for (String key : base.stringPropertyNames()) {
+         if (!key.equals(ISOLATED_PRIORITIES) && !key.startsWith(prefix)) props.setProperty(key, base.getProperty(key));
+      }
+      for (String key : base.stringPropertyNames()) {
+         if (key.startsWith(prefix)) props.setProperty(key.substring(prefix.length()), base.getProperty(key));
+      }
+      if (!props.containsKey("threadNamePrefix"))
+         props.setProperty("threadNamePrefix", "RemoteCommand-" + configuration.getName() + "-" + priority.name().toLowerCase());
+      return props;
+   }
+
+   /**
+    * Executes the task that handles a remote command, in the pool of the command's priority class if it has one.
+    *
+    * @return the response produced by the task, or {@link DeferredResponse#INSTANCE} if the response is going to be
+    *         sent by the pool thread
+    */
+   public Response execute(CacheRpcCommand command, final Callable<Response> task) throws Exception {
+      RemoteCommandPriority priority = RemoteCommandPriority.of(command);
+      final PriorityStats priorityStats = stats[priority.ordinal()];
+      ExecutorService executor = executors.get(priority);
+      if (executor == null || stopped) {
+         return executeInline(task, priorityStats);
+      }
+
+      DeferredResponse.Sender sender = DeferredResponse.take();
+      if (sender != null && !(priority == RemoteCommandPriority.NORMAL && sender.isOrdered())) {
+         try {
+            executor.execute(new DeferredTask(task, sender, priorityStats));
+            return DeferredResponse.INSTANCE;
+         } catch (RejectedExecutionException e) {
+            // saturated or stopping: the receiving thread does the work
+            return executeInline(task, priorityStats);
+         }
+      }
+
+      final long submitted = System.nanoTime();
+      Future<Response> future = executor.submit(new Callable<Response>() {
+         @Override
+         public Response call() throws Exception {
+            long start = System.nanoTime();
+            try {
+               return task.call();
+            } finally {
+               priorityStats.executed(start - submitted, System.nanoTime() - start);
+            }
+         }
+      });
+      while (true) {
+         try {
+            return future.get(STOP_CHECK_INTERVAL, MILLISECONDS);
+         } catch (TimeoutException e) {
+            if (stopped && !future.isDone()) {
+               future.cancel(true);
+               throw new CacheException("Cache is shutting down");
+            }
+         } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new CacheException(cause);
+         }
+      }
+   }
+
+   private static Response executeInline(Callable<Response> task, PriorityStats priorityStats) throws Exception {
+      long start = System.nanoTime();
+      try {
+         return task.call();
+      } finally {
+         priorityStats.executed(0, System.nanoTime() - start);
+      }
+   }
+
+   private ControllableExecutorService controllable(RemoteCommandPriority priority) {
+      ExecutorService executor = executors.get(priority);
+      return executor instanceof ControllableExecutorService ? (ControllableExecutorService) executor : null;
+   }
+
+   @ManagedOperation(description = "Resets the statistics")
+   @Operation(displayName = "Reset Statistics")
+   public void resetStatistics() {
+      for (PriorityStats priorityStats : stats) {
+         priorityStats.reset();
+      }
+   }
+
+   @ManagedAttribute(description = "Number of high priority remote commands executed")
+   @Metric(displayName = "High Priority Commands", displayType = DisplayType.SUMMARY)
+   public long getHighPriorityCommands() {
+      return stats[RemoteCommandPriority.HIGH.ordinal()].executed.get();
+   }
+
+   @ManagedAttribute(description = "Average execution duration of high priority remote commands (milliseconds)")
+   @Metric(displayName = "Average High Priority Execution Duration", units = Units.MILLISECONDS,
+           displayType = DisplayType.SUMMARY)
+   public double getAverageHighPriorityExecutionTime() {
+      return stats[RemoteCommandPriority.HIGH.ordinal()].averageExecutionTime();
+   }
+
+   @ManagedAttribute(description = "Number of normal priority remote commands executed")
+   @Metric(displayName = "Normal Priority Commands", displayType = DisplayType.SUMMARY)
+   public long getNormalPriorityCommands() {
+      return stats[RemoteCommandPriority.NORMAL.ordinal()].executed.get();
+   }
+
+   @ManagedAttribute(description = "Average execution duration of normal priority remote commands (milliseconds)")
+   @Metric(displayName = "Average Normal Priority Execution Duration", units = Units.MILLISECONDS,
+           displayType = DisplayType.SUMMARY)
+   public double getAverageNormalPriorityExecutionTime() {
+      return stats[RemoteCommandPriority.NORMAL.ordinal()].averageExecutionTime();
+   }
+
+   @ManagedAttribute(description = "Average time normal priority remote commands wait in the queue (milliseconds)")
+   @Metric(displayName = "Average Normal Priority Waiting Duration In Queue", units = Units.MILLISECONDS,
+           displayType = DisplayType.SUMMARY)
+   public double getAverageNormalPriorityWaitingTimeInQueue() {
+      return stats[RemoteCommandPriority.NORMAL.ordinal()].averageQueueTime();
+   }
+
+   @ManagedAttribute(description = "The percentage of occupation of the normal priority queue")
+   @Metric(displayName = "Percentage of Occupation of the Normal Priority Queue", units = Units.PERCENTAGE,
+           displayType = DisplayType.SUMMARY)
+   public double getNormalPriorityQueueOccupation() {
+      ControllableExecutorService executor = controllable(RemoteCommandPriority.NORMAL);
+      return executor == null ? 0D : executor.getQueueOccupationPercentage();
+   }
+
+   @ManagedAttribute(description = "Number of low priority remote commands executed")
+   @Metric(displayName = "Low Priority Commands", displayType = DisplayType.SUMMARY)
+   public long getLowPriorityCommands() {
+      return stats[RemoteCommandPriority.LOW.ordinal()].executed.get();
+   }
+
+   @ManagedAttribute(description = "Average execution duration of low priority remote commands (milliseconds)")
+   @Metric(displayName = "Average Low Priority Execution Duration", units = Units.MILLISECONDS,
+           displayType = DisplayType.SUMMARY)
+   public double getAverageLowPriorityExecutionTime() {
+      return stats[RemoteCommandPriority.LOW.ordinal()].averageExecutionTime();
+   }
+
+   @ManagedAttribute(description = "Average time low priority remote commands wait in the queue (milliseconds)")
+   @Metric(displayName = "Average Low Priority Waiting Duration In Queue", units = Units.MILLISECONDS,
+           displayType = DisplayType.SUMMARY)
+   public double getAverageLowPriorityWaitingTimeInQueue() {
+      return stats[RemoteCommandPriority.LOW.ordinal()].averageQueueTime();
+   }
+
+   @ManagedAttribute(description = "The percentage of occupation of the low priority queue")
+   @Metric(displayName = "Percentage of Occupation of the Low Priority Queue", units = Units.PERCENTAGE,
+           displayType = DisplayType.SUMMARY)
+   public double getLowPriorityQueueOccupation() {
+      ControllableExecutorService executor = controllable(RemoteCommandPriority.LOW);
+      return executor == null ? 0D : executor.getQueueOccupationPercentage();
+   }
+
+   /**
+    * Executes a command in a pool thread and sends its response from there.
+    */
+   private static class DeferredTask implements Runnable {
+      private final Callable<Response> task;
+      private final DeferredResponse.Sender sender;
+      private final PriorityStats priorityStats;
+      private final long submitted = System.nanoTime();
+
+      DeferredTask(Callable<Response> task, DeferredResponse.Sender sender, PriorityStats priorityStats) {
+         this.task = task;
+         this.sender = sender;
+         this.priorityStats = priorityStats;
+      }
+
+      @Override
+      public void run() {
+         long start = System.nanoTime();
+         Response response;
+         try {
+            response = task.call();
+         } catch (Throwable t) {
+            log.warnf(t, "Problems invoking remote command");
+            response = new ExceptionResponse(new CacheException("Problems invoking command.", t));
+         } finally {
+            priorityStats.executed(start - submitted, System.nanoTime() - start);
+         }
+         try {
+            sender.send(response, false);
+         } catch (Throwable t) {
+            log.debugf(t, "Unable to send response %s", response);
+         }
+      }
+
+      void abort() {
+         sender.send(new ExceptionResponse(new CacheException("Cache is shutting down")), false);
+      }
+   }
+
+   private static class PriorityStats {
+      final AtomicLong executed = new AtomicLong(0);
+      final AtomicLong queueTime = new AtomicLong(0);
+      final AtomicLong executionTime = new AtomicLong(0);
+
+      void executed(long queueNanos, long executionNanos) {
+         executed.incrementAndGet();
+         queueTime.addAndGet(queueNanos);
+         executionTime.addAndGet(executionNanos);
+      }
+
+      double averageQueueTime() {
+         long count = executed.get();
+         return count == 0 ? 0 : (queueTime.get() / count) / 1000000.0;
+      }
+
+      double averageExecutionTime() {
+         long count = executed.get();
+         return count == 0 ? 0 : (executionTime.get() / count) / 1000000.0;
+      }
+
+      void reset() {
+         executed.set(0);
+         queueTime.set(0);
+         executionTime.set(0);
+      }
+   }
+}
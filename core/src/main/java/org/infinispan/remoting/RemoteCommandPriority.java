@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.remoting;
+
+import org.infinispan.commands.ReplicableCommand;
+import org.infinispan.commands.control.StateTransferControlCommand;
+import org.infinispan.commands.read.DistributedExecuteCommand;
+import org.infinispan.commands.read.MapReduceCommand;
+import org.infinispan.commands.read.ReduceCommand;
+import org.infinispan.commands.remote.ClusteredGetCommand;
+import org.infinispan.commands.remote.SingleRpcCommand;
+
+/**
+ * Priority classes of the commands received from remote nodes.  Each class may be executed in its own thread pool
+ * (see {@link RemoteCommandExecutors}), so that cheap commands are not queued behind heavy ones.
+ *
+ * @since 5.2
+ */
+public enum RemoteCommandPriority {
+   /**
+    * Cheap reads, such as {@link ClusteredGetCommand}.  They are always executed by the receiving thread.
+    */
+   HIGH,
+   /**
+    * Regular write and transaction commands.
+    */
+   NORMAL,
+   /**
+    * Long running work: state transfer chunks and distributed tasks.
+    */
+   LOW;
+
+   public static RemoteCommandPriority of(ReplicableCommand command) {
+      if (command instanceof ClusteredGetCommand) {
+         return HIGH;
+      } else if (command instanceof StateTransferControlCommand || command instanceof MapReduceCommand
+            || command instanceof ReduceCommand) {
+         return LOW;
+      } else if (command instanceof SingleRpcCommand
+            && ((SingleRpcCommand) command).getCommand() instanceof DistributedExecuteCommand) {
+         return LOW;
+      }
+      return NORMAL;
+   }
+}
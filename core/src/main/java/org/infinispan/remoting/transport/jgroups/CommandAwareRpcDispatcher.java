@@ -28,6 +28,7 @@
 import org.infinispan.commands.control.CacheViewControlCommand;
 import org.infinispan.commands.control.StateTransferControlCommand;
 import org.infinispan.commands.remote.CacheRpcCommand;
+import org.infinispan.remoting.DeferredResponse;
 import org.infinispan.remoting.InboundInvocationHandler;
 import org.infinispan.remoting.RpcException;
 import org.infinispan.remoting.responses.ExceptionResponse;
@@ -42,11 +43,14 @@
 import org.jgroups.Message;
 import org.jgroups.SuspectedException;
 import org.jgroups.UpHandler;
+import org.jgroups.blocks.RequestCorrelator;
+import org.jgroups.blocks.RequestHandler;
 import org.jgroups.blocks.RequestOptions;
 import org.jgroups.blocks.ResponseMode;
 import org.jgroups.blocks.RpcDispatcher;
 import org.jgroups.blocks.RspFilter;
 import org.jgroups.blocks.mux.Muxer;
+import org.jgroups.stack.Protocol;
 import org.jgroups.util.Buffer;
 import org.jgroups.util.FutureListener;
 import org.jgroups.util.NotifyingFuture;
@@ -231,6 +235,11 @@ private Object executeCommand(ReplicableCommand cmd, Message req) throws Throwab
       }
    }
 
+   @Override
+   protected RequestCorrelator createRequestCorrelator(Protocol transport, RequestHandler handler, Address localAddr) {
+      return new DeferringRequestCorrelator(transport, handler, localAddr);
+   }
+
    @Override
    public String toString() {
       return getClass().getSimpleName() + "[Outgoing marshaller: " + req_marshaller + "; incoming marshaller: " + rsp_marshaller + "]";
@@ -523,5 +532,51 @@ else if (e.getCause() instanceof Exception)
          }
       }
    }
-}
 
+   /**
+    * Lets the replies to requests be sent by a thread other than the receiving one (see {@link DeferredResponse}), so
+    * that a long running command does not hold the JGroups thread, and the sender's queue, until it completes.
+    * Requests delivered in total order are always answered by the receiving thread, since their processing depends on
+    * the delivery order.
+    */
+   static class DeferringRequestCorrelator extends RequestCorrelator {
+
+      DeferringRequestCorrelator(Protocol transport, RequestHandler handler, Address localAddr) {
+         super(transport, handler, localAddr);
+      }
+
+      @Override
+      protected void handleRequest(final Message req, final Header hdr) {
+         if (!hdr.rsp_expected || !req.isFlagSet(Message.NO_TOTAL_ORDER)) {
+            super.handleRequest(req, hdr);
+            return;
+         }
+         final long requestId = hdr.id;
+         final boolean ordered = !req.isFlagSet(Message.OOB);
+         DeferredResponse.enable(new DeferredResponse.Sender() {
+            @Override
+            public boolean isOrdered() {
+               return ordered;
+            }
+
+            @Override
+            public void send(Object reply, boolean isException) {
+               sendReply(req, requestId, reply, isException);
+            }
+         });
+         Object retval;
+         boolean threwException = false;
+         try {
+            retval = request_handler.handle(req);
+         } catch (Throwable t) {
+            threwException = true;
+            retval = t;
+         } finally {
+            DeferredResponse.disable();
+         }
+         if (retval != DeferredResponse.INSTANCE) {
+            sendReply(req, requestId, retval, threwException);
+         }
+      }
+   }
+}
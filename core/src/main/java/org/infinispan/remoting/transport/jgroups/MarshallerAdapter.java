@@ -23,12 +23,17 @@
 package org.infinispan.remoting.transport.jgroups;
 
 import org.infinispan.io.ByteBuffer;
+import org.infinispan.marshall.OutOfBandPayloads;
 import org.infinispan.marshall.StreamingMarshaller;
 import org.jgroups.blocks.RpcDispatcher;
 import org.jgroups.util.Buffer;
 
 /**
  * Bridge between JGroups and Infinispan marshallers
+ * <p/>
+ * Large {@link org.infinispan.marshall.MarshalledValue} payloads are framed after the marshalled stream (see
+ * {@link OutOfBandPayloads}), so that on the receiving side they reference the message buffer instead of being
+ * copied out of it.
  *
  * @author Manik Surtani
  * @since 4.0
@@ -42,12 +47,22 @@ public MarshallerAdapter(StreamingMarshaller m) {
 
    @Override
    public Buffer objectToBuffer(Object obj) throws Exception {
-      return toBuffer(m.objectToBuffer(obj));
+      OutOfBandPayloads payloads = OutOfBandPayloads.startWriting();
+      try {
+         return toBuffer(payloads.frame(m.objectToBuffer(obj)));
+      } finally {
+         OutOfBandPayloads.finish(payloads);
+      }
    }
 
    @Override
    public Object objectFromBuffer(byte[] buf, int offset, int length) throws Exception {
-      return m.objectFromByteBuffer(buf, offset, length);
+      OutOfBandPayloads payloads = OutOfBandPayloads.startReading(buf, offset, length);
+      try {
+         return m.objectFromByteBuffer(buf, offset, payloads.streamLength());
+      } finally {
+         OutOfBandPayloads.finish(payloads);
+      }
    }
 
    private Buffer toBuffer(ByteBuffer bb) {
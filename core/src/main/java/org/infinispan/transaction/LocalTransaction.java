@@ -65,6 +65,7 @@ public abstract class LocalTransaction extends AbstractCacheTransaction {
 
    private final boolean implicitTransaction;
    private boolean prepareSent = false;   
+   private volatile boolean committedReadOnly;
 
    //total order result -- has the result and behaves like a synchronization point between the remote and local
    // prepare commands
@@ -147,6 +148,39 @@ public boolean isReadOnly() {
       return (modifications == null || modifications.isEmpty()) && (lookedUpEntries == null || lookedUpEntries.isEmpty());
    }
 
+   /**
+    * Unlike {@link #isReadOnly()}, this ignores the entries the transaction has read.
+    *
+    * @return true if the transaction has not written any entry nor acquired any lock, so it has nothing to validate,
+    *         replicate or release and does not need to be prepared.
+    */
+   public boolean hasOnlyReads() {
+      if ((modifications != null && !modifications.isEmpty()) || !getLockedKeys().isEmpty() ||
+            (backupKeyLocks != null && !backupKeyLocks.isEmpty()) || !getRemoteLocksAcquired().isEmpty()) {
+         return false;
+      }
+      if (lookedUpEntries != null) {
+         for (CacheEntry entry : lookedUpEntries.values()) {
+            if (entry.isChanged()) return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Marks the transaction as committed without a prepare phase, see {@link #hasOnlyReads()}.
+    */
+   public void markCommittedReadOnly() {
+      committedReadOnly = true;
+   }
+
+   /**
+    * @return true if the transaction was already committed when prepared, as it had only read
+    */
+   public boolean isCommittedReadOnly() {
+      return committedReadOnly;
+   }
+
    public abstract boolean isEnlisted();
 
    @Override
@@ -127,6 +127,12 @@ public final int prepare(LocalTransaction localTransaction) throws XAException {
    public final int prepare(LocalTransaction localTransaction, boolean replayEntryWrapping) throws XAException {
       validateNotMarkedForRollback(localTransaction);
 
+      if (localTransaction.hasOnlyReads()) {
+         if (trace) log.tracef("Transaction %s has only read, skipping the prepare phase", localTransaction.getGlobalTransaction());
+         commitReadOnly(localTransaction);
+         return XA_RDONLY;
+      }
+
       if (configuration.isOnePhaseCommit() || is1PcForAutoCommitTransaction(localTransaction) ||
             isOnePhaseTotalOrder() || isOnePhasePassiveReplication()) {
          if (trace) log.tracef("Received prepare for tx: %s. Skipping call as 1PC will be used.", localTransaction);
@@ -167,12 +173,21 @@ public final int prepare(LocalTransaction localTransaction, boolean replayEntryW
    }
 
    public void commit(LocalTransaction localTransaction, boolean isOnePhase) throws XAException {
+      if (localTransaction.isCommittedReadOnly()) {
+         if (trace) log.tracef("Transaction %s has only read and was committed when prepared", localTransaction.getGlobalTransaction());
+         return;
+      }
       if (trace) log.tracef("Committing transaction %s", localTransaction.getGlobalTransaction());
       LocalTxInvocationContext ctx = icc.createTxInvocationContext();
       ctx.setLocalTransaction(localTransaction);
       if (configuration.isOnePhaseCommit() || isOnePhase || is1PcForAutoCommitTransaction(localTransaction) ||
             isOnePhaseTotalOrder() || isOnePhasePassiveReplication()) {
          validateNotMarkedForRollback(localTransaction);
+         if (localTransaction.hasOnlyReads()) {
+            if (trace) log.tracef("Transaction %s has only read, skipping the 1PC prepare", localTransaction.getGlobalTransaction());
+            commitReadOnly(localTransaction);
+            return;
+         }
          if (trace) log.trace("Doing an 1PC prepare call on the interceptor chain");
          PrepareCommand command = commandCreator.createPrepareCommand(localTransaction.getGlobalTransaction(), localTransaction.getModifications());
          command.setOnePhaseCommit(true);
@@ -195,6 +210,25 @@ public void commit(LocalTransaction localTransaction, boolean isOnePhase) throws
       }
    }
 
+   /**
+    * A transaction that has only read has nothing to validate, replicate nor lock, so neither the prepare nor the
+    * total order broadcast are needed. The commit command only goes through the local interceptor chain, to release
+    * the context entries and keep the statistics. It is marked as committed, so that the commit the transaction manager
+    * may still request after the prepare does nothing.
+    */
+   private void commitReadOnly(LocalTransaction localTransaction) throws XAException {
+      localTransaction.markCommittedReadOnly();
+      LocalTxInvocationContext ctx = icc.createTxInvocationContext();
+      ctx.setLocalTransaction(localTransaction);
+      CommitCommand commitCommand = commandCreator.createCommitCommand(localTransaction.getGlobalTransaction());
+      try {
+         invoker.invoke(ctx, commitCommand);
+         txTable.removeLocalTransaction(localTransaction);
+      } catch (Throwable e) {
+         handleCommitFailure(e, localTransaction);
+      }
+   }
+
    public void rollback(LocalTransaction localTransaction) throws XAException {
       try {
          rollbackInternal(localTransaction);
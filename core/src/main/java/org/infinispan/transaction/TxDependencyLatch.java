@@ -1,5 +1,6 @@
 package org.infinispan.transaction;
 
+import org.infinispan.container.versioning.EntryVersionsMap;
 import org.infinispan.transaction.xa.GlobalTransaction;
 
 import java.util.concurrent.CountDownLatch;
@@ -8,18 +9,52 @@
  * This latch represents the dependencies between the transactions. A transaction has a set of this latch and
  * it will wait on each one. The latch is released when the transaction finishes (ie, the modification are applied or
  * it is rollbacked)
+ * <p/>
+ * With speculative validation, the latch also signals when the transaction is validated, so that the next conflicting
+ * transaction can be validated against the new versions without waiting for the commit.
  *
  * @author Pedro Ruivo
  * @since 5.2
  */
 public class TxDependencyLatch extends CountDownLatch {
    private String globalTransaction;
+   private final CountDownLatch validated = new CountDownLatch(1);
+   private volatile EntryVersionsMap newVersions;
 
    public TxDependencyLatch(GlobalTransaction globalTransaction) {
       super(1);
       this.globalTransaction = globalTransaction.prettyPrint();
    }
 
+   /**
+    * marks the transaction as validated, unblocking the transactions waiting in {@link #awaitValidation()}
+    *
+    * @param newVersions the versions that will be written when the transaction commits, or null if the validation
+    *                    failed
+    */
+   public void markValidated(EntryVersionsMap newVersions) {
+      this.newVersions = newVersions;
+      validated.countDown();
+   }
+
+   /**
+    * waits until the transaction is validated or finished
+    *
+    * @return the versions that will be written when the transaction commits, or null if the transaction was not
+    *         successfully validated
+    * @throws InterruptedException if interrupted while waiting
+    */
+   public EntryVersionsMap awaitValidation() throws InterruptedException {
+      validated.await();
+      return newVersions;
+   }
+
+   @Override
+   public void countDown() {
+      super.countDown();
+      validated.countDown();
+   }
+
    @Override
    public String toString() {
       return "TxDependencyLatch{" +
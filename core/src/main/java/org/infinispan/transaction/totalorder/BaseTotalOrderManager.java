@@ -157,6 +157,9 @@ public final boolean waitForTxPrepared(TotalOrderRemoteTransaction remoteTransac
       boolean needsToProcessCommand;
       try {
          needsToProcessCommand = remoteTransaction.waitPrepared(commit, newVersions);
+         if (commit && needsToProcessCommand) {
+            awaitCommitDependencies(remoteTransaction);
+         }
          if (trace) log.tracef("Transaction %s successfully finishes the waiting time until prepared. " +
                                      "%s command will be processed? %s", gtx.prettyPrint(),
                                commit ? "Commit" : "Rollback", needsToProcessCommand ? "yes" : "no");
@@ -167,6 +170,17 @@ public final boolean waitForTxPrepared(TotalOrderRemoteTransaction remoteTransac
       return needsToProcessCommand;
    }
 
+   /**
+    * waits until the transactions that must be committed before this transaction are finished. by default, a
+    * transaction is only validated after the conflicting transactions are finished, so nothing needs to be done
+    *
+    * @param remoteTransaction the remote transaction to commit
+    * @throws InterruptedException if interrupted while waiting
+    */
+   protected void awaitCommitDependencies(TotalOrderRemoteTransaction remoteTransaction) throws InterruptedException {
+      //no-op
+   }
+
    /**
     * Remove the keys from the map (if their didn't change) and release the count down latch, unblocking the next
     * transaction
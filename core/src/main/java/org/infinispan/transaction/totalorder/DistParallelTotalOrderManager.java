@@ -51,6 +51,12 @@ public void addLocalTransaction(GlobalTransaction globalTransaction, LocalTransa
       localTransaction.initToCollectAcks(Util.getAffectedKeys(localTransaction.getModifications(), dataContainer));
    }
 
+   @Override
+   protected boolean isSpeculativeValidationEnabled() {
+      //the write skew check is only performed by the owners of the keys
+      return false;
+   }
+
    @Override
    protected ParallelPrepareProcessor constructParallelPrepareProcessor(PrepareCommand prepareCommand, TxInvocationContext ctx,
                                                                         CommandInterceptor invoker,
@@ -2,6 +2,14 @@
 
 import org.infinispan.CacheException;
 import org.infinispan.commands.tx.PrepareCommand;
+import org.infinispan.commands.tx.VersionedPrepareCommand;
+import org.infinispan.commands.write.PutKeyValueCommand;
+import org.infinispan.commands.write.RemoveCommand;
+import org.infinispan.commands.write.WriteCommand;
+import org.infinispan.container.versioning.EntryVersion;
+import org.infinispan.container.versioning.EntryVersionsMap;
+import org.infinispan.container.versioning.IncrementableEntryVersion;
+import org.infinispan.container.versioning.InequalVersionComparisonResult;
 import org.infinispan.context.Flag;
 import org.infinispan.context.impl.TxInvocationContext;
 import org.infinispan.executors.ControllableExecutorService;
@@ -12,6 +20,8 @@
 import org.infinispan.jmx.annotations.ManagedAttribute;
 import org.infinispan.jmx.annotations.ManagedOperation;
 import org.infinispan.transaction.TxDependencyLatch;
+import org.infinispan.transaction.WriteSkewException;
+import org.infinispan.transaction.xa.GlobalTransaction;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 import org.rhq.helpers.pluginAnnotations.agent.DisplayType;
@@ -19,7 +29,9 @@
 import org.rhq.helpers.pluginAnnotations.agent.Operation;
 import org.rhq.helpers.pluginAnnotations.agent.Units;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -47,6 +59,12 @@ public class ParallelTotalOrderManager extends BaseTotalOrderManager {
     */
    private final ConcurrentMap<Object, TxDependencyLatch> keysLocked = new ConcurrentHashMap<Object, TxDependencyLatch>();
 
+   /**
+    * the transactions validated speculatively that must be finished before the transaction commits
+    */
+   private final ConcurrentMap<GlobalTransaction, Set<TxDependencyLatch>> speculativeDependencies =
+         new ConcurrentHashMap<GlobalTransaction, Set<TxDependencyLatch>>();
+
    private volatile ExecutorService validationExecutorService;
    private volatile boolean controllableExecutorService;
 
@@ -66,14 +84,14 @@ public final void processTransactionFromSequencer(PrepareCommand prepareCommand,
       TotalOrderRemoteTransaction remoteTransaction = (TotalOrderRemoteTransaction) ctx.getCacheTransaction();
 
       ParallelPrepareProcessor ppp = constructParallelPrepareProcessor(prepareCommand, ctx, invoker, remoteTransaction);
-      Set<TxDependencyLatch> previousTxs = new HashSet<TxDependencyLatch>();
+      Map<Object, TxDependencyLatch> previousTxs = new HashMap<Object, TxDependencyLatch>();
       Set<Object> keysModified = getModifiedKeyFromModifications(remoteTransaction.getModifications());
 
       //this will collect all the count down latch corresponding to the previous transactions in the queue
       for (Object key : keysModified) {
          TxDependencyLatch prevTx = keysLocked.put(key, remoteTransaction.getLatch());
          if (prevTx != null) {
-            previousTxs.add(prevTx);
+            previousTxs.put(key, prevTx);
          }
       }
 
@@ -91,6 +109,28 @@ public final void finishTransaction(TotalOrderRemoteTransaction remoteTransactio
       for (Object key : getModifiedKeyFromModifications(remoteTransaction.getModifications())) {
          this.keysLocked.remove(key, remoteTransaction.getLatch());
       }
+      speculativeDependencies.remove(remoteTransaction.getGlobalTransaction());
+   }
+
+   @Override
+   protected void awaitCommitDependencies(TotalOrderRemoteTransaction remoteTransaction) throws InterruptedException {
+      Set<TxDependencyLatch> dependencies = speculativeDependencies.remove(remoteTransaction.getGlobalTransaction());
+      if (dependencies == null) {
+         return;
+      }
+      for (TxDependencyLatch prevTx : dependencies) {
+         if (trace) log.tracef("Commit of transaction %s will wait for %s",
+                               remoteTransaction.getGlobalTransaction().prettyPrint(), prevTx);
+         prevTx.await();
+      }
+   }
+
+   /**
+    * @return true if the transactions can be validated against the conflicting transactions validated but not yet
+    *         committed. this is overridden in distributed mode, where the validation is not done in all the nodes
+    */
+   protected boolean isSpeculativeValidationEnabled() {
+      return configuration.transaction().speculativeValidation();
    }
 
    /**
@@ -115,6 +155,8 @@ protected class ParallelPrepareProcessor implements Runnable {
 
       //the set of others transaction's count down latch (it will be unblocked when the transaction finishes)
       private final Set<TxDependencyLatch> previousTransactions;
+      //the previous transaction in the queue for each key written
+      private final Map<Object, TxDependencyLatch> previousTransactionsPerKey;
 
       protected final TotalOrderRemoteTransaction remoteTransaction;
       protected final PrepareCommand prepareCommand;
@@ -135,11 +177,13 @@ protected ParallelPrepareProcessor(PrepareCommand prepareCommand, TxInvocationCo
          this.invoker = invoker;
          this.creationTime = now();
          this.previousTransactions = new HashSet<TxDependencyLatch>();
+         this.previousTransactionsPerKey = new HashMap<Object, TxDependencyLatch>();
          this.remoteTransaction = remoteTransaction;
       }
 
-      public void setPreviousTransactions(Set<TxDependencyLatch> previousTransactions) {
-         this.previousTransactions.addAll(previousTransactions);
+      public void setPreviousTransactions(Map<Object, TxDependencyLatch> previousTransactions) {
+         this.previousTransactionsPerKey.putAll(previousTransactions);
+         this.previousTransactions.addAll(previousTransactions.values());
       }
 
       /**
@@ -176,13 +220,22 @@ Tx1 later aborts (in the other nodes, Tx1 commits and Tx3 aborts)
             throw new IllegalStateException("Dependency transaction must not contains myself in the set");
          }
 
-         for (TxDependencyLatch prevTx : previousTransactions) {
-            if (trace) log.tracef("Transaction %s will wait for %s", gtx, prevTx);
-            prevTx.await();
+         Set<TxDependencyLatch> notCommitted = null;
+         if (!isResend && isSpeculativeValidationEnabled() && canValidateSpeculatively()) {
+            notCommitted = awaitPreviousValidation(gtx);
+         } else {
+            for (TxDependencyLatch prevTx : previousTransactions) {
+               if (trace) log.tracef("Transaction %s will wait for %s", gtx, prevTx);
+               prevTx.await();
+            }
          }
 
          remoteTransaction.markForPreparing();
 
+         if (notCommitted != null && !notCommitted.isEmpty()) {
+            speculativeDependencies.put(remoteTransaction.getGlobalTransaction(), notCommitted);
+         }
+
          if (remoteTransaction.isMarkedForRollback()) {
             //this means that rollback has already been received
             transactionTable.removeRemoteTransaction(remoteTransaction.getGlobalTransaction());
@@ -193,9 +246,76 @@ Tx1 later aborts (in the other nodes, Tx1 commits and Tx3 aborts)
             log.tracef("Transaction %s marked for commit, skipping the write skew check and forcing 1PC", gtx);
             txInvocationContext.setFlags(Flag.SKIP_WRITE_SKEW_CHECK);
             prepareCommand.setOnePhaseCommit(true);
+            awaitCommitDependencies(remoteTransaction);
          }
       }
 
+      /**
+       * the speculative validation is only done for unconditional writes, that don't depend on the value in the data
+       * container, and when the versions seen by the transaction are known
+       */
+      private boolean canValidateSpeculatively() {
+         if (!(prepareCommand instanceof VersionedPrepareCommand) ||
+               ((VersionedPrepareCommand) prepareCommand).getVersionsSeen() == null) {
+            return false;
+         }
+         for (WriteCommand writeCommand : prepareCommand.getModifications()) {
+            if (!(writeCommand instanceof PutKeyValueCommand || writeCommand instanceof RemoveCommand) ||
+                  writeCommand.isConditional()) {
+               return false;
+            }
+         }
+         return true;
+      }
+
+      /**
+       * waits until the previous transactions are validated (instead of finished) and checks the write skew against
+       * the versions that they will write. The versions seen for the keys blindly written are updated, so that the new
+       * versions are generated from the previous transaction's versions. If the previous transaction failed the
+       * validation or is creating the key, it falls back to wait until it is finished
+       *
+       * @param gtx the global transaction (for logging)
+       * @return the previous transactions validated but not yet finished
+       * @throws InterruptedException if interrupted while waiting
+       */
+      private Set<TxDependencyLatch> awaitPreviousValidation(String gtx) throws InterruptedException {
+         VersionedPrepareCommand versionedPrepareCommand = (VersionedPrepareCommand) prepareCommand;
+         EntryVersionsMap versionsSeen = new EntryVersionsMap();
+         versionsSeen.putAll(versionedPrepareCommand.getVersionsSeen());
+         Set<TxDependencyLatch> notCommitted = new HashSet<TxDependencyLatch>();
+
+         for (Map.Entry<Object, TxDependencyLatch> entry : previousTransactionsPerKey.entrySet()) {
+            Object key = entry.getKey();
+            TxDependencyLatch prevTx = entry.getValue();
+            if (prevTx.getCount() == 0) {
+               continue;
+            }
+            if (trace) log.tracef("Transaction %s will wait for validation of %s", gtx, prevTx);
+            EntryVersionsMap prevVersions = prevTx.awaitValidation();
+            IncrementableEntryVersion prevVersion = prevVersions == null ? null : prevVersions.get(key);
+
+            if (prevVersion == null || dataContainer.get(key) == null) {
+               if (trace) log.tracef("Transaction %s cannot be validated speculatively against %s for key %s. " +
+                                           "Waiting until it is finished", gtx, prevTx, key);
+               prevTx.await();
+               continue;
+            }
+
+            EntryVersion versionSeen = versionsSeen.get(key);
+            if (versionSeen == null) {
+               versionsSeen.put(key, prevVersion);
+            } else if (prevVersion.compareTo(versionSeen) == InequalVersionComparisonResult.AFTER) {
+               throw new WriteSkewException("Detected write skew on key " + key + ". Version read was " +
+                                                  versionSeen + " but a previous transaction will write version " +
+                                                  prevVersion, key);
+            }
+            notCommitted.add(prevTx);
+         }
+
+         versionedPrepareCommand.setVersionsSeen(versionsSeen);
+         return notCommitted;
+      }
+
       @Override
       public void run() {
          processStartTime = now();
@@ -236,6 +356,7 @@ public void run() {
        * @param exception true if the result is an exception
        */
       protected void finalizeProcessing(Object result, boolean exception) {
+         remoteTransaction.getLatch().markValidated(exception ? null : remoteTransaction.getUpdatedEntryVersions());
          remoteTransaction.markPreparedAndNotify();
          updateLocalTransaction(result, exception, prepareCommand.getGlobalTransaction());
          if (prepareCommand.isOnePhaseCommit()) {
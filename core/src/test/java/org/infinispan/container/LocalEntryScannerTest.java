@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.container;
+
+import org.infinispan.config.CacheLoaderManagerConfig;
+import org.infinispan.config.Configuration;
+import org.infinispan.loaders.dummy.DummyInMemoryCacheStore;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Tests the scans of {@link LocalEntryScanner}.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "container.LocalEntryScannerTest")
+public class LocalEntryScannerTest extends SingleCacheManagerTest {
+
+   private LocalEntryScanner scanner;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      Configuration cfg = getDefaultStandaloneConfig(false);
+      CacheLoaderManagerConfig clmc = new CacheLoaderManagerConfig();
+      clmc.addCacheLoaderConfig(new DummyInMemoryCacheStore.Cfg());
+      cfg.setCacheLoaderManagerConfig(clmc);
+      EmbeddedCacheManager cm = TestCacheManagerFactory.createCacheManager(cfg);
+      cache = cm.getCache();
+      scanner = TestingUtil.extractComponent(cache, LocalEntryScanner.class);
+      return cm;
+   }
+
+   public void testScanMemoryAndStore() {
+      for (int i = 0; i < 10; i++) {
+         cache.put("k" + i, "v" + i);
+      }
+      for (int i = 0; i < 5; i++) {
+         cache.evict("k" + i);
+      }
+
+      Map<Object, Object> inMemory = toMap(scanner.scan(false, false));
+      assertEquals(5, inMemory.size());
+      for (int i = 5; i < 10; i++) {
+         assertEquals("v" + i, inMemory.get("k" + i));
+      }
+
+      Map<Object, Object> all = toMap(scanner.scan(false, true));
+      assertEquals(10, all.size());
+      for (int i = 0; i < 10; i++) {
+         assertEquals("v" + i, all.get("k" + i));
+      }
+   }
+
+   public void testExpiredEntriesSkipped() throws Exception {
+      cache.put("immortal", "v");
+      cache.put("mortal", "v", 1, TimeUnit.MILLISECONDS);
+      Thread.sleep(10);
+
+      assertEquals(1, toMap(scanner.scan(false, false)).size());
+      assertEquals(1, toMap(scanner.scan(false, true)).size());
+      assertNull(scanner.get("mortal"));
+      assertEquals("v", scanner.get("immortal").getValue());
+   }
+
+   private Map<Object, Object> toMap(Iterator<Map.Entry<Object, Object>> it) {
+      Map<Object, Object> map = new HashMap<Object, Object>();
+      while (it.hasNext()) {
+         Map.Entry<Object, Object> e = it.next();
+         assertNull("Duplicate key " + e.getKey(), map.put(e.getKey(), e.getValue()));
+      }
+      return map;
+   }
+}
@@ -21,6 +21,7 @@
 
 import org.infinispan.Cache;
 import org.infinispan.commands.VisitableCommand;
+import org.infinispan.commands.read.GetKeyValueCommand;
 import org.infinispan.commands.tx.CommitCommand;
 import org.infinispan.configuration.cache.CacheMode;
 import org.infinispan.context.Flag;
@@ -35,6 +36,7 @@
 
 import javax.transaction.RollbackException;
 import javax.transaction.Transaction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Test(testName = "container.versioning.DistWriteSkewTest", groups = "functional")
 @CleanupAfterMethod
@@ -285,6 +287,30 @@ protected Object handleDefault(InvocationContext ctx, VisitableCommand command)
       assert cache3.get(hello).equals("world 2");
    }
 
+   public void testWriteAfterReadOnNonOwnerReusesFetchedVersion() throws Exception {
+      MagicKey hello = new MagicKey(cache(0), "hello");
+      int nonOwner = 0;
+      while (DistributionTestHelper.isOwner(cache(nonOwner), hello)) nonOwner++;
+
+      cache(0).put(hello, "world 1");
+
+      AtomicInteger remoteGets = new AtomicInteger(0);
+      for (Cache<Object, Object> c : caches()) c.getAdvancedCache().addInterceptor(new RemoteGetCountingInterceptor(remoteGets), 0);
+      try {
+         tm(nonOwner).begin();
+         assert "world 1".equals(cache(nonOwner).get(hello));
+         int remoteGetsAfterRead = remoteGets.get();
+         assert remoteGetsAfterRead > 0;
+         assert "world 1".equals(cache(nonOwner).put(hello, "world 2"));
+         assert remoteGets.get() == remoteGetsAfterRead : "The write should not fetch the entry again";
+         tm(nonOwner).commit();
+      } finally {
+         for (Cache<Object, Object> c : caches()) c.getAdvancedCache().removeInterceptor(RemoteGetCountingInterceptor.class);
+      }
+
+      for (Cache<Object, Object> c : caches()) assert "world 2".equals(c.get(hello));
+   }
+
    public void testLocalOnlyPut() {
       localOnlyPut(this.<Integer, String>cache(0), 1, "v1");
       localOnlyPut(this.<Integer, String>cache(1), 2, "v2");
@@ -296,4 +322,17 @@ private void localOnlyPut(Cache<Integer, String> cache, Integer k, String v) {
       cache.getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL).put(k, v);
    }
 
+   public static class RemoteGetCountingInterceptor extends CommandInterceptor {
+      final AtomicInteger remoteGets;
+
+      public RemoteGetCountingInterceptor(AtomicInteger remoteGets) {
+         this.remoteGets = remoteGets;
+      }
+
+      @Override
+      public Object visitGetKeyValueCommand(InvocationContext ctx, GetKeyValueCommand command) throws Throwable {
+         if (!ctx.isOriginLocal()) remoteGets.incrementAndGet();
+         return invokeNextInterceptor(ctx, command);
+      }
+   }
 }
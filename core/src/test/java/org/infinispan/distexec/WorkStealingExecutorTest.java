@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distexec;
+
+import org.infinispan.Cache;
+import org.infinispan.distribution.BaseDistFunctionalTest;
+import org.infinispan.remoting.transport.Address;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Tests the keyed tasks DefaultExecutorService splits into units stolen by idle owners.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "distexec.WorkStealingExecutorTest")
+public class WorkStealingExecutorTest extends BaseDistFunctionalTest {
+
+   private static final int NUM_KEYS = 200;
+   private static volatile Address slowNode;
+   private static final AtomicInteger executedKeys = new AtomicInteger();
+   private static final AtomicInteger stolenUnits = new AtomicInteger();
+
+   public void testSlowNodeUnitsStolen() throws Exception {
+      String[] keys = new String[NUM_KEYS];
+      int expectedSum = 0;
+      for (int i = 0; i < NUM_KEYS; i++) {
+         keys[i] = "key" + i;
+         c1.put(keys[i], String.valueOf(i));
+         expectedSum += i;
+      }
+      slowNode = address(c2);
+      executedKeys.set(0);
+      stolenUnits.set(0);
+
+      DefaultExecutorService des = new DefaultExecutorService(c1);
+      des.setMaxKeysPerTask(2);
+      List<Future<Integer>> futures = des.submitEverywhere(new SumCallable(), keys);
+      assert futures.size() >= NUM_KEYS / 2;
+      int sum = 0;
+      for (Future<Integer> f : futures) {
+         sum += f.get();
+      }
+      assertEquals(expectedSum, sum);
+      assertEquals(NUM_KEYS, executedKeys.get());
+      assert stolenUnits.get() > 0 : "The units of the slow node should have been stolen";
+   }
+
+   private static Address address(Cache<?, ?> cache) {
+      return cache.getAdvancedCache().getRpcManager().getAddress();
+   }
+
+   static class SumCallable implements DistributedCallable<String, String, Integer>, Serializable {
+
+      /** The serialVersionUID */
+      private static final long serialVersionUID = -4309746290553862176L;
+      private Cache<String, String> cache;
+      private Set<String> inputKeys;
+
+      @Override
+      public void setEnvironment(Cache<String, String> cache, Set<String> inputKeys) {
+         this.cache = cache;
+         this.inputKeys = inputKeys;
+      }
+
+      @Override
+      public Integer call() throws Exception {
+         Address self = address(cache);
+         if (self.equals(slowNode))
+            Thread.sleep(100);
+         int sum = 0;
+         for (String key : inputKeys) {
+            if (!self.equals(cache.getAdvancedCache().getDistributionManager().getPrimaryLocation(key)))
+               stolenUnits.incrementAndGet();
+            sum += Integer.parseInt(cache.get(key));
+         }
+         executedKeys.addAndGet(inputKeys.size());
+         return sum;
+      }
+   }
+}
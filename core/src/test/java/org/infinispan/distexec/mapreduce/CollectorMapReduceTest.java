@@ -0,0 +1,123 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distexec.mapreduce;
+
+import org.infinispan.Cache;
+import org.infinispan.config.Configuration;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.Test;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Tests MapReduceTask with a Combiner and with collected values spilled to disk.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "distexec.CollectorMapReduceTest")
+public class CollectorMapReduceTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_ENTRIES = 2000;
+   private static final int NUM_GROUPS = 500;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      Configuration cfg = getDefaultClusteredConfig(Configuration.CacheMode.DIST_SYNC, true);
+      createClusteredCaches(2, "mapreducecache", cfg);
+   }
+
+   public void testCombiner() {
+      Map<String, Integer> result = createTask().combinedWith(new SumCombiner()).execute();
+      assertResult(result);
+   }
+
+   public void testSpillToDisk() {
+      Map<String, Integer> result = createTask().maxCollectedValues(100).execute();
+      assertResult(result);
+   }
+
+   public void testSpillToDiskWithDistributedReduce() {
+      Map<String, Integer> result = createTask().maxCollectedValues(100).distributeReducePhase(true).execute();
+      assertResult(result);
+   }
+
+   public void testSpillToDiskWithMergedRuns() {
+      // hundreds of runs per node, more than can be merged at once
+      Map<String, Integer> result = createTask().maxCollectedValues(5).execute();
+      assertResult(result);
+   }
+
+   private void assertResult(Map<String, Integer> result) {
+      assertEquals(NUM_GROUPS + 2, result.size());
+      for (int i = 0; i < NUM_GROUPS; i++) {
+         assertEquals(NUM_ENTRIES / NUM_GROUPS, result.get("group" + i).intValue());
+      }
+      // "Aa" and "BB" share their hash code
+      assertEquals(NUM_ENTRIES / 2, result.get("Aa").intValue());
+      assertEquals(NUM_ENTRIES / 2, result.get("BB").intValue());
+   }
+
+   private MapReduceTask<Integer, Integer, String, Integer> createTask() {
+      Cache<Integer, Integer> c1 = cache(0, "mapreducecache");
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         c1.put(i, i);
+      }
+      MapReduceTask<Integer, Integer, String, Integer> task = new MapReduceTask<Integer, Integer, String, Integer>(c1);
+      return task.mappedWith(new GroupMapper()).reducedWith(new SumReducer());
+   }
+
+   private static class GroupMapper implements Mapper<Integer, Integer, String, Integer> {
+      private static final long serialVersionUID = -7290158315642618457L;
+
+      @Override
+      public void map(Integer key, Integer value, Collector<String, Integer> collector) {
+         collector.emit("group" + value % NUM_GROUPS, 1);
+         collector.emit(value % 2 == 0 ? "Aa" : "BB", 1);
+      }
+   }
+
+   private static class SumReducer implements Reducer<String, Integer> {
+      private static final long serialVersionUID = 2961585402310964843L;
+
+      @Override
+      public Integer reduce(String key, Iterator<Integer> iter) {
+         int sum = 0;
+         while (iter.hasNext()) {
+            sum += iter.next();
+         }
+         return sum;
+      }
+   }
+
+   private static class SumCombiner implements Combiner<String, Integer> {
+      private static final long serialVersionUID = -1467321029436541201L;
+
+      @Override
+      public Integer combine(String key, Integer combined, Integer emitted) {
+         return combined + emitted;
+      }
+   }
+}
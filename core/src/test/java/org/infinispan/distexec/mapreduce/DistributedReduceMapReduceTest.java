@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distexec.mapreduce;
+
+import org.infinispan.Cache;
+import org.infinispan.config.Configuration;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.Test;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Tests MapReduceTask with its reduce phase distributed across the cluster.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "distexec.DistributedReduceMapReduceTest")
+public class DistributedReduceMapReduceTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_ENTRIES = 1000;
+   private static final int NUM_GROUPS = 100;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      Configuration cfg = getDefaultClusteredConfig(Configuration.CacheMode.DIST_SYNC, true);
+      createClusteredCaches(3, "mapreducecache", cfg);
+      defineConfigurationOnAllManagers("results", cfg);
+      for (int i = 0; i < 3; i++) {
+         cache(i, "results");
+      }
+      waitForClusterToForm("results");
+   }
+
+   public void testReturnedResult() {
+      Map<String, Integer> result = createTask().distributeReducePhase(true).execute();
+      assertEquals(NUM_GROUPS, result.size());
+      for (int i = 0; i < NUM_GROUPS; i++) {
+         assertEquals(NUM_ENTRIES / NUM_GROUPS, result.get("group" + i).intValue());
+      }
+   }
+
+   public void testReturnedResultOnSubsetOfKeys() {
+      MapReduceTask<Integer, Integer, String, Integer> task = createTask().distributeReducePhase(true);
+      task.onKeys(0, 1, 2, 100, 200);
+      Map<String, Integer> result = task.execute();
+      assertEquals(3, result.size());
+      assertEquals(3, result.get("group0").intValue());
+      assertEquals(1, result.get("group1").intValue());
+      assertEquals(1, result.get("group2").intValue());
+   }
+
+   public void testResultsCache() {
+      createTask().execute("results");
+      for (int i = 0; i < 3; i++) {
+         Cache<String, Integer> results = cache(i, "results");
+         for (int j = 0; j < NUM_GROUPS; j++) {
+            assertEquals(NUM_ENTRIES / NUM_GROUPS, results.get("group" + j).intValue());
+         }
+      }
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testResultsCacheNotRunning() {
+      createTask().execute("notRunning");
+   }
+
+   private MapReduceTask<Integer, Integer, String, Integer> createTask() {
+      Cache<Integer, Integer> c1 = cache(0, "mapreducecache");
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         c1.put(i, i);
+      }
+      MapReduceTask<Integer, Integer, String, Integer> task = new MapReduceTask<Integer, Integer, String, Integer>(c1);
+      return task.mappedWith(new GroupMapper()).reducedWith(new CountReducer());
+   }
+
+   private static class GroupMapper implements Mapper<Integer, Integer, String, Integer> {
+      private static final long serialVersionUID = 6342710483201918577L;
+
+      @Override
+      public void map(Integer key, Integer value, Collector<String, Integer> collector) {
+         collector.emit("group" + value % NUM_GROUPS, 1);
+      }
+   }
+
+   private static class CountReducer implements Reducer<String, Integer> {
+      private static final long serialVersionUID = -3857926641835570251L;
+
+      @Override
+      public Integer reduce(String key, Iterator<Integer> iter) {
+         int sum = 0;
+         while (iter.hasNext()) {
+            sum += iter.next();
+         }
+         return sum;
+      }
+   }
+}
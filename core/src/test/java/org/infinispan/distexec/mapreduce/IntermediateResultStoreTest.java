@@ -0,0 +1,58 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distexec.mapreduce;
+
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+/**
+ * Tests the intermediate keys collected by {@link IntermediateResultStore}, including the ones shuffled late.
+ *
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "distexec.IntermediateResultStoreTest")
+public class IntermediateResultStoreTest {
+
+   public void testAddAndRemove() {
+      IntermediateResultStore store = new IntermediateResultStore();
+      store.add("task", Collections.<Object, Object>singletonMap("k", 1));
+      store.add("task", Collections.<Object, Object>singletonMap("k", 2));
+      Map<Object, List<Object>> collected = store.remove("task");
+      assertEquals(2, collected.get("k").size());
+      assertNull(store.remove("task"));
+   }
+
+   public void testAddAfterRemoveIsDropped() {
+      IntermediateResultStore store = new IntermediateResultStore();
+      store.add("task", Collections.<Object, Object>singletonMap("k", 1));
+      store.remove("task");
+      store.add("task", Collections.<Object, Object>singletonMap("k", 2));
+      assertNull(store.remove("task"));
+   }
+}
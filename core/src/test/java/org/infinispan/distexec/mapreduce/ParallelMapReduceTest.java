@@ -0,0 +1,92 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.distexec.mapreduce;
+
+import org.infinispan.Cache;
+import org.infinispan.config.Configuration;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.testng.annotations.Test;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+/**
+ * Tests MapReduceTask with enough input keys for the map phase to be split across threads.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "distexec.ParallelMapReduceTest")
+public class ParallelMapReduceTest extends MultipleCacheManagersTest {
+
+   private static final int NUM_ENTRIES = 5000;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      Configuration cfg = getDefaultClusteredConfig(Configuration.CacheMode.DIST_SYNC, true);
+      createClusteredCaches(2, "mapreducecache", cfg);
+   }
+
+   public void testParallelMapPhase() {
+      Cache<Integer, Integer> c1 = cache(0, "mapreducecache");
+      for (int i = 0; i < NUM_ENTRIES; i++) {
+         c1.put(i, i);
+      }
+      MapReduceTask<Integer, Integer, String, Integer> task = new MapReduceTask<Integer, Integer, String, Integer>(c1);
+      task.mappedWith(new ParityMapper()).reducedWith(new SumReducer());
+      Map<String, Integer> result = task.execute();
+      assertEquals(2, result.size());
+      assertEquals(NUM_ENTRIES / 2, result.get("even").intValue());
+      assertEquals(NUM_ENTRIES / 2, result.get("odd").intValue());
+   }
+
+   /**
+    * Fails if the same instance is used by more than one thread
+    */
+   private static class ParityMapper implements Mapper<Integer, Integer, String, Integer> {
+      private static final long serialVersionUID = -2135226958914349618L;
+      private transient Thread owner;
+
+      @Override
+      public void map(Integer key, Integer value, Collector<String, Integer> collector) {
+         if (owner == null)
+            owner = Thread.currentThread();
+         assert owner == Thread.currentThread();
+         collector.emit(value % 2 == 0 ? "even" : "odd", 1);
+      }
+   }
+
+   private static class SumReducer implements Reducer<String, Integer> {
+      private static final long serialVersionUID = 4236742157359513347L;
+
+      @Override
+      public Integer reduce(String key, Iterator<Integer> iter) {
+         int sum = 0;
+         while (iter.hasNext()) {
+            sum += iter.next();
+         }
+         return sum;
+      }
+   }
+}
@@ -62,6 +62,7 @@
 import org.infinispan.remoting.responses.UnsuccessfulResponse;
 import org.infinispan.remoting.transport.Address;
 import org.infinispan.remoting.transport.jgroups.JGroupsAddress;
+import org.infinispan.remoting.transport.jgroups.MarshallerAdapter;
 import org.infinispan.test.AbstractInfinispanTest;
 import org.infinispan.test.data.Person;
 import org.infinispan.test.fwk.TestCacheManagerFactory;
@@ -76,6 +77,7 @@
 import org.infinispan.util.logging.LogFactory;
 import org.jboss.marshalling.TraceInformation;
 import org.jgroups.stack.IpAddress;
+import org.jgroups.util.Buffer;
 import org.jgroups.util.UUID;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeTest;
@@ -209,6 +211,46 @@ public void testMarshalledValueGetMarshalling() throws Exception {
       assert rmv.get() instanceof Pojo;
    }
 
+   public void testMarshalledValueOutOfBandMarshalling() throws Exception {
+      MarshallerAdapter adapter = new MarshallerAdapter(marshaller);
+      char[] chars = new char[1024];
+      Arrays.fill(chars, 'x');
+      MarshalledValue large = new MarshalledValue(new String(chars), true, marshaller);
+      MarshalledValue small = new MarshalledValue(42, true, marshaller);
+      List<MarshalledValue> values = Arrays.asList(large, small);
+
+      Buffer buffer = adapter.objectToBuffer(values);
+      List<MarshalledValue> read = (List<MarshalledValue>) adapter.objectFromBuffer(buffer.getBuf(), buffer.getOffset(), buffer.getLength());
+      assertEquals(values, read);
+      // the large payload is a view on the received buffer, the small one is inlined in the stream
+      assert read.get(0).raw.getBuf() == buffer.getBuf();
+      assert read.get(1).raw.getBuf() != buffer.getBuf();
+      assertEquals(new String(chars), read.get(0).get());
+      assert Arrays.equals(large.getRaw(), read.get(0).getRaw());
+
+      // outside of the adapter, the same values are marshalled inline
+      byte[] bytes = marshaller.objectToByteBuffer(large);
+      assertEquals(large, marshaller.objectFromByteBuffer(bytes));
+   }
+
+   public void testMarshalledValueSmallViewIsCopied() throws Exception {
+      MarshallerAdapter adapter = new MarshallerAdapter(marshaller);
+      List<MarshalledValue> values = new ArrayList<MarshalledValue>();
+      for (int i = 0; i < 8; i++) {
+         char[] chars = new char[256];
+         Arrays.fill(chars, (char) ('a' + i));
+         values.add(new MarshalledValue(new String(chars), true, marshaller));
+      }
+
+      Buffer buffer = adapter.objectToBuffer(values);
+      List<MarshalledValue> read = (List<MarshalledValue>) adapter.objectFromBuffer(buffer.getBuf(), buffer.getOffset(), buffer.getLength());
+      assertEquals(values, read);
+      // each value only spans a small part of the received buffer, so it doesn't keep the buffer alive
+      for (MarshalledValue mv : read) {
+         assert mv.raw.getBuf() != buffer.getBuf();
+      }
+   }
+
    public void testSingletonListMarshalling() throws Exception {
       GlobalTransaction gtx = gtf.newGlobalTransaction(new JGroupsAddress(new IpAddress(12345)), false);
       List l = Collections.singletonList(gtx);
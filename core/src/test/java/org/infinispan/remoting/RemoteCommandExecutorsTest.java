@@ -0,0 +1,116 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.remoting;
+
+import org.infinispan.commands.CommandsFactory;
+import org.infinispan.commands.read.DistributedExecuteCommand;
+import org.infinispan.configuration.cache.CacheMode;
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.distribution.MagicKey;
+import org.infinispan.remoting.rpc.RpcManager;
+import org.infinispan.remoting.transport.Address;
+import org.infinispan.test.MultipleCacheManagersTest;
+import org.infinispan.test.TestingUtil;
+import org.infinispan.util.concurrent.NotifyingFutureImpl;
+import org.testng.annotations.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Tests that the {@link RemoteCommandPriority#HIGH} commands are executed while the pool of the
+ * {@link RemoteCommandPriority#LOW} commands is busy.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "remoting.RemoteCommandExecutorsTest")
+public class RemoteCommandExecutorsTest extends MultipleCacheManagersTest {
+
+   // more than the threads of the JGroups pools of the test stacks
+   private static final int BLOCKED_COMMANDS = 12;
+
+   static volatile CountDownLatch release;
+
+   @Override
+   protected void createCacheManagers() throws Throwable {
+      ConfigurationBuilder builder = getDefaultClusteredCacheConfig(CacheMode.DIST_SYNC, false);
+      builder.clustering().hash().numOwners(1)
+            .remoteCommands()
+               .addProperty(RemoteCommandExecutors.ISOLATED_PRIORITIES, "low")
+               .addProperty("low.minThreads", "1")
+               .addProperty("low.maxThreads", "1");
+      createClusteredCaches(2, "remoteCommands", builder);
+   }
+
+   public void testHighPriorityCommandWhileLowPriorityPoolIsBusy() throws Exception {
+      final MagicKey key = new MagicKey(cache(1, "remoteCommands"));
+      cache(1, "remoteCommands").put(key, "value");
+
+      release = new CountDownLatch(1);
+      CommandsFactory commandsFactory = TestingUtil.extractComponent(cache(0, "remoteCommands"), CommandsFactory.class);
+      RpcManager rpcManager = TestingUtil.extractComponent(cache(0, "remoteCommands"), RpcManager.class);
+      List<Address> target = Collections.singletonList(address(1));
+      List<NotifyingFutureImpl> blocked = new ArrayList<NotifyingFutureImpl>();
+      try {
+         for (int i = 0; i < BLOCKED_COMMANDS; i++) {
+            DistributedExecuteCommand<Boolean> command =
+                  commandsFactory.buildDistributedExecuteCommand(new BlockingCallable(), address(0), null);
+            NotifyingFutureImpl future = new NotifyingFutureImpl(null);
+            // out of band, so that each command takes a JGroups thread if it is executed by the receiving thread
+            rpcManager.invokeRemotelyInFuture(target, command, true, future);
+            blocked.add(future);
+         }
+
+         Future<Object> get = fork(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+               return cache(0, "remoteCommands").get(key);
+            }
+         });
+         assertEquals(get.get(10, TimeUnit.SECONDS), "value");
+      } finally {
+         release.countDown();
+      }
+
+      for (NotifyingFutureImpl future : blocked) {
+         future.get(30, TimeUnit.SECONDS);
+      }
+   }
+
+   static class BlockingCallable implements Callable<Boolean>, Serializable {
+      private static final long serialVersionUID = 3290734560234728341L;
+
+      @Override
+      public Boolean call() throws Exception {
+         return release.await(30, TimeUnit.SECONDS);
+      }
+   }
+}
@@ -22,8 +22,12 @@
  */
 package org.infinispan.tx;
 
+import org.infinispan.commands.tx.CommitCommand;
+import org.infinispan.commands.tx.PrepareCommand;
 import org.infinispan.config.Configuration;
 import org.infinispan.context.Flag;
+import org.infinispan.context.impl.TxInvocationContext;
+import org.infinispan.interceptors.base.CommandInterceptor;
 import org.infinispan.manager.EmbeddedCacheManager;
 import org.infinispan.test.SingleCacheManagerTest;
 import org.infinispan.test.TestingUtil;
@@ -76,8 +80,47 @@ public void testNotROWhenHasOnlyLocks() throws Exception {
       assert localTransaction != null && !localTransaction.isReadOnly();
    }
 
+   public void testReadOnlyTxIsNotPrepared() throws Exception {
+      cache.put("k", "v");
+      PrepareCountingInterceptor counter = new PrepareCountingInterceptor();
+      cache.getAdvancedCache().addInterceptor(counter, 0);
+      try {
+         tm().begin();
+         assert "v".equals(cache.get("k"));
+         tm().commit();
+         assert counter.prepares == 0;
+         assert counter.commits == 1 : "Committed " + counter.commits + " times";
+         assert txTable().getLocalTxCount() == 0;
+
+         tm().begin();
+         assert "v".equals(cache.get("k"));
+         cache.put("k", "v2");
+         tm().commit();
+         assert counter.prepares == 1;
+         assert "v2".equals(cache.get("k"));
+      } finally {
+         cache.getAdvancedCache().removeInterceptor(PrepareCountingInterceptor.class);
+      }
+   }
 
    private TransactionTable txTable() {
       return TestingUtil.getTransactionTable(cache);
    }
+
+   public static class PrepareCountingInterceptor extends CommandInterceptor {
+      volatile int prepares;
+      volatile int commits;
+
+      @Override
+      public Object visitPrepareCommand(TxInvocationContext ctx, PrepareCommand command) throws Throwable {
+         prepares++;
+         return invokeNextInterceptor(ctx, command);
+      }
+
+      @Override
+      public Object visitCommitCommand(TxInvocationContext ctx, CommitCommand command) throws Throwable {
+         commits++;
+         return invokeNextInterceptor(ctx, command);
+      }
+   }
 }
@@ -0,0 +1,104 @@
+package org.infinispan.tx.totalorder;
+
+import org.infinispan.configuration.cache.ConfigurationBuilder;
+import org.infinispan.test.fwk.CleanupAfterMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import javax.transaction.RollbackException;
+
+import static org.testng.Assert.assertEquals;
+
+/**
+ * Runs the total order write skew tests with the speculative validation enabled
+ *
+ * @since 5.2
+ */
+@Test (groups = "functional", testName = "tx.totalorder.TotalOrderSpeculativeWriteSkewTest")
+@CleanupAfterMethod
+public class TotalOrderSpeculativeWriteSkewTest extends TotalOrderWriteSkewTest {
+
+   private static final int TRANSACTIONS = 10;
+
+   @Override
+   protected void decorate(ConfigurationBuilder builder) {
+      super.decorate(builder);
+      builder.transaction().speculativeValidation(true);
+   }
+
+   public void testConcurrentBlindWritesOnSameKey() throws Exception {
+      final CountDownLatch written = new CountDownLatch(TRANSACTIONS);
+      final CountDownLatch commit = new CountDownLatch(1);
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int i = 0; i < TRANSACTIONS; i++) {
+         final int cacheIndex = i % 2;
+         final String value = "v" + i;
+         futures.add(fork(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               tm(cacheIndex).begin();
+               // the key does not exist yet, so the transaction does not see any version of it
+               cache(cacheIndex).put("k", value);
+               written.countDown();
+               commit.await();
+               tm(cacheIndex).commit();
+               return null;
+            }
+         }));
+      }
+      written.await();
+      cache(0).put("k", "init");
+      commit.countDown();
+
+      // nothing was read, so there is no write skew and all the transactions commit
+      for (Future<Void> future : futures) {
+         future.get();
+      }
+      assert !"init".equals(cache(0).get("k")) : "The blind writes were lost";
+      assertEquals(cache(1).get("k"), cache(0).get("k"));
+      assertNoTransactions();
+   }
+
+   public void testConcurrentConflictingWritesOnSameKey() throws Exception {
+      cache(0).put("k", "init");
+      final CountDownLatch read = new CountDownLatch(TRANSACTIONS);
+      final CountDownLatch commit = new CountDownLatch(1);
+      List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+      for (int i = 0; i < TRANSACTIONS; i++) {
+         final int cacheIndex = i % 2;
+         final String value = "v" + i;
+         futures.add(fork(new Callable<Boolean>() {
+            @Override
+            public Boolean call() throws Exception {
+               tm(cacheIndex).begin();
+               assertEquals(cache(cacheIndex).get("k"), "init");
+               cache(cacheIndex).put("k", value);
+               read.countDown();
+               commit.await();
+               try {
+                  tm(cacheIndex).commit();
+                  return true;
+               } catch (RollbackException expected) {
+                  return false;
+               }
+            }
+         }));
+      }
+      read.await();
+      commit.countDown();
+
+      // all the transactions read the same version, so only one of them can commit
+      int committed = 0;
+      for (Future<Boolean> future : futures) {
+         if (future.get()) committed++;
+      }
+      assertEquals(committed, 1);
+      assertEquals(cache(1).get("k"), cache(0).get("k"));
+      assertNoTransactions();
+   }
+}
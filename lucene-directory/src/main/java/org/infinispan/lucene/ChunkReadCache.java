@@ -0,0 +1,257 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.lucene;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.infinispan.AdvancedCache;
+import org.infinispan.util.concurrent.ConcurrentMapFactory;
+import org.infinispan.util.concurrent.FutureListener;
+import org.infinispan.util.concurrent.NotifyingFuture;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+/**
+ * Chunk reads of an {@link InfinispanDirectory}, shared by all its {@link InfinispanIndexInput}s and their clones.
+ * <p>
+ * Recently read chunks are kept in a LRU bounded in bytes, so that readers crossing the same chunk boundaries
+ * don't fetch the chunk again from a remote node. While a file is read sequentially the next chunks are
+ * fetched asynchronously, before the reader reaches them.
+ * <p>
+ * As Lucene never rewrites a file, a chunk kept here is valid as long as its file exists; the directory
+ * drops the chunks of the files it deletes or renames.
+ * 
+ * @since 5.2
+ */
+@SuppressWarnings("unchecked")
+public final class ChunkReadCache {
+
+   public static final int DEFAULT_READ_AHEAD_CHUNKS = 2;
+
+   public static final long DEFAULT_MAX_CACHED_BYTES = 4 * 1024 * 1024;
+
+   private static final Log log = LogFactory.getLog(ChunkReadCache.class);
+
+   private final AdvancedCache<ChunkCacheKey, Object> chunksCache;
+
+   // guarded by this, in access order
+   private final LinkedHashMap<ChunkCacheKey, byte[]> recentChunks = new LinkedHashMap<ChunkCacheKey, byte[]>(16, 0.75f, true);
+   private long cachedBytes;
+
+   private final ConcurrentMap<ChunkCacheKey, NotifyingFuture<Object>> pendingReads = ConcurrentMapFactory.makeConcurrentMap();
+
+   private volatile int readAheadChunks = DEFAULT_READ_AHEAD_CHUNKS;
+   private volatile long maxCachedBytes = DEFAULT_MAX_CACHED_BYTES;
+
+   private final AtomicLong hits = new AtomicLong();
+   private final AtomicLong readAheadHits = new AtomicLong();
+   private final AtomicLong misses = new AtomicLong();
+
+   ChunkReadCache(AdvancedCache<ChunkCacheKey, Object> chunksCache) {
+      this.chunksCache = chunksCache;
+   }
+
+   /**
+    * @param key the chunk to read
+    * @return the chunk, or null if it doesn't exist
+    */
+   byte[] get(ChunkCacheKey key) {
+      byte[] chunk = getRecent(key);
+      if (chunk != null) {
+         hits.incrementAndGet();
+         return chunk;
+      }
+      Future<Object> pending = pendingReads.get(key);
+      if (pending != null) {
+         chunk = waitFor(pending);
+         if (chunk != null) {
+            readAheadHits.incrementAndGet();
+            addRecent(key, chunk);
+            return chunk;
+         }
+      }
+      misses.incrementAndGet();
+      chunk = (byte[]) chunksCache.get(key);
+      if (chunk != null) {
+         addRecent(key, chunk);
+      }
+      return chunk;
+   }
+
+   /**
+    * Starts fetching the chunks following <code>chunkId</code>, if not already available.
+    * 
+    * @param numberOfChunks the number of chunks of the file
+    */
+   void readAhead(String indexName, String fileName, int chunkId, int numberOfChunks) {
+      int last = Math.min(chunkId + readAheadChunks, numberOfChunks - 1);
+      for (int i = chunkId + 1; i <= last; i++) {
+         final ChunkCacheKey key = new ChunkCacheKey(indexName, fileName, i);
+         if (pendingReads.containsKey(key) || containsRecent(key)) {
+            continue;
+         }
+         final NotifyingFuture<Object> future = chunksCache.getAsync(key);
+         if (pendingReads.putIfAbsent(key, future) != null) {
+            continue;
+         }
+         future.attachListener(new FutureListener<Object>() {
+            @Override
+            public void futureDone(Future<Object> done) {
+               byte[] chunk = waitFor(done);
+               if (chunk != null) {
+                  addRecent(key, chunk);
+               }
+               pendingReads.remove(key, future);
+            }
+         });
+      }
+   }
+
+   /**
+    * Drops the chunks of a file.
+    */
+   void invalidate(String fileName) {
+      synchronized (this) {
+         for (Iterator<ChunkCacheKey> it = recentChunks.keySet().iterator(); it.hasNext(); ) {
+            ChunkCacheKey key = it.next();
+            if (key.getFileName().equals(fileName)) {
+               cachedBytes -= recentChunks.get(key).length;
+               it.remove();
+            }
+         }
+      }
+      for (ChunkCacheKey key : pendingReads.keySet()) {
+         if (key.getFileName().equals(fileName)) {
+            pendingReads.remove(key);
+         }
+      }
+   }
+
+   private byte[] waitFor(Future<Object> future) {
+      try {
+         return (byte[]) future.get();
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      } catch (ExecutionException e) {
+         log.debug("Read ahead of a chunk failed, it will be read again", e.getCause());
+      }
+      return null;
+   }
+
+   private synchronized byte[] getRecent(ChunkCacheKey key) {
+      return recentChunks.get(key);
+   }
+
+   private synchronized boolean containsRecent(ChunkCacheKey key) {
+      return recentChunks.containsKey(key);
+   }
+
+   private synchronized void addRecent(ChunkCacheKey key, byte[] chunk) {
+      long max = maxCachedBytes;
+      if (chunk.length > max) {
+         return;
+      }
+      byte[] previous = recentChunks.put(key, chunk);
+      if (previous != null) {
+         cachedBytes -= previous.length;
+      }
+      cachedBytes += chunk.length;
+      for (Iterator<byte[]> it = recentChunks.values().iterator(); cachedBytes > max && it.hasNext(); ) {
+         cachedBytes -= it.next().length;
+         it.remove();
+      }
+   }
+
+   /**
+    * @param readAheadChunks how many chunks to fetch ahead of a sequential reader, 0 to disable read-ahead
+    */
+   public void setReadAheadChunks(int readAheadChunks) {
+      if (readAheadChunks < 0)
+         throw new IllegalArgumentException("readAheadChunks must not be negative");
+      this.readAheadChunks = readAheadChunks;
+   }
+
+   public int getReadAheadChunks() {
+      return readAheadChunks;
+   }
+
+   /**
+    * @param maxCachedBytes the maximum size of the recently read chunks kept, 0 to disable caching
+    */
+   public void setMaxCachedBytes(long maxCachedBytes) {
+      if (maxCachedBytes < 0)
+         throw new IllegalArgumentException("maxCachedBytes must not be negative");
+      this.maxCachedBytes = maxCachedBytes;
+      if (maxCachedBytes == 0) {
+         synchronized (this) {
+            recentChunks.clear();
+            cachedBytes = 0;
+         }
+      }
+   }
+
+   public long getMaxCachedBytes() {
+      return maxCachedBytes;
+   }
+
+   /**
+    * @return the number of chunk reads served by the recently read chunks
+    */
+   public long getHits() {
+      return hits.get();
+   }
+
+   /**
+    * @return the number of chunk reads served by a read-ahead still in progress
+    */
+   public long getReadAheadHits() {
+      return readAheadHits.get();
+   }
+
+   /**
+    * @return the number of chunk reads which had to be fetched from the cache
+    */
+   public long getMisses() {
+      return misses.get();
+   }
+
+   /**
+    * Resets the hit and miss counters.
+    */
+   public void resetStatistics() {
+      hits.set(0);
+      readAheadHits.set(0);
+      misses.set(0);
+   }
+
+   @Override
+   public String toString() {
+      return "ChunkReadCache{hits=" + hits + ", readAheadHits=" + readAheadHits + ", misses=" + misses + '}';
+   }
+
+}
@@ -97,6 +97,7 @@ public class InfinispanDirectory extends Directory {
 
    private final FileListOperations fileOps;
    private final SegmentReadLocker readLocks;
+   private final ChunkReadCache chunkReads;
 
    /**
     * @param metadataCache the cache to be used for all smaller metadata: prefer replication over distribution, avoid eviction
@@ -122,6 +123,7 @@ public InfinispanDirectory(Cache<?, ?> metadataCache, Cache<?, ?> chunksCache, S
       this.chunkSize = chunkSize;
       this.fileOps = new FileListOperations(this.metadataCache, indexName);
       this.readLocks = readLocker;
+      this.chunkReads = new ChunkReadCache(this.chunksCache);
    }
 
    public InfinispanDirectory(Cache<?, ?> cache, String indexName, int chunkSize, SegmentReadLocker readLocker) {
@@ -214,6 +216,7 @@ public void deleteFile(String name) {
       checkIsOpen();
       fileOps.deleteFileName(name);
       readLocks.deleteOrReleaseReadLock(name);
+      chunkReads.invalidate(name);
       if (log.isDebugEnabled()) {
          log.debugf("Removed file: %s from index: %s", name, indexName);
       }
@@ -248,6 +251,7 @@ public void renameFile(String from, String to) {
       
       // now trigger deletion of old file chunks:
       readLocks.deleteOrReleaseReadLock(from);
+      chunkReads.invalidate(from);
       if (log.isTraceEnabled()) {
          log.tracef("Renamed file from: %s to: %s in index %s", from, to, indexName);
       }
@@ -274,6 +278,7 @@ public long fileLength(String name) {
    @Override
    public IndexOutput createOutput(String name) {
       final FileCacheKey key = new FileCacheKey(indexName, name);
+      chunkReads.invalidate(name);
       // creating new file, metadata is added on flush() or close() of IndexOutPut
       return new InfinispanIndexOutput(metadataCache, chunksCache, key, chunkSize, fileOps);
    }
@@ -298,7 +303,7 @@ else if (fileMetadata.getSize() <= fileMetadata.getBufferSize()) {
             // safest reaction is to tell this file doesn't exist anymore.
             throw new FileNotFoundException("Error loading medatada for index file: " + fileKey);
          }
-         return new InfinispanIndexInput(chunksCache, fileKey, fileMetadata, readLocks);
+         return new InfinispanIndexInput(chunksCache, fileKey, fileMetadata, readLocks, chunkReads);
       }
    }
 
@@ -327,6 +332,14 @@ public String[] listAll() {
       return list();
    }
 
+   /**
+    * @return the chunk reads of this directory, to tune the read-ahead and the caching of chunks or read
+    * their hit and miss counters
+    */
+   public ChunkReadCache getChunkReadCache() {
+      return chunkReads;
+   }
+
    /**
     * @return The value of indexName, same constant as provided to the constructor.
     */
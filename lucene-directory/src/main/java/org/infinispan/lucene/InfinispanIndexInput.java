@@ -52,6 +52,8 @@ final public class InfinispanIndexInput extends IndexInput {
    private final SegmentReadLocker readLocks;
    private final String filename;
    private final long fileLength;
+   private final int numberOfChunks;
+   private final ChunkReadCache chunkReads;
 
    private int currentBufferSize;
    private byte[] buffer;
@@ -61,7 +63,16 @@ final public class InfinispanIndexInput extends IndexInput {
    private boolean isClone;
 
    public InfinispanIndexInput(final AdvancedCache<?, ?> chunksCache, final FileCacheKey fileKey, final FileMetadata fileMetadata, final SegmentReadLocker readLocks) {
+      this(chunksCache, fileKey, fileMetadata, readLocks, null);
+   }
+
+   /**
+    * @param chunkReads the chunk reads of the directory, or null to read each chunk from chunksCache
+    */
+   public InfinispanIndexInput(final AdvancedCache<?, ?> chunksCache, final FileCacheKey fileKey, final FileMetadata fileMetadata, final SegmentReadLocker readLocks, final ChunkReadCache chunkReads) {
       this.chunksCache = (Cache<ChunkCacheKey, Object>) chunksCache;
+      this.chunkReads = chunkReads;
+      this.numberOfChunks = fileMetadata.getNumberOfChunks();
       this.fileKey = fileKey;
       this.chunkSize = fileMetadata.getBufferSize();
       this.fileLength = fileMetadata.getSize();
@@ -130,22 +141,33 @@ public void seek(final long pos) {
    private void nextChunk() throws IOException {
       currentLoadedChunk++;
       setBufferToCurrentChunk();
+      // reading sequentially: fetch the next chunks while this one is consumed
+      if (chunkReads != null) {
+         chunkReads.readAhead(fileKey.getIndexName(), filename, currentLoadedChunk, numberOfChunks);
+      }
    }
 
    private void setBufferToCurrentChunk() throws IOException {
       ChunkCacheKey key = new ChunkCacheKey(fileKey.getIndexName(), filename, currentLoadedChunk);
-      buffer = (byte[]) chunksCache.get(key);
+      buffer = getChunk(key);
       if (buffer == null) {
          throw new IOException("Read past EOF: Chunk value could not be found for key " + key);
       }
       currentBufferSize = buffer.length;
    }
+
+   private byte[] getChunk(ChunkCacheKey key) {
+      if (chunkReads != null) {
+         return chunkReads.get(key);
+      }
+      return (byte[]) chunksCache.get(key);
+   }
    
    // Lucene might try seek(pos) using an illegal pos value
    // RAMDirectory teaches to position the cursor to the end of previous chunk in this case
    private void setBufferToCurrentChunkIfPossible() {
       ChunkCacheKey key = new ChunkCacheKey(fileKey.getIndexName(), filename, currentLoadedChunk);
-      buffer = (byte[]) chunksCache.get(key);
+      buffer = getChunk(key);
       if (buffer == null) {
          currentLoadedChunk--;
          bufferPosition = chunkSize;
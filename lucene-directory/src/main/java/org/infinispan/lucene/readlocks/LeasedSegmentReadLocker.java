@@ -0,0 +1,252 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.lucene.readlocks;
+
+import org.infinispan.Cache;
+import org.infinispan.factories.KnownComponentNames;
+import org.infinispan.lucene.InfinispanDirectory;
+import org.infinispan.util.concurrent.ConcurrentMapFactory;
+import org.infinispan.util.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LeasedSegmentReadLocker extends the idea of {@link LocalLockMergingSegmentReadLocker}: readers on the
+ * same node are reference counted locally and share a single lock stored in the {@link DistributedSegmentReadLocker},
+ * which is only written to on the transitions of the local count.
+ * <p>
+ * In addition, when the last local reader of a file is closed the distributed lock is not released
+ * right away but kept as a lease: an {@link InfinispanDirectory} reopening the same segment files shortly
+ * after, which is what happens each time an IndexReader is reopened, doesn't need any write on the locks cache.
+ * Leases are released when the file is deleted from this node, or when they expire: expired leases are
+ * collected periodically by a background task, and releasing the last lease of a file which was deleted
+ * in the meantime performs the deferred delete of its chunks.
+ * <p>
+ * As with the {@link DistributedSegmentReadLocker} a node crashing while holding a lease might leave
+ * some garbage behind. Invoke {@link #stop()} when the directory is closed to release the leases held.
+ * 
+ * @since 5.2
+ */
+@SuppressWarnings("unchecked")
+public class LeasedSegmentReadLocker implements SegmentReadLocker {
+
+   private static final Log log = LogFactory.getLog(LeasedSegmentReadLocker.class);
+
+   /**
+    * Default time an unused distributed lock is retained, in milliseconds.
+    */
+   public static final long DEFAULT_LEASE_TIME = 10000;
+
+   private static final int ACQUIRED = 0;
+   private static final int MISSING = 1;
+   private static final int DISCARDED = 2;
+
+   private final ConcurrentMap<String, LeasedReadLock> localLocks = ConcurrentMapFactory.makeConcurrentMap();
+   private final DistributedSegmentReadLocker delegate;
+   private final long leaseNanos;
+   private final ScheduledFuture<?> reaper;
+   private volatile boolean stopped = false;
+
+   /**
+    * Create a new LeasedSegmentReadLocker for specified cache and index name, using the default lease time.
+    * 
+    * @param cache
+    * @param indexName
+    */
+   public LeasedSegmentReadLocker(Cache<?, ?> cache, String indexName) {
+      this(cache, cache, cache, indexName, DEFAULT_LEASE_TIME, TimeUnit.MILLISECONDS);
+   }
+
+   /**
+    * Create a new LeasedSegmentReadLocker with special purpose caches
+    * @param locksCache the cache to be used to store distributed locks
+    * @param chunksCache the cache containing the chunks, this is where the bulk of data is stored
+    * @param metadataCache smaller cache for the metadata of stored elements
+    * @param indexName
+    * @param leaseTime how long a distributed lock is retained after the last local reader released it;
+    *        when zero it's released right away, as the {@link LocalLockMergingSegmentReadLocker} does
+    * @param unit the unit of leaseTime
+    */
+   public LeasedSegmentReadLocker(Cache<?, ?> locksCache, Cache<?, ?> chunksCache, Cache<?, ?> metadataCache, String indexName,
+            long leaseTime, TimeUnit unit) {
+      if (leaseTime < 0)
+         throw new IllegalArgumentException("leaseTime must not be negative");
+      if (unit == null)
+         throw new IllegalArgumentException("unit must not be null");
+      this.delegate = new DistributedSegmentReadLocker((Cache<Object, Integer>) locksCache, chunksCache, metadataCache, indexName);
+      this.leaseNanos = unit.toNanos(leaseTime);
+      if (leaseTime > 0) {
+         ScheduledExecutorService executor = locksCache.getAdvancedCache().getComponentRegistry().getGlobalComponentRegistry()
+                  .getComponent(ScheduledExecutorService.class, KnownComponentNames.EVICTION_SCHEDULED_EXECUTOR);
+         this.reaper = executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+               releaseExpiredLeases();
+            }
+         }, leaseTime, leaseTime, unit);
+      }
+      else {
+         this.reaper = null;
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public boolean acquireReadLock(String name) {
+      while (true) {
+         LeasedReadLock localReadLock = getLocalLockByName(name);
+         switch (localReadLock.acquire()) {
+            case ACQUIRED:
+               return true;
+            case MISSING:
+               localLocks.remove(name, localReadLock);
+               return false;
+            default:
+               // a concurrent release discarded it, retry on a fresh one
+         }
+      }
+   }
+
+   /**
+    * {@inheritDoc}
+    */
+   @Override
+   public void deleteOrReleaseReadLock(String name) {
+      getLocalLockByName(name).release();
+   }
+
+   /**
+    * Releases the distributed locks which are not used by any local reader since longer than the lease time,
+    * possibly performing the deferred delete of files deleted in the meantime.
+    * This is invoked periodically, there should be no need to invoke it explicitly.
+    */
+   public void releaseExpiredLeases() {
+      final long now = System.nanoTime();
+      for (LeasedReadLock localReadLock : localLocks.values()) {
+         localReadLock.releaseIfExpired(now, false);
+      }
+   }
+
+   /**
+    * Stops the periodic collection of expired leases and releases all leases which are not in use;
+    * locks still in use by local readers are released as soon as they are closed.
+    */
+   public void stop() {
+      stopped = true;
+      if (reaper != null) {
+         reaper.cancel(false);
+      }
+      for (LeasedReadLock localReadLock : localLocks.values()) {
+         localReadLock.releaseIfExpired(0, true);
+      }
+   }
+
+   private LeasedReadLock getLocalLockByName(String name) {
+      LeasedReadLock localReadLock = localLocks.get(name);
+      if (localReadLock == null) {
+         LeasedReadLock newReadLock = new LeasedReadLock(name);
+         LeasedReadLock prevReadLock = localLocks.putIfAbsent(name, newReadLock);
+         localReadLock = prevReadLock == null ? newReadLock : prevReadLock;
+      }
+      return localReadLock;
+   }
+
+   private class LeasedReadLock {
+      private final String name;
+      /** number of local readers; -1 once the file is known to be deleted or this instance was discarded */
+      private int value = 0;
+      /** true while this node holds one reference on the distributed lock */
+      private boolean remoteHeld = false;
+      private boolean deleted = false;
+      private long releasedAt;
+
+      LeasedReadLock(String name) {
+         this.name = name;
+      }
+
+      synchronized int acquire() {
+         if (value == -1) {
+            return deleted ? MISSING : DISCARDED;
+         }
+         if (value == 0 && !remoteHeld) {
+            if (!delegate.acquireReadLock(name)) {
+               value = -1;
+               deleted = true;
+               return MISSING;
+            }
+            remoteHeld = true;
+         }
+         value++;
+         return ACQUIRED;
+      }
+
+      synchronized void release() {
+         if (value > 0) {
+            value--;
+            if (value == 0) {
+               if (leaseNanos == 0 || stopped) {
+                  releaseRemote();
+               }
+               else {
+                  releasedAt = System.nanoTime();
+               }
+            }
+         }
+         else {
+            // no local readers: this is a delete, which also ends the lease we might be holding
+            if (value == 0 && remoteHeld) {
+               releaseRemote();
+            }
+            else {
+               discard();
+            }
+            delegate.deleteOrReleaseReadLock(name);
+         }
+      }
+
+      synchronized void releaseIfExpired(long now, boolean force) {
+         if (value == 0 && remoteHeld && (force || now - releasedAt >= leaseNanos)) {
+            if (log.isTraceEnabled()) log.tracef("Lease expired on readlock for file %s", name);
+            releaseRemote();
+         }
+      }
+
+      private void releaseRemote() {
+         discard();
+         delegate.deleteOrReleaseReadLock(name);
+      }
+
+      private void discard() {
+         value = -1;
+         remoteHeld = false;
+         localLocks.remove(name, this);
+      }
+   }
+
+}
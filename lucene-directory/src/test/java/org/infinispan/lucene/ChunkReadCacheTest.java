@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.lucene;
+
+import java.io.IOException;
+
+import junit.framework.Assert;
+
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.infinispan.config.Configuration;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Verifies the chunks read through a {@link ChunkReadCache} and its hit and miss counters.
+ * 
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "lucene.ChunkReadCacheTest")
+public class ChunkReadCacheTest extends SingleCacheManagerTest {
+
+   private static final int CHUNK_SIZE = 13;
+   private static final int FILE_SIZE = 1000;
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      Configuration configuration = new Configuration();
+      configuration.setCacheMode(Configuration.CacheMode.LOCAL);
+      configuration.setInvocationBatchingEnabled(true);
+      return TestCacheManagerFactory.createCacheManager(configuration);
+   }
+
+   public void testChunksAreReadOnce() throws IOException {
+      InfinispanDirectory dir = new InfinispanDirectory(cache, cache, cache, "index", CHUNK_SIZE);
+      writeFile(dir, "file");
+      ChunkReadCache chunkReads = dir.getChunkReadCache();
+
+      readAndVerify(dir, "file");
+      long misses = chunkReads.getMisses();
+      assert misses >= 1;
+      assert misses < FILE_SIZE / CHUNK_SIZE : "read-ahead did not prefetch: " + chunkReads;
+
+      readAndVerify(dir, "file");
+      Assert.assertEquals(misses, chunkReads.getMisses());
+      assert chunkReads.getHits() > 0;
+   }
+
+   public void testDisabled() throws IOException {
+      InfinispanDirectory dir = new InfinispanDirectory(cache, cache, cache, "index", CHUNK_SIZE);
+      writeFile(dir, "file");
+      ChunkReadCache chunkReads = dir.getChunkReadCache();
+      chunkReads.setReadAheadChunks(0);
+      chunkReads.setMaxCachedBytes(0);
+
+      readAndVerify(dir, "file");
+      readAndVerify(dir, "file");
+      int chunks = (FILE_SIZE + CHUNK_SIZE - 1) / CHUNK_SIZE;
+      Assert.assertEquals(2 * chunks, chunkReads.getMisses());
+      Assert.assertEquals(0, chunkReads.getHits());
+   }
+
+   public void testDeletedFileIsNotCached() throws IOException {
+      InfinispanDirectory dir = new InfinispanDirectory(cache, cache, cache, "index", CHUNK_SIZE);
+      writeFile(dir, "file");
+      readAndVerify(dir, "file");
+      dir.deleteFile("file");
+      writeFile(dir, "file");
+      long misses = dir.getChunkReadCache().getMisses();
+      readAndVerify(dir, "file");
+      assert dir.getChunkReadCache().getMisses() > misses;
+   }
+
+   private void writeFile(InfinispanDirectory dir, String name) throws IOException {
+      IndexOutput output = dir.createOutput(name);
+      for (int i = 0; i < FILE_SIZE; i++) {
+         output.writeByte((byte) i);
+      }
+      output.close();
+   }
+
+   private void readAndVerify(InfinispanDirectory dir, String name) throws IOException {
+      IndexInput input = dir.openInput(name);
+      try {
+         for (int i = 0; i < FILE_SIZE; i++) {
+            Assert.assertEquals((byte) i, input.readByte());
+         }
+      } finally {
+         input.close();
+      }
+   }
+
+}
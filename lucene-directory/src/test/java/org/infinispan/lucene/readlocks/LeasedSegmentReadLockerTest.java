@@ -0,0 +1,125 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.lucene.readlocks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.infinispan.Cache;
+import org.infinispan.lucene.InfinispanDirectory;
+import org.testng.annotations.Test;
+
+/**
+ * LeasedSegmentReadLockerTest verifies that {@link org.infinispan.lucene.readlocks.LeasedSegmentReadLocker}
+ * retains the distributed locks after the last local reader is closed, and that deletes are deferred
+ * until the leases are released.
+ * 
+ * @since 5.2
+ */
+@SuppressWarnings("unchecked")
+@Test(groups = "functional", testName = "lucene.readlocks.LeasedSegmentReadLockerTest")
+public class LeasedSegmentReadLockerTest extends DistributedSegmentReadLockerTest {
+
+   private LeasedSegmentReadLocker lockerA;
+   private LeasedSegmentReadLocker lockerB;
+
+   @Test @Override
+   public void testIndexWritingAndFinding() throws IOException, InterruptedException {
+      verifyBoth(cache0,cache1);
+      IndexOutput indexOutput = dirA.createOutput(filename);
+      indexOutput.writeString("no need to write, nobody ever will read this");
+      indexOutput.flush();
+      indexOutput.close();
+      assertFileExistsHavingRLCount(filename, 1, true);
+      IndexInput firstOpenOnB = dirB.openInput(filename);
+      assertFileExistsHavingRLCount(filename, 2, true);
+      firstOpenOnB.close();
+      // the lease is retained after the last local reader is closed
+      assertFileExistsHavingRLCount(filename, 2, true);
+      IndexInput secondOpenOnB = dirB.openInput(filename);
+      assertFileExistsHavingRLCount(filename, 2, true);
+      IndexInput cloneOfSecondOpenOnB = (IndexInput) secondOpenOnB.clone();
+      cloneOfSecondOpenOnB.close();
+      assertFileExistsHavingRLCount(filename, 2, true);
+      IndexInput firstOpenOnA = dirA.openInput(filename);
+      assertFileExistsHavingRLCount(filename, 3, true);
+      IndexInput secondOpenOnA = dirA.openInput(filename);
+      assertFileExistsHavingRLCount(filename, 3, true);
+      firstOpenOnA.close();
+      secondOpenOnA.close();
+      assertFileExistsHavingRLCount(filename, 3, true);
+      // deleting the file releases the lease held by the deleting node
+      dirA.deleteFile(filename);
+      assertFileExistsHavingRLCount(filename, 1, false);
+      secondOpenOnB.close();
+      assertFileExistsHavingRLCount(filename, 1, false);
+      lockerB.releaseExpiredLeases();
+      assertFileExistsHavingRLCount(filename, 1, false);
+      // the delete is performed when the last lease is released
+      lockerB.stop();
+      assertFileNotExists(filename);
+      lockerA.stop();
+      dirA.close();
+      dirB.close();
+      verifyBoth(cache0, cache1);
+   }
+
+   @Test
+   public void testDeferredDeleteOnLeaseExpiry() throws IOException, InterruptedException {
+      LeasedSegmentReadLocker shortLeaseLocker = new LeasedSegmentReadLocker(cache1, cache1, cache1, INDEX_NAME, 50, TimeUnit.MILLISECONDS);
+      Directory shortLeaseDir = new InfinispanDirectory(cache1, INDEX_NAME, CHUNK_SIZE, shortLeaseLocker);
+      IndexOutput indexOutput = dirA.createOutput(filename);
+      indexOutput.writeString("no need to write, nobody ever will read this");
+      indexOutput.close();
+      IndexInput openInput = shortLeaseDir.openInput(filename);
+      assertFileExistsHavingRLCount(filename, 2, true);
+      dirA.deleteFile(filename);
+      assertFileExistsHavingRLCount(filename, 1, false);
+      openInput.close();
+      // no explicit release: the expired lease is collected in background
+      assertFileNotExists(filename);
+      shortLeaseLocker.stop();
+      lockerA.stop();
+      lockerB.stop();
+      shortLeaseDir.close();
+      dirA.close();
+      dirB.close();
+      verifyBoth(cache0, cache1);
+   }
+
+   @Override
+   Directory createDirectory(Cache cache) {
+      LeasedSegmentReadLocker locker = new LeasedSegmentReadLocker(cache, cache, cache, INDEX_NAME, 1, TimeUnit.HOURS);
+      if (cache == cache0) {
+         lockerA = locker;
+      }
+      else {
+         lockerB = locker;
+      }
+      return new InfinispanDirectory(cache, INDEX_NAME, CHUNK_SIZE, locker);
+   }
+
+}
@@ -23,6 +23,8 @@
 
 package org.infinispan.query;
 
+import java.util.concurrent.TimeUnit;
+
 import org.apache.lucene.search.Query;
 import org.hibernate.search.SearchFactory;
 import org.hibernate.search.query.dsl.EntityContext;
@@ -79,4 +81,25 @@ public interface SearchManager {
     * @param transformerClass the transformer class to use for the supplied key class
     */
    void registerKeyTransformer(Class<?> keyClass, Class<? extends Transformer> transformerClass);
+
+   /**
+    * Experimental.
+    * Returns the sequence number of the last index update queued on this node. When indexing is asynchronous
+    * (see {@link org.infinispan.query.backend.AsyncIndexer}), pass it to {@link #waitForIndexing(long, long, TimeUnit)}
+    * to have a query see the writes made before. Always 0 when indexing is synchronous.
+    */
+   long getIndexingSequence();
+
+   /**
+    * Experimental.
+    * Waits until the index updates queued on this node up to the given sequence number are searchable.
+    *
+    * @param sequence a sequence number returned by {@link #getIndexingSequence()}
+    * @param timeout the maximum time to wait
+    * @param unit the unit of the timeout
+    * @return true if the updates are searchable, false if the timeout elapsed first
+    * @throws InterruptedException if interrupted while waiting
+    * @throws org.infinispan.CacheException if some of the updates could not be applied to the index
+    */
+   boolean waitForIndexing(long sequence, long timeout, TimeUnit unit) throws InterruptedException;
 }
@@ -23,12 +23,14 @@
 package org.infinispan.query;
 
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.lucene.search.Query;
 import org.hibernate.search.SearchFactory;
 import org.hibernate.search.query.dsl.EntityContext;
 import org.hibernate.search.spi.SearchFactoryIntegrator;
 import org.infinispan.AdvancedCache;
+import org.infinispan.query.backend.AsyncIndexer;
 import org.infinispan.query.backend.QueryInterceptor;
 import org.infinispan.query.clustered.ClusteredCacheQueryImpl;
 import org.infinispan.query.impl.CacheQueryImpl;
@@ -86,6 +88,18 @@ public void registerKeyTransformer(Class<?> keyClass, Class<? extends Transforme
       queryInterceptor.registerKeyTransformer(keyClass, transformerClass);
    }
 
+   @Override
+   public long getIndexingSequence() {
+      AsyncIndexer indexer = queryInterceptor.getAsyncIndexer();
+      return indexer == null ? 0 : indexer.getSequence();
+   }
+
+   @Override
+   public boolean waitForIndexing(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
+      AsyncIndexer indexer = queryInterceptor.getAsyncIndexer();
+      return indexer == null || indexer.waitFor(sequence, timeout, unit);
+   }
+
    /* (non-Javadoc)
     * @see org.infinispan.query.SearchManager#buildQueryBuilderForClass(java.lang.Class)
     */
@@ -0,0 +1,387 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.query.backend;
+
+import org.hibernate.search.backend.TransactionContext;
+import org.hibernate.search.backend.spi.Work;
+import org.hibernate.search.backend.spi.Worker;
+import org.hibernate.search.spi.SearchFactoryIntegrator;
+import org.infinispan.CacheException;
+import org.infinispan.query.logging.Log;
+import org.infinispan.util.logging.LogFactory;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies index updates outside of the write path.
+ * <p/>
+ * Updates are queued by entity type and document id, so that a later update of the same document replaces an
+ * earlier one still in the queue. A single thread takes the queued updates in batches and applies every batch as
+ * one Hibernate Search changeset, hence one index commit per batch. When the queue holds {@link #QUEUE_SIZE}
+ * documents, writers block until the indexing thread catches up.
+ * <p/>
+ * Every update gets a sequence number: {@link #waitFor(long, long, TimeUnit)} lets a reader wait until its own
+ * writes are searchable. Once a batch fails, waiting for any update at or after the oldest one of the batch fails too.
+ *
+ * @since 5.2
+ */
+public class AsyncIndexer {
+
+   /**
+    * Indexing property enabling asynchronous indexing, "false" by default.
+    */
+   public static final String ASYNC_INDEXING = "infinispan.query.indexing.async";
+
+   /**
+    * Indexing property with the maximum number of queued documents, 10000 by default.
+    */
+   public static final String QUEUE_SIZE = "infinispan.query.indexing.async.queue_size";
+
+   /**
+    * Indexing property with the maximum number of documents applied in a single commit, 1000 by default.
+    */
+   public static final String BATCH_SIZE = "infinispan.query.indexing.async.batch_size";
+
+   private static final Log log = LogFactory.getLog(AsyncIndexer.class, Log.class);
+
+   private final SearchFactoryIntegrator searchFactory;
+   private final int queueSize;
+   private final int batchSize;
+   private final ExecutorService executor;
+
+   private final Lock lock = new ReentrantLock();
+   private final Condition notFull = lock.newCondition();
+   private final Condition applied = lock.newCondition();
+
+   // guarded by lock
+   private final LinkedHashMap<DocumentKey, PendingWork> pending = new LinkedHashMap<DocumentKey, PendingWork>();
+   private long submittedSequence;
+   private long appliedSequence;
+   // the oldest update that could not be applied, 0 if none
+   private long failedSequence;
+   private RuntimeException failure;
+   private boolean draining;
+   private boolean stopped;
+
+   public AsyncIndexer(SearchFactoryIntegrator searchFactory, int queueSize, int batchSize, final String cacheName) {
+      if (queueSize < 1 || batchSize < 1) {
+         throw new IllegalArgumentException("Queue and batch size must be positive");
+      }
+      this.searchFactory = searchFactory;
+      this.queueSize = queueSize;
+      this.batchSize = batchSize;
+      this.executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+         @Override
+         public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "AsyncIndexer-" + cacheName);
+            t.setDaemon(true);
+            return t;
+         }
+      });
+   }
+
+   /**
+    * Builds an AsyncIndexer if the indexing properties enable it.
+    *
+    * @return the indexer, or null if indexing is synchronous
+    */
+   public static AsyncIndexer fromProperties(Properties properties, SearchFactoryIntegrator searchFactory, String cacheName) {
+      if (!Boolean.parseBoolean(properties.getProperty(ASYNC_INDEXING, "false"))) {
+         return null;
+      }
+      int queueSize = Integer.parseInt(properties.getProperty(QUEUE_SIZE, "10000").trim());
+      int batchSize = Integer.parseInt(properties.getProperty(BATCH_SIZE, "1000").trim());
+      return new AsyncIndexer(searchFactory, queueSize, batchSize, cacheName);
+   }
+
+   /**
+    * Queues an update of the index.
+    *
+    * @param entityType the type of the indexed entity
+    * @param id the document id, or null for a work affecting all the documents of the type
+    * @param work the update
+    * @return the sequence number of the update
+    */
+   public long submit(Class<?> entityType, Serializable id, Work<Object> work) {
+      lock.lock();
+      try {
+         while (pending.size() >= queueSize && !stopped) {
+            notFull.awaitUninterruptibly();
+         }
+         if (!stopped) {
+            return enqueue(entityType, id, work);
+         }
+         // not to be overwritten by an older update of the same document still queued
+         while (draining) {
+            applied.awaitUninterruptibly();
+         }
+      } finally {
+         lock.unlock();
+      }
+      try {
+         apply(new ArrayList<PendingWork>(0), work);
+      } catch (RuntimeException e) {
+         log.asyncIndexingFailed(1, e);
+      }
+      return getSequence();
+   }
+
+   private long enqueue(Class<?> entityType, Serializable id, Work<Object> work) {
+      long sequence = ++submittedSequence;
+      if (id == null) {
+         // a purge supersedes the queued updates of the same type
+         for (Iterator<PendingWork> it = pending.values().iterator(); it.hasNext(); ) {
+            PendingWork queued = it.next();
+            if (queued.key.entityType == entityType) {
+               sequence = Math.min(sequence, queued.sequence);
+               it.remove();
+            }
+         }
+      }
+      DocumentKey key = new DocumentKey(entityType, id);
+      PendingWork replaced = pending.remove(key);
+      if (replaced != null) {
+         sequence = Math.min(sequence, replaced.sequence);
+      }
+      pending.put(key, new PendingWork(key, work, sequence));
+
+      if (!draining) {
+         draining = true;
+         executor.execute(new Drainer());
+      }
+      return submittedSequence;
+   }
+
+   /**
+    * @return the sequence number of the last queued update
+    */
+   public long getSequence() {
+      lock.lock();
+      try {
+         return submittedSequence;
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Waits until every update up to the given sequence number has been applied to the index.
+    *
+    * @return true if the updates have been applied, false if the timeout elapsed first
+    * @throws CacheException if some of the updates could not be applied
+    */
+   public boolean waitFor(long sequence, long timeout, TimeUnit unit) throws InterruptedException {
+      long nanos = unit.toNanos(timeout);
+      lock.lock();
+      try {
+         while (true) {
+            if (failedSequence != 0 && failedSequence <= sequence) {
+               throw new CacheException("Could not apply the index update with sequence number " + failedSequence, failure);
+            }
+            if (appliedSequence >= sequence) {
+               return true;
+            }
+            if (nanos <= 0) {
+               return false;
+            }
+            nanos = applied.awaitNanos(nanos);
+         }
+      } finally {
+         lock.unlock();
+      }
+   }
+
+   /**
+    * Applies the queued updates and stops the indexing thread. Updates submitted afterwards are applied
+    * synchronously, once the queued updates have been applied.
+    */
+   public void stop() {
+      lock.lock();
+      try {
+         stopped = true;
+         notFull.signalAll();
+      } finally {
+         lock.unlock();
+      }
+      executor.shutdown();
+      try {
+         executor.awaitTermination(60, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   private void apply(List<PendingWork> batch, Work<Object> single) {
+      BatchTransactionContext transactionContext = new BatchTransactionContext();
+      Worker worker = searchFactory.getWorker();
+      for (PendingWork pendingWork : batch) {
+         worker.performWork(pendingWork.work, transactionContext);
+      }
+      if (single != null) {
+         worker.performWork(single, transactionContext);
+      }
+      transactionContext.commit();
+   }
+
+   private final class Drainer implements Runnable {
+
+      @Override
+      public void run() {
+         while (true) {
+            List<PendingWork> batch;
+            lock.lock();
+            try {
+               if (pending.isEmpty()) {
+                  draining = false;
+                  applied.signalAll();
+                  return;
+               }
+               batch = new ArrayList<PendingWork>(Math.min(batchSize, pending.size()));
+               for (Iterator<PendingWork> it = pending.values().iterator(); it.hasNext() && batch.size() < batchSize; ) {
+                  batch.add(it.next());
+                  it.remove();
+               }
+               notFull.signalAll();
+            } finally {
+               lock.unlock();
+            }
+
+            RuntimeException batchFailure = null;
+            try {
+               apply(batch, null);
+            } catch (RuntimeException e) {
+               log.asyncIndexingFailed(batch.size(), e);
+               batchFailure = e;
+            }
+
+            lock.lock();
+            try {
+               if (batchFailure != null) {
+                  for (PendingWork failed : batch) {
+                     if (failedSequence == 0 || failed.sequence < failedSequence) {
+                        failedSequence = failed.sequence;
+                        failure = batchFailure;
+                     }
+                  }
+               }
+               if (pending.isEmpty()) {
+                  appliedSequence = submittedSequence;
+               } else {
+                  long oldestPending = Long.MAX_VALUE;
+                  for (PendingWork queued : pending.values()) {
+                     oldestPending = Math.min(oldestPending, queued.sequence);
+                  }
+                  appliedSequence = oldestPending - 1;
+               }
+               applied.signalAll();
+            } finally {
+               lock.unlock();
+            }
+         }
+      }
+   }
+
+   /**
+    * Collects the works of a batch in a single Hibernate Search queue, flushed by {@link #commit()}.
+    */
+   private static final class BatchTransactionContext implements TransactionContext {
+
+      private final List<Synchronization> synchronizations = new ArrayList<Synchronization>(1);
+
+      @Override
+      public boolean isTransactionInProgress() {
+         return true;
+      }
+
+      @Override
+      public Object getTransactionIdentifier() {
+         return this;
+      }
+
+      @Override
+      public void registerSynchronization(Synchronization synchronization) {
+         synchronizations.add(synchronization);
+      }
+
+      void commit() {
+         for (Synchronization synchronization : synchronizations) {
+            synchronization.beforeCompletion();
+         }
+         for (Synchronization synchronization : synchronizations) {
+            synchronization.afterCompletion(Status.STATUS_COMMITTED);
+         }
+      }
+   }
+
+   private static final class DocumentKey {
+
+      final Class<?> entityType;
+      final Serializable id;
+
+      DocumentKey(Class<?> entityType, Serializable id) {
+         this.entityType = entityType;
+         this.id = id;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o) return true;
+         if (!(o instanceof DocumentKey)) return false;
+         DocumentKey other = (DocumentKey) o;
+         return entityType == other.entityType && (id == null ? other.id == null : id.equals(other.id));
+      }
+
+      @Override
+      public int hashCode() {
+         return 31 * entityType.hashCode() + (id == null ? 0 : id.hashCode());
+      }
+   }
+
+   private static final class PendingWork {
+
+      final DocumentKey key;
+      final Work<Object> work;
+      // the oldest submission merged into this work
+      final long sequence;
+
+      PendingWork(DocumentKey key, Work<Object> work, long sequence) {
+         this.key = key;
+         this.work = work;
+         this.sequence = sequence;
+      }
+   }
+}
@@ -76,6 +76,7 @@ public class QueryInterceptor extends CommandInterceptor {
    protected TransactionManager transactionManager;
    protected TransactionSynchronizationRegistry transactionSynchronizationRegistry;
    protected ExecutorService asyncExecutor;
+   private volatile AsyncIndexer asyncIndexer;
 
    private static final Log log = LogFactory.getLog(QueryInterceptor.class, Log.class);
 
@@ -98,6 +99,21 @@ protected boolean shouldModifyIndexes(InvocationContext ctx) {
       return ! ctx.hasFlag(Flag.SKIP_INDEXING);
    }
 
+   /**
+    * Makes the interceptor queue the index updates of non transactional writes on the given indexer rather than
+    * applying them on the write path.
+    */
+   public void setAsyncIndexer(AsyncIndexer asyncIndexer) {
+      this.asyncIndexer = asyncIndexer;
+   }
+
+   /**
+    * @return the indexer applying updates asynchronously, or null if indexing is synchronous
+    */
+   public AsyncIndexer getAsyncIndexer() {
+      return asyncIndexer;
+   }
+
    /**
     * Use this executor for Async operations
     * @return
@@ -201,8 +217,7 @@ public Object visitClearCommand(InvocationContext ctx, ClearCommand command) thr
          for (Class c : this.knownClasses.keySet()) {
             EntityIndexBinder binder = this.searchFactory.getIndexBindingForEntity(c);
             if ( binder != null ) { //check as not all known classes are indexed
-               searchFactory.getWorker().performWork(new Work<Object>(c, (Serializable)null,
-                     WorkType.PURGE_ALL), new TransactionalEventTransactionContext(transactionManager, transactionSynchronizationRegistry));
+               performWork(c, null, new Work<Object>(c, (Serializable)null, WorkType.PURGE_ALL));
             }
          }
       }
@@ -216,8 +231,8 @@ protected void removeFromIndexes(Object value, Object key) {
       // The key is going to be the documentID for Lucene.
       // The object parameter is the actual value that needs to be removed from lucene.
       if (value == null) throw new NullPointerException("Cannot handle a null value!");
-      TransactionContext transactionContext = new TransactionalEventTransactionContext(transactionManager, transactionSynchronizationRegistry);
-      searchFactory.getWorker().performWork(new Work<Object>(value, keyToString(key), WorkType.DELETE), transactionContext);
+      String id = keyToString(key);
+      performWork(value.getClass(), id, new Work<Object>(value, id, WorkType.DELETE));
    }
 
    protected void updateIndexes(Object value, Object key){
@@ -225,8 +240,19 @@ protected void updateIndexes(Object value, Object key){
       // The key is going to be the documentID for Lucene.
       // The object parameter is the actual value that needs to be removed from lucene.
       if (value == null) throw new NullPointerException("Cannot handle a null value!");
+      String id = keyToString(key);
+      performWork(value.getClass(), id, new Work<Object>(value, id, WorkType.UPDATE));
+   }
+
+   private void performWork(Class<?> entityType, Serializable id, Work<Object> work) {
       TransactionContext transactionContext = new TransactionalEventTransactionContext(transactionManager, transactionSynchronizationRegistry);
-      searchFactory.getWorker().performWork(new Work<Object>(value, keyToString(key), WorkType.UPDATE), transactionContext);
+      AsyncIndexer indexer = asyncIndexer;
+      // transactional updates still wait for the outcome of the transaction
+      if (indexer != null && !transactionContext.isTransactionInProgress()) {
+         indexer.submit(entityType, id, work);
+      } else {
+         searchFactory.getWorker().performWork(work, transactionContext);
+      }
    }
 
    private Object extractValue(Object wrappedValue) {
@@ -50,6 +50,11 @@ public class ClusteredCacheQueryImpl extends CacheQueryImpl {
 
    private Integer resultSize;
 
+   // pagination is applied here, after the per-node results are merged
+   private int firstResult = 0;
+
+   private int maxResults = Integer.MAX_VALUE;
+
    private final ExecutorService asyncExecutor;
 
    public ClusteredCacheQueryImpl(Query luceneQuery, SearchFactoryIntegrator searchFactory,
@@ -66,6 +71,39 @@ public CacheQuery sort(Sort sort) {
       return super.sort(sort);
    }
 
+   /**
+    * Every node is asked for its first <code>firstResult + maxResults</code> hits only: the page
+    * can't contain a hit ranked lower than that on its own node. Skipping the first results is
+    * done by the iterator once the responses are merged.
+    */
+   @Override
+   public CacheQuery firstResult(int firstResult) {
+      if (firstResult < 0) {
+         throw new IllegalArgumentException("'first' pagination parameter less than 0");
+      }
+      this.firstResult = firstResult;
+      pushDownLimit();
+      return this;
+   }
+
+   @Override
+   public CacheQuery maxResults(int maxResults) {
+      if (maxResults < 0) {
+         throw new IllegalArgumentException("'max' pagination parameter less than 0");
+      }
+      this.maxResults = maxResults;
+      pushDownLimit();
+      return this;
+   }
+
+   private void pushDownLimit() {
+      hSearchQuery.firstResult(0);
+      if (maxResults != Integer.MAX_VALUE) {
+         long perNodeLimit = (long) firstResult + maxResults;
+         hSearchQuery.maxResults((int) Math.min(perNodeLimit, Integer.MAX_VALUE));
+      }
+   }
+
    @Override
    public int getResultSize() {
       if (resultSize == null) {
@@ -89,7 +127,7 @@ public QueryIterator iterator(int fetchSize) throws SearchException {
 
       HashMap<UUID, ClusteredTopDocs> topDocsResponses = broadcastQuery(command);
       DistributedIterator it = new DistributedIterator(sort, fetchSize, this.resultSize,
-               topDocsResponses, cache);
+               firstResult, maxResults, topDocsResponses, cache);
 
       return it;
    }
@@ -102,7 +140,7 @@ public QueryIterator lazyIterator(int fetchSize) {
 
       HashMap<UUID, ClusteredTopDocs> topDocsResponses = broadcastQuery(command);
       DistributedLazyIterator it = new DistributedLazyIterator(sort, fetchSize, this.resultSize,
-               lazyItId, topDocsResponses, asyncExecutor, cache);
+               firstResult, maxResults, lazyItId, topDocsResponses, asyncExecutor, cache);
 
       return it;
    }
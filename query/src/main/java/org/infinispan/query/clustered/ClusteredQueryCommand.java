@@ -54,6 +54,9 @@ public class ClusteredQueryCommand extends BaseRpcCommand implements ReplicableC
    // for retrieve keys on a lazy query
    private Integer docIndex = 0;
 
+   // for retrieve many keys at once on a lazy query
+   private int[] docIndexes;
+
    private ClusteredQueryCommand(ClusteredQueryCommandType type, String cacheName) {
       super(cacheName);
       commandType = type;
@@ -109,6 +112,15 @@ public static ClusteredQueryCommand retrieveKeyFromLazyQuery(Cache<?, ?> cache,
       return clQuery;
    }
 
+   public static ClusteredQueryCommand retrieveKeysFromLazyQuery(Cache<?, ?> cache, UUID id, int[] docIndexes) {
+      ClusteredQueryCommand clQuery = new ClusteredQueryCommand(
+               ClusteredQueryCommandType.GET_MANY_KEYS, cache.getName());
+      clQuery.lazyQueryId = id;
+      clQuery.docIndexes = docIndexes;
+
+      return clQuery;
+   }
+
    public void initialize(Cache<?, ?> localInstance) {
       setCache(localInstance);
    }
@@ -131,7 +143,7 @@ public Object perform(InvocationContext context) throws Throwable {
 
    public QueryResponse perform(Cache<?, ?> cache) {
       ClusteredQueryCommandWorker worker = commandType.getCommand(cache, query, lazyQueryId,
-               docIndex);
+               docIndex, docIndexes);
       return worker.perform();
    }
 
@@ -142,7 +154,7 @@ public byte getCommandId() {
 
    @Override
    public Object[] getParameters() {
-      return new Object[] { commandType, query, lazyQueryId, docIndex };
+      return new Object[] { commandType, query, lazyQueryId, docIndex, docIndexes };
    }
 
    @Override
@@ -152,6 +164,7 @@ public void setParameters(int commandId, Object[] args) {
       query = (HSQuery) args[i++];
       lazyQueryId = (UUID) args[i++];
       docIndex = (Integer) args[i++];
+      docIndexes = (int[]) args[i++];
    }
 
    @Override
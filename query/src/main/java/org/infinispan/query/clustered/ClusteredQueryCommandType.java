@@ -29,6 +29,7 @@
 import org.infinispan.query.clustered.commandworkers.CQCreateLazyQuery;
 import org.infinispan.query.clustered.commandworkers.CQGetResultSize;
 import org.infinispan.query.clustered.commandworkers.CQKillLazyIterator;
+import org.infinispan.query.clustered.commandworkers.CQLazyBatchFetcher;
 import org.infinispan.query.clustered.commandworkers.CQLazyFetcher;
 import org.infinispan.query.clustered.commandworkers.ClusteredQueryCommandWorker;
 
@@ -65,6 +66,12 @@ public ClusteredQueryCommandWorker getNewInstance() {
          return new CQLazyFetcher();
       }
    },
+   GET_MANY_KEYS() {
+      @Override
+      public ClusteredQueryCommandWorker getNewInstance() {
+         return new CQLazyBatchFetcher();
+      }
+   },
    GET_RESULT_SIZE() {
       @Override
       public ClusteredQueryCommandWorker getNewInstance() {
@@ -75,10 +82,10 @@ public ClusteredQueryCommandWorker getNewInstance() {
    protected abstract ClusteredQueryCommandWorker getNewInstance();
 
    public ClusteredQueryCommandWorker getCommand(Cache<?, ?> cache, HSQuery query, UUID lazyQueryId,
-            int docIndex) {
+            int docIndex, int[] docIndexes) {
       ClusteredQueryCommandWorker command = null;
       command = getNewInstance();
-      command.init(cache, query, lazyQueryId, docIndex);
+      command.init(cache, query, lazyQueryId, docIndex, docIndexes);
       return command;
    }
 
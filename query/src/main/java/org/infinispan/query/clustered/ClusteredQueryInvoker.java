@@ -100,6 +100,36 @@ public Object getValue(int doc, Address address, UUID queryId) {
       }
    }
 
+   /**
+    * Retrieves many values (using doc indexes) of a remote query instance in a single call. When
+    * the values are on this node the query is performed on the calling thread.
+    * 
+    * @param docs
+    *           Doc indexes of the values on remote query
+    * @param address
+    *           Address of the node who has the values
+    * @param queryId
+    *           Id of the query
+    * @return The values, in the order of the doc indexes
+    */
+   @SuppressWarnings("unchecked")
+   public List<Object> getValues(int[] docs, Address address, UUID queryId) {
+      ClusteredQueryCommand clusteredQuery = ClusteredQueryCommand.retrieveKeysFromLazyQuery(
+               localCacheInstance, queryId, docs);
+
+      if (address.equals(myAddress)) {
+         return (List<Object>) clusteredQuery.perform(localCacheInstance).getFetchedValue();
+      } else {
+         List<Address> addresss = new ArrayList<Address>(1);
+         addresss.add(address);
+
+         Map<Address, Response> responses = rpcManager.invokeRemotely(addresss, clusteredQuery,
+                  ResponseMode.SYNCHRONOUS, 10000);
+         List<QueryResponse> objects = cast(responses);
+         return (List<Object>) objects.get(0).getFetchedValue();
+      }
+   }
+
    /**
     * Broadcast this ClusteredQueryCommand to all cluster nodes. The command will be also invoked on
     * local node.
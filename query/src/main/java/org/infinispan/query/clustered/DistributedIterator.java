@@ -31,6 +31,7 @@
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
 
@@ -55,16 +56,27 @@ public class DistributedIterator extends AbstractIterator {
 
    private PriorityQueue<ScoreDoc> hq;
 
+   // number of results of the requested page, not of the whole query
    private final int resultSize;
 
+   // number of docs of the requested page already taken from the queues
+   private int taken = 0;
+
    public DistributedIterator(Sort sort, int fetchSize, int resultSize,
          HashMap<UUID, ClusteredTopDocs> topDocsResponses,
          AdvancedCache<?, ?> cache) {
+      this(sort, fetchSize, resultSize, 0, Integer.MAX_VALUE, topDocsResponses, cache);
+   }
+
+   public DistributedIterator(Sort sort, int fetchSize, int resultSize, int firstResult,
+         int maxResults, HashMap<UUID, ClusteredTopDocs> topDocsResponses,
+         AdvancedCache<?, ?> cache) {
       this.sort = sort;
       this.fetchSize = fetchSize;
-      this.resultSize = resultSize;
+      this.resultSize = Math.max(0, Math.min(resultSize - firstResult, maxResults));
       this.cache = cache;
       setTopDocs(topDocsResponses);
+      skip(firstResult);
    }
 
    private void setTopDocs(HashMap<UUID, ClusteredTopDocs> topDocsResponses) {
@@ -90,6 +102,32 @@ private void setTopDocs(HashMap<UUID, ClusteredTopDocs> topDocsResponses) {
 
    }
 
+   /**
+    * Drops the first results of the merged queues without fetching their values.
+    */
+   private void skip(int firstResult) {
+      for (int i = 0; i < firstResult; i++) {
+         if (nextScoreDoc() == null) {
+            return;
+         }
+      }
+   }
+
+   private ClusteredDoc nextScoreDoc() {
+      // getting the next scoreDoc. If null, then there is no more results
+      ClusteredDoc scoreDoc = (ClusteredDoc) hq.pop();
+      if (scoreDoc == null) {
+         return null;
+      }
+
+      // "recharging" the queue
+      ScoreDoc score = topDocsResponses.get(scoreDoc.getNodeUuid()).getNext();
+      if (score != null) {
+         hq.add(score);
+      }
+      return scoreDoc;
+   }
+
    @Override
    public void close() {
       // Nothing to do...
@@ -142,26 +180,57 @@ private void loadTo(int index) {
       int fetched = 0;
 
       while (orderedValues.size() <= index || fetched < fetchSize) {
-         // getting the next scoreDoc. If null, then there is no more results
-         ClusteredDoc scoreDoc = (ClusteredDoc) hq.pop();
-         if (scoreDoc == null) {
+         int count = Math.max(index + 1 - orderedValues.size(), fetchSize - fetched);
+         List<Object> values = fetchNextValues(count);
+         if (values.isEmpty()) {
             return;
          }
 
-         // "recharging" the queue
-         ClusteredTopDocs topDoc = topDocsResponses.get(scoreDoc.getNodeUuid());
-         ScoreDoc score = topDoc.getNext();
-         if (score != null) {
-            hq.add(score);
-         }
+         orderedValues.addAll(values);
+
+         fetched += values.size();
+      }
+   }
 
-         // fetching the value
-         Object value = fetchValue(scoreDoc, topDoc);
+   /**
+    * Takes the next docs of the requested page from the merged queues.
+    * 
+    * @param count
+    *           maximum number of docs to take
+    * @return the docs, in order. Empty if there are no more results
+    */
+   protected List<ClusteredDoc> nextDocs(int count) {
+      List<ClusteredDoc> docs = new ArrayList<ClusteredDoc>(Math.min(count, resultSize - taken));
+      while (docs.size() < count && taken < resultSize) {
+         ClusteredDoc scoreDoc = nextScoreDoc();
+         if (scoreDoc == null) {
+            break;
+         }
+         docs.add(scoreDoc);
+         taken++;
+      }
+      return docs;
+   }
 
-         orderedValues.add(value);
+   protected ClusteredTopDocs getClusteredTopDocs(ClusteredDoc scoreDoc) {
+      return topDocsResponses.get(scoreDoc.getNodeUuid());
+   }
 
-         fetched++;
+   /**
+    * Fetches the values of the next results. It may return less values than asked for, but only
+    * returns an empty list when there are no more results.
+    * 
+    * @param count
+    *           number of values wanted
+    * @return the values, in order
+    */
+   protected List<Object> fetchNextValues(int count) {
+      List<ClusteredDoc> docs = nextDocs(count);
+      List<Object> values = new ArrayList<Object>(docs.size());
+      for (ClusteredDoc scoreDoc : docs) {
+         values.add(fetchValue(scoreDoc, getClusteredTopDocs(scoreDoc)));
       }
+      return values;
    }
 
    protected Object fetchValue(ClusteredDoc scoreDoc, ClusteredTopDocs topDoc) {
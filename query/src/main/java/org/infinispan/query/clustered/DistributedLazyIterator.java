@@ -21,12 +21,22 @@
  */
 package org.infinispan.query.clustered;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.lucene.search.Sort;
 import org.infinispan.AdvancedCache;
+import org.infinispan.remoting.transport.Address;
 import org.infinispan.util.logging.Log;
 import org.infinispan.util.logging.LogFactory;
 
@@ -35,6 +45,11 @@
  * 
  * Lazily iterates on a distributed query
  * 
+ * Values are fetched in batches of <code>fetchSize</code>: the docs of a batch are grouped by the
+ * node that holds them and each node is asked for all of its values with a single call, in
+ * parallel. The next batch is requested as soon as the current one has arrived, so it travels
+ * while the current one is being consumed.
+ * 
  * @author Israel Lacerra <israeldl@gmail.com>
  * @since 5.1
  */
@@ -46,16 +61,30 @@ public class DistributedLazyIterator extends DistributedIterator {
 
    private static final Log log = LogFactory.getLog(DistributedLazyIterator.class);
 
+   // the next batch, requested while the current one is consumed
+   private PendingBatch prefetched;
+
    public DistributedLazyIterator(Sort sort, int fetchSize, int resultSize, UUID id,
             HashMap<UUID, ClusteredTopDocs> topDocsResponses,
             ExecutorService asyncExecutor, AdvancedCache<?,?> cache) {
-      super(sort, fetchSize, resultSize, topDocsResponses, cache);
+      this(sort, fetchSize, resultSize, 0, Integer.MAX_VALUE, id, topDocsResponses,
+               asyncExecutor, cache);
+   }
+
+   public DistributedLazyIterator(Sort sort, int fetchSize, int resultSize, int firstResult,
+            int maxResults, UUID id, HashMap<UUID, ClusteredTopDocs> topDocsResponses,
+            ExecutorService asyncExecutor, AdvancedCache<?,?> cache) {
+      super(sort, fetchSize, resultSize, firstResult, maxResults, topDocsResponses, cache);
       this.queryId = id;
       this.asyncExecutor = asyncExecutor;
    }
 
    @Override
    public void close() {
+      if (prefetched != null) {
+         prefetched.cancel();
+         prefetched = null;
+      }
       ClusteredQueryCommand killQuery = ClusteredQueryCommand.destroyLazyQuery(cache, queryId);
 
       ClusteredQueryInvoker invoker = new ClusteredQueryInvoker(cache, asyncExecutor);
@@ -67,15 +96,118 @@ public void close() {
    }
 
    @Override
-   protected Object fetchValue(ClusteredDoc scoreDoc, ClusteredTopDocs topDoc) {
+   protected List<Object> fetchNextValues(int count) {
+      PendingBatch batch = prefetched != null ? prefetched : requestBatch(Math.max(count, fetchSize));
+      prefetched = null;
+      if (batch == null) {
+         return Collections.emptyList();
+      }
+
+      List<Object> values = batch.get();
+      prefetched = requestBatch(fetchSize);
+      return values;
+   }
+
+   private PendingBatch requestBatch(int count) {
+      List<ClusteredDoc> docs = nextDocs(count);
+      if (docs.isEmpty()) {
+         return null;
+      }
+
+      // positions in the batch of the docs of each node
+      Map<Address, List<Integer>> positions = new LinkedHashMap<Address, List<Integer>>();
+      for (int i = 0; i < docs.size(); i++) {
+         Address address = getClusteredTopDocs(docs.get(i)).getNodeAddress();
+         List<Integer> nodePositions = positions.get(address);
+         if (nodePositions == null) {
+            nodePositions = new ArrayList<Integer>();
+            positions.put(address, nodePositions);
+         }
+         nodePositions.add(i);
+      }
+
       ClusteredQueryInvoker invoker = new ClusteredQueryInvoker(cache, asyncExecutor);
-      Object value = null;
-      try {
-         value = invoker.getValue(scoreDoc.getIndex(), topDoc.getNodeAddress(), queryId);
-      } catch (Exception e) {
-         log.error("Error while trying to remoting fetch next value: " + e.getMessage());
+      PendingBatch batch = new PendingBatch(docs.size());
+      for (Map.Entry<Address, List<Integer>> entry : positions.entrySet()) {
+         List<Integer> nodePositions = entry.getValue();
+         int[] docIndexes = new int[nodePositions.size()];
+         for (int i = 0; i < docIndexes.length; i++) {
+            docIndexes[i] = docs.get(nodePositions.get(i)).getIndex();
+         }
+         Future<List<Object>> future = asyncExecutor.submit(
+               new FetchValues(invoker, docIndexes, entry.getKey(), queryId));
+         batch.add(nodePositions, future);
+      }
+      return batch;
+   }
+
+   /**
+    * The values of a batch, still being fetched from the nodes.
+    */
+   private static final class PendingBatch {
+
+      private final int size;
+
+      private final List<List<Integer>> positions = new ArrayList<List<Integer>>();
+
+      private final List<Future<List<Object>>> futures = new ArrayList<Future<List<Object>>>();
+
+      PendingBatch(int size) {
+         this.size = size;
+      }
+
+      void add(List<Integer> nodePositions, Future<List<Object>> future) {
+         positions.add(nodePositions);
+         futures.add(future);
+      }
+
+      List<Object> get() {
+         Object[] values = new Object[size];
+         for (int i = 0; i < futures.size(); i++) {
+            List<Integer> nodePositions = positions.get(i);
+            try {
+               List<Object> nodeValues = futures.get(i).get();
+               for (int j = 0; j < nodePositions.size(); j++) {
+                  values[nodePositions.get(j)] = nodeValues.get(j);
+               }
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               log.error("Interrupted while trying to remoting fetch next values");
+            } catch (ExecutionException e) {
+               log.error("Error while trying to remoting fetch next values: " + e.getCause().getMessage());
+            }
+         }
+         return Arrays.asList(values);
+      }
+
+      void cancel() {
+         for (Future<List<Object>> future : futures) {
+            future.cancel(false);
+         }
+      }
+   }
+
+   private static final class FetchValues implements Callable<List<Object>> {
+
+      private final ClusteredQueryInvoker invoker;
+
+      private final int[] docIndexes;
+
+      private final Address address;
+
+      private final UUID queryId;
+
+      FetchValues(ClusteredQueryInvoker invoker, int[] docIndexes, Address address, UUID queryId) {
+         this.invoker = invoker;
+         this.docIndexes = docIndexes;
+         this.address = address;
+         this.queryId = queryId;
+      }
+
+      @Override
+      public List<Object> call() {
+         return invoker.getValues(docIndexes, address, queryId);
       }
-      return value;
    }
 
-}
\ No newline at end of file
+}
@@ -29,7 +29,9 @@
 import org.infinispan.util.concurrent.ConcurrentMapFactory;
 import org.infinispan.util.logging.LogFactory;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentMap;
 
@@ -90,6 +92,32 @@ public Object getValue(UUID queryUuid, int docIndex) {
       return cache.get(key);
    }
 
+   /**
+    * Get the values of many docs of the same DocumentExtractor, in the order of the given indexes
+    * 
+    * @param queryUuid
+    *           The queryId, so we can get the correct DocumentExtractor
+    * @param docIndexes
+    *           value indexes in the DocumentExtractor
+    * @return
+    */
+   public List<Object> getValues(UUID queryUuid, int[] docIndexes) {
+      touch(queryUuid);
+
+      DocumentExtractor extractor = queries.get(queryUuid);
+
+      if (extractor == null) {
+         throw new IllegalStateException("Query not found!");
+      }
+
+      List<Object> values = new ArrayList<Object>(docIndexes.length);
+      for (int docIndex : docIndexes) {
+         Object key = QueryExtractorUtil.extractKey(extractor, cache, keyTransformationHandler, docIndex);
+         values.add(cache.get(key));
+      }
+      return values;
+   }
+
    private void touch(UUID id) {
       synchronized (ageOrderedQueries) {
          ageOrderedQueries.remove(id);
@@ -40,6 +40,7 @@
 import org.infinispan.interceptors.locking.PessimisticLockingInterceptor;
 import org.infinispan.lifecycle.AbstractModuleLifecycle;
 import org.infinispan.query.CommandInitializer;
+import org.infinispan.query.backend.AsyncIndexer;
 import org.infinispan.query.backend.LocalQueryInterceptor;
 import org.infinispan.query.backend.QueryInterceptor;
 import org.infinispan.query.backend.SearchableCacheConfiguration;
@@ -69,14 +70,15 @@ public void cacheStarting(ComponentRegistry cr, Configuration configuration, Str
       if (cfg.isIndexingEnabled()) {
          log.registeringQueryInterceptor();
          SearchFactoryIntegrator searchFactory = getSearchFactory(cfg.getIndexingProperties(), cr);
-         createQueryInterceptorIfNeeded(cr, cfg, searchFactory);
+         createQueryInterceptorIfNeeded(cr, cfg, searchFactory, cacheName);
       }
    }
    
-   private void createQueryInterceptorIfNeeded(ComponentRegistry cr, Configuration cfg, SearchFactoryIntegrator searchFactory) {
+   private void createQueryInterceptorIfNeeded(ComponentRegistry cr, Configuration cfg, SearchFactoryIntegrator searchFactory, String cacheName) {
       QueryInterceptor queryInterceptor = cr.getComponent(QueryInterceptor.class);
       if (queryInterceptor == null) {
          queryInterceptor = buildQueryInterceptor(cfg, searchFactory);
+         queryInterceptor.setAsyncIndexer(AsyncIndexer.fromProperties(cfg.getIndexingProperties(), searchFactory, cacheName));
          cr.registerComponent(queryInterceptor, QueryInterceptor.class);
          CustomInterceptorPosition customInterceptorPosition = cfg.fluent()
                .customInterceptors()
@@ -154,6 +156,11 @@ private SearchFactoryIntegrator getSearchFactory(Properties indexingProperties,
    @Override
    public void cacheStopping(ComponentRegistry cr, String cacheName) {
       //TODO move this to cacheStopped event (won't work right now as the ComponentRegistry is half empty at that point: ISPN-1006)
+      QueryInterceptor queryInterceptor = cr.getComponent(QueryInterceptor.class);
+      if (queryInterceptor != null && queryInterceptor.getAsyncIndexer() != null) {
+         // the queued updates must reach the index before the search factory is closed
+         queryInterceptor.getAsyncIndexer().stop();
+      }
       SearchFactoryIntegrator searchFactoryImplementor = cr.getComponent(SearchFactoryIntegrator.class);
       if (searchFactoryImplementor != null) {
          searchFactoriesToShutdown.put(cacheName, searchFactoryImplementor);
@@ -51,4 +51,8 @@ public interface Log extends org.infinispan.util.logging.Log {
    @Message(value = "Registering Query interceptor", id = 14003)
    void registeringQueryInterceptor();
 
+   @LogMessage(level = ERROR)
+   @Message(value = "Could not apply a batch of %d asynchronous index updates", id = 14004)
+   void asyncIndexingFailed(int batchSize, @Cause Exception e);
+
 }
@@ -0,0 +1,103 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.query.backend;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.search.backend.TransactionContext;
+import org.hibernate.search.backend.spi.Work;
+import org.hibernate.search.backend.spi.Worker;
+import org.hibernate.search.spi.SearchFactoryIntegrator;
+import org.infinispan.CacheException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests how the {@link AsyncIndexer} reports the updates it could not apply, and how it applies updates once stopped.
+ *
+ * @since 5.2
+ */
+@Test(groups = "unit", testName = "query.backend.AsyncIndexerTest")
+public class AsyncIndexerTest {
+
+   private Worker worker;
+   private AsyncIndexer indexer;
+
+   @BeforeMethod
+   public void setUp() {
+      worker = mock(Worker.class);
+      SearchFactoryIntegrator searchFactory = mock(SearchFactoryIntegrator.class);
+      when(searchFactory.getWorker()).thenReturn(worker);
+      indexer = new AsyncIndexer(searchFactory, 10, 1, "AsyncIndexerTest");
+   }
+
+   @AfterMethod
+   public void tearDown() {
+      indexer.stop();
+   }
+
+   public void testWaitForFailedUpdate() throws InterruptedException {
+      Work<Object> ok = work();
+      Work<Object> failing = work();
+      doThrow(new RuntimeException("Induced failure")).when(worker).performWork(same(failing), any(TransactionContext.class));
+
+      long okSequence = indexer.submit(String.class, "ok", ok);
+      assert indexer.waitFor(okSequence, 10, TimeUnit.SECONDS);
+      long failingSequence = indexer.submit(String.class, "failing", failing);
+      long laterSequence = indexer.submit(String.class, "later", work());
+
+      assertWaitFails(failingSequence);
+      assertWaitFails(laterSequence);
+      // the updates applied before the failure are still reported as applied
+      assert indexer.waitFor(okSequence, 10, TimeUnit.SECONDS);
+   }
+
+   public void testSubmitAfterStop() {
+      indexer.stop();
+      Work<Object> work = work();
+      indexer.submit(String.class, "k", work);
+      verify(worker).performWork(same(work), any(TransactionContext.class));
+   }
+
+   private void assertWaitFails(long sequence) throws InterruptedException {
+      try {
+         indexer.waitFor(sequence, 10, TimeUnit.SECONDS);
+         assert false : "Waiting for update " + sequence + " should have failed";
+      } catch (CacheException e) {
+         // expected
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private static Work<Object> work() {
+      return mock(Work.class);
+   }
+}
@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.query.backend;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.lucene.search.Query;
+import org.infinispan.config.Configuration;
+import org.infinispan.manager.EmbeddedCacheManager;
+import org.infinispan.query.CacheQuery;
+import org.infinispan.query.Search;
+import org.infinispan.query.SearchManager;
+import org.infinispan.query.api.TestEntity;
+import org.infinispan.test.SingleCacheManagerTest;
+import org.infinispan.test.fwk.TestCacheManagerFactory;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the queries see the writes indexed by the {@link AsyncIndexer} once they waited for them.
+ *
+ * @since 5.2
+ */
+@Test(groups = "functional", testName = "query.backend.AsyncIndexingTest")
+public class AsyncIndexingTest extends SingleCacheManagerTest {
+
+   @Override
+   protected EmbeddedCacheManager createCacheManager() throws Exception {
+      Configuration c = getDefaultStandaloneConfig(false);
+      c.fluent()
+         .indexing()
+         .indexLocalOnly(false)
+         .addProperty("hibernate.search.default.directory_provider", "ram")
+         .addProperty("hibernate.search.lucene_version", "LUCENE_CURRENT")
+         .addProperty(AsyncIndexer.ASYNC_INDEXING, "true")
+         .addProperty(AsyncIndexer.QUEUE_SIZE, "10")
+         .addProperty(AsyncIndexer.BATCH_SIZE, "4");
+      return TestCacheManagerFactory.createCacheManager(c);
+   }
+
+   public void testReadYourWrites() throws InterruptedException {
+      SearchManager searchManager = Search.getSearchManager(cache);
+      for (int i = 0; i < 50; i++) {
+         cache.put(i, new TestEntity("name" + (i % 5), "surname" + i, i, "note"));
+      }
+      // overwritten before being indexed or not, only the last value may be found
+      cache.put(0, new TestEntity("other", "surname0", 0, "note"));
+
+      assert searchManager.waitForIndexing(searchManager.getIndexingSequence(), 10, TimeUnit.SECONDS);
+      assert countByName(searchManager, "name0") == 9;
+      assert countByName(searchManager, "other") == 1;
+
+      cache.remove(5);
+      assert searchManager.waitForIndexing(searchManager.getIndexingSequence(), 10, TimeUnit.SECONDS);
+      assert countByName(searchManager, "name0") == 8;
+
+      cache.clear();
+      assert searchManager.waitForIndexing(searchManager.getIndexingSequence(), 10, TimeUnit.SECONDS);
+      assert countByName(searchManager, "name1") == 0;
+   }
+
+   private int countByName(SearchManager searchManager, String name) {
+      Query query = searchManager.buildQueryBuilderForClass(TestEntity.class).get()
+            .keyword().onField("name").ignoreFieldBridge().matching(name).createQuery();
+      CacheQuery cacheQuery = searchManager.getQuery(query, TestEntity.class);
+      return cacheQuery.getResultSize();
+   }
+}
@@ -134,6 +134,29 @@ public void testLazyOrdered() throws ParseException {
       iterator.close();
    }
 
+   public void testLazyBatchedOrdered() throws ParseException {
+      populateCache();
+
+      SortField sortField = new SortField("age", SortField.INT);
+      Sort sort = new Sort(sortField);
+      cacheQuery.sort(sort);
+
+      QueryIterator iterator = cacheQuery.lazyIterator(3);
+      assert cacheQuery.getResultSize() == 4 : cacheQuery.getResultSize();
+
+      int previousAge = 0;
+      int count = 0;
+      while (iterator.hasNext()) {
+         Person person = (Person) iterator.next();
+         assert person.getAge() > previousAge;
+         previousAge = person.getAge();
+         count++;
+      }
+      assert count == 4 : count;
+
+      iterator.close();
+   }
+
    public void testLazyNonOrdered() throws ParseException {
       populateCache();
 
@@ -182,6 +205,34 @@ public void testList() throws ParseException {
       }
    }
    
+   public void testPagination() throws ParseException {
+      populateCache();
+
+      SortField sortField = new SortField("age", SortField.INT);
+      Sort sort = new Sort(sortField);
+      cacheQuery.sort(sort).firstResult(1).maxResults(2);
+
+      List<Object> results = cacheQuery.list();
+      assert results.size() == 2 : results.size();
+      assert ((Person) results.get(0)).getAge() == 35;
+      assert ((Person) results.get(1)).getAge() == 45;
+      assert cacheQuery.getResultSize() == 4 : cacheQuery.getResultSize();
+   }
+
+   public void testLazyPagination() throws ParseException {
+      populateCache();
+
+      SortField sortField = new SortField("age", SortField.INT);
+      Sort sort = new Sort(sortField);
+      cacheQuery.sort(sort).firstResult(3).maxResults(5);
+
+      QueryIterator iterator = cacheQuery.lazyIterator();
+      assert iterator.hasNext();
+      assert ((Person) iterator.next()).getAge() == 66;
+      assert !iterator.hasNext();
+      iterator.close();
+   }
+
    public void testGetResultSizeList() throws ParseException {
       populateCache();
       assert cacheQuery.getResultSize() == 4 : cacheQuery.getResultSize();
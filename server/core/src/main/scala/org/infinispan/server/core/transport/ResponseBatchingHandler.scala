@@ -0,0 +1,107 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.core.transport
+
+import org.jboss.netty.channel._
+import org.jboss.netty.buffer.{ChannelBuffers, ChannelBuffer}
+import scala.collection.mutable.ArrayBuffer
+import org.infinispan.server.core.logging.Log
+
+/**
+ * Coalesces the responses written while the requests contained in a single read are decoded, so that pipelined
+ * requests are answered with a single write to the socket instead of one per request.
+ *
+ * It must be the first handler in the pipeline, so that it sees the incoming messages before the decoder and the
+ * encoded responses after the encoder. Writes coming from other threads while a read is being decoded, i.e. server
+ * pushed events, are queued as well so that they cannot overtake the responses written before them.
+ *
+ * @since 5.2
+ */
+class ResponseBatchingHandler extends SimpleChannelHandler with Log {
+   import ResponseBatchingHandler._
+
+   private val isTrace = isTraceEnabled
+   // All guarded by this, the lock is only contended while server pushed events are written
+   private var batching = false
+   private val pending = new ArrayBuffer[MessageEvent]
+   private var pendingBytes = 0
+
+   override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
+      synchronized { batching = true }
+      try {
+         ctx.sendUpstream(e)
+      } finally {
+         synchronized {
+            batching = false
+            flush(ctx)
+         }
+      }
+   }
+
+   override def writeRequested(ctx: ChannelHandlerContext, e: MessageEvent) {
+      synchronized {
+         (batching, e.getMessage) match {
+            case (true, b: ChannelBuffer) => {
+               pending += e
+               pendingBytes += b.readableBytes
+               if (pendingBytes >= MaxBatchSize) flush(ctx)
+            }
+            case _ => {
+               flush(ctx) // Keep the responses ordered
+               ctx.sendDownstream(e)
+            }
+         }
+      }
+   }
+
+   private def flush(ctx: ChannelHandlerContext) {
+      pending.size match {
+         case 0 => // Nothing to write
+         case 1 => ctx.sendDownstream(pending(0))
+         case n => {
+            if (isTrace) trace("Writing %d responses, %d bytes, in a single write", n, pendingBytes)
+            val events = pending.toArray
+            val buffers = events.map(_.getMessage.asInstanceOf[ChannelBuffer])
+            val future = Channels.future(ctx.getChannel)
+            future.addListener(new ChannelFutureListener {
+               override def operationComplete(f: ChannelFuture) {
+                  events.foreach { ev =>
+                     if (f.isSuccess) ev.getFuture.setSuccess()
+                     else if (f.isCancelled) ev.getFuture.cancel()
+                     else ev.getFuture.setFailure(f.getCause)
+                  }
+               }
+            })
+            Channels.write(ctx, future, ChannelBuffers.wrappedBuffer(buffers: _*), events(0).getRemoteAddress)
+         }
+      }
+      pending.clear()
+      pendingBytes = 0
+   }
+
+}
+
+object ResponseBatchingHandler {
+   // Beyond this size there is little to gain from coalescing writes
+   private val MaxBatchSize = 64 * 1024
+}
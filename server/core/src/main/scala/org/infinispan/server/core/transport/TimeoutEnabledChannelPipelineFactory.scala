@@ -40,6 +40,7 @@ class TimeoutEnabledChannelPipelineFactory(server: ProtocolServer,
 
    override def getPipeline: ChannelPipeline = {
       val pipeline = Channels.pipeline
+      pipeline.addLast("responseBatcher", new ResponseBatchingHandler)
       pipeline.addLast("decoder", server.getDecoder)
       if (encoder != null)
          pipeline.addLast("encoder", encoder)
@@ -0,0 +1,80 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.core.transport
+
+import org.testng.annotations.Test
+import org.testng.Assert._
+import org.jboss.netty.buffer.{ChannelBuffers, ChannelBuffer}
+import org.jboss.netty.channel._
+import org.jboss.netty.handler.codec.embedder.DecoderEmbedder
+import org.jboss.netty.util.CharsetUtil.UTF_8
+
+/**
+ * Tests that the responses written while decoding a single read are coalesced in a single write.
+ *
+ * @since 5.2
+ */
+@Test(groups = Array("functional"), testName = "server.core.transport.ResponseBatchingHandlerTest")
+class ResponseBatchingHandlerTest {
+
+   def testResponsesOfOneReadAreCoalesced() {
+      val embedder = new DecoderEmbedder[ChannelBuffer](new ResponseBatchingHandler, new ResponseWriter)
+      embedder.offer(ChannelBuffers.copiedBuffer("r1,r2,r3,r4", UTF_8))
+      // The sink gets a single message, holding all the responses in order
+      assertEquals(embedder.size, 1)
+      assertEquals(embedder.poll.toString(UTF_8), "r1r2r3r4")
+
+      embedder.offer(ChannelBuffers.copiedBuffer("r5", UTF_8))
+      assertEquals(embedder.size, 1)
+      assertEquals(embedder.poll.toString(UTF_8), "r5")
+      assertFalse(embedder.finish)
+   }
+
+   def testWriteOutsideReadIsNotDelayed() {
+      val writer = new ResponseWriter
+      val embedder = new DecoderEmbedder[ChannelBuffer](new ResponseBatchingHandler, writer)
+      embedder.offer(ChannelBuffers.copiedBuffer("r1", UTF_8))
+      assertEquals(embedder.poll.toString(UTF_8), "r1")
+      // e.g. a server pushed event, written by another thread once the read is decoded
+      Channels.write(writer.channel, ChannelBuffers.copiedBuffer("event", UTF_8))
+      assertEquals(embedder.size, 1)
+      assertEquals(embedder.poll.toString(UTF_8), "event")
+      assertFalse(embedder.finish)
+   }
+
+   /**
+    * Writes a response for each of the comma separated requests of the message received.
+    */
+   private class ResponseWriter extends SimpleChannelUpstreamHandler {
+      @volatile var channel: Channel = _
+
+      override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
+         channel = ctx.getChannel
+         val requests = e.getMessage.asInstanceOf[ChannelBuffer].toString(UTF_8).split(",")
+         requests.foreach { r =>
+            Channels.write(ctx, Channels.future(ctx.getChannel), ChannelBuffers.copiedBuffer(r, UTF_8))
+         }
+      }
+   }
+
+}
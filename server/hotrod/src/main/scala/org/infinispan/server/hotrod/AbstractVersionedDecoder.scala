@@ -52,6 +52,11 @@ abstract class AbstractVersionedDecoder {
     */
    def readParameters(header: HotRodHeader, buffer: ChannelBuffer): (RequestParameters, Boolean)
 
+   /**
+    * Read the lifespan, max idle and key/value pairs of an operation operating on multiple entries.
+    */
+   def readEntries(header: HotRodHeader, buffer: ChannelBuffer): (RequestParameters, Seq[(ByteArrayKey, Array[Byte])])
+
    /**
     * Read the value part of the operation.
     */
@@ -0,0 +1,213 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.hotrod
+
+import logging.Log
+import org.infinispan.Cache
+import org.infinispan.notifications.Listener
+import org.infinispan.notifications.cachelistener.annotation.{CacheEntryRemoved, CacheEntryModified}
+import org.infinispan.notifications.cachelistener.event.{CacheEntryModifiedEvent, CacheEntryEvent}
+import org.infinispan.server.core.CacheValue
+import org.infinispan.util.ByteArrayKey
+import org.jboss.netty.channel.{ChannelFuture, ChannelFutureListener, Channel}
+import java.util.ArrayList
+import ClientEventListener._
+
+/**
+ * Listener that streams the cache entry events accepted by a client's filter to the channel the client registered
+ * from.
+ *
+ * Every accepted event gets the next sequence number and is kept in a bounded ring, from which it is sent in batches.
+ * Only one batch is in flight at any time, so a client that doesn't keep up makes the events accumulate in the ring,
+ * and the oldest ones are overwritten once it is full. The client detects the resulting gap in the sequence numbers.
+ *
+ * The listener outlives the client's connection for a while, so that a client reconnecting with the sequence number of
+ * the last event it processed gets the events it missed in the meantime, as long as they are still in the ring.
+ *
+ * To avoid duplicates in a cluster, events are only sent by the primary owner of the key in distributed caches, and by
+ * the node where the modification originated otherwise.
+ *
+ * @since 5.2
+ */
+@Listener
+class ClientEventListener(val id: ByteArrayKey, val cache: Cache[ByteArrayKey, CacheValue], server: HotRodServer,
+                          keyPrefix: Array[Byte], filter: ClientEventFilter, includeValues: Boolean) extends Log {
+
+   private val isTrace = isTraceEnabled
+   private val events = new Array[ClientEvent](MaxRetainedEvents)
+
+   // All guarded by this
+   private var nextSequence = 1L
+   private var lastSent = 0L
+   private var writing = false
+   private var channel: Channel = null
+   private var header: HotRodHeader = null
+   private var disconnectedAt = 0L
+
+   @CacheEntryModified
+   @CacheEntryRemoved
+   def entryChanged(e: CacheEntryEvent[ByteArrayKey, CacheValue]) {
+      if (!e.isPre && isEmittedHere(e)) {
+         val key = e.getKey.getData
+         val cacheValue = e match {
+            case m: CacheEntryModifiedEvent[_, _] => m.getValue.asInstanceOf[CacheValue]
+            case _ => null
+         }
+         val data = if (cacheValue == null) null else cacheValue.data
+         if (startsWith(key, keyPrefix) && (filter == null || filter.accept(key, data))) {
+            val eventType = if (cacheValue == null) Removed else Modified
+            val value = if (includeValues) data else null
+            append(eventType, key, value, if (cacheValue == null) 0 else cacheValue.version)
+            flush()
+         }
+      }
+   }
+
+   private def isEmittedHere(e: CacheEntryEvent[ByteArrayKey, CacheValue]): Boolean = {
+      val dm = cache.getAdvancedCache.getDistributionManager
+      if (dm != null)
+         dm.getPrimaryLocation(e.getKey) == cache.getCacheManager.getAddress
+      else
+         e.isOriginLocal
+   }
+
+   private def startsWith(key: Array[Byte], prefix: Array[Byte]): Boolean = {
+      if (key.length < prefix.length) return false
+      var i = 0
+      while (i < prefix.length) {
+         if (key(i) != prefix(i)) return false
+         i += 1
+      }
+      true
+   }
+
+   private def append(eventType: Byte, key: Array[Byte], value: Array[Byte], dataVersion: Long) {
+      synchronized {
+         events((nextSequence % MaxRetainedEvents).toInt) =
+               new ClientEvent(eventType, nextSequence, key, value, dataVersion)
+         nextSequence += 1
+      }
+   }
+
+   /**
+    * Detaches the listener from its current channel, if any, and positions it after the given sequence number.
+    *
+    * @return whether all the events after the given sequence number are still retained, and the sequence number of
+    *         the last event not to be sent
+    */
+   def resume(lastReceived: Long): (Boolean, Long) = {
+      synchronized {
+         channel = null
+         val oldest = math.max(1L, nextSequence - MaxRetainedEvents)
+         val resumed = lastReceived > 0 && lastReceived >= oldest - 1 && lastReceived < nextSequence
+         lastSent = if (resumed) lastReceived else nextSequence - 1
+         (resumed, lastSent)
+      }
+   }
+
+   /**
+    * Starts sending the events to the given channel. To be called once the response to the registration was written.
+    */
+   def attach(ch: Channel, h: HotRodHeader) {
+      synchronized {
+         channel = ch
+         header = h
+      }
+      ch.getCloseFuture.addListener(new ChannelFutureListener {
+         override def operationComplete(f: ChannelFuture) {
+            detach(ch)
+         }
+      })
+      flush()
+   }
+
+   private def detach(ch: Channel) {
+      synchronized {
+         if (channel == ch) {
+            channel = null
+            disconnectedAt = System.currentTimeMillis
+         }
+      }
+   }
+
+   /**
+    * @return whether no client has been attached for at least the given time
+    */
+   def isExpired(now: Long, retentionMillis: Long): Boolean = {
+      synchronized {
+         channel == null && disconnectedAt != 0 && now - disconnectedAt >= retentionMillis
+      }
+   }
+
+   private def flush() {
+      val (ch, batch, first) = synchronized {
+         if (writing || channel == null || lastSent == nextSequence - 1) {
+            (null, null, 0L)
+         } else {
+            // Events overwritten in the ring are skipped, the client sees the gap
+            val first = math.max(lastSent + 1, nextSequence - MaxRetainedEvents)
+            var sequence = first
+            val last = math.min(nextSequence - 1, sequence + MaxBatchSize - 1)
+            val batchEvents = new ArrayList[ClientEvent]((last - sequence + 1).toInt)
+            while (sequence <= last) {
+               batchEvents.add(events((sequence % MaxRetainedEvents).toInt))
+               sequence += 1
+            }
+            writing = true
+            lastSent = last
+            // Use the current view id, so that events never carry topology updates
+            (channel, new ClientEvents(header.version, header.cacheName, header.clientIntel,
+                  server.getViewId, scala.collection.JavaConversions.asScalaBuffer(batchEvents)), first)
+         }
+      }
+      if (batch != null) {
+         if (isTrace) trace("Push %s to %s", batch, ch)
+         ch.write(batch).addListener(new ChannelFutureListener {
+            override def operationComplete(f: ChannelFuture) {
+               val retry = !f.isSuccess && ch.isOpen
+               ClientEventListener.this.synchronized {
+                  writing = false
+                  // The batch wasn't sent, send it again unless the client resumed on another channel meanwhile
+                  if (retry && channel == ch) lastSent = math.min(lastSent, first - 1)
+               }
+               if (f.isSuccess || retry) flush() else detach(ch)
+            }
+         })
+      }
+   }
+
+   override def toString = "ClientEventListener{id=%s, cacheName=%s}".format(id, cache.getName)
+
+}
+
+object ClientEventListener {
+   val Modified: Byte = 1
+   val Removed: Byte = 2
+
+   /**
+    * Events kept per listener, both for clients that are slower than the rate of events and for clients reconnecting
+    */
+   val MaxRetainedEvents = 4096
+
+   val MaxBatchSize = 256
+}
@@ -0,0 +1,114 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.hotrod
+
+import logging.Log
+import org.infinispan.Cache
+import org.infinispan.server.core.CacheValue
+import org.infinispan.util.ByteArrayKey
+import org.infinispan.util.concurrent.ConcurrentMapFactory
+import java.util.{TimerTask, Timer}
+import scala.collection.JavaConversions._
+
+/**
+ * Keeps the client listeners registered in a Hot Rod server, so that clients can reconnect to them, and removes the
+ * ones whose client has not reconnected for a while.
+ *
+ * @since 5.2
+ */
+class ClientListenerRegistry(server: HotRodServer) extends Log {
+
+   import ClientListenerRegistry._
+
+   private val listeners: java.util.concurrent.ConcurrentMap[ByteArrayKey, ClientEventListener] =
+      ConcurrentMapFactory.makeConcurrentMap()
+
+   private val expirer = new Timer("HotRodClientListenerExpirer", true)
+
+   expirer.schedule(new TimerTask {
+      override def run() {
+         removeExpired()
+      }
+   }, RetentionMillis, RetentionMillis / 4)
+
+   /**
+    * Returns the listener registered with the given id in the given cache, registering a new one if there is none.
+    * The key prefix, filter and values flag of an existing listener are kept.
+    */
+   def getOrRegister(id: Array[Byte], cache: Cache[ByteArrayKey, CacheValue], keyPrefix: Array[Byte],
+                     filterClass: String, includeValues: Boolean): ClientEventListener = {
+      // Listener ids are random, but make sure reconnections go to the same cache
+      val key = new ByteArrayKey(cache.getName.getBytes("UTF-8") ++ id)
+      val existing = listeners.get(key)
+      if (existing != null) {
+         existing
+      } else {
+         val filter =
+            if (filterClass == null || filterClass.isEmpty) null
+            else newFilter(filterClass)
+         val listener = new ClientEventListener(key, cache, server, keyPrefix, filter, includeValues)
+         val previous = listeners.putIfAbsent(key, listener)
+         if (previous != null) {
+            previous
+         } else {
+            cache.addListener(listener)
+            if (isTraceEnabled) trace("Registered client listener %s", listener)
+            listener
+         }
+      }
+   }
+
+   private def newFilter(className: String): ClientEventFilter = {
+      // The name comes from the client, so the class is only initialized once known to be a filter
+      val clazz = Class.forName(className, false, getClass.getClassLoader)
+      if (!classOf[ClientEventFilter].isAssignableFrom(clazz))
+         throw new IllegalArgumentException("%s does not implement %s".format(className, classOf[ClientEventFilter].getName))
+      clazz.asSubclass(classOf[ClientEventFilter]).newInstance
+   }
+
+   private def removeExpired() {
+      val now = System.currentTimeMillis
+      for (listener <- listeners.values) {
+         if (listener.isExpired(now, RetentionMillis) && listeners.remove(listener.id, listener)) {
+            listener.cache.removeListener(listener)
+            if (isTraceEnabled) trace("Removed client listener %s, its client did not reconnect", listener)
+         }
+      }
+   }
+
+   def stop() {
+      expirer.cancel()
+      for (listener <- listeners.values) {
+         listener.cache.removeListener(listener)
+      }
+      listeners.clear()
+   }
+
+}
+
+object ClientListenerRegistry {
+   /**
+    * Time a listener is kept after its client disconnected
+    */
+   val RetentionMillis = 60000L
+}
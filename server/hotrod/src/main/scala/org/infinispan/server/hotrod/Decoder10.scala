@@ -46,7 +46,7 @@ import transport.NettyTransport
  * @author Galder Zamarreño
  * @since 4.1
  */
-object Decoder10 extends AbstractVersionedDecoder with Log {
+object Decoder10 extends AbstractVersionedDecoder with Constants with Log {
    import OperationResponse._
    import ProtocolFlag._
    type SuitableHeader = HotRodHeader
@@ -68,6 +68,12 @@ object Decoder10 extends AbstractVersionedDecoder with Log {
          case 0x15 => (StatsRequest, true)
          case 0x17 => (PingRequest, true)
          case 0x19 => (BulkGetRequest, false)
+         // Multi-key operations, new in 1.2
+         case 0x1B if version >= VERSION_12 => (GetAllRequest, false)
+         case 0x1D if version >= VERSION_12 => (PutAllRequest, false)
+         case 0x1F if version >= VERSION_12 => (RemoveAllRequest, false)
+         case 0x21 if version >= VERSION_12 => (AddNearCacheListenerRequest, true)
+         case 0x23 if version >= VERSION_12 => (AddClientListenerRequest, false)
          case _ => throw new HotRodUnknownOperationException(
                "Unknown operation: " + streamOp, version, messageId)
       }
@@ -117,6 +123,19 @@ object Decoder10 extends AbstractVersionedDecoder with Log {
       }
    }
 
+   override def readEntries(header: HotRodHeader, buffer: ChannelBuffer): (RequestParameters, Seq[(ByteArrayKey, Array[Byte])]) = {
+      val lifespan = readLifespanOrMaxIdle(buffer)
+      val maxIdle = readLifespanOrMaxIdle(buffer)
+      val count = readUnsignedInt(buffer)
+      val entries = for (i <- 0 until count) yield (readKey(buffer), readRangedBytes(buffer))
+      (new RequestParameters(-1, lifespan, maxIdle, -1), entries)
+   }
+
+   private def readKeys(buffer: ChannelBuffer): Seq[ByteArrayKey] = {
+      val count = readUnsignedInt(buffer)
+      for (i <- 0 until count) yield readKey(buffer)
+   }
+
    private def readLifespanOrMaxIdle(buffer: ChannelBuffer): Int = {
       val stream = readUnsignedInt(buffer)
       if (stream <= 0) -1 else stream
@@ -135,7 +154,8 @@ object Decoder10 extends AbstractVersionedDecoder with Log {
       createResponse(header, toResponse(header.op), KeyDoesNotExist, null)
 
    private def createResponse(h: HotRodHeader, op: OperationResponse, st: OperationStatus, prev: CacheValue): AnyRef = {
-      if (h.flag == ForceReturnPreviousValue)
+      // Multi-key operations never return previous values
+      if (h.flag == ForceReturnPreviousValue && h.op != PutAllRequest && h.op != RemoveAllRequest)
          new ResponseWithPrevious(h.version, h.messageId, h.cacheName,
                h.clientIntel, op, st, h.topologyId, if (prev == null) None else Some(prev.data))
       else
@@ -208,6 +228,24 @@ object Decoder10 extends AbstractVersionedDecoder with Log {
             new BulkGetResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
                                 BulkGetResponse, Success, h.topologyId, count)
          }
+         case GetAllRequest => {
+            val keys = readKeys(buffer)
+            val entries = for {
+               k <- keys
+               v = cache.get(k)
+               if v != null
+            } yield (k.getData, v.data)
+            if (isTrace) trace("Found %d out of %d requested keys", entries.size, keys.size)
+            new GetAllResponse(h.version, h.messageId, h.cacheName, h.clientIntel,
+                               GetAllResponse, Success, h.topologyId, entries)
+         }
+         case RemoveAllRequest => {
+            // Read all the keys before modifying the cache, in case the buffer needs replaying
+            val keys = readKeys(buffer)
+            val optimizedCache = getOptimizedCache(h, cache)
+            keys.foreach(optimizedCache.remove(_))
+            createResponse(h, RemoveAllResponse, Success, null)
+         }
       }
    }
 
@@ -267,6 +305,11 @@ object Decoder10 extends AbstractVersionedDecoder with Log {
          case StatsRequest => StatsResponse
          case PingRequest => PingResponse
          case BulkGetRequest => BulkGetResponse
+         case GetAllRequest => GetAllResponse
+         case PutAllRequest => PutAllResponse
+         case RemoveAllRequest => RemoveAllResponse
+         case AddNearCacheListenerRequest => AddNearCacheListenerResponse
+         case AddClientListenerRequest => AddClientListenerResponse
       }
    }
 
@@ -287,6 +330,13 @@ object OperationResponse extends Enumeration {
    val StatsResponse = Value(0x16)
    val PingResponse = Value(0x18)
    val BulkGetResponse = Value(0x1A)
+   val GetAllResponse = Value(0x1C)
+   val PutAllResponse = Value(0x1E)
+   val RemoveAllResponse = Value(0x20)
+   val AddNearCacheListenerResponse = Value(0x22)
+   val AddClientListenerResponse = Value(0x24)
+   val InvalidationEvent = Value(0x60)
+   val ClientEvents = Value(0x61)
    val ErrorResponse = Value(0x50)
 }
 
@@ -104,8 +104,35 @@ object Encoder10 extends AbstractVersionedEncoder with Constants with Log {
                buf.writeByte(0) // Done
             }
          }
+         case g: GetAllResponse => {
+            writeUnsignedInt(g.entries.size, buf)
+            for ((key, value) <- g.entries) {
+               writeRangedBytes(key, buf)
+               writeRangedBytes(value, buf)
+            }
+         }
          case g: GetResponse => if (g.status == Success) writeRangedBytes(g.data.get, buf)
          case e: ErrorResponse => writeString(e.msg, buf)
+         case i: InvalidationEvent => writeRangedBytes(i.key, buf)
+         case a: AddClientListenerResponse => {
+            buf.writeByte(if (a.resumed) 1 else 0)
+            writeUnsignedLong(a.lastSequence, buf)
+         }
+         case c: ClientEvents => {
+            writeUnsignedInt(c.events.size, buf)
+            for (e <- c.events) {
+               buf.writeByte(e.eventType)
+               writeUnsignedLong(e.sequence, buf)
+               writeRangedBytes(e.key, buf)
+               if (e.value == null) {
+                  buf.writeByte(0)
+               } else {
+                  buf.writeByte(1)
+                  writeRangedBytes(e.value, buf)
+                  writeUnsignedLong(e.dataVersion, buf)
+               }
+            }
+         }
          case _ => if (buf == null) throw new IllegalArgumentException("Response received is unknown: " + r);
       }
    }
@@ -33,9 +33,11 @@ import org.infinispan.Cache
 import org.infinispan.util.ByteArrayKey
 import java.io.{IOException, StreamCorruptedException}
 import org.jboss.netty.buffer.ChannelBuffer
-import org.jboss.netty.channel.Channel
+import org.jboss.netty.channel.{ChannelFuture, ChannelFutureListener, Channel}
 import java.lang.StringBuilder
 import java.util.HashSet
+import java.util.HashMap
+import java.util.concurrent.TimeUnit
 import org.infinispan.util.concurrent.ConcurrentMapFactory
 
 /**
@@ -77,7 +79,7 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager, transport: NettyTranspor
 
       try {
          val decoder = version match {
-            case VERSION_10 | VERSION_11 => Decoder10
+            case VERSION_10 | VERSION_11 | VERSION_12 => Decoder10
             case _ => throw new UnknownVersionException(
                "Unknown version:" + version, version, messageId)
          }
@@ -153,11 +155,70 @@ class HotRodDecoder(cacheManager: EmbeddedCacheManager, transport: NettyTranspor
    override def createMultiGetResponse(pairs: Map[ByteArrayKey, CacheValue]): AnyRef =
       null // Unsupported
 
-   override protected def customDecodeHeader(ch: Channel, buffer: ChannelBuffer): AnyRef =
-      writeResponse(ch, header.decoder.customReadHeader(header, buffer, cache))
+   override protected def customDecodeHeader(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         // The listener pushes its events through this decoder's channel
+         case HotRodOperation.AddNearCacheListenerRequest => addNearCacheListener(ch)
+         case _ => writeResponse(ch, header.decoder.customReadHeader(header, buffer, cache))
+      }
+   }
+
+   private def addNearCacheListener(ch: Channel): AnyRef = {
+      val listenerCache = cache
+      val listener = new NearCacheInvalidationListener(ch, header, server)
+      // Respond before adding the listener, so that no event precedes the response
+      val ret = writeResponse(ch, header.decoder.createSuccessResponse(header, null))
+      listenerCache.addListener(listener)
+      ch.getCloseFuture.addListener(new ChannelFutureListener {
+         override def operationComplete(f: ChannelFuture) {
+            listenerCache.removeListener(listener)
+         }
+      })
+      if (isTrace) trace("Added near cache listener %s", listener)
+      ret
+   }
+
+   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         // Versions of the stored values are generated by this decoder
+         case HotRodOperation.PutAllRequest => writeResponse(ch, putAll(buffer))
+         // Events are pushed through this decoder's channel once the response is written
+         case HotRodOperation.AddClientListenerRequest => addClientListener(ch, buffer)
+         case _ => writeResponse(ch, header.decoder.customReadKey(header, buffer, cache))
+      }
+   }
+
+   private def putAll(buffer: ChannelBuffer): AnyRef = {
+      // Read all the entries before modifying the cache, in case the buffer needs replaying
+      val (parameters, entries) = header.decoder.readEntries(header, buffer)
+      val map = new HashMap[ByteArrayKey, CacheValue](entries.size * 4 / 3 + 1)
+      entries.foreach { case (k, v) =>
+         map.put(k, header.decoder.createValue(parameters, generateVersion(cache), v))
+      }
+      if (isTrace) trace("About to put %d entries in a single batch", map.size)
+      getOptimizedCache(cache).putAll(map,
+         toMillis(parameters.lifespan), TimeUnit.MILLISECONDS,
+         toMillis(parameters.maxIdle), TimeUnit.MILLISECONDS)
+      header.decoder.createSuccessResponse(header, null)
+   }
 
-   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef =
-      writeResponse(ch, header.decoder.customReadKey(header, buffer, cache))
+   private def addClientListener(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      // Read the whole request before registering, in case the buffer needs replaying
+      val listenerId = readRangedBytes(buffer)
+      val lastReceived = readUnsignedLong(buffer)
+      val includeValues = buffer.readByte == 1
+      val keyPrefix = readRangedBytes(buffer)
+      val filterClass = readString(buffer)
+      val h = header
+      val listener = server.getClientListeners.getOrRegister(
+         listenerId, cache, keyPrefix, filterClass, includeValues)
+      val (resumed, lastSequence) = listener.resume(lastReceived)
+      val ret = writeResponse(ch, new AddClientListenerResponse(h.version, h.messageId, h.cacheName,
+            h.clientIntel, h.topologyId, resumed, lastSequence))
+      listener.attach(ch, h)
+      if (isTrace) trace("Attached client listener %s from sequence %d, resumed=%b", listener, lastSequence, resumed)
+      ret
+   }
 
    override protected def customDecodeValue(ch: Channel, buffer: ChannelBuffer): AnyRef =
       writeResponse(ch, header.decoder.customReadValue(header, buffer, cache))
@@ -31,6 +31,8 @@ import org.jboss.netty.channel.Channel
 import org.infinispan.server.core.transport.ExtendedChannelBuffer._
 import org.infinispan.remoting.transport.Address
 import org.infinispan.util.Util
+import org.jboss.netty.buffer.{ChannelBuffers, ChannelBuffer}
+import OperationStatus._
 
 /**
  * Hot Rod specific encoder.
@@ -54,23 +56,55 @@ class HotRodEncoder(cacheManager: EmbeddedCacheManager, server: HotRodServer)
       val buf = dynamicBuffer
       val encoder = r.version match {
          case VERSION_10 => Encoder10
-         case VERSION_11 => Encoder11
+         case VERSION_11 | VERSION_12 => Encoder11
          case 0 => Encoder10 // TODO: Assume most up to date when 1.1 ready!
       }
 
       r.version match {
-         case VERSION_10 | VERSION_11 => encoder.writeHeader(r, buf, addressCache, server)
+         case VERSION_10 | VERSION_11 | VERSION_12 => encoder.writeHeader(r, buf, addressCache, server)
          // if error before reading version, don't send any topology changes
          // cos the encoding might vary from one version to the other
          case 0 => encoder.writeHeader(r, buf, null, null)
       }
 
-      encoder.writeResponse(r, buf, cacheManager, server)
+      val value = writeValuePrefix(r, buf)
+      if (value == null)
+         encoder.writeResponse(r, buf, cacheManager, server)
+      else
+         writeUnsignedInt(value.length, buf)
       if (isTrace)
          trace("Write buffer contents %s to channel %s",
             Util.hexDump(buf.toByteBuffer), ctx.getChannel)
 
-      buf
+      if (value == null) buf
+      else ChannelBuffers.wrappedBuffer(buf, ChannelBuffers.wrappedBuffer(value))
    }
 
+   /**
+    * If the response ends with a value big enough, writes what precedes the
+    * value and returns it, so that it's sent straight from the array stored
+    * in the cache rather than copied into the response buffer. Stored arrays
+    * are never modified, so sharing them with Netty is safe.
+    */
+   private def writeValuePrefix(r: Response, buf: ChannelBuffer): Array[Byte] = {
+      r match {
+         case g: GetWithVersionResponse if g.status == Success && isLarge(g.data) => {
+            buf.writeLong(g.dataVersion)
+            g.data.get
+         }
+         case g: GetResponse if !g.isInstanceOf[GetWithVersionResponse]
+               && g.status == Success && isLarge(g.data) => g.data.get
+         case p: ResponseWithPrevious if isLarge(p.previous) => p.previous.get
+         case _ => null
+      }
+   }
+
+   private def isLarge(value: Option[Array[Byte]]): Boolean =
+      value != None && value.get.length >= HotRodEncoder.MinWrappedValueSize
+
+}
+
+object HotRodEncoder {
+   // Smaller values are cheaper to copy than to wrap in a composite buffer
+   private val MinWrappedValueSize = 1024
 }
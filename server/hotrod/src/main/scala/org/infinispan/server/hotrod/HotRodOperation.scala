@@ -37,5 +37,10 @@ object HotRodOperation extends Enumeration(20) {
    val QuitRequest = Value
    val PingRequest = Value
    val BulkGetRequest = Value
+   val GetAllRequest = Value
+   val PutAllRequest = Value
+   val RemoveAllRequest = Value
+   val AddNearCacheListenerRequest = Value
+   val AddClientListenerRequest = Value
 
 }
\ No newline at end of file
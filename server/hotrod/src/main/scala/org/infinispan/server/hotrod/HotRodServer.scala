@@ -60,6 +60,7 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
    private var viewId: Int = _
    private val knownCaches : java.util.Map[String, Cache[ByteArrayKey, CacheValue]] = ConcurrentMapFactory.makeConcurrentMap(4, 0.9f, 16)
    private val isTrace = isTraceEnabled
+   private val clientListeners = new ClientListenerRegistry(this)
 
    def getAddress: ServerAddress = address
 
@@ -189,6 +190,13 @@ class HotRodServer extends AbstractProtocolServer("HotRod") with Log {
 
    private[hotrod] def getAddressCache = addressCache
 
+   private[hotrod] def getClientListeners = clientListeners
+
+   override def stop {
+      clientListeners.stop()
+      super.stop
+   }
+
    /**
     * Listener that provides guarantees for view id updates. So, a view id will
     * only be considered to have changed once the address cache has been
@@ -0,0 +1,70 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.hotrod
+
+import logging.Log
+import org.infinispan.notifications.Listener
+import org.infinispan.notifications.cachelistener.annotation.{CacheEntryInvalidated, CacheEntryRemoved, CacheEntryModified}
+import org.infinispan.notifications.cachelistener.event.CacheEntryEvent
+import org.infinispan.server.core.CacheValue
+import org.infinispan.util.ByteArrayKey
+import org.jboss.netty.channel.Channel
+
+/**
+ * Listener that pushes an invalidation event to a Hot Rod client's near
+ * cache whenever an entry is modified, removed or invalidated in this node.
+ * The events are written to the channel the client registered from, which
+ * is only used for these events from then on.
+ *
+ * Events are not queued for a client that doesn't keep up: once the channel
+ * stops being writable, it is closed, which makes the client clear its near
+ * cache and register again.
+ *
+ * @since 5.2
+ */
+@Listener
+class NearCacheInvalidationListener(ch: Channel, h: HotRodHeader, server: HotRodServer) extends Log {
+
+   private val isTrace = isTraceEnabled
+
+   @CacheEntryModified
+   @CacheEntryRemoved
+   @CacheEntryInvalidated
+   def entryChanged(e: CacheEntryEvent[ByteArrayKey, CacheValue]) {
+      if (!e.isPre && ch.isOpen) {
+         // Use the current view id, so that events never carry topology updates
+         val event = new InvalidationEvent(h.version, h.cacheName, h.clientIntel,
+               server.getViewId, e.getKey.getData)
+         if (ch.isWritable) {
+            if (isTrace) trace("Push %s to %s", event, ch)
+            ch.write(event)
+         } else {
+            debug("Closing %s, its client does not keep up with the invalidations", ch)
+            ch.close()
+         }
+      }
+   }
+
+   override def toString = "NearCacheInvalidationListener{channel=%s, cacheName=%s}".format(ch, h.cacheName)
+
+}
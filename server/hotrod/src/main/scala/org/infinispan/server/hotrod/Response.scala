@@ -94,6 +94,21 @@ class BulkGetResponse(override val version: Byte, override val messageId: Long,
    }
 }
 
+class GetAllResponse(override val version: Byte, override val messageId: Long, override val cacheName: String, override val clientIntel: Short,
+                     override val operation: OperationResponse, override val status: OperationStatus,
+                     override val topologyId: Int, val entries: Seq[(Array[Byte], Array[Byte])])
+      extends Response(version, messageId, cacheName, clientIntel, operation, status, topologyId) {
+   override def toString = {
+      new StringBuilder().append("GetAllResponse").append("{")
+         .append("version=").append(version)
+         .append(", messageId=").append(messageId)
+         .append(", operation=").append(operation)
+         .append(", status=").append(status)
+         .append(", entries=").append(entries.size)
+         .append("}").toString
+   }
+}
+
 class GetWithVersionResponse(override val version: Byte, override val messageId: Long, override val cacheName: String,
                              override val clientIntel: Short, override val operation: OperationResponse,
                              override val status: OperationStatus,
@@ -112,6 +127,55 @@ class GetWithVersionResponse(override val version: Byte, override val messageId:
    }
 }
 
+class InvalidationEvent(override val version: Byte, override val cacheName: String, override val clientIntel: Short,
+                        override val topologyId: Int, val key: Array[Byte])
+      extends Response(version, 0, cacheName, clientIntel, InvalidationEvent, Success, topologyId) {
+   override def toString = {
+      new StringBuilder().append("InvalidationEvent").append("{")
+         .append("version=").append(version)
+         .append(", cacheName=").append(cacheName)
+         .append(", key=").append(Util.printArray(key, true))
+         .append("}").toString
+   }
+}
+
+class AddClientListenerResponse(override val version: Byte, override val messageId: Long, override val cacheName: String,
+                                override val clientIntel: Short, override val topologyId: Int,
+                                val resumed: Boolean, val lastSequence: Long)
+      extends Response(version, messageId, cacheName, clientIntel, AddClientListenerResponse, Success, topologyId) {
+   override def toString = {
+      new StringBuilder().append("AddClientListenerResponse").append("{")
+         .append("version=").append(version)
+         .append(", messageId=").append(messageId)
+         .append(", cacheName=").append(cacheName)
+         .append(", resumed=").append(resumed)
+         .append(", lastSequence=").append(lastSequence)
+         .append("}").toString
+   }
+}
+
+/**
+ * A batch of cache entry events pushed to a client listener.
+ */
+class ClientEvents(override val version: Byte, override val cacheName: String, override val clientIntel: Short,
+                   override val topologyId: Int, val events: Seq[ClientEvent])
+      extends Response(version, 0, cacheName, clientIntel, ClientEvents, Success, topologyId) {
+   override def toString = {
+      new StringBuilder().append("ClientEvents").append("{")
+         .append("version=").append(version)
+         .append(", cacheName=").append(cacheName)
+         .append(", size=").append(events.size)
+         .append(", firstSequence=").append(if (events.isEmpty) "none" else events.head.sequence)
+         .append("}").toString
+   }
+}
+
+/**
+ * @param value null for removals, or when the client did not ask for values
+ */
+class ClientEvent(val eventType: Byte, val sequence: Long, val key: Array[Byte], val value: Array[Byte],
+                  val dataVersion: Long)
+
 class ErrorResponse(override val version: Byte, override val messageId: Long, override val cacheName: String,
                     override val clientIntel: Short, override val status: OperationStatus,
                     override val topologyId: Int, val msg: String)
@@ -443,6 +443,20 @@ class HotRodFunctionalTest extends HotRodSingleNodeTest {
       assertStatus(client.put(k(m), 0, 0, value), Success)
    }
 
+   def testGetLargeValue(m: Method) {
+      // Values of 1024 bytes or more are sent from the stored array, after the rest of the response
+      for (size <- List(1024, 64 * 1024)) {
+         val value = generateRandomString(size).getBytes
+         assertStatus(client.put(k(m), 0, 0, value), Success)
+         assertSuccess(client.get(k(m), 0), value)
+         assertSuccess(client.getWithVersion(k(m), 0), value, 0)
+         val resp = client.put(k(m), 0, 0, v(m), 1).asInstanceOf[TestResponseWithPrevious]
+         assertSuccess(resp, value)
+         // The responses that follow on the same connection are intact
+         assertSuccess(client.get(k(m), 0), v(m))
+      }
+   }
+
    def testStoreAsBinaryOverrideOnNamedCache(m: Method) {
       val cm = createTestCacheManager
       val cacheName = "cache-" + m.getName
@@ -0,0 +1,126 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import org.jboss.netty.buffer.{ChannelBuffers, ChannelBuffer}
+
+/**
+ * Memcached binary protocol constants and utilities.
+ *
+ * @since 5.2
+ */
+object BinaryProtocolUtil {
+
+   val MAGIC_REQ = 0x80
+   val MAGIC_RES = 0x81
+   val HEADER_SIZE = 24
+
+   // Opcodes
+   val GET = 0x00
+   val SET = 0x01
+   val ADD = 0x02
+   val REPLACE = 0x03
+   val DELETE = 0x04
+   val INCREMENT = 0x05
+   val DECREMENT = 0x06
+   val QUIT = 0x07
+   val FLUSH = 0x08
+   val GETQ = 0x09
+   val NOOP = 0x0A
+   val VERSION = 0x0B
+   val GETK = 0x0C
+   val GETKQ = 0x0D
+   val APPEND = 0x0E
+   val PREPEND = 0x0F
+   val STAT = 0x10
+   val SETQ = 0x11
+   val ADDQ = 0x12
+   val REPLACEQ = 0x13
+   val DELETEQ = 0x14
+   val INCREMENTQ = 0x15
+   val DECREMENTQ = 0x16
+   val QUITQ = 0x17
+   val FLUSHQ = 0x18
+   val APPENDQ = 0x19
+   val PREPENDQ = 0x1A
+
+   // Response statuses
+   val NO_ERROR = 0x0000
+   val KEY_NOT_FOUND = 0x0001
+   val KEY_EXISTS = 0x0002
+   val INVALID_ARGUMENTS = 0x0004
+   val ITEM_NOT_STORED = 0x0005
+   val NON_NUMERIC_VALUE = 0x0006
+   val UNKNOWN_COMMAND = 0x0081
+   val INTERNAL_ERROR = 0x0084
+
+   // Expiration sent with incr/decr when the counter must not be created if missing
+   val NO_INITIAL_VALUE = 0xFFFFFFFFL
+
+   /**
+    * Quiet operations only send a response back when they fail, and in the
+    * case of getq/getkq, when the key is found, so that clients can pipeline
+    * them and use a final noop to find out when they're done.
+    */
+   def isQuiet(opCode: Int): Boolean = opCode match {
+      case GETQ | GETKQ | SETQ | ADDQ | REPLACEQ | DELETEQ | INCREMENTQ | DECREMENTQ
+           | QUITQ | FLUSHQ | APPENDQ | PREPENDQ => true
+      case _ => false
+   }
+
+   def isKeyReturned(opCode: Int): Boolean = opCode == GETK || opCode == GETKQ
+
+   /**
+    * Builds a response, sharing the value array rather than copying it when
+    * it's big enough to make it worth it.
+    */
+   def buildResponse(opCode: Int, status: Int, opaque: Int, cas: Long,
+                     extras: ChannelBuffer, key: Array[Byte], value: Array[Byte]): ChannelBuffer = {
+      val extrasLength = if (extras == null) 0 else extras.readableBytes
+      val keyLength = if (key == null) 0 else key.length
+      val valueLength = if (value == null) 0 else value.length
+      val wrapValue = valueLength >= MinWrappedValueSize
+      val header = ChannelBuffers.buffer(HEADER_SIZE + extrasLength + keyLength + (if (wrapValue) 0 else valueLength))
+      header.writeByte(MAGIC_RES)
+      header.writeByte(opCode)
+      header.writeShort(keyLength)
+      header.writeByte(extrasLength)
+      header.writeByte(0) // Raw bytes data type
+      header.writeShort(status)
+      header.writeInt(extrasLength + keyLength + valueLength)
+      header.writeInt(opaque)
+      header.writeLong(cas)
+      if (extras != null) header.writeBytes(extras)
+      if (key != null) header.writeBytes(key)
+      if (wrapValue)
+         ChannelBuffers.wrappedBuffer(header, ChannelBuffers.wrappedBuffer(value))
+      else {
+         if (value != null) header.writeBytes(value)
+         header
+      }
+   }
+
+   // Smaller values are cheaper to copy than to wrap in a composite buffer
+   private val MinWrappedValueSize = 1024
+
+}
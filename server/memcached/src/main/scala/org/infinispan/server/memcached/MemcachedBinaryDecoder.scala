@@ -0,0 +1,498 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import org.infinispan.server.core.Operation._
+import org.infinispan.server.memcached.MemcachedOperation._
+import org.infinispan.context.Flag
+import java.util.concurrent.{TimeUnit, ScheduledExecutorService}
+import java.io.{IOException, StreamCorruptedException}
+import java.nio.channels.ClosedChannelException
+import org.infinispan.server.core._
+import org.infinispan.{AdvancedCache, Version, CacheException, Cache}
+import collection.mutable.ListBuffer
+import org.jboss.netty.buffer.{ChannelBuffers, ChannelBuffer}
+import transport.NettyTransport
+import DecoderState._
+import org.jboss.netty.channel._
+import java.lang.StringBuilder
+import BinaryProtocolUtil._
+import TextProtocolUtil.concat
+
+/**
+ * A Memcached binary protocol decoder. Connections whose first byte is the
+ * binary request magic byte are handed over to this decoder by
+ * {@link MemcachedDecoder}.
+ *
+ * Gets, quiet or not, are queued and executed together, in order, right
+ * before the next response is written or once the requests available have
+ * been decoded. This way, a multi-get sent as a sequence of getq/getkq
+ * requests followed by a noop is looked up in one go and answered with a
+ * single write.
+ *
+ * @since 5.2
+ */
+class MemcachedBinaryDecoder(memcachedCache: Cache[String, MemcachedValue], scheduler: ScheduledExecutorService, transport: NettyTransport)
+      extends AbstractProtocolDecoder[String, MemcachedValue](transport) {
+   import MemcachedBinaryDecoder._
+
+   cache = memcachedCache
+
+   type SuitableParameters = MemcachedBinaryParameters
+   type SuitableHeader = MemcachedBinaryHeader
+
+   private val isTrace = isTraceEnabled
+   // Reader index right after the current request, to skip what's left of it if it fails
+   private var bodyEnd = 0
+   private var keyBytes: Array[Byte] = null
+   private var lastVersion = 0L
+   private var isCorrupted = false
+   private val pendingGets = new ListBuffer[PendingGet]
+   // Channel of the message being decoded, where the queued gets are written
+   private var channel: Channel = null
+
+   override def readHeader(buffer: ChannelBuffer): (Option[MemcachedBinaryHeader], Boolean) = {
+      header = null.asInstanceOf[MemcachedBinaryHeader]
+      val magic = buffer.readUnsignedByte
+      if (magic != MAGIC_REQ) {
+         isCorrupted = true
+         throw new StreamCorruptedException("Invalid magic byte: " + magic)
+      }
+      val opCode = buffer.readUnsignedByte
+      val keyLength = buffer.readUnsignedShort
+      val extrasLength = buffer.readUnsignedByte
+      buffer.skipBytes(3) // Data type and vbucket id
+      val bodyLength = buffer.readInt
+      val opaque = buffer.readInt
+      val cas = buffer.readLong
+      val valueLength = bodyLength - keyLength - extrasLength
+      if (valueLength < 0) {
+         isCorrupted = true
+         throw new StreamCorruptedException("Total body length " + bodyLength + " is smaller than key and extras")
+      }
+      // Wait until the whole request is available, so that decoding does
+      // not need to be replayed past this point and a request that fails
+      // can be skipped without losing track of the stream
+      buffer.skipBytes(bodyLength)
+      bodyEnd = buffer.readerIndex
+      buffer.readerIndex(bodyEnd - bodyLength)
+
+      val op = toRequest(opCode, cas)
+      header = new MemcachedBinaryHeader(op, opCode, keyLength, extrasLength, valueLength, opaque, cas)
+      if (isTrace) trace("Binary request header: %s", header)
+      // The queued gets must not see the changes of the requests that follow them
+      if (op != GetRequest) writePendingGets(channel)
+      if (op == null) throw new UnknownOperationException("Unknown binary operation: " + opCode)
+      val endOfOp = op match {
+         case NoopRequest | VersionRequest | QuitRequest | StatsRequest => true
+         case FlushAllRequest => {
+            val flushDelay = if (extrasLength == 4) buffer.readInt else 0
+            params = new MemcachedBinaryParameters(0, -1, -1, 0, 0, 0, true, flushDelay)
+            true
+         }
+         case _ => false
+      }
+      if (endOfOp) buffer.readerIndex(bodyEnd) // Ignore stats keys
+      (Some(header), endOfOp)
+   }
+
+   private def toRequest(opCode: Int, cas: Long): Enumeration#Value = {
+      opCode match {
+         case GET | GETQ | GETK | GETKQ => GetRequest
+         case SET | SETQ => if (cas != 0) ReplaceIfUnmodifiedRequest else PutRequest
+         case ADD | ADDQ => PutIfAbsentRequest
+         case REPLACE | REPLACEQ => if (cas != 0) ReplaceIfUnmodifiedRequest else ReplaceRequest
+         case DELETE | DELETEQ => RemoveRequest
+         case INCREMENT | INCREMENTQ => IncrementRequest
+         case DECREMENT | DECREMENTQ => DecrementRequest
+         case APPEND | APPENDQ => AppendRequest
+         case PREPEND | PREPENDQ => PrependRequest
+         case FLUSH | FLUSHQ => FlushAllRequest
+         case QUIT | QUITQ => QuitRequest
+         case NOOP => NoopRequest
+         case VERSION => VersionRequest
+         case STAT => StatsRequest
+         case _ => null
+      }
+   }
+
+   /**
+    * In the binary protocol the extras precede the key, so they're read
+    * here, and kept as the request parameters.
+    */
+   override def readKey(b: ChannelBuffer): (String, Boolean) = {
+      val h = header
+      if (h.keyLength == 0) throw new IOException("Missing key")
+      if (h.keyLength > 250) throw new IOException("Key length over the 250 character limit")
+      params = h.op match {
+         case PutRequest | PutIfAbsentRequest | ReplaceRequest | ReplaceIfUnmodifiedRequest => {
+            if (h.extrasLength != 8) throw new IOException("Storage operations require flags and expiration")
+            val flags = b.readUnsignedInt
+            new MemcachedBinaryParameters(h.valueLength, readLifespan(b), h.cas, flags, 0, 0, true, 0)
+         }
+         case IncrementRequest | DecrementRequest => {
+            if (h.extrasLength != 20) throw new IOException("Counter operations require delta, initial value and expiration")
+            if (h.valueLength != 0) throw new IOException("Counter operations do not accept a value")
+            val delta = unsigned(b.readLong)
+            val initial = unsigned(b.readLong)
+            val createIfMissing = b.getUnsignedInt(b.readerIndex) != NO_INITIAL_VALUE
+            new MemcachedBinaryParameters(0, readLifespan(b), h.cas, 0, delta, initial, createIfMissing, 0)
+         }
+         case _ => {
+            if (h.extrasLength != 0) throw new IOException("Operation does not accept extras")
+            new MemcachedBinaryParameters(h.valueLength, -1, h.cas, 0, 0, 0, true, 0)
+         }
+      }
+      keyBytes = new Array[Byte](h.keyLength)
+      b.readBytes(keyBytes)
+      val endOfOp = h.op match {
+         case GetRequest | RemoveRequest => {
+            if (h.valueLength != 0) throw new IOException("Operation does not accept a value")
+            true
+         }
+         case _ => false
+      }
+      (new String(keyBytes, KeyCharset), endOfOp)
+   }
+
+   private def readLifespan(b: ChannelBuffer): Int = {
+      val lifespan = b.readInt
+      if (lifespan <= 0) -1 else lifespan
+   }
+
+   private def unsigned(l: Long): BigInt = if (l < 0) BigInt(l) + TwoToThe64 else BigInt(l)
+
+   override def readParameters(ch: Channel, b: ChannelBuffer): Boolean = false // Read along with the key
+
+   override protected def readValue(b: ChannelBuffer) {
+      b.readBytes(rawValue)
+   }
+
+   override def createValue(nextVersion: Long): MemcachedValue = {
+      lastVersion = nextVersion
+      new MemcachedValue(rawValue, nextVersion, params.flags)
+   }
+
+   override def getCache: Cache[String, MemcachedValue] = cache
+
+   override protected def get(buffer: ChannelBuffer): AnyRef = {
+      val k = readKey(buffer)._1
+      pendingGets += new PendingGet(header, k, keyBytes)
+      // Only a non quiet get, or any other request, forces the gets to be executed
+      if (isQuiet(header.opCode)) QueuedGet else null
+   }
+
+   override protected def writeResponse(ch: Channel, response: AnyRef): AnyRef = {
+      if (response eq QueuedGet) {
+         super.writeResponse(ch, null)
+      } else {
+         writePendingGets(ch)
+         super.writeResponse(ch, response)
+      }
+   }
+
+   private def writePendingGets(ch: Channel) {
+      if (!pendingGets.isEmpty) {
+         if (isTrace) trace("Executing %d queued gets", pendingGets.size)
+         for (g <- pendingGets) {
+            val response = createGetResponse(g, cache.get(g.key))
+            if (response != null) ch.write(response)
+         }
+         pendingGets.clear()
+      }
+   }
+
+   override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
+      channel = ctx.getChannel
+      super.messageReceived(ctx, e)
+      // Quiet gets not followed by any other request yet
+      writePendingGets(ctx.getChannel)
+   }
+
+   override def exceptionCaught(ctx: ChannelHandlerContext, e: ExceptionEvent) {
+      val ch = ctx.getChannel
+      writePendingGets(ch)
+      super.exceptionCaught(ctx, e)
+      if (isCorrupted) ch.close
+   }
+
+   override protected def customDecodeHeader(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      val h = header
+      h.op match {
+         case NoopRequest => writeResponse(ch, buildResponse(h, NO_ERROR, 0, null, null, null))
+         case VersionRequest => writeResponse(ch, buildResponse(h, NO_ERROR, 0, null, null, Version.VERSION.getBytes))
+         case FlushAllRequest => flushAll(ch)
+         case QuitRequest => {
+            writeResponse(ch, null)
+            if (isQuiet(h.opCode))
+               ch.close
+            else
+               ch.write(buildResponse(h, NO_ERROR, 0, null, null, null)).addListener(ChannelFutureListener.CLOSE)
+            null
+         }
+      }
+   }
+
+   override protected def customDecodeKey(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         case AppendRequest | PrependRequest | IncrementRequest | DecrementRequest => {
+            key = readKey(buffer)._1
+            checkpointTo(DECODE_PARAMETERS)
+         }
+      }
+   }
+
+   override protected def customDecodeValue(ch: Channel, buffer: ChannelBuffer): AnyRef = {
+      header.op match {
+         case AppendRequest | PrependRequest => {
+            readValue(buffer)
+            val prev = cache.get(key)
+            val ret =
+               if (prev != null) {
+                  val concatenated = header.op match {
+                     case AppendRequest => concat(prev.data, rawValue)
+                     case PrependRequest => concat(rawValue, prev.data)
+                  }
+                  lastVersion = generateVersion(cache)
+                  if (cache.replace(key, prev, new MemcachedValue(concatenated, lastVersion, prev.flags)))
+                     createSuccessResponse(prev)
+                  else // If there's a concurrent modification on this key, treat it as we couldn't replace it
+                     buildErrorResponse(ITEM_NOT_STORED, "Not stored")
+               } else {
+                  buildErrorResponse(ITEM_NOT_STORED, "Not stored")
+               }
+            writeResponse(ch, ret)
+         }
+         case IncrementRequest | DecrementRequest => writeResponse(ch, incrDecr)
+      }
+   }
+
+   private def incrDecr: AnyRef = {
+      val prev = cache.get(key)
+      if (prev == null) {
+         if (params.createIfMissing) {
+            val next = createCounterValue(params.initial, 0)
+            val existing = cache.putIfAbsent(key, next,
+               toMillis(params.lifespan), TimeUnit.MILLISECONDS, -1, TimeUnit.MILLISECONDS)
+            if (existing == null)
+               createCounterResponse(next, params.initial)
+            else
+               throw new CacheException("Counter created concurrently by another client")
+         } else {
+            buildErrorResponse(KEY_NOT_FOUND, "Not found")
+         }
+      } else {
+         val prevCounter =
+            try {
+               BigInt(new String(prev.data))
+            } catch {
+               case n: NumberFormatException => null
+            }
+         if (prevCounter == null || prevCounter < 0 || prevCounter >= TwoToThe64) {
+            buildErrorResponse(NON_NUMERIC_VALUE, "Non-numeric server-side value for incr or decr")
+         } else {
+            val newCounter = header.op match {
+               case IncrementRequest => (prevCounter + params.delta) mod TwoToThe64 // Wraps around
+               case DecrementRequest => (prevCounter - params.delta) max 0
+            }
+            val next = createCounterValue(newCounter, prev.flags)
+            if (cache.replace(key, prev, next))
+               createCounterResponse(next, newCounter)
+            else // If there's a concurrent modification on this key, the spec does not say what to do, so treat it as exceptional
+               throw new CacheException("Value modified since we retrieved from the cache, old value was " + prevCounter)
+         }
+      }
+   }
+
+   private def createCounterValue(counter: BigInt, flags: Long): MemcachedValue =
+      new MemcachedValue(counter.toString.getBytes, generateVersion(cache), flags)
+
+   private def createCounterResponse(v: MemcachedValue, counter: BigInt): AnyRef = {
+      if (isQuiet(header.opCode)) {
+         null
+      } else {
+         val counterBytes = ChannelBuffers.buffer(8)
+         counterBytes.writeLong(counter.longValue)
+         buildResponse(header, NO_ERROR, v.version, null, null, counterBytes.array)
+      }
+   }
+
+   private def flushAll(ch: Channel): AnyRef = {
+      val flushFunction = (cache: AdvancedCache[String, MemcachedValue]) => cache.withFlags(Flag.CACHE_MODE_LOCAL, Flag.SKIP_CACHE_STORE).clear
+      if (params.flushDelay == 0)
+         flushFunction(cache.getAdvancedCache)
+      else
+         scheduler.schedule(new DelayedFlushAll(cache, flushFunction), toMillis(params.flushDelay), TimeUnit.MILLISECONDS)
+      writeResponse(ch, if (isQuiet(header.opCode)) null else buildResponse(header, NO_ERROR, 0, null, null, null))
+   }
+
+   override def createSuccessResponse(prev: MemcachedValue): AnyRef = {
+      if (isQuiet(header.opCode)) {
+         null
+      } else {
+         header.op match {
+            case RemoveRequest => buildResponse(header, NO_ERROR, 0, null, null, null)
+            case _ => buildResponse(header, NO_ERROR, lastVersion, null, null, null)
+         }
+      }
+   }
+
+   override def createNotExecutedResponse(prev: MemcachedValue): AnyRef = {
+      header.op match {
+         case ReplaceRequest => buildErrorResponse(KEY_NOT_FOUND, "Not found")
+         case _ => buildErrorResponse(KEY_EXISTS, "Data exists for key")
+      }
+   }
+
+   override def createNotExistResponse: AnyRef = buildErrorResponse(KEY_NOT_FOUND, "Not found")
+
+   override def createGetResponse(k: String, v: MemcachedValue): AnyRef =
+      createGetResponse(new PendingGet(header, k, keyBytes), v)
+
+   private def createGetResponse(g: PendingGet, v: MemcachedValue): AnyRef = {
+      val returnedKey = if (isKeyReturned(g.header.opCode)) g.keyBytes else null
+      if (v != null) {
+         val flags = ChannelBuffers.buffer(4)
+         flags.writeInt(v.flags.toInt)
+         buildResponse(g.header, NO_ERROR, v.version, flags, returnedKey, v.data)
+      } else if (isQuiet(g.header.opCode)) {
+         null
+      } else {
+         buildResponse(g.header, KEY_NOT_FOUND, 0, null, returnedKey, "Not found".getBytes)
+      }
+   }
+
+   override def createMultiGetResponse(pairs: Map[String, MemcachedValue]): AnyRef =
+      null // Multi-gets are sent as a sequence of single gets
+
+   override def createStatsResponse: AnyRef = {
+      val stats = cache.getAdvancedCache.getStats
+      List[ChannelBuffer](
+         buildStat("pid", 0),
+         buildStat("uptime", stats.getTimeSinceStart),
+         buildStat("time", TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis)),
+         buildStat("version", cache.getVersion),
+         buildStat("curr_items", stats.getCurrentNumberOfEntries),
+         buildStat("total_items", stats.getTotalNumberOfEntries),
+         buildStat("cmd_get", stats.getRetrievals),
+         buildStat("cmd_set", stats.getStores),
+         buildStat("get_hits", stats.getHits),
+         buildStat("get_misses", stats.getMisses),
+         buildStat("delete_misses", stats.getRemoveMisses),
+         buildStat("delete_hits", stats.getRemoveHits),
+         buildStat("evictions", stats.getEvictions),
+         buildStat("bytes_read", transport.getTotalBytesRead),
+         buildStat("bytes_written", transport.getTotalBytesWritten),
+         buildResponse(header, NO_ERROR, 0, null, null, null) // End of stats
+      )
+   }
+
+   private def buildStat(stat: String, value: Any): ChannelBuffer =
+      buildResponse(header, NO_ERROR, 0, null, stat.getBytes, value.toString.getBytes)
+
+   override def createErrorResponse(t: Throwable): AnyRef = {
+      if (header == null) {
+         logExceptionReported(t)
+         null // The stream cannot be parsed any further, so the channel is closed
+      } else {
+         t match {
+            case c: ClosedChannelException => {
+               logExceptionReported(c)
+               null // no-op, only log
+            }
+            case u: UnknownOperationException => {
+               logExceptionReported(u)
+               buildErrorResponse(UNKNOWN_COMMAND, "Unknown command")
+            }
+            case i: IOException => {
+               logExceptionReported(i)
+               buildErrorResponse(INVALID_ARGUMENTS, i.getMessage)
+            }
+            case n: NumberFormatException => {
+               logExceptionReported(n)
+               buildErrorResponse(INVALID_ARGUMENTS, n.getMessage)
+            }
+            case _ => buildErrorResponse(INTERNAL_ERROR, String.valueOf(t.getMessage))
+         }
+      }
+   }
+
+   override protected def createServerException(e: Exception, b: ChannelBuffer): (Exception, Boolean) = {
+      // Skip what's left of the failed request, so that the next one can
+      // be processed, unless the stream could not be parsed at all
+      if (!isCorrupted && header != null && b.readerIndex < bodyEnd)
+         b.readerIndex(bodyEnd)
+      (e, !isCorrupted)
+   }
+
+   private def buildErrorResponse(status: Int, message: String): ChannelBuffer =
+      buildResponse(header, status, 0, null, null, message.getBytes)
+
+   private def buildResponse(h: MemcachedBinaryHeader, status: Int, cas: Long,
+                             extras: ChannelBuffer, key: Array[Byte], value: Array[Byte]): ChannelBuffer =
+      BinaryProtocolUtil.buildResponse(h.opCode, status, h.opaque, cas, extras, key, value)
+
+}
+
+object MemcachedBinaryDecoder {
+   private val KeyCharset = "UTF-8"
+   private val TwoToThe64 = BigInt(1) << 64
+   // Returned instead of a response by gets that have been queued
+   private val QueuedGet = new Object
+}
+
+private class PendingGet(val header: MemcachedBinaryHeader, val key: String, val keyBytes: Array[Byte])
+
+class MemcachedBinaryHeader(op: Enumeration#Value, val opCode: Int, val keyLength: Int, val extrasLength: Int,
+                            val valueLength: Int, val opaque: Int, val cas: Long)
+        extends RequestHeader(op) {
+   override def toString = {
+      new StringBuilder().append("MemcachedBinaryHeader").append("{")
+         .append("op=").append(op)
+         .append(", opCode=").append(opCode)
+         .append(", keyLength=").append(keyLength)
+         .append(", extrasLength=").append(extrasLength)
+         .append(", valueLength=").append(valueLength)
+         .append(", opaque=").append(opaque)
+         .append(", cas=").append(cas)
+         .append("}").toString
+   }
+}
+
+class MemcachedBinaryParameters(override val valueLength: Int, override val lifespan: Int,
+                                override val streamVersion: Long, val flags: Long, val delta: BigInt,
+                                val initial: BigInt, val createIfMissing: Boolean, val flushDelay: Int)
+        extends RequestParameters(valueLength, lifespan, -1, streamVersion) {
+   override def toString = {
+      new StringBuilder().append("MemcachedBinaryParameters").append("{")
+         .append("valueLength=").append(valueLength)
+         .append(", lifespan=").append(lifespan)
+         .append(", streamVersion=").append(streamVersion)
+         .append(", flags=").append(flags)
+         .append(", delta=").append(delta)
+         .append(", initial=").append(initial)
+         .append(", createIfMissing=").append(createIfMissing)
+         .append(", flushDelay=").append(flushDelay)
+         .append("}").toString
+   }
+}
@@ -38,12 +38,14 @@ import scala.collection.immutable
 import org.jboss.netty.buffer.ChannelBuffer
 import transport.NettyTransport
 import DecoderState._
-import org.jboss.netty.channel.Channel
+import org.jboss.netty.channel.{MessageEvent, ChannelHandlerContext, Channel}
 import java.lang.StringBuilder
 import TextProtocolUtil._
 
 /**
- * A Memcached protocol specific decoder
+ * A Memcached protocol specific decoder. It decodes the text protocol, and
+ * hands over connections that start with a binary request to a
+ * {@link MemcachedBinaryDecoder}.
  *
  * @author Galder Zamarreño
  * @since 4.1
@@ -67,6 +69,29 @@ class MemcachedDecoder(memcachedCache: Cache[String, MemcachedValue], scheduler:
    private final val replaceIfUnmodifiedHits = new AtomicLong(0)
    private final val replaceIfUnmodifiedBadval = new AtomicLong(0)
    private val isTrace = isTraceEnabled
+   private var isProtocolDetected = false
+
+   override def messageReceived(ctx: ChannelHandlerContext, e: MessageEvent) {
+      if (!isProtocolDetected) {
+         isProtocolDetected = true
+         e.getMessage match {
+            case b: ChannelBuffer if b.readable && b.getUnsignedByte(b.readerIndex) == BinaryProtocolUtil.MAGIC_REQ => {
+               // Binary protocol clients are served by a dedicated decoder
+               // for the rest of the connection
+               if (isTrace) trace("Switching channel %s to the binary protocol", ctx.getChannel)
+               val binaryDecoder = new MemcachedBinaryDecoder(cache, scheduler, transport)
+               binaryDecoder.versionGenerator = versionGenerator
+               val pipeline = ctx.getPipeline
+               pipeline.addAfter(ctx.getName, "binaryDecoder", binaryDecoder)
+               pipeline.remove(this)
+               ctx.sendUpstream(e)
+               return
+            }
+            case _ => // Text protocol
+         }
+      }
+      super.messageReceived(ctx, e)
+   }
 
    override def readHeader(buffer: ChannelBuffer): (Option[RequestHeader], Boolean) = {
       var (streamOp, endOfOp) = readElement(buffer)
@@ -0,0 +1,190 @@
+/*
+ * JBoss, Home of Professional Open Source
+ * Copyright 2012 Red Hat Inc. and/or its affiliates and other
+ * contributors as indicated by the @author tags. All rights reserved.
+ * See the copyright.txt in the distribution for a full listing of
+ * individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.infinispan.server.memcached
+
+import java.lang.reflect.Method
+import org.testng.Assert._
+import org.testng.annotations.Test
+import net.spy.memcached.{CASResponse, MemcachedClient}
+import java.util.concurrent.TimeUnit
+import org.infinispan.Version
+import java.net.Socket
+import java.io.{DataInputStream, DataOutputStream}
+
+/**
+ * Tests the Memcached binary protocol against the Infinispan Memcached server.
+ *
+ * @since 5.2
+ */
+@Test(groups = Array("functional"), testName = "server.memcached.MemcachedBinaryFunctionalTest")
+class MemcachedBinaryFunctionalTest extends MemcachedSingleNodeTest {
+
+   override protected def createClient: MemcachedClient = createMemcachedBinaryClient(60000, server.getPort)
+
+   def testSetAndGet(m: Method) {
+      val f = client.set(k(m), 0, v(m))
+      assertTrue(f.get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(client.get(k(m)), v(m))
+   }
+
+   def testGetMiss(m: Method) {
+      assertNull(client.get(k(m)))
+   }
+
+   def testGetMultipleKeys(m: Method) {
+      for (i <- 1 to 5)
+         assertTrue(client.set(k(m, "k" + i + "-"), 0, v(m, "v" + i + "-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      // Sent as a sequence of quiet gets followed by a noop
+      val keys = (0 to 6).map(i => k(m, "k" + i + "-"))
+      val values = client.getBulk(keys: _*)
+      assertEquals(values.size, 5)
+      for (i <- 1 to 5)
+         assertEquals(values.get(k(m, "k" + i + "-")), v(m, "v" + i + "-"))
+   }
+
+   def testAdd(m: Method) {
+      assertTrue(client.add(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertFalse(client.add(k(m), 0, v(m, "v1-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(client.get(k(m)), v(m))
+   }
+
+   def testReplace(m: Method) {
+      assertFalse(client.replace(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.replace(k(m), 0, v(m, "v1-")).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(client.get(k(m)), v(m, "v1-"))
+   }
+
+   def testDelete(m: Method) {
+      assertTrue(client.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.delete(k(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertNull(client.get(k(m)))
+      assertFalse(client.delete(k(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+   }
+
+   def testCas(m: Method) {
+      assertTrue(client.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val cas = client.gets(k(m)).getCas
+      assertEquals(client.cas(k(m), cas, v(m, "v1-")), CASResponse.OK)
+      assertEquals(client.cas(k(m), cas, v(m, "v2-")), CASResponse.EXISTS)
+      assertEquals(client.get(k(m)), v(m, "v1-"))
+      assertEquals(client.cas(k(m, "k1-"), cas, v(m)), CASResponse.NOT_FOUND)
+   }
+
+   def testAppendAndPrepend(m: Method) {
+      assertFalse(client.append(0, k(m), "-a").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.set(k(m), 0, "b").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.append(0, k(m), "c").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.prepend(0, k(m), "a").get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(client.get(k(m)), "abc")
+   }
+
+   def testIncrAndDecr(m: Method) {
+      assertEquals(client.incr(k(m), 1), -1)
+      assertEquals(client.incr(k(m), 1, 10), 10)
+      assertEquals(client.incr(k(m), 5), 15)
+      assertEquals(client.decr(k(m), 20), 0)
+      assertEquals(client.get(k(m)), "0")
+   }
+
+   def testIncrNonNumeric(m: Method) {
+      assertTrue(client.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertEquals(client.incr(k(m), 1), -1)
+   }
+
+   def testFlush(m: Method) {
+      assertTrue(client.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertTrue(client.flush.get(timeout, TimeUnit.SECONDS).booleanValue)
+      assertNull(client.get(k(m)))
+   }
+
+   def testVersion {
+      val versions = client.getVersions
+      assertEquals(versions.size, 1)
+      assertEquals(versions.values.iterator.next, Version.VERSION)
+   }
+
+   def testQuietGetPipelinedWithDelete(m: Method) {
+      assertTrue(client.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+      val socket = new Socket(server.getHost, server.getPort)
+      try {
+         // A quiet get, a delete of the same key and a noop, in a single write
+         val out = new DataOutputStream(socket.getOutputStream)
+         writeRequest(out, 0x09, k(m), 1)
+         writeRequest(out, 0x04, k(m), 2)
+         writeRequest(out, 0x0A, "", 3)
+         out.flush
+
+         // The get is answered first, with the value it had before the delete
+         val in = new DataInputStream(socket.getInputStream)
+         val (getOp, getStatus, getOpaque, getBody) = readResponse(in)
+         assertEquals((getOp, getStatus, getOpaque), (0x09, 0, 1))
+         assertEquals(new String(getBody, 4, getBody.length - 4), v(m)) // Skip the flags
+         val (deleteOp, deleteStatus, deleteOpaque, _) = readResponse(in)
+         assertEquals((deleteOp, deleteStatus, deleteOpaque), (0x04, 0, 2))
+         val (noopOp, noopStatus, noopOpaque, _) = readResponse(in)
+         assertEquals((noopOp, noopStatus, noopOpaque), (0x0A, 0, 3))
+      } finally {
+         socket.close
+      }
+      assertNull(client.get(k(m)))
+   }
+
+   private def writeRequest(out: DataOutputStream, opCode: Int, key: String, opaque: Int) {
+      val keyBytes = key.getBytes
+      out.writeByte(0x80)
+      out.writeByte(opCode)
+      out.writeShort(keyBytes.length)
+      out.writeByte(0) // Extras length
+      out.writeByte(0) // Data type
+      out.writeShort(0) // Vbucket id
+      out.writeInt(keyBytes.length)
+      out.writeInt(opaque)
+      out.writeLong(0) // CAS
+      out.write(keyBytes)
+   }
+
+   private def readResponse(in: DataInputStream): (Int, Int, Int, Array[Byte]) = {
+      assertEquals(in.readUnsignedByte, 0x81)
+      val opCode = in.readUnsignedByte
+      in.readUnsignedShort // Key length, included in the body length
+      in.readUnsignedByte // Extras length, included in the body length
+      in.readUnsignedByte // Data type
+      val status = in.readUnsignedShort
+      val body = new Array[Byte](in.readInt)
+      val opaque = in.readInt
+      in.readLong // CAS
+      in.readFully(body)
+      (opCode, status, opaque, body)
+   }
+
+   def testSharedWithTextProtocol(m: Method) {
+      val textClient = createMemcachedClient(60000, server.getPort)
+      try {
+         assertTrue(textClient.set(k(m), 0, v(m)).get(timeout, TimeUnit.SECONDS).booleanValue)
+         assertEquals(client.get(k(m)), v(m))
+      } finally {
+         textClient.shutdown
+      }
+   }
+}
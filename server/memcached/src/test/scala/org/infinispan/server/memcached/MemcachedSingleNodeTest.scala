@@ -48,13 +48,15 @@ abstract class MemcachedSingleNodeTest extends SingleCacheManagerTest with Memca
    override def createCacheManager: EmbeddedCacheManager = {
       cacheManager = createTestCacheManager
       memcachedServer = startMemcachedTextServer(cacheManager)
-      memcachedClient = createMemcachedClient(60000, server.getPort)
+      memcachedClient = createClient
       cache = cacheManager.getCache(MemcachedServer.cacheName)
       return cacheManager
    }
 
    protected def createTestCacheManager: EmbeddedCacheManager = TestCacheManagerFactory.createLocalCacheManager(false)
 
+   protected def createClient: MemcachedClient = createMemcachedClient(60000, server.getPort)
+
    @AfterClass(alwaysRun = true)
    override def destroyAfterClass {
       super.destroyAfterClass
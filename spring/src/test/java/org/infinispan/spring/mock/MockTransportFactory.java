@@ -70,6 +70,16 @@ public Transport getTransport(final byte[] key) {
       return null;
    }
 
+   @Override
+   public SocketAddress getServer(final byte[] key) {
+      return null;
+   }
+
+   @Override
+   public Collection<SocketAddress> getServers() {
+      return null;
+   }
+
    @Override
    public boolean isTcpNoDelay() {
       return false;
@@ -90,6 +100,11 @@ public int getConnectTimeout() {
       return 1000;
    }
 
+   @Override
+   public boolean supportsAsyncResponses() {
+      return false;
+   }
+
    @Override
    public ConsistentHashFactory getConsistentHashFactory() {
       return null;